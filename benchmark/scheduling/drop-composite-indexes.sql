@@ -0,0 +1,36 @@
+-- ===========================================================================
+--  Copyrights     : CNRS
+--  Authors        : Oleg Lodygensky
+--  Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+--  Web            : http://www.xtremweb-hep.org
+--  
+--       This file is part of XtremWeb-HEP.
+-- 
+--     XtremWeb-HEP is free software: you can redistribute it and/or modify
+--     it under the terms of the GNU General Public License as published by
+--     the Free Software Foundation, either version 3 of the License, or
+--     (at your option) any later version.
+-- 
+--     XtremWeb-HEP is distributed in the hope that it will be useful,
+--     but WITHOUT ANY WARRANTY; without even the implied warranty of
+--     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+--     GNU General Public License for more details.
+-- 
+--     You should have received a copy of the GNU General Public License
+--     along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+-- ===========================================================================
+
+--
+-- This drops the composite index of 10.7.0, so that the scheduling
+-- simulator measures the baseline :
+--   java ... SchedulingSimulator --xwconfig simulator.conf \
+--            sqlfile=drop-composite-indexes.sql plans=10
+-- works_done is created like works, hence it has the index too.
+--
+
+DROP INDEX works_owner_status ON works;
+DROP INDEX works_owner_status ON works_done;
+
+--
+-- End Of File
+--
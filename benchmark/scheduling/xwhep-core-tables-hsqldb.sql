@@ -0,0 +1,847 @@
+-- ===========================================================================
+--  Copyrights     : CNRS
+--  Authors        : Oleg Lodygensky
+--  Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+--  Web            : http://www.xtremweb-hep.org
+--  
+--       This file is part of XtremWeb-HEP.
+-- 
+--     XtremWeb-HEP is free software: you can redistribute it and/or modify
+--     it under the terms of the GNU General Public License as published by
+--     the Free Software Foundation, either version 3 of the License, or
+--     (at your option) any later version.
+-- 
+--     XtremWeb-HEP is distributed in the hope that it will be useful,
+--     but WITHOUT ANY WARRANTY; without even the implied warranty of
+--     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+--     GNU General Public License for more details.
+-- 
+--     You should have received a copy of the GNU General Public License
+--     along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+-- ===========================================================================
+
+-- ===========================================================================
+--
+-- File    : xwhep-core-tables-hsqldb.sql
+--
+-- Purpose : This creates the XtremWeb-HEP tables in an HSQLDB database, for
+--           xtremweb.dispatcher.SchedulingSimulator (DBSQLFILE).
+--           This is xwhep-core-tables-create-tables.sql.in translated for
+--           HSQLDB : no engine nor comment clause, no unsigned type,
+--           indexes created by "create index" with names unique within the
+--           schema, "like" tables created by "(like ...)", no user and no
+--           grant. It must follow changes of the tables.
+--           The schema is named after DBNAME, which must be xwsimulation.
+--
+-- ===========================================================================
+
+CREATE SCHEMA xwsimulation;
+SET SCHEMA xwsimulation;
+
+-- ===========================================================================
+--
+-- Tables containing constant data
+--
+-- ===========================================================================
+
+-- ---------------------------------------------------------------------------
+-- Table "versions"  (since XWHEP 5.7.3)
+-- Timestamps of XtremWeb-HEP middleware versions
+-- ---------------------------------------------------------------------------
+create table if not exists  versions  (
+version       varchar(254),
+installation  datetime
+);
+
+-- ---------------------------------------------------------------------------
+-- Table "userRights" :
+-- Constants for "users"."rights"
+-- ---------------------------------------------------------------------------
+create table if not exists  userRights  (
+userRightId           smallint   not null  primary key,
+userRightName         varchar(254)      not null  unique,
+mtime                 timestamp,
+userRightDescription  varchar(254)
+);
+
+-- ---------------------------------------------------------------------------
+-- Table "statuses" :
+-- Constants for *."status"
+-- ---------------------------------------------------------------------------
+create table if not exists  statuses  (
+statusId          smallint   not null  primary key,
+statusName        varchar(36)       not null  unique,
+mtime             timestamp,
+statusObjects     varchar(254)      not null,
+statusComment     varchar(254),
+statusDeprecated  varchar(254)
+);
+
+-- ---------------------------------------------------------------------------
+-- Table "dataTypes" :
+-- Constants for "datas"."type"
+-- ---------------------------------------------------------------------------
+create table if not exists  dataTypes  (
+dataTypeId           smallint   not null  primary key,
+dataTypeName         varchar(254)      not null  unique,
+mtime                timestamp,
+dataTypeDescription  varchar(254)
+);
+
+-- ---------------------------------------------------------------------------
+-- Table "appTypes" :
+-- Constants for "apps"."type"
+-- ---------------------------------------------------------------------------
+create table if not exists  appTypes  (
+appTypeId           smallint   not null  primary key,
+appTypeName         varchar(254)      not null  unique,
+mtime               timestamp,
+appTypeDescription  varchar(254)
+);
+
+-- ---------------------------------------------------------------------------
+-- Table "packageTypes" :
+-- Constants for "apps"."neededpackages"
+-- ---------------------------------------------------------------------------
+create table if not exists  packageTypes  (
+packageTypeId           smallint   not null  primary key,
+packageTypeName         varchar(254)      not null  unique,
+mtime                   timestamp,
+packageTypeDescription  varchar(254)
+);
+
+-- ---------------------------------------------------------------------------
+-- Table "oses" (Operating Systems) :
+-- Constants for *."os"
+-- ---------------------------------------------------------------------------
+create table if not exists  oses  (
+osId           smallint   not null  primary key,
+osName         char(7)           not null  unique,
+mtime          timestamp,
+osDescription  varchar(254)
+);
+
+-- ---------------------------------------------------------------------------
+-- Table "cpuTypes" :
+-- Constants for *."cpuType"
+-- ---------------------------------------------------------------------------
+create table if not exists  cpuTypes  (
+cpuTypeId           smallint   not null  primary key,
+cpuTypeName         char(7)           not null  unique,
+mtime               timestamp,
+cpuTypeDescription  varchar(254)
+);
+
+-- ===========================================================================
+--
+-- Initial data for tables containing constant data
+--
+-- ===========================================================================
+
+start transaction;
+-- ---------------------------------------------------------------------------
+-- Data for table "versions"
+-- ---------------------------------------------------------------------------
+insert into versions (version, installation) values ('10.7.0', now());
+
+-- ---------------------------------------------------------------------------
+-- Data for table "userRights"
+-- ---------------------------------------------------------------------------
+insert into userRights (userRightId, userRightName, userRightDescription) values ( 0, 'NONE',            null);
+insert into userRights (userRightId, userRightName, userRightDescription) values ( 1, 'LISTJOB',         null);
+insert into userRights (userRightId, userRightName, userRightDescription) values ( 2, 'INSERTJOB',       null);
+insert into userRights (userRightId, userRightName, userRightDescription) values ( 3, 'GETJOB',          null);
+insert into userRights (userRightId, userRightName, userRightDescription) values ( 4, 'DELETEJOB',       null);
+insert into userRights (userRightId, userRightName, userRightDescription) values ( 5, 'LISTDATA',        null);
+insert into userRights (userRightId, userRightName, userRightDescription) values ( 6, 'INSERTDATA',      null);
+insert into userRights (userRightId, userRightName, userRightDescription) values ( 7, 'GETDATA',         null);
+insert into userRights (userRightId, userRightName, userRightDescription) values ( 8, 'DELETEDATA',      null);
+insert into userRights (userRightId, userRightName, userRightDescription) values ( 9, 'LISTGROUP',       null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (10, 'INSERTGROUP',     null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (11, 'GETGROUP',        null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (12, 'DELETEGROUP',     null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (13, 'LISTSESSION',     null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (14, 'INSERTSESSION',   null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (15, 'GETSESSION',      null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (16, 'DELETESESSION',   null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (17, 'LISTHOST',        null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (18, 'GETHOST',         null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (19, 'LISTUSER',        null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (20, 'GETUSER',         null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (21, 'LISTUSERGROUP',   null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (22, 'GETUSERGROUP',    null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (23, 'LISTAPP',         null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (24, 'GETAPP',          null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (25, 'STANDARD_USER',   null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (26, 'UPDATEWORK',      null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (27, 'WORKER_USER',     null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (28, 'INSERTUSER',      null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (29, 'DELETEUSER',      null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (30, 'INSERTAPP',       null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (31, 'DELETEAPP',       null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (32, 'ADVANCED_USER',   null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (33, 'INSERTHOST',      null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (34, 'DELETEHOST',      null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (35, 'INSERTUSERGROUP', null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (36, 'DELETEUSERGROUP', null);
+insert into userRights (userRightId, userRightName, userRightDescription) values (37, 'SUPER_USER',      null);
+
+-- ---------------------------------------------------------------------------
+-- Data for table "statuses"
+-- ---------------------------------------------------------------------------
+insert into statuses (statusId, statusName, statusObjects, statusComment, statusDeprecated) values ( 0, 'NONE',          'none',                null,                                                                                null);
+insert into statuses (statusId, statusName, statusObjects, statusComment, statusDeprecated) values ( 1, 'ANY',           'any',                 null,                                                                                null);
+insert into statuses (statusId, statusName, statusObjects, statusComment, statusDeprecated) values ( 2, 'WAITING',       'works',               'The object is stored on server but not in the server queue yet',                    null);
+insert into statuses (statusId, statusName, statusObjects, statusComment, statusDeprecated) values ( 3, 'PENDING',       'works, tasks',        'The object is stored and inserted in the server queue',                             null);
+insert into statuses (statusId, statusName, statusObjects, statusComment, statusDeprecated) values ( 4, 'RUNNING',       'works, tasks',        'The object is being run by a worker',                                               null);
+insert into statuses (statusId, statusName, statusObjects, statusComment, statusDeprecated) values ( 5, 'ERROR',         'any',                 'The object is erroneous',                                                           null);
+insert into statuses (statusId, statusName, statusObjects, statusComment, statusDeprecated) values ( 6, 'COMPLETED',     'works, tasks',        'The job has been successfully computed',                                            null);
+insert into statuses (statusId, statusName, statusObjects, statusComment, statusDeprecated) values ( 7, 'ABORTED',       'works, tasks',        'NOT used anymore', 'Since XWHEP, aborted objects are set to PENDING');
+insert into statuses (statusId, statusName, statusObjects, statusComment, statusDeprecated) values ( 8, 'LOST',          'works, tasks',        'NOT used anymore', 'Since XWHEP, lost objects are set to PENDING');
+insert into statuses (statusId, statusName, statusObjects, statusComment, statusDeprecated) values ( 9, 'DATAREQUEST',   'datas, works, tasks', 'The server is unable to store the uploaded object. Waiting for another upload try', null);
+insert into statuses (statusId, statusName, statusObjects, statusComment, statusDeprecated) values (10, 'RESULTREQUEST', 'works',               'The worker should retry to upload the results',                                     null);
+insert into statuses (statusId, statusName, statusObjects, statusComment, statusDeprecated) values (11, 'AVAILABLE',     'datas',               'The data is available and can be downloaded on demand',                             null);
+insert into statuses (statusId, statusName, statusObjects, statusComment, statusDeprecated) values (12, 'UNAVAILABLE',   'datas',               'The data is not available and can not be downloaded on demand',                     null);
+insert into statuses (statusId, statusName, statusObjects, statusComment, statusDeprecated) values (13, 'REPLICATING',   'works',               'The object is being replicated',                                                   null);
+
+-- ---------------------------------------------------------------------------
+-- Data for table "dataTypes"
+-- ---------------------------------------------------------------------------
+insert into dataTypes (dataTypeId, dataTypeName, dataTypeDescription) values ( 0, 'NONE',           'Unknown data type');
+insert into dataTypes (dataTypeId, dataTypeName, dataTypeDescription) values ( 1, 'BINARY',         'Binary data');
+insert into dataTypes (dataTypeId, dataTypeName, dataTypeDescription) values ( 2, 'LIBRARY',        'Library data');
+insert into dataTypes (dataTypeId, dataTypeName, dataTypeDescription) values ( 3, 'JAVA',           'Java byte code');
+insert into dataTypes (dataTypeId, dataTypeName, dataTypeDescription) values ( 4, 'TEXT',           'Text data');
+insert into dataTypes (dataTypeId, dataTypeName, dataTypeDescription) values ( 5, 'ZIP',            'Compressed data');
+insert into dataTypes (dataTypeId, dataTypeName, dataTypeDescription) values ( 6, 'X509',           'X509 certificate');
+insert into dataTypes (dataTypeId, dataTypeName, dataTypeDescription) values ( 7, 'URIPASSTHROUGH', 'Text file containing a list of uri, one per line');
+insert into dataTypes (dataTypeId, dataTypeName, dataTypeDescription) values ( 8, 'UDPPACKET',      'Data that should be send using udp protocol');
+insert into dataTypes (dataTypeId, dataTypeName, dataTypeDescription) values ( 9, 'STREAM',         'Data that should be send using tcp protocol');
+insert into dataTypes (dataTypeId, dataTypeName, dataTypeDescription) values (10, 'ISO',            'Disk image');
+insert into dataTypes (dataTypeId, dataTypeName, dataTypeDescription) values (11, 'VMDK',           'Virtual machine disk');
+insert into dataTypes (dataTypeId, dataTypeName, dataTypeDescription) values (12, 'VDI',            'Virtual disk image');
+insert into dataTypes (dataTypeId, dataTypeName, dataTypeDescription) values (13, 'SH',             'SH script');
+insert into dataTypes (dataTypeId, dataTypeName, dataTypeDescription) values (14, 'BAT',            'CMD script');
+
+-- ---------------------------------------------------------------------------
+-- Data for table "appTypes"
+-- ---------------------------------------------------------------------------
+insert into appTypes (appTypeId, appTypeName, appTypeDescription) values (0, 'NONE',       'Unknown application type.');
+insert into appTypes (appTypeId, appTypeName, appTypeDescription) values (1, 'DEPLOYABLE', 'Type for an application that must be deployed :  Its binary must be downloaded by volunteer resources.');
+insert into appTypes (appTypeId, appTypeName, appTypeDescription) values (2, 'SHARED',     'Type for an application that is shared by volunteer resources :  Its binary should not be downloaded by volunteer resources.');
+insert into appTypes (appTypeId, appTypeName, appTypeDescription) values (3, 'VIRTUALBOX', 'Type for a VirtualBox image of a virtual machine');
+insert into appTypes (appTypeId, appTypeName, appTypeDescription) values (4, 'DOCKER',     'Type for a Docker image of a container');
+
+-- ---------------------------------------------------------------------------
+-- Data for table "packageTypes"
+-- ---------------------------------------------------------------------------
+insert into packageTypes (packageTypeId, packageTypeName, packageTypeDescription) values (0, 'NONE',   'Unknown package type');
+insert into packageTypes (packageTypeId, packageTypeName, packageTypeDescription) values (1, 'GEANT4', 'Package for High Energy Physics');
+insert into packageTypes (packageTypeId, packageTypeName, packageTypeDescription) values (2, 'ROOT',   'Package for High Energy Physics');
+
+-- ---------------------------------------------------------------------------
+-- Data for table "oses"
+-- ---------------------------------------------------------------------------
+insert into oses (osId, osName, osDescription) values (0, 'NONE',    'Unknown');
+insert into oses (osId, osName, osDescription) values (1, 'ANDROID', 'Android');
+insert into oses (osId, osName, osDescription) values (2, 'JAVA',    'Java Virtual Machine');
+insert into oses (osId, osName, osDescription) values (3, 'LINUX',   'Linux');
+insert into oses (osId, osName, osDescription) values (4, 'MACOSX',  'MacOS-X ');
+insert into oses (osId, osName, osDescription) values (5, 'WIN32',   'MS-Windows 32 bits');
+insert into oses (osId, osName, osDescription) values (6, 'WIN64',   'MS-Windows 64 bits');
+
+-- ---------------------------------------------------------------------------
+-- Data for table "cpuTypes"
+-- ---------------------------------------------------------------------------
+insert into cpuTypes (cpuTypeId, cpuTypeName, cpuTypeDescription) values (0, 'NONE',   'Unknown');
+insert into cpuTypes (cpuTypeId, cpuTypeName, cpuTypeDescription) values (1, 'ALL',    'Architecture independant');
+insert into cpuTypes (cpuTypeId, cpuTypeName, cpuTypeDescription) values (2, 'AMD64',  'AMD - 64 bits');
+insert into cpuTypes (cpuTypeId, cpuTypeName, cpuTypeDescription) values (3, 'ARM',    'Advanced RISC Machines');
+insert into cpuTypes (cpuTypeId, cpuTypeName, cpuTypeDescription) values (4, 'IA64',   'Intel Itanium - 64 bits');
+insert into cpuTypes (cpuTypeId, cpuTypeName, cpuTypeDescription) values (5, 'IX86',   'Intel x86 - 32 bits');
+insert into cpuTypes (cpuTypeId, cpuTypeName, cpuTypeDescription) values (6, 'PPC',    'Power PC');
+insert into cpuTypes (cpuTypeId, cpuTypeName, cpuTypeDescription) values (7, 'X86_64', 'Intel x86 - 64 bits');
+
+commit;
+
+-- ===========================================================================
+--
+-- Tables referencing :
+--        - Tables containing constant data
+--        - Other tables
+--
+-- ===========================================================================
+
+-- ---------------------------------------------------------------------------
+-- Table "users" :
+-- Owners of objects.  Most users may submit works.
+-- ---------------------------------------------------------------------------
+create table if not exists  users  (
+uid           char(36)          not null  primary key,
+login         varchar(254)      not null  unique,
+userRightId   smallint   not null  default 255,
+rights        varchar(254)      not null  default 'NONE',
+usergroupUID  char(36),
+ownerUID      char(36)          not null,
+mtime         timestamp,
+revision      bigint                      default 0,
+nbJobs        int(15)                     default 0,
+pendingJobs   int(15)                     default 0,
+runningJobs   int(15)                     default 0,
+errorJobs     int(15)                     default 0,
+usedCpuTime   bigint                      default 0,
+certificate   text,
+accessRights  int(4)                      default 1792,
+password      varchar(254)      not null  default '',
+email         varchar(254)      not null  default '',
+fname         varchar(254),
+lname         varchar(254),
+country       varchar(254),
+challenging   char(5)                     default 'false',
+isdeleted     char(5)                     default 'false',
+errorMsg      varchar(254)
+);
+create index users_userRightId on users (userRightId);
+create index users_usergroupUID on users (usergroupUID);
+create index users_ownerUID on users (ownerUID);
+
+create table if not exists users_history (like users);
+
+-- ---------------------------------------------------------------------------
+-- Table "usergroups" :
+-- Groups of users
+-- ---------------------------------------------------------------------------
+create table if not exists  usergroups  (
+uid           char(36)      not null  primary key,
+label         varchar(254)  not null,
+ownerUID      char(36)      not null,
+mtime         timestamp,
+revision      bigint                  default 0,
+accessRights  int(4)                  default 1792,
+webpage       varchar(254),
+project       char(5)                 default 'true',
+isdeleted     char(5)                 default 'false',
+errorMsg      varchar(254)
+);
+create index usergroups_ownerUID on usergroups (ownerUID);
+
+create table if not exists usergroups_history (like usergroups);
+
+-- ---------------------------------------------------------------------------
+-- Table "memberships" :
+-- Pure n-n relationship between "users" and "usergoups"
+-- ---------------------------------------------------------------------------
+create table if not exists  memberships  (
+userUID       char(36)   not null,
+usergroupUID  char(36)   not null,
+mtime         timestamp
+);
+create index memberships_userUID on memberships (userUID);
+create index memberships_usergroupUID on memberships (usergroupUID);
+
+create table if not exists memberships_history (like memberships);
+
+-- ---------------------------------------------------------------------------
+-- Table "hosts" :
+-- Computing resources where an XWHEP worker may run
+-- ---------------------------------------------------------------------------
+create table if not exists  hosts  (
+uid                  char(36)      not null  primary key,
+osId                 smallint ,
+os                   char(7),
+osversion            varchar(36),
+cpuTypeId            smallint ,
+cputype              char(7),
+usergroupUID         char(36),
+project              varchar(254),
+sharedapps           varchar(254),
+sharedpackages       varchar(254),
+shareddatas          varchar(254),
+ownerUID             char(36)      not null,
+name                 varchar(254),
+mtime                timestamp,
+revision             bigint                  default 0,
+poolworksize         int(2)                  default 0,
+nbJobs               int(15)                 default 0,
+pendingJobs          int(15)                 default 0,
+runningJobs          int(15)                 default 0,
+errorJobs            int(15)                 default 0,
+timeOut              int(15),
+avgExecTime          int(15)                 default 0,
+lastAlive            datetime,
+nbconnections        int(10),
+natedipaddr          varchar(50),
+ipaddr               varchar(50),
+hwaddr               varchar(36),
+timezone             varchar(254),
+javaversion          varchar(254),
+javadatamodel        int(4),
+cpunb                int(2),
+cpumodel             varchar(50),
+cpuspeed             int(10)                 default 0,
+totalmem             bigint                  default 0,
+availablemem         int(10)                 default 0,
+totalswap            bigint                  default 0,
+totaltmp             bigint                  default 0,
+freetmp              bigint                  default 0,
+timeShift            int(15),
+avgping              int(20),
+nbping               int(10),
+uploadbandwidth      float,
+downloadbandwidth    float,
+accessRights         int(4)                  default 1792,
+cpuLoad              int(3)                  default 50,
+active               char(5)                 default 'true',
+available            char(5)                 default 'false',
+incomingconnections  char(5)                 default 'false',
+acceptbin            char(5)                 default 'true',
+version              varchar(254)  not null,
+traces               char(5)                 default 'false',
+isdeleted            char(5)                 default 'false',
+pilotjob             char(5)                 default 'false',
+sgid                 varchar(254),
+jobid                varchar(254),
+batchid              varchar(254),
+userproxy            varchar(254),
+errorMsg             varchar(254)
+);
+create index hosts_osId on hosts (osId);
+create index hosts_cputypeId on hosts (cputypeId);
+create index hosts_usergroupUID on hosts (usergroupUID);
+create index hosts_ownerUID on hosts (ownerUID);
+create index hosts_characteristics on hosts (name, ipaddr, hwaddr, cpuTypeId, cpunb, cpumodel, osId, osversion);
+
+create table if not exists hosts_history (like hosts);
+
+-- ---------------------------------------------------------------------------
+-- Table "traces" :
+-- Traces from workers (to trace CPU, RAM, Disk etc. activities)
+-- NOT USED ANYMORE
+-- ---------------------------------------------------------------------------
+create table if not exists  traces  (
+uid           char(36)      not null  primary key,
+hostUID       char(36)      not null  default '',
+ownerUID      char(36)      not null,
+mtime         timestamp,
+revision      bigint                  default 0,
+login         varchar(254)  not null  default '',
+arrivalDate   datetime      not null,
+startDate     datetime      not null,
+endDate       datetime      not null,
+accessRights  int(4)                  default 1792,
+data          varchar(254)  not null  default '',
+isdeleted     char(5)                 default 'false'
+);
+create index traces_hostUID on traces (hostUID);
+create index traces_ownerUID on traces (ownerUID);
+
+create table if not exists traces_history (like traces);
+
+-- ---------------------------------------------------------------------------
+-- Table "sharedAppTypes" :
+-- Pure n-n relationship between "hosts" and "appTypes"
+-- ---------------------------------------------------------------------------
+create table if not exists  sharedAppTypes  (
+hostUID    char(36)            not null,
+appTypeId  smallint     not null,
+mtime      timestamp,
+primary key (hostUID, appTypeId)
+);
+create index sharedAppTypes_hostUID on sharedAppTypes (hostUID);
+create index sharedAppTypes_appTypeId on sharedAppTypes (appTypeId);
+
+create table if not exists sharedAppTypes_history (like sharedAppTypes);
+
+-- ---------------------------------------------------------------------------
+-- Table "sharedPackageTypes" :
+-- Pure n-n relationship between "hosts" and "packageTypes"
+-- ---------------------------------------------------------------------------
+create table if not exists  sharedPackageTypes  (
+hostUID        char(36)            not null,
+packageTypeId  smallint     not null,
+mtime          timestamp,
+primary key (hostUID, packageTypeId)
+);
+create index sharedPackageTypes_hostUID on sharedPackageTypes (hostUID);
+create index sharedPackageTypes_packageTypeId on sharedPackageTypes (packageTypeId);
+
+create table if not exists sharedPackageTypes_history (like sharedPackageTypes);
+
+-- ---------------------------------------------------------------------------
+-- Table "datas" :
+-- Files (binaries, input files, results)
+-- ---------------------------------------------------------------------------
+create table if not exists  datas  (
+uid            char(36)          not null  primary key,
+workUID        char(36),
+package        varchar(254),
+statusId       smallint   not null  default 255,
+status         varchar(36)       not null  default 'NONE',
+dataTypeId     smallint ,
+type           varchar(254),
+osId           smallint ,
+os             char(7),
+osVersion      varchar(36),
+cpuTypeId      smallint ,
+cpu            char(7),
+ownerUID       char(36)          not null,
+name           varchar(254),
+mtime          timestamp,
+revision       bigint                      default 0,
+uri            varchar(254),
+accessRights   int(4)                      default 1792,
+links          int(4),
+accessDate     datetime,
+insertionDate  datetime,
+md5            varchar(254),
+size           bigint,
+sendToClient   char(5)                     default 'false',
+replicated     char(5)                     default 'false',
+isdeleted      char(5)                     default 'false',
+errorMsg       varchar(254)
+);
+create index datas_statusId on datas (statusId);
+create index datas_dataTypeId on datas (dataTypeId);
+create index datas_osId on datas (osId);
+create index datas_cpuTypeId on datas (cpuTypeId);
+create index datas_ownerUID on datas (ownerUID);
+
+create table if not exists datas_history (like datas);
+
+-- ---------------------------------------------------------------------------
+-- Table "apps" :
+-- Applications, submitted by users inside works
+-- ---------------------------------------------------------------------------
+create table if not exists  apps  (
+uid                 char(36)          not null  primary key,
+name                varchar(254)      not null  unique,
+appTypeId           smallint   not null  default 255,
+type                varchar(254)      not null  default 'NONE',
+packageTypeId       smallint ,
+neededpackages      varchar(254),
+ownerUID            char(36)          not null,
+mtime               timestamp,
+revision            bigint                      default 0,
+envvars             varchar(254),
+isdeleted           char(5)                     default 'false',
+isService           char(5)                     default 'false',
+accessRights        int(4)                      default 1792,
+avgExecTime         int(15)                     default 0,
+minMemory           int(10)                     default 0,
+minCPUSpeed         int(10)                     default 0,
+minFreeMassStorage  bigint                      default 0,
+nbJobs              int(15)                     default 0,
+pendingJobs         int(15)                     default 0,
+runningJobs         int(15)                     default 0,
+errorJobs           int(15)                     default 0,
+webpage             varchar(254),
+defaultStdinURI     varchar(254),
+baseDirinURI        varchar(254),
+defaultDirinURI     varchar(254),
+launchscriptshuri   varchar(254),
+launchscriptcmduri  varchar(254),
+unloadscriptshuri   varchar(254),
+unloadscriptcmduri  varchar(254),
+errorMsg            varchar(254),
+linux_ix86URI       varchar(254),
+linux_amd64URI      varchar(254),
+linux_x86_64URI     varchar(254),
+linux_ia64URI       varchar(254),
+linux_ppcURI        varchar(254),
+macos_ix86URI       varchar(254),
+macos_x86_64URI     varchar(254),
+macos_ppcURI        varchar(254),
+win32_ix86URI       varchar(254),
+win32_amd64URI      varchar(254),
+win32_x86_64URI     varchar(254),
+javaURI             varchar(254),
+osf1_alphaURI       varchar(254),
+osf1_sparcURI       varchar(254),
+solaris_alphaURI    varchar(254),
+solaris_sparcURI    varchar(254),
+ldlinux_ix86URI     varchar(254),
+ldlinux_amd64URI    varchar(254),
+ldlinux_x86_64URI   varchar(254),
+ldlinux_ia64URI     varchar(254),
+ldlinux_ppcURI      varchar(254),
+ldmacos_ix86URI     varchar(254),
+ldmacos_x86_64URI   varchar(254),
+ldmacos_ppcURI      varchar(254),
+ldwin32_ix86URI     varchar(254),
+ldwin32_amd64URI    varchar(254),
+ldwin32_x86_64URI   varchar(254),
+ldosf1_alphaURI     varchar(254),
+ldosf1_sparcURI     varchar(254),
+ldsolaris_alphaURI  varchar(254),
+ldsolaris_sparcURI  varchar(254)
+);
+create index apps_appTypeId on apps (appTypeId);
+create index apps_packageTypeId on apps (packageTypeId);
+create index apps_ownerUID on apps (ownerUID);
+
+create table if not exists apps_history (like apps);
+
+-- ---------------------------------------------------------------------------
+-- Table "executables" (Binary files) :
+-- Pure n-n relationship between data, application, OS and cpuType
+-- ---------------------------------------------------------------------------
+create table if not exists  executables  (
+executableId  int       not null  auto_increment  primary key,
+appUID        char(36)          not null,
+dataTypeId    smallint   not null,
+osId          smallint   not null,
+osVersion     varchar(36)           null,
+cpuTypeId     smallint       null,
+dataUID       char(36)              null,
+dataURI       varchar(254)      not null,
+mtime         timestamp
+);
+create index executables_appUID on executables (appUID);
+create index executables_dataTypeId on executables (dataTypeId);
+create index executables_osId on executables (osId);
+create index executables_cpuTypeId on executables (cpuTypeId);
+create index executables_dataUID on executables (dataUID);
+create index executables_unique_executables on executables (appUID, dataTypeId, osId, osVersion, cpuTypeId);
+
+create table if not exists executables_history (like executables);
+
+-- ---------------------------------------------------------------------------
+-- Table "sessions" :
+-- Sessions for transient grouping of works
+-- Sessions are automatically erased (and all its jobs) when the client disconnect
+-- ---------------------------------------------------------------------------
+create table if not exists  sessions  (
+uid           char(36)      not null  primary key,
+ownerUID      char(36)      not null,
+name          varchar(254)  not null,
+pendingJobs   int(15)                 default 0,
+runningJobs   int(15)                 default 0,
+completedJobs int(15)                 default 0,
+errorJobs     int(15)                 default 0,
+mtime         timestamp,
+revision      bigint                  default 0,
+accessRights  int(4)                  default 1792,
+isdeleted     char(5)                 default 'false',
+errorMsg      varchar(254)
+);
+create index sessions_ownerUID on sessions (ownerUID);
+
+create table if not exists sessions_history (like sessions);
+
+-- ---------------------------------------------------------------------------
+-- Table "templates" :
+-- Parametric sweeps stored once and expanded into works by the server,
+-- a window at a time, as works are consumed
+-- Since 10.7.0
+-- ---------------------------------------------------------------------------
+create table if not exists  templates  (
+uid            char(36)      not null  primary key,
+ownerUID       char(36)      not null,
+appUID         char(36)      not null,
+status         varchar(36)   not null  default 'PENDING',
+cmdLine        text,
+paramFrom      bigint,
+paramTo        bigint,
+paramStep      bigint                  default 1,
+paramURI       varchar(254),
+nextParam      bigint,
+label          varchar(254),
+sessionUID     char(36),
+groupUID       char(36),
+dirinURI       varchar(254),
+stdinURI       varchar(254),
+expandedJobs   int(15)                 default 0,
+completedJobs  int(15)                 default 0,
+errorJobs      int(15)                 default 0,
+mtime          timestamp,
+revision       bigint                  default 0,
+accessRights   int(4)                  default 1792,
+isdeleted      char(5)                 default 'false',
+errorMsg       varchar(254)
+);
+create index templates_ownerUID on templates (ownerUID);
+create index templates_status on templates (status);
+
+create table if not exists templates_history (like templates);
+
+-- ---------------------------------------------------------------------------
+-- Table "dependencies" :
+-- Data dependencies between works : a consumer work waits until its
+-- producer works are completed
+-- Since 10.7.0
+-- ---------------------------------------------------------------------------
+create table if not exists  dependencies  (
+uid            char(36)      not null  primary key,
+ownerUID       char(36)      not null,
+workUID        char(36)      not null,
+producerUID    char(36)      not null,
+route          char(5)                 default 'false',
+released       char(5)                 default 'false',
+mtime          timestamp,
+revision       bigint                  default 0,
+accessRights   int(4)                  default 1792,
+isdeleted      char(5)                 default 'false',
+errorMsg       varchar(254)
+);
+create index dependencies_workUID on dependencies (workUID);
+create index dependencies_producerUID on dependencies (producerUID);
+
+create table if not exists dependencies_history (like dependencies);
+
+-- ---------------------------------------------------------------------------
+-- Table "groups" :
+-- Persistent groups of works
+-- Groups are NOT erased when the client disconnect : they are kept between client sessions
+-- ---------------------------------------------------------------------------
+create table if not exists  groups  (
+uid           char(36)      not null  primary key,
+sessionUID    char(36),
+ownerUID      char(36)      not null,
+name          varchar(254)  not null,
+pendingJobs   int(15)                 default 0,
+runningJobs   int(15)                 default 0,
+completedJobs int(15)                 default 0,
+errorJobs     int(15)                 default 0,
+mtime         timestamp,
+revision      bigint                  default 0,
+accessRights  int(4)                  default 1792,
+isdeleted     char(5)                 default 'false',
+errorMsg      varchar(254)
+);
+create index groups_sessionUID on groups (sessionUID);
+create index groups_ownerUID on groups (ownerUID);
+
+create table if not exists groups_history (like groups);
+
+-- ---------------------------------------------------------------------------
+-- Table "works" :
+-- Jobs submitted by a user with app and input data
+-- ---------------------------------------------------------------------------
+create table if not exists  works  (
+uid                 char(36)          not null  primary key,
+appUID              char(36)          not null,
+statusId            smallint   not null  default 255,
+status              varchar(36)       not null  default 'NONE',
+sessionUID          char(36),
+groupUID            char(36),
+expectedhostUID     char(36),
+ownerUID            char(36)          not null,
+label               varchar(254),
+mtime               timestamp,
+revision            bigint                      default 0,
+userproxy           varchar(254),
+accessRights        int(4)                      default 1792,
+sgid                varchar(254),
+wallclocktime       int(10),
+maxRetry            int(3),
+retry               int(3),
+diskSpace           bigint                      default 0,
+minMemory           int(10)                     default 0,
+minCPUSpeed         int(10)                     default 0,
+minFreeMassStorage  bigint                      default 0,
+maxWallClockTime    int(10),
+returnCode          int(3),
+server              varchar(254),
+cmdLine             text,
+listenport          varchar(254),
+smartsocketaddr     varchar(8190),
+smartsocketclient   varchar(8190),
+stdinURI            varchar(254),
+dirinURI            varchar(254),
+resultURI           varchar(254),
+arrivalDate         datetime,
+completedDate       datetime,
+resultDate          datetime,
+readydate           datetime,
+datareadydate       datetime,
+compstartdate       datetime,
+compenddate         datetime,
+error_msg           varchar(255),
+sendToClient        char(5)                     default 'false',
+local               char(5)                     default 'true',
+active              char(5)                     default 'true',
+replicatedUID       char(36),
+replications        int(3)                      default 0,
+sizer               int(3)                      default 0,
+totalr              int(3)                      default 0,
+datadrivenURI       varchar(254),
+isService           char(5)                     default 'false',
+isdeleted           char(5)                     default 'false',
+envvars             varchar(254),
+errorMsg            varchar(254),
+priority            int(3)                      default 0,
+templateUID         char(36)
+);
+create index works_status_active on works (status, active);
+create index works_appUID on works (appUID);
+create index works_statusId on works (statusId);
+create index works_sessionUID on works (sessionUID);
+create index works_groupUID on works (groupUID);
+create index works_expectedhostUID on works (expectedhostUID);
+create index works_ownerUID on works (ownerUID);
+create index works_completedDate on works (completedDate);
+create index works_templateUID on works (templateUID);
+
+create table if not exists works_history (like works);
+
+-- Composite index for the works counts by owner and status ; created after
+-- works_history, which is read by uid only ; works_done, which is counted
+-- too, gets its own since "like" copies no index ; since 10.7.0
+create index  works_owner_status  on  works  (ownerUID, status, isdeleted);
+
+-- Terminal works (COMPLETED, ERROR, ABORTED) moved out of "works" after
+-- WORKSRETENTION seconds ; since 10.7.0
+create table if not exists works_done (like works);
+create index  works_done_owner_status  on  works_done  (ownerUID, status, isdeleted);
+
+-- ---------------------------------------------------------------------------
+-- Table "tasks" :
+-- Work sent to a host with the adequate app binary.
+--
+-- a task is a work associated to a worker
+-- tasks can not be submitted by users : they must submit jobs
+-- tasks are automatically created by server
+-- each work has a set of associated tasks, at least one
+-- a new task is created each time a task is lost
+-- ---------------------------------------------------------------------------
+create table if not exists  tasks  (
+uid            char(36)          not null  primary key,
+workUID        char(36)          not null,
+hostUID        char(36),
+statusId       smallint   not null  default 255,
+status         varchar(36),
+ownerUID       char(36),
+mtime          timestamp,
+revision       bigint                      default 0,
+accessRights   int(4)                      default 1792,
+trial          int(11),
+InsertionDate  datetime,
+StartDate      datetime,
+LastStartDate  datetime,
+AliveCount     int(11),
+LastAlive      datetime,
+removalDate    datetime,
+duration       bigint                      default 0,
+isdeleted      char(5)                     default 'false',
+errorMsg       varchar(254)
+);
+create index tasks_workUID on tasks (workUID);
+create index tasks_hostUID on tasks (hostUID);
+create index tasks_statusId on tasks (statusId);
+create index tasks_ownerUID on tasks (ownerUID);
+
+create table if not exists tasks_history (like tasks);
+
+-- Primary heartbeat, read from the read replica to measure its lag
+-- (see DBREPLICAMAXLAG) ; since 10.7.0
+create table if not exists  heartbeats  (
+id                   int           not null  primary key,
+beat                 bigint
+);
+
+-- ===========================================================================
+
+
+-- ===========================================================================
+-- End Of File
+-- ===========================================================================
@@ -0,0 +1,39 @@
+-- ===========================================================================
+--  Copyrights     : CNRS
+--  Authors        : Oleg Lodygensky
+--  Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+--  Web            : http://www.xtremweb-hep.org
+--  
+--       This file is part of XtremWeb-HEP.
+-- 
+--     XtremWeb-HEP is free software: you can redistribute it and/or modify
+--     it under the terms of the GNU General Public License as published by
+--     the Free Software Foundation, either version 3 of the License, or
+--     (at your option) any later version.
+-- 
+--     XtremWeb-HEP is distributed in the hope that it will be useful,
+--     but WITHOUT ANY WARRANTY; without even the implied warranty of
+--     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+--     GNU General Public License for more details.
+-- 
+--     You should have received a copy of the GNU General Public License
+--     along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+-- ===========================================================================
+
+SELECT priority FROM works;
+SELECT templateUID FROM works;
+SELECT uid, nextParam, expandedJobs FROM templates;
+SELECT uid, workUID, producerUID, released FROM dependencies;
+SELECT uid, pendingJobs, runningJobs, completedJobs, errorJobs FROM groups;
+SELECT uid, pendingJobs, runningJobs, completedJobs, errorJobs FROM sessions;
+SELECT uid, status FROM works_done;
+SELECT id, beat FROM heartbeats;
+SHOW INDEX FROM works WHERE Key_name = 'works_owner_status';
+SELECT uid, revision FROM works;
+SELECT uid, revision FROM works_done;
+SELECT uid, revision FROM hosts;
+SELECT uid, revision FROM tasks;
+
+--
+-- End Of File
+--
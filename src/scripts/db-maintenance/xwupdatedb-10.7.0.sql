@@ -0,0 +1,191 @@
+-- ===========================================================================
+--  Copyrights     : CNRS
+--  Authors        : Oleg Lodygensky
+--  Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+--  Web            : http://www.xtremweb-hep.org
+--  
+--       This file is part of XtremWeb-HEP.
+-- 
+--     XtremWeb-HEP is free software: you can redistribute it and/or modify
+--     it under the terms of the GNU General Public License as published by
+--     the Free Software Foundation, either version 3 of the License, or
+--     (at your option) any later version.
+-- 
+--     XtremWeb-HEP is distributed in the hope that it will be useful,
+--     but WITHOUT ANY WARRANTY; without even the implied warranty of
+--     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+--     GNU General Public License for more details.
+-- 
+--     You should have received a copy of the GNU General Public License
+--     along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+-- ===========================================================================
+
+--
+
+
+ALTER TABLE  works            ADD  COLUMN priority       int(3)    default 0;
+
+ALTER TABLE  works_history    ADD  COLUMN priority       int(3)    default 0;
+
+ALTER TABLE  works            ADD  COLUMN templateUID    char(36);
+ALTER TABLE  works            ADD  INDEX  templateUID    (templateUID);
+
+ALTER TABLE  works_history    ADD  COLUMN templateUID    char(36);
+
+CREATE TABLE IF NOT EXISTS templates (
+  uid            char(36)      not null  primary key,
+  ownerUID       char(36)      not null,
+  appUID         char(36)      not null,
+  status         varchar(36)   not null  default 'PENDING',
+  cmdLine        text,
+  paramFrom      bigint,
+  paramTo        bigint,
+  paramStep      bigint                  default 1,
+  paramURI       varchar(254),
+  nextParam      bigint,
+  label          varchar(254),
+  sessionUID     char(36),
+  groupUID       char(36),
+  dirinURI       varchar(254),
+  stdinURI       varchar(254),
+  expandedJobs   int(15)                 default 0,
+  completedJobs  int(15)                 default 0,
+  errorJobs      int(15)                 default 0,
+  mtime          timestamp,
+  accessRights   int(4)                  default 0x700,
+  isdeleted      char(5)                 default 'false',
+  errorMsg       varchar(254),
+  index  ownerUID (ownerUID),
+  index  status   (status)
+  );
+
+CREATE TABLE IF NOT EXISTS templates_history LIKE templates;
+
+CREATE TABLE IF NOT EXISTS dependencies (
+  uid            char(36)      not null  primary key,
+  ownerUID       char(36)      not null,
+  workUID        char(36)      not null,
+  producerUID    char(36)      not null,
+  route          char(5)                 default 'false',
+  released       char(5)                 default 'false',
+  mtime          timestamp,
+  accessRights   int(4)                  default 0x700,
+  isdeleted      char(5)                 default 'false',
+  errorMsg       varchar(254),
+  index  workUID     (workUID),
+  index  producerUID (producerUID)
+  );
+
+CREATE TABLE IF NOT EXISTS dependencies_history LIKE dependencies;
+
+ALTER TABLE  groups             ADD  COLUMN pendingJobs    int(15)   default 0;
+ALTER TABLE  groups             ADD  COLUMN runningJobs    int(15)   default 0;
+ALTER TABLE  groups             ADD  COLUMN completedJobs  int(15)   default 0;
+ALTER TABLE  groups             ADD  COLUMN errorJobs      int(15)   default 0;
+
+ALTER TABLE  groups_history     ADD  COLUMN pendingJobs    int(15)   default 0;
+ALTER TABLE  groups_history     ADD  COLUMN runningJobs    int(15)   default 0;
+ALTER TABLE  groups_history     ADD  COLUMN completedJobs  int(15)   default 0;
+ALTER TABLE  groups_history     ADD  COLUMN errorJobs      int(15)   default 0;
+
+ALTER TABLE  sessions           ADD  COLUMN pendingJobs    int(15)   default 0;
+ALTER TABLE  sessions           ADD  COLUMN runningJobs    int(15)   default 0;
+ALTER TABLE  sessions           ADD  COLUMN completedJobs  int(15)   default 0;
+ALTER TABLE  sessions           ADD  COLUMN errorJobs      int(15)   default 0;
+
+ALTER TABLE  sessions_history   ADD  COLUMN pendingJobs    int(15)   default 0;
+ALTER TABLE  sessions_history   ADD  COLUMN runningJobs    int(15)   default 0;
+ALTER TABLE  sessions_history   ADD  COLUMN completedJobs  int(15)   default 0;
+ALTER TABLE  sessions_history   ADD  COLUMN errorJobs      int(15)   default 0;
+
+UPDATE groups SET
+  pendingJobs   = (SELECT COUNT(*) FROM works WHERE works.groupUID = groups.uid AND works.isdeleted = 'false' AND works.status IN ('PENDING', 'WAITING')),
+  runningJobs   = (SELECT COUNT(*) FROM works WHERE works.groupUID = groups.uid AND works.isdeleted = 'false' AND works.status IN ('RUNNING', 'DATAREQUEST', 'RESULTREQUEST')),
+  completedJobs = (SELECT COUNT(*) FROM works WHERE works.groupUID = groups.uid AND works.isdeleted = 'false' AND works.status = 'COMPLETED'),
+  errorJobs     = (SELECT COUNT(*) FROM works WHERE works.groupUID = groups.uid AND works.isdeleted = 'false' AND works.status = 'ERROR');
+
+UPDATE sessions SET
+  pendingJobs   = (SELECT COUNT(*) FROM works WHERE works.sessionUID = sessions.uid AND works.isdeleted = 'false' AND works.status IN ('PENDING', 'WAITING')),
+  runningJobs   = (SELECT COUNT(*) FROM works WHERE works.sessionUID = sessions.uid AND works.isdeleted = 'false' AND works.status IN ('RUNNING', 'DATAREQUEST', 'RESULTREQUEST')),
+  completedJobs = (SELECT COUNT(*) FROM works WHERE works.sessionUID = sessions.uid AND works.isdeleted = 'false' AND works.status = 'COMPLETED'),
+  errorJobs     = (SELECT COUNT(*) FROM works WHERE works.sessionUID = sessions.uid AND works.isdeleted = 'false' AND works.status = 'ERROR');
+
+--
+-- Composite index for the works counts by owner and status (see
+-- xwupdatedb-10.7.0-hsqldb.sql for HSQLDB). On MariaDB, the work request
+-- query is left to the appUID and works_status_active indexes: no plan
+-- used a composite index for it (see benchmark/scheduling/README.txt).
+-- It is created before works_done, so that works_done gets it too.
+--
+CREATE INDEX works_owner_status ON works (ownerUID, status, isdeleted);
+
+--
+-- History tables are read by uid. Tables created by this distribution get
+-- the primary key of their live table; history tables migrated from 8 have
+-- none (see xwhep-core-tables-from-8-create-initial-tables.sql) and need :
+--
+-- CREATE INDEX apps_history_uid     ON apps_history     (uid);
+-- CREATE INDEX datas_history_uid    ON datas_history    (uid);
+-- CREATE INDEX hosts_history_uid    ON hosts_history    (uid);
+-- CREATE INDEX tasks_history_uid    ON tasks_history    (uid);
+-- CREATE INDEX users_history_uid    ON users_history    (uid);
+-- CREATE INDEX works_history_uid    ON works_history    (uid);
+--
+
+--
+-- Rows revision, incremented on each update, so that clients validate
+-- cached objects without downloading them again (see XMLRPCCommandGet).
+-- This is added before works_done is created, so that works_done gets it too.
+--
+ALTER TABLE  users              ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  users_history      ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  usergroups         ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  usergroups_history ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  hosts              ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  hosts_history      ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  traces             ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  traces_history     ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  datas              ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  datas_history      ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  apps               ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  apps_history       ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  sessions           ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  sessions_history   ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  templates          ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  templates_history  ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  dependencies       ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  dependencies_history ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  groups             ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  groups_history     ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  works              ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  works_history      ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  tasks              ADD  COLUMN revision       bigint    default 0;
+ALTER TABLE  tasks_history      ADD  COLUMN revision       bigint    default 0;
+
+--
+-- Terminal works are moved out of works after WORKSRETENTION seconds.
+-- This moves terminal works completed for more than a week; the dispatcher
+-- then keeps moving them, accordingly to its configuration.
+--
+CREATE TABLE IF NOT EXISTS works_done LIKE works;
+
+START TRANSACTION;
+INSERT INTO works_done SELECT * FROM works
+  WHERE status IN ('COMPLETED', 'ERROR', 'ABORTED') AND COALESCE(completedDate, mtime) < NOW() - INTERVAL 7 DAY;
+DELETE FROM works
+  WHERE status IN ('COMPLETED', 'ERROR', 'ABORTED') AND COALESCE(completedDate, mtime) < NOW() - INTERVAL 7 DAY;
+COMMIT;
+
+--
+-- This table contains the primary heartbeat, read from the read replica
+-- to measure its lag
+--
+CREATE TABLE IF NOT EXISTS heartbeats (
+  id   int    not null primary key,
+  beat bigint
+);
+
+
+--
+-- End Of File
+--
@@ -53,6 +53,8 @@ import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Vector;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.net.ssl.SSLHandshakeException;
 
@@ -65,6 +67,7 @@ import xtremweb.common.CommandLineOptions;
 import xtremweb.common.CommandLineParser;
 import xtremweb.common.CommonVersion;
 import xtremweb.common.DataInterface;
+import xtremweb.common.DependencyInterface;
 import xtremweb.common.DataTypeEnum;
 import xtremweb.common.GroupInterface;
 import xtremweb.common.Logger;
@@ -76,6 +79,7 @@ import xtremweb.common.SessionInterface;
 import xtremweb.common.StatusEnum;
 import xtremweb.common.StreamIO;
 import xtremweb.common.Table;
+import xtremweb.common.TemplateInterface;
 import xtremweb.common.UID;
 import xtremweb.common.UserGroupInterface;
 import xtremweb.common.UserInterface;
@@ -111,6 +115,7 @@ import xtremweb.communications.XMLRPCCommandGetUsers;
 import xtremweb.communications.XMLRPCCommandGetWorks;
 import xtremweb.communications.XMLRPCCommandRemove;
 import xtremweb.communications.XMLRPCCommandSend;
+import xtremweb.communications.XMLRPCCommandSendWorks;
 import xtremweb.communications.XWPostParams;
 import xtremweb.security.XWAccessRights;
 
@@ -1090,6 +1095,8 @@ public final class Client {
 
 		if ((args.command() == IdRpc.GETTASKS) || (args.command() == IdRpc.GETTASK)) {
 			ret = commClient.getTask(uri, bypass);
+		} else if (args.command() == IdRpc.GETPROGRESS) {
+			ret = commClient.getProgress(uri);
 		} else {
 			ret = commClient.get(uri, bypass);
 		}
@@ -2564,6 +2571,231 @@ public final class Client {
 		return zipped;
 	}
 
+	/**
+	 * This inserts (submits) a set of new works in server at once.<br>
+	 * <blockquote> Command line parameters : --xwsendworks application name or
+	 * UID parameterFile [ --xwsession UID ] [ --xwgroup UID ] [ --xwlabel
+	 * label ] </blockquote> Each line of parameterFile defines the command
+	 * line of a work; empty lines and lines starting with '#' are ignored.
+	 * Works are sent by chunks of XMLRPCCommandSendWorks#BULKSIZE
+	 *
+	 * @see XMLRPCCommandSendWorks#BULKSIZE
+	 * @since 10.6.0
+	 */
+	private void sendWorks() throws IOException, ParseException, ClassNotFoundException, SAXException,
+	URISyntaxException, InvalidKeyException, AccessControlException, InstantiationException {
+
+		final List<?> params = (List<?>) args.commandParams();
+		if ((params == null) || (params.size() < 2)) {
+			throw new ParseException("application and parameter file expected", 0);
+		}
+
+		AppInterface app = null;
+		try {
+			app = (AppInterface) get(((URI) params.get(0)).getUID());
+		} catch (final Exception e) {
+			try {
+				app = (AppInterface) get((UID) params.get(0));
+			} catch (final Exception e2) {
+				try {
+					app = getApp((String) params.get(0));
+				} catch (final Exception e3) {
+					app = null;
+				}
+			}
+		}
+		if (app == null) {
+			throw new ParseException("Can't retrieve application " + params.get(0), 0);
+		}
+
+		final Object fileParam = params.get(1);
+		final File paramFile = new File(
+				fileParam instanceof URI ? ((URI) fileParam).getPath() : fileParam.toString());
+
+		final Vector<WorkInterface> works = new Vector<>();
+		try (BufferedReader reader = new BufferedReader(new FileReader(paramFile))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				final String cmdLine = line.trim();
+				if ((cmdLine.length() == 0) || cmdLine.startsWith("#")) {
+					continue;
+				}
+				if (cmdLine.indexOf(XWTools.QUOTE) != -1) {
+					throw new ParseException("command line cannot have \"" + XWTools.QUOTE + "\" character", 0);
+				}
+				final WorkInterface work = new WorkInterface();
+				work.setUID(new UID());
+				work.setApplication(app.getUID());
+				work.setCmdLine(" " + cmdLine + " ");
+				if (args.getOption(CommandLineOptions.LABEL) != null) {
+					work.setLabel((String) args.getOption(CommandLineOptions.LABEL));
+				}
+				if (args.getOption(CommandLineOptions.SESSION) != null) {
+					work.setSession((UID) args.getOption(CommandLineOptions.SESSION));
+				}
+				if (args.getOption(CommandLineOptions.GROUP) != null) {
+					work.setGroup((UID) args.getOption(CommandLineOptions.GROUP));
+				}
+				works.add(work);
+
+				if (works.size() >= XMLRPCCommandSendWorks.BULKSIZE) {
+					sendWorks(works);
+					works.clear();
+				}
+			}
+		}
+		if (!works.isEmpty()) {
+			sendWorks(works);
+		}
+	}
+
+	/**
+	 * This inserts a new job template in server; the server expands it into
+	 * works, a window at a time.<br>
+	 * <blockquote> Command line parameters : --xwsendtemplate application name
+	 * or UID parameterFile | from:to[:step] [args] [ --xwsession UID ] [
+	 * --xwgroup UID ] [ --xwlabel label ] </blockquote> A parameter file
+	 * contains a parameter value per line and is sent as a data. In args,
+	 * TemplateInterface#PLACEHOLDER is replaced by the parameter value, which
+	 * is appended to args otherwise
+	 *
+	 * @see TemplateInterface
+	 * @since 10.6.0
+	 */
+	private void sendTemplate() throws IOException, ParseException, ClassNotFoundException, SAXException,
+	URISyntaxException, InvalidKeyException, AccessControlException, InstantiationException {
+
+		final List<?> params = (List<?>) args.commandParams();
+		if ((params == null) || (params.size() < 2)) {
+			throw new ParseException("application and parameters expected", 0);
+		}
+
+		AppInterface app = null;
+		try {
+			app = (AppInterface) get(((URI) params.get(0)).getUID());
+		} catch (final Exception e) {
+			try {
+				app = (AppInterface) get((UID) params.get(0));
+			} catch (final Exception e2) {
+				try {
+					app = getApp((String) params.get(0));
+				} catch (final Exception e3) {
+					app = null;
+				}
+			}
+		}
+		if (app == null) {
+			throw new ParseException("Can't retrieve application " + params.get(0), 0);
+		}
+
+		final TemplateInterface template = new TemplateInterface();
+		template.setUID(new UID());
+		template.setOwner(config.getUser().getUID());
+		template.setApplication(app.getUID());
+
+		final Object paramsParam = params.get(1);
+		final Matcher range = Pattern.compile("(-?\\d+):(-?\\d+)(:(\\d+))?").matcher(paramsParam.toString());
+		if (!(paramsParam instanceof URI) && range.matches()) {
+			template.setParamFrom(Long.valueOf(range.group(1)));
+			template.setParamTo(Long.valueOf(range.group(2)));
+			if (range.group(4) != null) {
+				template.setParamStep(Long.valueOf(range.group(4)));
+			}
+		} else {
+			final File paramFile = new File(
+					paramsParam instanceof URI ? ((URI) paramsParam).getPath() : paramsParam.toString());
+			final DataInterface data = new DataInterface(new UID());
+			data.setType(DataTypeEnum.TEXT);
+			data.setName(paramFile.getName());
+			data.setURI(commClient().newURI(data.getUID()));
+			template.setParamURI(sendData(data, paramFile));
+		}
+
+		final StringBuilder cmdLine = new StringBuilder();
+		for (int i = 2; i < params.size(); i++) {
+			final String arg = params.get(i).toString();
+			if (arg.indexOf(XWTools.QUOTE) != -1) {
+				throw new ParseException("command line cannot have \"" + XWTools.QUOTE + "\" character", 0);
+			}
+			cmdLine.append(' ').append(arg);
+		}
+		if (cmdLine.length() > 0) {
+			template.setCmdLine(cmdLine.append(' ').toString());
+		}
+		if (args.getOption(CommandLineOptions.LABEL) != null) {
+			template.setLabel((String) args.getOption(CommandLineOptions.LABEL));
+		}
+		if (args.getOption(CommandLineOptions.SESSION) != null) {
+			template.setSession((UID) args.getOption(CommandLineOptions.SESSION));
+		}
+		if (args.getOption(CommandLineOptions.GROUP) != null) {
+			template.setGroup((UID) args.getOption(CommandLineOptions.GROUP));
+		}
+
+		commClient().send(template);
+		println(commClient().newURI(template.getUID()));
+	}
+
+	/**
+	 * This inserts a dependency between two works in server.<br>
+	 * <blockquote> Command line parameters : --xwsenddependency consumer work
+	 * URI or UID producer work URI or UID [route] </blockquote> The consumer
+	 * work waits until the producer work is completed; if route is set, it
+	 * then runs on the host which ran the producer work
+	 *
+	 * @see DependencyInterface
+	 * @since 10.6.0
+	 */
+	private void sendDependency() throws IOException, ParseException, ClassNotFoundException, SAXException,
+	URISyntaxException, InvalidKeyException, AccessControlException, InstantiationException {
+
+		final List<?> params = (List<?>) args.commandParams();
+		if ((params == null) || (params.size() < 2)) {
+			throw new ParseException("consumer and producer works expected", 0);
+		}
+
+		final UID[] uids = new UID[2];
+		for (int i = 0; i < uids.length; i++) {
+			final Object param = params.get(i);
+			if (param instanceof URI) {
+				uids[i] = ((URI) param).getUID();
+			} else if (param instanceof UID) {
+				uids[i] = (UID) param;
+			} else {
+				uids[i] = new UID(param.toString());
+			}
+		}
+
+		final DependencyInterface dependency = new DependencyInterface(uids[0], uids[1]);
+		dependency.setUID(new UID());
+		dependency.setOwner(config.getUser().getUID());
+		dependency.setRoute((params.size() > 2) && "route".equalsIgnoreCase(params.get(2).toString()));
+
+		commClient().send(dependency);
+		println(commClient().newURI(dependency.getUID()));
+	}
+
+	/**
+	 * This sends a set of works in a single command and prints their URI
+	 *
+	 * @param works
+	 *            are the works to send
+	 * @since 10.6.0
+	 */
+	private void sendWorks(final Collection<WorkInterface> works) throws IOException, ClassNotFoundException,
+	SAXException, URISyntaxException, InvalidKeyException, AccessControlException, InstantiationException {
+
+		final XMLRPCCommandSendWorks cmd = new XMLRPCCommandSendWorks(commClient().newURI(), config.getUser(),
+				works);
+		final XMLVector xmluids = (XMLVector) sendCommand(cmd, false);
+		if (xmluids == null) {
+			return;
+		}
+		for (final XMLValue v : xmluids.getXmlValues()) {
+			println(commClient().newURI((UID) v.getValue()));
+		}
+	}
+
 	/**
 	 * This inserts (submits) a new work in server.<br>
 	 * <blockquote> Command line parameters : --xwsendwork application name or
@@ -3289,6 +3521,7 @@ public final class Client {
 				sendSession();
 				break;
 			case GETTASK:
+			case GETPROGRESS:
 				get();
 				break;
 			case GETTASKS:
@@ -3324,6 +3557,15 @@ public final class Client {
 			case SENDWORK:
 				sendWork();
 				break;
+			case SENDWORKS:
+				sendWorks();
+				break;
+			case SENDTEMPLATE:
+				sendTemplate();
+				break;
+			case SENDDEPENDENCY:
+				sendDependency();
+				break;
 			case PING:
 				ping();
 				break;
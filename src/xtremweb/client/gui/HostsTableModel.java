@@ -179,7 +179,7 @@ class HostsTableModel extends TableModel {
 	public Table getRow(final UID uid) throws ConnectException {
 		try {
 			getParent().setTitleConnected();
-			final HostInterface host = (HostInterface) getParent().commClient().get(uid);
+			final HostInterface host = (HostInterface) getParent().commClient().get(uid, true);
 			if (host == null) {
 				return null;
 			}
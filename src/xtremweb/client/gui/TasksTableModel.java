@@ -137,7 +137,7 @@ class TasksTableModel extends TableModel {
 	public Table getRow(final UID uid) throws ConnectException {
 		try {
 			getParent().setTitleConnected();
-			return getParent().commClient().get(uid);
+			return getParent().commClient().get(uid, true);
 		} catch (final Exception e) {
 			getParent().setTitleNotConnected();
 			getLogger().exception(e);
@@ -1108,6 +1108,14 @@ public final class AppInterface extends Table {
 	 */
 	private static final int ENUMSIZE = Columns.values().length;
 
+	/**
+	 * These are the job counters columns, in JobCounters.Counter order
+	 *
+	 * @since 10.6.0
+	 */
+	private static final XWBaseColumn[] COUNTERCOLUMNS = { Columns.PENDINGJOBS, Columns.RUNNINGJOBS,
+			Columns.ERRORJOBS, Columns.NBJOBS };
+
 	/**
 	 * This is the default constructor
 	 */
@@ -1155,6 +1163,19 @@ public final class AppInterface extends Table {
 		fill(rs);
 	}
 
+	/**
+	 * This tells whether a column is updated by deltas
+	 *
+	 * @return true if index is the revision column, or a job counter column
+	 *         and job counters are aggregated
+	 * @see JobCounters
+	 * @since 10.6.0
+	 */
+	@Override
+	protected boolean isDeltaColumn(final int index) {
+		return super.isDeltaColumn(index) || JobCounters.isDeltaColumn(index, COUNTERCOLUMNS);
+	}
+
 	/**
 	 * This retrieves column label from enum Columns. This takes cares of this
 	 * version. If this version is null, this version is prior to 5.8.0. Before
@@ -1388,6 +1409,7 @@ public final class AppInterface extends Table {
 		} catch (final Exception e) {
 		}
 
+		JobCounters.refresh(this, COUNTERCOLUMNS);
 		setDirty(false);
 	}
 
@@ -2046,7 +2068,7 @@ public final class AppInterface extends Table {
 	public int getNbJobs() {
 		final Integer ret = (Integer) getValue(Columns.NBJOBS);
 		if (ret != null) {
-			return ret.intValue();
+			return JobCounters.get(this, JobCounters.Counter.COMPLETEDJOBS, ret.intValue());
 		}
 		setNbJobs(0);
 		return 0;
@@ -2062,7 +2084,7 @@ public final class AppInterface extends Table {
 	public int getPendingJobs() {
 		final Integer ret = (Integer) getValue(Columns.PENDINGJOBS);
 		if (ret != null) {
-			return ret.intValue();
+			return JobCounters.get(this, JobCounters.Counter.PENDINGJOBS, ret.intValue());
 		}
 		setPendingJobs(0);
 		return 0;
@@ -2078,7 +2100,7 @@ public final class AppInterface extends Table {
 	public int getRunningJobs() {
 		final Integer ret = (Integer) getValue(Columns.RUNNINGJOBS);
 		if (ret != null) {
-			return ret.intValue();
+			return JobCounters.get(this, JobCounters.Counter.RUNNINGJOBS, ret.intValue());
 		}
 		setRunningJobs(0);
 		return 0;
@@ -2094,7 +2116,7 @@ public final class AppInterface extends Table {
 	public int getErrorJobs() {
 		final Integer ret = (Integer) getValue(Columns.ERRORJOBS);
 		if (ret != null) {
-			return ret.intValue();
+			return JobCounters.get(this, JobCounters.Counter.ERRORJOBS, ret.intValue());
 		}
 		setErrorJobs(0);
 		return 0;
@@ -2756,7 +2778,9 @@ public final class AppInterface extends Table {
 	 * This increments the amount of executed jobs for this application
 	 */
 	public void incNbJobs() {
-		setNbJobs(getNbJobs() + 1);
+		if (!JobCounters.add(this, COUNTERCOLUMNS, JobCounters.Counter.COMPLETEDJOBS, 1)) {
+			setNbJobs(getNbJobs() + 1);
+		}
 	}
 
 	/**
@@ -2765,7 +2789,22 @@ public final class AppInterface extends Table {
 	 * @since 7.0.0
 	 */
 	public void incPendingJobs() {
-		setPendingJobs(getPendingJobs() + 1);
+		if (!JobCounters.add(this, COUNTERCOLUMNS, JobCounters.Counter.PENDINGJOBS, 1)) {
+			setPendingJobs(getPendingJobs() + 1);
+		}
+	}
+
+	/**
+	 * This adds to the amount of pending jobs
+	 *
+	 * @param n
+	 *            is the amount of new pending jobs
+	 * @since 10.6.0
+	 */
+	public void addPendingJobs(final int n) {
+		if (!JobCounters.add(this, COUNTERCOLUMNS, JobCounters.Counter.PENDINGJOBS, n)) {
+			setPendingJobs(getPendingJobs() + n);
+		}
 	}
 
 	/**
@@ -2774,7 +2813,9 @@ public final class AppInterface extends Table {
 	 * @since 7.0.0
 	 */
 	public void incRunningJobs() {
-		setRunningJobs(getRunningJobs() + 1);
+		if (!JobCounters.add(this, COUNTERCOLUMNS, JobCounters.Counter.RUNNINGJOBS, 1)) {
+			setRunningJobs(getRunningJobs() + 1);
+		}
 	}
 
 	/**
@@ -2783,7 +2824,9 @@ public final class AppInterface extends Table {
 	 * @since 7.0.0
 	 */
 	public void incErrorJobs() {
-		setErrorJobs(getErrorJobs() + 1);
+		if (!JobCounters.add(this, COUNTERCOLUMNS, JobCounters.Counter.ERRORJOBS, 1)) {
+			setErrorJobs(getErrorJobs() + 1);
+		}
 	}
 
 	/**
@@ -2792,7 +2835,9 @@ public final class AppInterface extends Table {
 	 * @since 7.0.0
 	 */
 	public void decPendingJobs() {
-		setPendingJobs(getPendingJobs() - 1);
+		if (!JobCounters.add(this, COUNTERCOLUMNS, JobCounters.Counter.PENDINGJOBS, -1)) {
+			setPendingJobs(getPendingJobs() - 1);
+		}
 	}
 
 	/**
@@ -2801,7 +2846,9 @@ public final class AppInterface extends Table {
 	 * @since 7.0.0
 	 */
 	public void decRunningJobs() {
-		setRunningJobs(getRunningJobs() - 1);
+		if (!JobCounters.add(this, COUNTERCOLUMNS, JobCounters.Counter.RUNNINGJOBS, -1)) {
+			setRunningJobs(getRunningJobs() - 1);
+		}
 	}
 
 	/**
@@ -0,0 +1,210 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.common;
+
+import java.io.IOException;
+
+import xtremweb.communications.URI;
+
+/**
+ * This is a Bloom filter of cached objects, so that a worker can advertise
+ * its cache content to the scheduler in a few bytes.<br />
+ * An XtremWeb URI is keyed by its UID, any other URI by its string
+ * representation; data content may also be keyed by its MD5 so that the same
+ * content registered under two UIDs is recognized.<br />
+ * Hashes only rely on String#hashCode() which is specified by the JLS, so that
+ * a filter built by a worker is understood by any dispatcher.
+ *
+ * @since 10.6.0
+ */
+public class BloomFilter {
+
+	/**
+	 * This is the amount of bits per expected key; with HASHES hashes, this
+	 * gives a false positive rate close to 1%
+	 */
+	public static final int BITSPERKEY = 10;
+	/**
+	 * This is the amount of hashes per key
+	 */
+	public static final int HASHES = 7;
+	/**
+	 * This is the separator between the amount of hashes and the bits in the
+	 * string representation
+	 */
+	private static final char SEPARATOR = ':';
+
+	private final long[] bits;
+	private final int hashes;
+
+	/**
+	 * This constructs an empty filter
+	 *
+	 * @param expectedKeys
+	 *            is the expected amount of keys
+	 */
+	public BloomFilter(final int expectedKeys) {
+		this(new long[Math.max(1, ((Math.max(1, expectedKeys) * BITSPERKEY) + Long.SIZE - 1) / Long.SIZE)], HASHES);
+	}
+
+	private BloomFilter(final long[] b, final int h) {
+		bits = b;
+		hashes = h;
+	}
+
+	/**
+	 * This constructs a filter from its string representation
+	 *
+	 * @param str
+	 *            is the string representation
+	 * @throws IOException
+	 *             if str is not a valid representation
+	 * @see #toString()
+	 */
+	public BloomFilter(final String str) throws IOException {
+		final int sep = (str == null ? -1 : str.indexOf(SEPARATOR));
+		if (sep <= 0) {
+			throw new IOException("invalid bloom filter " + str);
+		}
+		try {
+			hashes = Integer.parseInt(str.substring(0, sep));
+		} catch (final NumberFormatException e) {
+			throw new IOException("invalid bloom filter hashes " + str);
+		}
+		final byte[] bytes = Base64.decode(str.substring(sep + 1).getBytes(XWTools.UTF8));
+		if ((hashes <= 0) || (bytes.length == 0) || ((bytes.length % (Long.SIZE / Byte.SIZE)) != 0)) {
+			throw new IOException("invalid bloom filter " + str);
+		}
+		bits = new long[bytes.length / (Long.SIZE / Byte.SIZE)];
+		for (int i = 0; i < bytes.length; i++) {
+			bits[i >> 3] |= (bytes[i] & 0xFFL) << ((i & 7) * Byte.SIZE);
+		}
+	}
+
+	/**
+	 * This retrieves the key of the given URI
+	 */
+	private static String key(final URI uri) {
+		if (uri.isXtremWeb() && (uri.getUID() != null)) {
+			return uri.getUID().toString();
+		}
+		return uri.toString();
+	}
+
+	/**
+	 * This retrieves the second hash of a key, since the first one is
+	 * String#hashCode()
+	 */
+	private static int hash2(final String key) {
+		int h = 0x811C9DC5;
+		for (int i = 0; i < key.length(); i++) {
+			h ^= key.charAt(i);
+			h *= 0x01000193;
+		}
+		return h | 1;
+	}
+
+	/**
+	 * This retrieves the bit index of the i-th hash of a key
+	 */
+	private int index(final int h1, final int h2, final int i) {
+		return (int) (((h1 + (long) i * h2) & 0xFFFFFFFFL) % (bits.length * (long) Long.SIZE));
+	}
+
+	/**
+	 * This inserts a key
+	 *
+	 * @param key
+	 *            is the key to insert; if null, this does nothing
+	 */
+	public void add(final String key) {
+		if (key == null) {
+			return;
+		}
+		final int h1 = key.hashCode();
+		final int h2 = hash2(key);
+		for (int i = 0; i < hashes; i++) {
+			final int idx = index(h1, h2, i);
+			bits[idx >>> 6] |= 1L << (idx & 63);
+		}
+	}
+
+	/**
+	 * This inserts the key of an URI
+	 *
+	 * @param uri
+	 *            is the URI to insert; if null, this does nothing
+	 */
+	public void add(final URI uri) {
+		if (uri != null) {
+			add(key(uri));
+		}
+	}
+
+	/**
+	 * This tests a key
+	 *
+	 * @param key
+	 *            is the key to test
+	 * @return false if the key has not been inserted; true if it probably has
+	 */
+	public boolean mightContain(final String key) {
+		if (key == null) {
+			return false;
+		}
+		final int h1 = key.hashCode();
+		final int h2 = hash2(key);
+		for (int i = 0; i < hashes; i++) {
+			final int idx = index(h1, h2, i);
+			if ((bits[idx >>> 6] & (1L << (idx & 63))) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * This tests the key of an URI
+	 *
+	 * @param uri
+	 *            is the URI to test
+	 * @return false if the URI has not been inserted; true if it probably has
+	 */
+	public boolean mightContain(final URI uri) {
+		return (uri != null) && mightContain(key(uri));
+	}
+
+	/**
+	 * This retrieves the string representation of this filter: the amount of
+	 * hashes, a colon and the base64 encoded bits
+	 */
+	@Override
+	public String toString() {
+		final byte[] bytes = new byte[bits.length * (Long.SIZE / Byte.SIZE)];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) (bits[i >> 3] >>> ((i & 7) * Byte.SIZE));
+		}
+		return Integer.toString(hashes) + SEPARATOR + new String(Base64.encode(bytes));
+	}
+}
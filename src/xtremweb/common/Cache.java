@@ -1139,6 +1139,29 @@ public final class Cache extends XMLable {
 		notifyAll();
 	}
 
+	/**
+	 * This retrieves a Bloom filter of the cached entries having a local
+	 * content, keyed by URI and, for datas, by MD5 too
+	 *
+	 * @return the filter of locally available contents
+	 * @since 10.6.0
+	 */
+	public synchronized BloomFilter contentFilter() {
+		final BloomFilter ret = new BloomFilter(cache.size() * 2);
+		for (final CacheEntry entry : cache.values()) {
+			final File content = entry.getContent();
+			if ((content == null) || !content.exists()) {
+				continue;
+			}
+			ret.add(entry.getURI());
+			final Table itf = entry.getInterface();
+			if (itf instanceof DataInterface) {
+				ret.add(((DataInterface) itf).getMD5());
+			}
+		}
+		return ret;
+	}
+
 	/**
 	 * This dumps this cache content to stdout
 	 */
@@ -0,0 +1,470 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.common;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.InvalidKeyException;
+import java.sql.ResultSet;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+
+import xtremweb.database.SQLRequest;
+import xtremweb.security.XWAccessRights;
+
+/**
+ * This class describes a row of the dependencies SQL table.<br />
+ * A dependency is an edge between two works : the consumer work consumes data
+ * produced by the producer work. A consumer work waits until all its
+ * dependencies are released; a dependency is released as soon as its
+ * producer work is completed, i.e. its result has been uploaded. The consumer
+ * work may then be routed to the host which produced the data.
+ *
+ * @since 10.6.0
+ */
+public final class DependencyInterface extends xtremweb.common.Table {
+
+	/**
+	 * This is the database table name
+	 */
+	public static final String TABLENAME = "dependencies";
+	/**
+	 * This is the XML tag
+	 */
+	public static final String THISTAG = "dependency";
+
+	/**
+	 * This enumerates this interface columns
+	 */
+	public enum Columns implements XWBaseColumn {
+
+		/**
+		 * This is the column index of the consumer work UID
+		 */
+		WORKUID {
+			@Override
+			public UID fromString(final String v) {
+				return new UID(v);
+			}
+		},
+		/**
+		 * This is the column index of the producer work UID
+		 */
+		PRODUCERUID {
+			@Override
+			public UID fromString(final String v) {
+				return new UID(v);
+			}
+		},
+		/**
+		 * This is the column index of the routing flag : if true, the
+		 * consumer work is expected on the host which ran the producer work
+		 */
+		ROUTE {
+			@Override
+			public Boolean fromString(final String v) {
+				return new Boolean(v);
+			}
+		},
+		/**
+		 * This is the column index of the release flag : this is true once
+		 * the producer work is completed
+		 */
+		RELEASED {
+			@Override
+			public Boolean fromString(final String v) {
+				return new Boolean(v);
+			}
+		};
+
+		/**
+		 * This is the index based on ordinal so that the first value is
+		 * TableColumns + 1
+		 *
+		 * @see xtremweb.common#TableColumns
+		 * @see Enum#ordinal()
+		 */
+		private int ord;
+
+		/**
+		 * This constructor sets the ord member as ord = this.ordinal +
+		 * TableColumns.SIZE
+		 */
+		Columns() {
+			ord = this.ordinal() + TableColumns.SIZE;
+		}
+
+		/**
+		 * This retrieves the index based ordinal
+		 *
+		 * @return the index based ordinal
+		 */
+		@Override
+		public int getOrdinal() {
+			return ord;
+		}
+
+		/**
+		 * This creates a new object from String for the given column
+		 *
+		 * @param v
+		 *            the String representation
+		 * @return v
+		 * @throws Exception
+		 *             is thrown on instantiation error
+		 */
+		@Override
+		public Object fromString(final String v) throws Exception {
+			return v;
+		}
+
+		/**
+		 * This creates a new object from SQL result set
+		 *
+		 * @param rs
+		 *            is the SQL result set
+		 * @return the object representing the column
+		 * @throws Exception
+		 *             is thrown on instantiation error
+		 */
+		public final Object fromResultSet(final ResultSet rs) throws Exception {
+			return this.fromString(rs.getString(this.toString()));
+		}
+
+		/**
+		 * This retrieves an Columns from its integer value
+		 *
+		 * @param v
+		 *            is the integer value of the Columns
+		 * @return an Columns
+		 */
+		public static XWBaseColumn fromInt(final int v) throws IndexOutOfBoundsException {
+			try {
+				return TableColumns.fromInt(v);
+			} catch (final Exception e) {
+			}
+			for (final Columns c : Columns.values()) {
+				if (c.getOrdinal() == v) {
+					return c;
+				}
+			}
+			throw new IndexOutOfBoundsException(("unvalid Columns value ") + v);
+		}
+	}
+
+	/**
+	 * This is the size, including TableColumns
+	 */
+	private static final int ENUMSIZE = Columns.values().length;
+
+	/**
+	 * This is the default constructor
+	 */
+	public DependencyInterface() {
+
+		super(THISTAG, TABLENAME);
+
+		setAttributeLength(ENUMSIZE);
+
+		setAccessRights(XWAccessRights.USERALL);
+		setRoute(false);
+		setReleased(false);
+		setShortIndexes(new int[] { TableColumns.UID.getOrdinal(), Columns.WORKUID.getOrdinal(),
+				Columns.PRODUCERUID.getOrdinal(), Columns.RELEASED.getOrdinal() });
+	}
+
+	/**
+	 * This creates a new dependency
+	 *
+	 * @param consumer
+	 *            is the consumer work UID
+	 * @param producer
+	 *            is the producer work UID
+	 */
+	public DependencyInterface(final UID consumer, final UID producer) {
+		this();
+		setWork(consumer);
+		setProducer(producer);
+	}
+
+	/**
+	 * This constructs an object from DB
+	 *
+	 * @param rs
+	 *            is an SQL request result
+	 * @exception IOException
+	 */
+	public DependencyInterface(final ResultSet rs) throws IOException {
+		this();
+		fill(rs);
+	}
+
+	/**
+	 * This calls this(StreamIO.stream(input));
+	 *
+	 * @param input
+	 *            is a String containing an XML representation
+	 */
+	public DependencyInterface(final String input) throws IOException, SAXException {
+		this(StreamIO.stream(input));
+	}
+
+	/**
+	 * This constructs a new object from an XML file
+	 *
+	 * @param f
+	 *            is the XML file
+	 * @see #DependencyInterface(InputStream)
+	 */
+	public DependencyInterface(final File f) throws IOException, SAXException {
+		this(new FileInputStream(f));
+	}
+
+	/**
+	 * This creates a new object that will be retrieved with a complex SQL
+	 * request
+	 */
+	public DependencyInterface(final SQLRequest r) {
+		this();
+		setRequest(r);
+	}
+
+	/**
+	 * This constructs a new object from input stream
+	 *
+	 * @param input
+	 *            is the input stream
+	 * @see XMLReader#read(InputStream)
+	 * @throws IOException
+	 *             on XML error
+	 */
+	public DependencyInterface(final InputStream input) throws IOException, SAXException {
+		this();
+		final XMLReader reader = new XMLReader(this);
+		try {
+			reader.read(input);
+		} catch (final InvalidKeyException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * This constructs a new object on XML open tag. Columns are not read from
+	 * attributes since they are sent as XML entities : this type does not
+	 * exist in 8.x and below versions
+	 *
+	 * @param attrs
+	 *            contains attributes XML representation; ignored
+	 * @see Type#xmlElementStop(String, String, String)
+	 */
+	public DependencyInterface(final Attributes attrs) {
+		this();
+	}
+
+	/**
+	 * This fills columns from DB
+	 *
+	 * @param rs
+	 *            is the SQL data set
+	 * @throws IOException
+	 */
+	@Override
+	public void fill(final ResultSet rs) throws IOException {
+
+		try {
+			setUID((UID) TableColumns.UID.fromResultSet(rs));
+			setOwner((UID) TableColumns.OWNERUID.fromResultSet(rs));
+			setAccessRights((XWAccessRights) TableColumns.ACCESSRIGHTS.fromResultSet(rs));
+			setWork((UID) Columns.WORKUID.fromResultSet(rs));
+			setProducer((UID) Columns.PRODUCERUID.fromResultSet(rs));
+		} catch (final Exception e) {
+			throw new IOException(e.toString());
+		}
+		try {
+			setErrorMsg((String) TableColumns.ERRORMSG.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
+		try {
+			setRoute((Boolean) Columns.ROUTE.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
+		try {
+			setReleased((Boolean) Columns.RELEASED.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
+		setDirty(false);
+	}
+
+	/**
+	 * This retrieves column label from enum Columns
+	 *
+	 * @param i
+	 *            is an ordinal of an Columns
+	 * @return column label
+	 */
+	@Override
+	public String getColumnLabel(final int i) throws IndexOutOfBoundsException {
+		try {
+			return TableColumns.fromInt(i).toString();
+		} catch (final Exception e) {
+		}
+		return Columns.fromInt(i).toString();
+	}
+
+	/**
+	 * This updates this object from interface. The edge itself and the
+	 * release flag can not be updated : they are managed by the server
+	 */
+	@Override
+	public void updateInterface(final Table titf) throws IOException {
+		final DependencyInterface itf = (DependencyInterface) titf;
+		if (itf.getOwner() != null) {
+			setOwner(itf.getOwner());
+		}
+		if (itf.getAccessRights() != null) {
+			setAccessRights(itf.getAccessRights());
+		}
+		setRoute(itf.getRoute());
+	}
+
+	/**
+	 * This sets parameter value; this is called from
+	 * TableInterface#fromXml(Attributes)
+	 *
+	 * @param attribute
+	 *            is the name of the attribute to set
+	 * @param v
+	 *            is the new attribute value
+	 * @return true if value has changed, false otherwise
+	 * @see Table#fromXml(Attributes)
+	 */
+	@Override
+	public final boolean setValue(final String attribute, final Object v) throws IllegalArgumentException {
+		final String A = attribute.toUpperCase();
+		try {
+			return setValue(TableColumns.valueOf(A), v);
+		} catch (final Exception e) {
+			return setValue(Columns.valueOf(A), v);
+		}
+	}
+
+	/**
+	 * This retrieves the consumer work UID
+	 *
+	 * @return this attribute, or null if not set
+	 */
+	public UID getWork() {
+		return (UID) getValue(Columns.WORKUID);
+	}
+
+	/**
+	 * This retrieves the producer work UID
+	 *
+	 * @return this attribute, or null if not set
+	 */
+	public UID getProducer() {
+		return (UID) getValue(Columns.PRODUCERUID);
+	}
+
+	/**
+	 * This retrieves the routing flag
+	 *
+	 * @return this attribute, or false if not set
+	 */
+	public boolean getRoute() {
+		final Boolean ret = (Boolean) getValue(Columns.ROUTE);
+		return (ret != null) && ret.booleanValue();
+	}
+
+	/**
+	 * This retrieves the release flag
+	 *
+	 * @return this attribute, or false if not set
+	 */
+	public boolean isReleased() {
+		final Boolean ret = (Boolean) getValue(Columns.RELEASED);
+		return (ret != null) && ret.booleanValue();
+	}
+
+	/**
+	 * @return true if value has changed, false otherwise
+	 */
+	public boolean setWork(final UID v) {
+		return setValue(Columns.WORKUID, v);
+	}
+
+	/**
+	 * @return true if value has changed, false otherwise
+	 */
+	public boolean setProducer(final UID v) {
+		return setValue(Columns.PRODUCERUID, v);
+	}
+
+	/**
+	 * @return true if value has changed, false otherwise
+	 */
+	public boolean setRoute(final Boolean v) {
+		return setValue(Columns.ROUTE, v == null ? Boolean.FALSE : v);
+	}
+
+	/**
+	 * @return true if value has changed, false otherwise
+	 */
+	public boolean setReleased(final Boolean v) {
+		return setValue(Columns.RELEASED, v == null ? Boolean.FALSE : v);
+	}
+
+	/**
+	 * This is for testing only. Without any argument, this dumps a
+	 * DependencyInterface object. If the first argument is an XML file
+	 * containing a description of a DependencyInterface, this creates a
+	 * DependencyInterface from XML description and dumps it. Usage : java -cp
+	 * xtremweb.jar xtremweb.common.DependencyInterface [xmlFile]
+	 */
+	public static void main(final String[] argv) {
+		try {
+			final DependencyInterface itf = new DependencyInterface();
+			itf.setUID(UID.getMyUid());
+			if (argv.length > 0) {
+				try {
+					final XMLReader reader = new XMLReader(itf);
+					reader.read(new FileInputStream(argv[0]));
+				} catch (final XMLEndParseException e) {
+				}
+			}
+			itf.setLoggerLevel(LoggerLevel.DEBUG);
+			itf.setDUMPNULLS(true);
+			final XMLWriter writer = new XMLWriter(new DataOutputStream(System.out));
+			writer.write(itf);
+		} catch (final Exception e) {
+			final Logger logger = new Logger();
+			logger.exception("Usage : java -cp " + XWTools.JARFILENAME
+					+ " xtremweb.common.DependencyInterface [anXMLDescriptionFile]", e);
+		}
+	}
+}
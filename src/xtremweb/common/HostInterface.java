@@ -922,6 +922,27 @@ public final class HostInterface extends Table {
 	 */
 	private static final int ENUMSIZE = Columns.values().length;
 
+	/**
+	 * These are the job counters columns, in JobCounters.Counter order
+	 *
+	 * @since 10.6.0
+	 */
+	private static final XWBaseColumn[] COUNTERCOLUMNS = { Columns.PENDINGJOBS, Columns.RUNNINGJOBS,
+			Columns.ERRORJOBS, Columns.NBJOBS };
+
+	/**
+	 * This tells whether a column is updated by deltas
+	 *
+	 * @return true if index is the revision column, or a job counter column
+	 *         and job counters are aggregated
+	 * @see JobCounters
+	 * @since 10.6.0
+	 */
+	@Override
+	protected boolean isDeltaColumn(final int index) {
+		return super.isDeltaColumn(index) || JobCounters.isDeltaColumn(index, COUNTERCOLUMNS);
+	}
+
 	/**
 	 * This retrieves column label from enum Columns. This takes cares of this
 	 * version. If this version is null, this version is prior to 5.8.0. Before
@@ -1195,6 +1216,7 @@ public final class HostInterface extends Table {
 			getLogger().exception(e);
 			throw new IOException(e.toString());
 		}
+		JobCounters.refresh(this, COUNTERCOLUMNS);
 		setDirty(false);
 	}
 
@@ -1503,7 +1525,8 @@ public final class HostInterface extends Table {
 	 */
 	public int getNbJobs() {
 		try {
-			return ((Integer) getValue(Columns.NBJOBS)).intValue();
+			return JobCounters.get(this, JobCounters.Counter.COMPLETEDJOBS,
+					((Integer) getValue(Columns.NBJOBS)).intValue());
 		} catch (final Exception e) {
 		}
 		setNbJobs(0);
@@ -1519,7 +1542,7 @@ public final class HostInterface extends Table {
 	 */
 	public int getPendingJobs() {
 		try {
-			return ((Integer) getValue(Columns.PENDINGJOBS)).intValue();
+			return JobCounters.get(this, JobCounters.Counter.PENDINGJOBS, ((Integer) getValue(Columns.PENDINGJOBS)).intValue());
 		} catch (final Exception e) {
 		}
 		setPendingJobs(0);
@@ -1535,7 +1558,7 @@ public final class HostInterface extends Table {
 	 */
 	public int getRunningJobs() {
 		try {
-			return ((Integer) getValue(Columns.RUNNINGJOBS)).intValue();
+			return JobCounters.get(this, JobCounters.Counter.RUNNINGJOBS, ((Integer) getValue(Columns.RUNNINGJOBS)).intValue());
 		} catch (final Exception e) {
 		}
 		setRunningJobs(0);
@@ -1551,7 +1574,7 @@ public final class HostInterface extends Table {
 	 */
 	public int getErrorJobs() {
 		try {
-			return ((Integer) getValue(Columns.ERRORJOBS)).intValue();
+			return JobCounters.get(this, JobCounters.Counter.ERRORJOBS, ((Integer) getValue(Columns.ERRORJOBS)).intValue());
 		} catch (final Exception e) {
 		}
 		setErrorJobs(0);
@@ -2201,7 +2224,9 @@ public final class HostInterface extends Table {
 	 * @since 7.0.0
 	 */
 	public void incNbJobs() {
-		setNbJobs(getNbJobs() + 1);
+		if (!JobCounters.add(this, COUNTERCOLUMNS, JobCounters.Counter.COMPLETEDJOBS, 1)) {
+			setNbJobs(getNbJobs() + 1);
+		}
 	}
 
 	/**
@@ -2210,7 +2235,9 @@ public final class HostInterface extends Table {
 	 * @since 7.0.0
 	 */
 	public void incPendingJobs() {
-		setPendingJobs(getPendingJobs() + 1);
+		if (!JobCounters.add(this, COUNTERCOLUMNS, JobCounters.Counter.PENDINGJOBS, 1)) {
+			setPendingJobs(getPendingJobs() + 1);
+		}
 	}
 
 	/**
@@ -2219,7 +2246,9 @@ public final class HostInterface extends Table {
 	 * @since 7.0.0
 	 */
 	public void incRunningJobs() {
-		setRunningJobs(getRunningJobs() + 1);
+		if (!JobCounters.add(this, COUNTERCOLUMNS, JobCounters.Counter.RUNNINGJOBS, 1)) {
+			setRunningJobs(getRunningJobs() + 1);
+		}
 	}
 
 	/**
@@ -2228,7 +2257,9 @@ public final class HostInterface extends Table {
 	 * @since 7.0.0
 	 */
 	public void incErrorJobs() {
-		setErrorJobs(getErrorJobs() + 1);
+		if (!JobCounters.add(this, COUNTERCOLUMNS, JobCounters.Counter.ERRORJOBS, 1)) {
+			setErrorJobs(getErrorJobs() + 1);
+		}
 	}
 
 	/**
@@ -2237,7 +2268,9 @@ public final class HostInterface extends Table {
 	 * @since 7.0.0
 	 */
 	public void decPendingJobs() {
-		setPendingJobs(getPendingJobs() - 1);
+		if (!JobCounters.add(this, COUNTERCOLUMNS, JobCounters.Counter.PENDINGJOBS, -1)) {
+			setPendingJobs(getPendingJobs() - 1);
+		}
 	}
 
 	/**
@@ -2246,7 +2279,9 @@ public final class HostInterface extends Table {
 	 * @since 7.0.0
 	 */
 	public void decRunningJobs() {
-		setRunningJobs(getRunningJobs() - 1);
+		if (!JobCounters.add(this, COUNTERCOLUMNS, JobCounters.Counter.RUNNINGJOBS, -1)) {
+			setRunningJobs(getRunningJobs() - 1);
+		}
 	}
 
 	/**
@@ -0,0 +1,418 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.common;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import xtremweb.database.DBConnPoolThread;
+
+/**
+ * This aggregates the pending, running and erroneous jobs counters of
+ * applications, users and hosts in memory.<br />
+ * When enabled, incrementing or decrementing a counter only updates a
+ * LongAdder; the counters columns are then not written by full row updates,
+ * and the cumulated deltas are periodically applied to the DB as
+ * "column=column+delta". This is only enabled by the dispatcher, which is the
+ * only writer of these counters.<br />
+ * Groups and sessions counters are only updated by deltas, since their rows
+ * are not read on work status changes : see add(String, UID, Counter, long).
+ *
+ * @see Type#isDeltaColumn(int)
+ * @see XWPropertyDefs#COUNTERSFLUSHPERIOD
+ * @since 10.6.0
+ */
+public final class JobCounters {
+
+	/**
+	 * These are the aggregated counters. Names are the column names in apps,
+	 * users, hosts, groups and sessions tables, except COMPLETEDJOBS which is
+	 * NBJOBS in apps, users and hosts tables
+	 */
+	public enum Counter {
+		PENDINGJOBS, RUNNINGJOBS, ERRORJOBS, COMPLETEDJOBS
+	}
+
+	/**
+	 * This is a delta to apply to a row
+	 */
+	public static final class Delta {
+		private final String tableName;
+		private final UID uid;
+		private final String set;
+
+		private Delta(final String t, final UID u, final String s) {
+			tableName = t;
+			uid = u;
+			set = s;
+		}
+
+		/**
+		 * @return the name of the table to update
+		 */
+		public String getTableName() {
+			return tableName;
+		}
+
+		/**
+		 * @return the UID of the row to update
+		 */
+		public UID getUID() {
+			return uid;
+		}
+
+		/**
+		 * @return the SET statement part, e.g. "PENDINGJOBS=GREATEST(PENDINGJOBS+1,0)"
+		 */
+		public String getSet() {
+			return set;
+		}
+	}
+
+	/**
+	 * These are the counters of a row
+	 */
+	private static final class Entry {
+		private final String tableName;
+		/** these are the counters columns names, in Counter order */
+		private final String[] columns;
+		/** these are the current values */
+		private final LongAdder[] values;
+		/** these are the deltas cumulated since this entry creation */
+		private final LongAdder[] deltas;
+		/** these are the deltas already flushed; guarded by JobCounters.class */
+		private final long[] flushed;
+
+		private Entry(final String t) {
+			tableName = t;
+			final int size = Counter.values().length;
+			columns = new String[size];
+			for (final Counter c : Counter.values()) {
+				columns[c.ordinal()] = c.toString();
+			}
+			values = new LongAdder[size];
+			deltas = new LongAdder[size];
+			flushed = new long[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = new LongAdder();
+				deltas[i] = new LongAdder();
+			}
+		}
+
+		private Entry(final Table row, final XWBaseColumn[] columns) {
+			this(row.tableName());
+			for (int i = 0; i < columns.length; i++) {
+				this.columns[i] = columns[i].toString();
+				final Integer base = (Integer) row.getValue(columns[i]);
+				if (base != null) {
+					values[i].add(base.longValue());
+				}
+			}
+		}
+	}
+
+	/**
+	 * This tells whether counters are aggregated
+	 */
+	private static volatile boolean enabled = false;
+	/**
+	 * These are the counters, by row UID
+	 */
+	private static final ConcurrentHashMap<UID, Entry> entries = new ConcurrentHashMap<>();
+
+	private JobCounters() {
+	}
+
+	/**
+	 * This enables or disables counters aggregation. Disabling drops
+	 * unflushed deltas
+	 */
+	public static void setEnabled(final boolean e) {
+		enabled = e;
+		if (!e) {
+			entries.clear();
+		}
+	}
+
+	/**
+	 * This tells whether counters are aggregated
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * This tells whether the given column index is one of the given counters
+	 * columns and if counters are aggregated
+	 *
+	 * @param index
+	 *            is the column index
+	 * @param columns
+	 *            are the row counters columns, in Counter order
+	 * @see Type#isDeltaColumn(int)
+	 */
+	public static boolean isDeltaColumn(final int index, final XWBaseColumn[] columns) {
+		if (!enabled) {
+			return false;
+		}
+		for (final XWBaseColumn column : columns) {
+			if (column.getOrdinal() == index) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * This retrieves the aggregated value of a counter
+	 *
+	 * @param row
+	 *            is the row
+	 * @param c
+	 *            is the counter
+	 * @param base
+	 *            is the row value, returned if the counter is not aggregated
+	 * @return the counter value
+	 */
+	public static int get(final Table row, final Counter c, final int base) {
+		if (!enabled) {
+			return base;
+		}
+		final UID uid = (UID) row.getValue(TableColumns.UID);
+		if (uid == null) {
+			return base;
+		}
+		final Entry entry = entries.get(uid);
+		if (entry == null) {
+			return base;
+		}
+		return (int) Math.max(0L, entry.values[c.ordinal()].sum());
+	}
+
+	/**
+	 * This adds a value to a counter. The row counter column is also set so
+	 * that the row XML representation shows the aggregated value
+	 *
+	 * @param row
+	 *            is the row
+	 * @param columns
+	 *            are the row counters columns, in Counter order
+	 * @param c
+	 *            is the counter
+	 * @param v
+	 *            is the value to add
+	 * @return false if counters are not aggregated or if the row UID is not
+	 *         set; the caller must then set the row value itself
+	 */
+	public static boolean add(final Table row, final XWBaseColumn[] columns, final Counter c, final long v) {
+		if (!enabled) {
+			return false;
+		}
+		final UID uid = (UID) row.getValue(TableColumns.UID);
+		if (uid == null) {
+			return false;
+		}
+		Entry entry = entries.get(uid);
+		if (entry == null) {
+			final Entry newEntry = new Entry(row, columns);
+			entry = entries.putIfAbsent(uid, newEntry);
+			if (entry == null) {
+				entry = newEntry;
+			}
+		}
+		entry.values[c.ordinal()].add(v);
+		entry.deltas[c.ordinal()].add(v);
+		row.setValue(columns[c.ordinal()], Integer.valueOf((int) Math.max(0L, entry.values[c.ordinal()].sum())));
+		return true;
+	}
+
+	/**
+	 * This sets the row counters columns to the aggregated values, if any.
+	 * This is called when a row is read from DB, since unflushed deltas are
+	 * not in DB yet
+	 *
+	 * @param row
+	 *            is the row
+	 * @param columns
+	 *            are the row counters columns, in Counter order
+	 */
+	public static void refresh(final Table row, final XWBaseColumn[] columns) {
+		if (!enabled) {
+			return;
+		}
+		final UID uid = (UID) row.getValue(TableColumns.UID);
+		if (uid == null) {
+			return;
+		}
+		final Entry entry = entries.get(uid);
+		if (entry == null) {
+			return;
+		}
+		for (int i = 0; i < columns.length; i++) {
+			row.setValue(columns[i], Integer.valueOf((int) Math.max(0L, entry.values[i].sum())));
+		}
+	}
+
+	/**
+	 * This adds a value to a counter of a row which is not read. If counters
+	 * are aggregated, the delta is applied to the DB on next flush; otherwise
+	 * it is applied immediately as "column=column+v"
+	 *
+	 * @param tableName
+	 *            is the name of the table of the row
+	 * @param uid
+	 *            is the row UID
+	 * @param c
+	 *            is the counter
+	 * @param v
+	 *            is the value to add
+	 * @see #unflushed(UID, Counter)
+	 * @since 10.6.0
+	 */
+	public static void add(final String tableName, final UID uid, final Counter c, final long v) {
+		if ((uid == null) || (v == 0L)) {
+			return;
+		}
+		if (!enabled) {
+			final DBConnPoolThread db = DBConnPoolThread.getInstance();
+			if (db != null) {
+				db.update(tableName, set(c.toString(), v), TableColumns.UID + "='" + uid + "'");
+			}
+			return;
+		}
+		Entry entry = entries.get(uid);
+		if (entry == null) {
+			final Entry newEntry = new Entry(tableName);
+			entry = entries.putIfAbsent(uid, newEntry);
+			if (entry == null) {
+				entry = newEntry;
+			}
+		}
+		entry.values[c.ordinal()].add(v);
+		entry.deltas[c.ordinal()].add(v);
+	}
+
+	/**
+	 * This retrieves the delta of a counter not flushed yet
+	 *
+	 * @param uid
+	 *            is the row UID
+	 * @param c
+	 *            is the counter
+	 * @return the delta not applied to the DB yet; 0 if none
+	 * @since 10.6.0
+	 */
+	public static synchronized long unflushed(final UID uid, final Counter c) {
+		if (!enabled || (uid == null)) {
+			return 0L;
+		}
+		final Entry entry = entries.get(uid);
+		if (entry == null) {
+			return 0L;
+		}
+		return entry.deltas[c.ordinal()].sum() - entry.flushed[c.ordinal()];
+	}
+
+	/**
+	 * This adds the deltas not flushed yet to the row counters columns. This
+	 * is called when a row only updated by deltas is read from DB
+	 *
+	 * @param row
+	 *            is the row
+	 * @param columns
+	 *            are the row counters columns, in Counter order
+	 * @see #add(String, UID, Counter, long)
+	 * @since 10.6.0
+	 */
+	public static void addUnflushed(final Table row, final XWBaseColumn[] columns) {
+		final UID uid = (UID) row.getValue(TableColumns.UID);
+		for (int i = 0; i < columns.length; i++) {
+			final long delta = unflushed(uid, Counter.values()[i]);
+			if (delta == 0L) {
+				continue;
+			}
+			final Integer base = (Integer) row.getValue(columns[i]);
+			final long value = (base == null ? 0L : base.longValue()) + delta;
+			row.setValue(columns[i], Integer.valueOf((int) Math.max(0L, value)));
+		}
+	}
+
+	/**
+	 * @return the SET statement part adding v to the counter column
+	 */
+	private static String set(final String column, final long v) {
+		return column + "=GREATEST(" + column + (v > 0 ? "+" : "") + v + ",0)";
+	}
+
+	/**
+	 * This retrieves the deltas not flushed yet and marks them as flushed
+	 *
+	 * @return the deltas to apply; an empty collection if none
+	 */
+	public static synchronized Collection<Delta> drain() {
+		final Vector<Delta> ret = new Vector<>();
+		for (final Map.Entry<UID, Entry> e : entries.entrySet()) {
+			final Entry entry = e.getValue();
+			final StringBuilder set = new StringBuilder();
+			for (final Counter c : Counter.values()) {
+				final long total = entry.deltas[c.ordinal()].sum();
+				final long delta = total - entry.flushed[c.ordinal()];
+				if (delta == 0L) {
+					continue;
+				}
+				entry.flushed[c.ordinal()] = total;
+				if (set.length() > 0) {
+					set.append(',');
+				}
+				set.append(set(entry.columns[c.ordinal()], delta));
+			}
+			if (set.length() > 0) {
+				ret.add(new Delta(entry.tableName, e.getKey(), set.toString()));
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * This applies the deltas not flushed yet to the DB
+	 *
+	 * @return the amount of updated rows
+	 * @see DBConnPoolThread#update(String, String, String)
+	 */
+	public static int flush() {
+		final DBConnPoolThread db = DBConnPoolThread.getInstance();
+		if (db == null) {
+			return 0;
+		}
+		final Collection<Delta> deltas = drain();
+		for (final Delta delta : deltas) {
+			db.update(delta.getTableName(), delta.getSet(),
+					TableColumns.UID + "='" + delta.getUID() + "'");
+		}
+		return deltas.size();
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This is a lock free log-linear histogram aiming to compute latency
+ * percentiles.<br />
+ * Each power of two is split in SUBBUCKETS linear buckets, so that the
+ * relative error of a percentile is lower than 1/SUBBUCKETS whatever the
+ * latency is.
+ *
+ * @since 10.6.0
+ */
+public class LatencyHistogram {
+
+	/**
+	 * This is the amount of bits to index a linear sub bucket
+	 */
+	private static final int SUBBITS = 4;
+	/**
+	 * This is the amount of linear sub buckets per power of two
+	 */
+	private static final int SUBBUCKETS = 1 << SUBBITS;
+	/**
+	 * This is the amount of buckets needed to store any positive long
+	 */
+	private static final int BUCKETS = (Long.SIZE - SUBBITS) * SUBBUCKETS;
+
+	private final AtomicLongArray buckets;
+	private final AtomicLong count;
+	private final AtomicLong sum;
+	private final AtomicLong max;
+
+	/**
+	 * This constructs an empty histogram
+	 */
+	public LatencyHistogram() {
+		buckets = new AtomicLongArray(BUCKETS);
+		count = new AtomicLong(0L);
+		sum = new AtomicLong(0L);
+		max = new AtomicLong(0L);
+	}
+
+	/**
+	 * This retrieves the bucket index of the given value
+	 */
+	private static int index(final long v) {
+		if (v < SUBBUCKETS) {
+			return (int) v;
+		}
+		final int exp = (Long.SIZE - 1) - Long.numberOfLeadingZeros(v);
+		final int sub = (int) ((v >>> (exp - SUBBITS)) & (SUBBUCKETS - 1));
+		return ((exp - SUBBITS + 1) * SUBBUCKETS) + sub;
+	}
+
+	/**
+	 * This retrieves the highest value stored in the given bucket
+	 */
+	private static long highestValue(final int index) {
+		if (index < SUBBUCKETS) {
+			return index;
+		}
+		final int shift = (index / SUBBUCKETS) - 1;
+		final long lowest = ((long) (SUBBUCKETS + (index % SUBBUCKETS))) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	/**
+	 * This records a value; negative values are recorded as 0
+	 *
+	 * @param value
+	 *            is the value to record, typically in milliseconds
+	 */
+	public void record(final long value) {
+		final long v = (value < 0 ? 0 : value);
+		buckets.incrementAndGet(index(v));
+		count.incrementAndGet();
+		sum.addAndGet(v);
+		long m = max.get();
+		while ((v > m) && !max.compareAndSet(m, v)) {
+			m = max.get();
+		}
+	}
+
+	/**
+	 * @return the amount of recorded values
+	 */
+	public long count() {
+		return count.get();
+	}
+
+	/**
+	 * @return the highest recorded value
+	 */
+	public long max() {
+		return max.get();
+	}
+
+	/**
+	 * @return the mean of recorded values; 0 if none
+	 */
+	public long mean() {
+		final long c = count.get();
+		return (c == 0 ? 0 : sum.get() / c);
+	}
+
+	/**
+	 * This retrieves a percentile
+	 *
+	 * @param p
+	 *            is the expected percentile, in ]0, 100]
+	 * @return the value under which p percent of the recorded values are; 0 if
+	 *         no value recorded
+	 */
+	public long percentile(final double p) {
+		final long c = count.get();
+		if (c == 0) {
+			return 0;
+		}
+		final double ratio = Math.min(Math.max(p, 0d), 100d) / 100d;
+		final long target = Math.max(1L, (long) Math.ceil(ratio * c));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += buckets.get(i);
+			if (seen >= target) {
+				return Math.min(highestValue(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * This resets this histogram. This is not atomic regarding concurrent
+	 * records
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets.set(i, 0L);
+		}
+		count.set(0L);
+		sum.set(0L);
+		max.set(0L);
+	}
+
+	/**
+	 * This retrieves a one line summary
+	 *
+	 * @return "count=... mean=... p50=... p90=... p99=... max=..."
+	 */
+	@Override
+	public String toString() {
+		return "count=" + count() + " mean=" + mean() + " p50=" + percentile(50) + " p90=" + percentile(90)
+				+ " p99=" + percentile(99) + " max=" + max();
+	}
+}
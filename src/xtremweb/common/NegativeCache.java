@@ -0,0 +1,163 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.common;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This remembers keys known to be missing (e.g. UIDs of deleted objects), so
+ * that repeated lookups of missing objects cost nothing. Entries expire after
+ * a short time to live, and must be removed when an object with that key is
+ * created. The oldest entries are evicted when the max size is reached.
+ *
+ * @since 10.6.0
+ */
+public class NegativeCache<K> {
+
+	/**
+	 * This is the default max amount of entries
+	 */
+	public static final int DEFAULTSIZE = 10000;
+
+	/**
+	 * These are the expiration dates, by key, in insertion order
+	 */
+	private final LinkedHashMap<K, Long> entries;
+	/**
+	 * This is the time to live in milliseconds
+	 */
+	private final long ttl;
+	/**
+	 * This is the max amount of entries
+	 */
+	private final int maxSize;
+	/**
+	 * This is the amount of lookups answered by this cache
+	 */
+	private long hits;
+
+	/**
+	 * @param ttl
+	 *            is the time to live in milliseconds; if not positive,
+	 *            nothing is cached
+	 * @param maxSize
+	 *            is the max amount of entries
+	 */
+	public NegativeCache(final long ttl, final int maxSize) {
+		this.ttl = ttl;
+		this.maxSize = maxSize;
+		hits = 0L;
+		entries = new LinkedHashMap<K, Long>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<K, Long> eldest) {
+				return size() > NegativeCache.this.maxSize;
+			}
+		};
+	}
+
+	/**
+	 * This calls this(ttl, DEFAULTSIZE)
+	 */
+	public NegativeCache(final long ttl) {
+		this(ttl, DEFAULTSIZE);
+	}
+
+	/**
+	 * This remembers that a key is missing; this does nothing if the time to
+	 * live is not positive
+	 */
+	public synchronized void add(final K key) {
+		if ((key == null) || (ttl <= 0)) {
+			return;
+		}
+		entries.remove(key);
+		entries.put(key, System.currentTimeMillis() + ttl);
+	}
+
+	/**
+	 * This tells whether a key is known to be missing
+	 *
+	 * @return true if the key has been added and has not expired
+	 */
+	public synchronized boolean contains(final K key) {
+		if (key == null) {
+			return false;
+		}
+		final Long expires = entries.get(key);
+		if (expires == null) {
+			return false;
+		}
+		if (expires.longValue() < System.currentTimeMillis()) {
+			entries.remove(key);
+			return false;
+		}
+		hits++;
+		return true;
+	}
+
+	/**
+	 * This forgets a key; this must be called when an object with that key is
+	 * created
+	 */
+	public synchronized void remove(final K key) {
+		if (key != null) {
+			entries.remove(key);
+		}
+	}
+
+	/**
+	 * This removes expired entries
+	 *
+	 * @return the amount of removed entries
+	 */
+	public synchronized int expire() {
+		final long now = System.currentTimeMillis();
+		int ret = 0;
+		for (final Iterator<Long> it = entries.values().iterator(); it.hasNext();) {
+			if (it.next().longValue() < now) {
+				it.remove();
+				ret++;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the amount of entries, including expired ones not removed yet
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return the amount of lookups answered by this cache
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+}
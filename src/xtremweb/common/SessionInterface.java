@@ -87,6 +87,90 @@ public final class SessionInterface extends xtremweb.common.Table {
 				final String val = v;
 				return val.replaceAll("[\\n\\s\'\"]+", "_");
 			}
+		},
+		/**
+		 * This is the column index of the pending jobs counter; this is only
+		 * updated by deltas on work status changes
+		 *
+		 * @see JobCounters#add(String, UID, JobCounters.Counter, long)
+		 * @since 10.6.0
+		 */
+		PENDINGJOBS {
+			/**
+			 * This creates an object from String representation for this column
+			 * value
+			 *
+			 * @param v
+			 *            the String representation
+			 * @return an Integer representing the column value
+			 */
+			@Override
+			public Integer fromString(final String v) {
+				return Integer.valueOf(v);
+			}
+		},
+		/**
+		 * This is the column index of the running jobs counter; this is only
+		 * updated by deltas on work status changes
+		 *
+		 * @see JobCounters#add(String, UID, JobCounters.Counter, long)
+		 * @since 10.6.0
+		 */
+		RUNNINGJOBS {
+			/**
+			 * This creates an object from String representation for this column
+			 * value
+			 *
+			 * @param v
+			 *            the String representation
+			 * @return an Integer representing the column value
+			 */
+			@Override
+			public Integer fromString(final String v) {
+				return Integer.valueOf(v);
+			}
+		},
+		/**
+		 * This is the column index of the completed jobs counter; this is only
+		 * updated by deltas on work status changes
+		 *
+		 * @see JobCounters#add(String, UID, JobCounters.Counter, long)
+		 * @since 10.6.0
+		 */
+		COMPLETEDJOBS {
+			/**
+			 * This creates an object from String representation for this column
+			 * value
+			 *
+			 * @param v
+			 *            the String representation
+			 * @return an Integer representing the column value
+			 */
+			@Override
+			public Integer fromString(final String v) {
+				return Integer.valueOf(v);
+			}
+		},
+		/**
+		 * This is the column index of the erroneous jobs counter; this is only
+		 * updated by deltas on work status changes
+		 *
+		 * @see JobCounters#add(String, UID, JobCounters.Counter, long)
+		 * @since 10.6.0
+		 */
+		ERRORJOBS {
+			/**
+			 * This creates an object from String representation for this column
+			 * value
+			 *
+			 * @param v
+			 *            the String representation
+			 * @return an Integer representing the column value
+			 */
+			@Override
+			public Integer fromString(final String v) {
+				return Integer.valueOf(v);
+			}
 		};
 
 		/**
@@ -173,6 +257,14 @@ public final class SessionInterface extends xtremweb.common.Table {
 	 */
 	private static final int ENUMSIZE = Columns.values().length;
 
+	/**
+	 * These are the job counters columns, in JobCounters.Counter order
+	 *
+	 * @since 10.6.0
+	 */
+	private static final XWBaseColumn[] COUNTERCOLUMNS = { Columns.PENDINGJOBS, Columns.RUNNINGJOBS,
+			Columns.ERRORJOBS, Columns.COMPLETEDJOBS };
+
 	/**
 	 * This is the default constructor
 	 */
@@ -184,6 +276,10 @@ public final class SessionInterface extends xtremweb.common.Table {
 
 		setAccessRights(XWAccessRights.USERALL);
 		setShortIndexes(new int[] { TableColumns.UID.getOrdinal(), Columns.NAME.getOrdinal() });
+		setPendingJobs(0);
+		setRunningJobs(0);
+		setCompletedJobs(0);
+		setErrorJobs(0);
 	}
 
 	/**
@@ -283,6 +379,14 @@ public final class SessionInterface extends xtremweb.common.Table {
 		} catch (final Exception e) {
 			throw new IOException(e.toString());
 		}
+		try {
+			setPendingJobs((Integer) Columns.PENDINGJOBS.fromResultSet(rs));
+			setRunningJobs((Integer) Columns.RUNNINGJOBS.fromResultSet(rs));
+			setCompletedJobs((Integer) Columns.COMPLETEDJOBS.fromResultSet(rs));
+			setErrorJobs((Integer) Columns.ERRORJOBS.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
+		JobCounters.addUnflushed(this, COUNTERCOLUMNS);
 		setDirty(false);
 	}
 
@@ -363,6 +467,129 @@ public final class SessionInterface extends xtremweb.common.Table {
 		return setValue(Columns.NAME, v);
 	}
 
+
+	/**
+	 * This tells whether a column is updated by deltas
+	 *
+	 * @return true if index is the revision column or a job counter column,
+	 *         since these are only updated by deltas
+	 * @see JobCounters#add(String, UID, JobCounters.Counter, long)
+	 * @since 10.6.0
+	 */
+	@Override
+	protected boolean isDeltaColumn(final int index) {
+		if (super.isDeltaColumn(index)) {
+			return true;
+		}
+		for (final XWBaseColumn column : COUNTERCOLUMNS) {
+			if (column.getOrdinal() == index) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * This retrieves a job counter
+	 *
+	 * @return the counter value, or 0 if not set
+	 * @since 10.6.0
+	 */
+	private int getCounter(final Columns column) {
+		final Integer ret = (Integer) getValue(column);
+		return ret == null ? 0 : ret.intValue();
+	}
+
+	/**
+	 * This retrieves the amount of pending jobs of this session
+	 *
+	 * @return the attribute, or 0 if not set
+	 * @since 10.6.0
+	 */
+	public int getPendingJobs() {
+		return getCounter(Columns.PENDINGJOBS);
+	}
+
+	/**
+	 * This retrieves the amount of running jobs of this session
+	 *
+	 * @return the attribute, or 0 if not set
+	 * @since 10.6.0
+	 */
+	public int getRunningJobs() {
+		return getCounter(Columns.RUNNINGJOBS);
+	}
+
+	/**
+	 * This retrieves the amount of completed jobs of this session
+	 *
+	 * @return the attribute, or 0 if not set
+	 * @since 10.6.0
+	 */
+	public int getCompletedJobs() {
+		return getCounter(Columns.COMPLETEDJOBS);
+	}
+
+	/**
+	 * This retrieves the amount of erroneous jobs of this session
+	 *
+	 * @return the attribute, or 0 if not set
+	 * @since 10.6.0
+	 */
+	public int getErrorJobs() {
+		return getCounter(Columns.ERRORJOBS);
+	}
+
+	/**
+	 * This retrieves the total amount of jobs of this session
+	 *
+	 * @return pending + running + completed + erroneous jobs
+	 * @since 10.6.0
+	 */
+	public int getTotalJobs() {
+		return getPendingJobs() + getRunningJobs() + getCompletedJobs() + getErrorJobs();
+	}
+
+	/**
+	 * This sets the amount of pending jobs
+	 *
+	 * @return true is value has changed
+	 * @since 10.6.0
+	 */
+	public boolean setPendingJobs(final int v) {
+		return setValue(Columns.PENDINGJOBS, Integer.valueOf(v < 0 ? 0 : v));
+	}
+
+	/**
+	 * This sets the amount of running jobs
+	 *
+	 * @return true is value has changed
+	 * @since 10.6.0
+	 */
+	public boolean setRunningJobs(final int v) {
+		return setValue(Columns.RUNNINGJOBS, Integer.valueOf(v < 0 ? 0 : v));
+	}
+
+	/**
+	 * This sets the amount of completed jobs
+	 *
+	 * @return true is value has changed
+	 * @since 10.6.0
+	 */
+	public boolean setCompletedJobs(final int v) {
+		return setValue(Columns.COMPLETEDJOBS, Integer.valueOf(v < 0 ? 0 : v));
+	}
+
+	/**
+	 * This sets the amount of erroneous jobs
+	 *
+	 * @return true is value has changed
+	 * @since 10.6.0
+	 */
+	public boolean setErrorJobs(final int v) {
+		return setValue(Columns.ERRORJOBS, Integer.valueOf(v < 0 ? 0 : v));
+	}
+
 	/**
 	 * This is for testing only. Without any argument, this dumps a
 	 * SessionInterface object. If the first argument is an XML file containing
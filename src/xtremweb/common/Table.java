@@ -29,6 +29,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.security.AccessControlException;
 import java.security.InvalidKeyException;
+import java.sql.ResultSet;
 import java.util.Date;
 
 import org.xml.sax.Attributes;
@@ -184,6 +185,72 @@ public abstract class Table extends Type {
 		return (Date) getValue(TableColumns.MTIME);
 	}
 
+	/**
+	 * This sets the revision
+	 *
+	 * @return true if value has changed, false otherwise
+	 * @since 10.6.0
+	 */
+	public final boolean setRevision(final long v) {
+		return setValue(TableColumns.REVISION, Long.valueOf(v));
+	}
+
+	/**
+	 * This retrieves the revision; this is incremented by DBConnPoolThread on
+	 * each update
+	 *
+	 * @return the revision; null if not set (e.g. row not read from DB yet,
+	 *         or sent by a server not managing revisions)
+	 * @since 10.6.0
+	 */
+	public final Long getRevision() {
+		return (Long) getValue(TableColumns.REVISION);
+	}
+
+	/**
+	 * This increments the revision, accordingly to an update sent to DB. This
+	 * does not set the dirty flag, since the revision is never written by a
+	 * full row update
+	 *
+	 * @see #isDeltaColumn(int)
+	 * @since 10.6.0
+	 */
+	public final void nextRevision() {
+		final Long revision = getRevision();
+		setValueAt(TableColumns.REVISION.getOrdinal(), Long.valueOf(revision == null ? 1L : revision.longValue() + 1));
+	}
+
+	/**
+	 * This reads the revision from DB; a NULL revision is read as 0, since
+	 * inserted rows may have no revision. This does nothing if the result set
+	 * does not contain the revision (e.g. DB not updated yet)
+	 *
+	 * @param rs
+	 *            is the SQL data set
+	 * @since 10.6.0
+	 */
+	public final void fillRevision(final ResultSet rs) {
+		try {
+			final String revision = rs.getString(TableColumns.REVISION.toString());
+			setValueAt(TableColumns.REVISION.getOrdinal(), revision == null ? Long.valueOf(0L)
+					: TableColumns.REVISION.fromString(revision));
+		} catch (final Exception e) {
+		}
+	}
+
+	/**
+	 * This tells whether a column is updated in DB by deltas and must not be
+	 * written by a full row update. The revision is incremented by
+	 * DBConnPoolThread on each update
+	 *
+	 * @return true if index is the revision column index
+	 * @since 10.6.0
+	 */
+	@Override
+	protected boolean isDeltaColumn(final int index) {
+		return index == TableColumns.REVISION.getOrdinal();
+	}
+
 	/**
 	 * This should test access rights ; this should be overriden
 	 *
@@ -348,6 +415,20 @@ public abstract class Table extends Type {
 			return readInterface(input, ret);
 		} catch (final SAXException e) {
 		}
+		try {
+			input.reset();
+			input.mark(XWTools.BUFFEREND);
+			final Table ret = new TemplateInterface();
+			return readInterface(input, ret);
+		} catch (final SAXException e) {
+		}
+		try {
+			input.reset();
+			input.mark(XWTools.BUFFEREND);
+			final Table ret = new DependencyInterface();
+			return readInterface(input, ret);
+		} catch (final SAXException e) {
+		}
 
 		throw new IOException("Unable to create new Interface from input stream");
 	}
@@ -123,6 +123,28 @@ public enum TableColumns implements XWBaseColumn {
 		public Date fromString(final String v) {
 			return XWTools.getSQLDateTime(v);
 		}
+	},
+	/**
+	 * This is the column index of the revision. This is incremented by
+	 * DBConnPoolThread on each update, so that clients can validate their
+	 * cached objects without downloading them again
+	 *
+	 * @see xtremweb.communications.XMLRPCCommandGet#getIfRevisionDiffers()
+	 * @since 10.6.0
+	 */
+	REVISION {
+		/**
+		 * This creates an object from String representation for this column
+		 * value
+		 *
+		 * @param v
+		 *            the String representation
+		 * @return a Long representing the column value
+		 */
+		@Override
+		public Long fromString(final String v) {
+			return Long.valueOf(v);
+		}
 	};
 
 	public static final int SIZE = TableColumns.values().length;
@@ -448,6 +448,21 @@ public final class TaskInterface extends xtremweb.common.Table {
 	 *            is the work the task is created for
 	 */
 	public TaskInterface(final WorkInterface w) throws IOException {
+		this(w, true);
+	}
+
+	/**
+	 * This is the constructor
+	 *
+	 * @param w
+	 *            is the work the task is created for
+	 * @param insert
+	 *            if true, the new task is inserted into DB; otherwise the
+	 *            caller must insert it, e.g. within a unit of work
+	 * @see xtremweb.database.UnitOfWork#insert(Type)
+	 * @since 10.6.0
+	 */
+	public TaskInterface(final WorkInterface w, final boolean insert) throws IOException {
 
 		this();
 		UID uid = new UID();
@@ -458,6 +473,9 @@ public final class TaskInterface extends xtremweb.common.Table {
 		setStatus(w.getStatus());
 		setAccessRights(w.getAccessRights());
 		setInsertionDate();
+		if (!insert) {
+			return;
+		}
 		try {
 			insert();
 		} catch (final Exception e) {
@@ -781,6 +799,28 @@ public final class TaskInterface extends xtremweb.common.Table {
 		return testStatus(StatusEnum.ERROR);
 	}
 
+	/**
+	 * This sets the task status as aborted by the dispatcher : the worker
+	 * running it must stop computing. This is used when another task of the
+	 * same work has already completed.
+	 *
+	 * @since 10.6.0
+	 */
+	public void setAborted() {
+		setStatus(StatusEnum.ABORTED);
+		setRemovalDate();
+	}
+
+	/**
+	 * This tests whether task has been aborted by the dispatcher
+	 *
+	 * @return a boolean.
+	 * @since 10.6.0
+	 */
+	public boolean isAborted() {
+		return testStatus(StatusEnum.ABORTED);
+	}
+
 	public boolean setAliveCount(final int v) {
 		Integer i = new Integer(v);
 		final boolean ret = setValue(Columns.ALIVECOUNT, i);
@@ -909,10 +949,13 @@ public final class TaskInterface extends xtremweb.common.Table {
 	 *         relaunched since it had provided the task to the signalling
 	 *         worker false on error(since RPC-V); the worker is not the
 	 *         expected one! the signalling worker has to be asked to stop
-	 *         computing
+	 *         computing. Since 10.6.0, false if this task has been aborted
 	 */
 	public boolean setAlive(final UID worker) {
 
+		if (isAborted()) {
+			return false;
+		}
 		if ((isRunning() == false) || (getHost() == null)) {
 			setRunningBy(worker);
 		}
@@ -0,0 +1,989 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.common;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.security.InvalidKeyException;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.Vector;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+
+import xtremweb.communications.URI;
+import xtremweb.database.SQLRequest;
+import xtremweb.security.XWAccessRights;
+
+/**
+ * This class describes a row of the templates SQL table.<br />
+ * A template describes a parametric sweep : an application, fixed inputs and
+ * a parameter range or a parameter file. It is stored once and expanded into
+ * works by the server, a window at a time, as works are consumed. Each work
+ * refers to its template so that completions roll up into the template
+ * counters.
+ *
+ * @since 10.6.0
+ */
+public final class TemplateInterface extends xtremweb.common.Table {
+
+	/**
+	 * This is the database table name
+	 */
+	public static final String TABLENAME = "templates";
+	/**
+	 * This is the XML tag
+	 */
+	public static final String THISTAG = "template";
+	/**
+	 * This is replaced by the parameter value in the command line of each
+	 * work. If the command line does not contain it, the parameter value is
+	 * appended to the command line
+	 */
+	public static final String PLACEHOLDER = "%p";
+
+	/**
+	 * This enumerates this interface columns
+	 */
+	public enum Columns implements XWBaseColumn {
+
+		/**
+		 * This is the column index of the application UID
+		 */
+		APPUID {
+			@Override
+			public UID fromString(final String v) {
+				return new UID(v);
+			}
+		},
+		/**
+		 * This is the column index of the status : PENDING while works remain
+		 * to be expanded or completed; COMPLETED then
+		 */
+		STATUS {
+			@Override
+			public StatusEnum fromString(final String v) {
+				return StatusEnum.valueOf(v.toUpperCase());
+			}
+		},
+		/**
+		 * This is the column index of the command line template
+		 *
+		 * @see TemplateInterface#PLACEHOLDER
+		 */
+		CMDLINE {
+			@Override
+			public String fromString(final String v) {
+				String val = v;
+				val = val.replaceAll("[\\n\'\"]+", "_");
+				val = val.replaceAll("&amp;", "&");
+				val = val.replaceAll("&", "&amp;");
+				return val;
+			}
+		},
+		/**
+		 * This is the column index of the first parameter value of the range
+		 */
+		PARAMFROM {
+			@Override
+			public Long fromString(final String v) {
+				return Long.valueOf(v);
+			}
+		},
+		/**
+		 * This is the column index of the last parameter value of the range
+		 * (included)
+		 */
+		PARAMTO {
+			@Override
+			public Long fromString(final String v) {
+				return Long.valueOf(v);
+			}
+		},
+		/**
+		 * This is the column index of the step of the range
+		 */
+		PARAMSTEP {
+			@Override
+			public Long fromString(final String v) {
+				return Long.valueOf(v);
+			}
+		},
+		/**
+		 * This is the column index of the URI of the parameter file data,
+		 * containing a parameter value per line. If set, the range is ignored
+		 */
+		PARAMURI {
+			@Override
+			public URI fromString(final String v) throws URISyntaxException {
+				return new URI(v);
+			}
+		},
+		/**
+		 * This is the column index of the next parameter to expand : the next
+		 * value of the range, or the offset of the next line in the parameter
+		 * file; this is negative if all parameters have been expanded
+		 */
+		NEXTPARAM {
+			@Override
+			public Long fromString(final String v) {
+				return Long.valueOf(v);
+			}
+		},
+		/**
+		 * This is the column index of the works label
+		 */
+		LABEL,
+		/**
+		 * This is the column index of the works session UID
+		 */
+		SESSIONUID {
+			@Override
+			public UID fromString(final String v) {
+				return new UID(v);
+			}
+		},
+		/**
+		 * This is the column index of the works group UID
+		 */
+		GROUPUID {
+			@Override
+			public UID fromString(final String v) {
+				return new UID(v);
+			}
+		},
+		/**
+		 * This is the column index of the works dirin URI
+		 */
+		DIRINURI {
+			@Override
+			public URI fromString(final String v) throws URISyntaxException {
+				return new URI(v);
+			}
+		},
+		/**
+		 * This is the column index of the works stdin URI
+		 */
+		STDINURI {
+			@Override
+			public URI fromString(final String v) throws URISyntaxException {
+				return new URI(v);
+			}
+		},
+		/**
+		 * This is the column index of the amount of expanded works
+		 */
+		EXPANDEDJOBS {
+			@Override
+			public Integer fromString(final String v) {
+				return Integer.valueOf(v);
+			}
+		},
+		/**
+		 * This is the column index of the amount of completed works
+		 */
+		COMPLETEDJOBS {
+			@Override
+			public Integer fromString(final String v) {
+				return Integer.valueOf(v);
+			}
+		},
+		/**
+		 * This is the column index of the amount of erroneous works
+		 */
+		ERRORJOBS {
+			@Override
+			public Integer fromString(final String v) {
+				return Integer.valueOf(v);
+			}
+		};
+
+		/**
+		 * This is the index based on ordinal so that the first value is
+		 * TableColumns + 1
+		 *
+		 * @see xtremweb.common#TableColumns
+		 * @see Enum#ordinal()
+		 */
+		private int ord;
+
+		/**
+		 * This constructor sets the ord member as ord = this.ordinal +
+		 * TableColumns.SIZE
+		 */
+		Columns() {
+			ord = this.ordinal() + TableColumns.SIZE;
+		}
+
+		/**
+		 * This retrieves the index based ordinal
+		 *
+		 * @return the index based ordinal
+		 */
+		@Override
+		public int getOrdinal() {
+			return ord;
+		}
+
+		/**
+		 * This creates a new object from String for the given column
+		 *
+		 * @param v
+		 *            the String representation
+		 * @return v
+		 * @throws Exception
+		 *             is thrown on instantiation error
+		 */
+		@Override
+		public Object fromString(final String v) throws Exception {
+			return v;
+		}
+
+		/**
+		 * This creates a new object from SQL result set
+		 *
+		 * @param rs
+		 *            is the SQL result set
+		 * @return the object representing the column
+		 * @throws Exception
+		 *             is thrown on instantiation error
+		 */
+		public final Object fromResultSet(final ResultSet rs) throws Exception {
+			return this.fromString(rs.getString(this.toString()));
+		}
+
+		/**
+		 * This retrieves an Columns from its integer value
+		 *
+		 * @param v
+		 *            is the integer value of the Columns
+		 * @return an Columns
+		 */
+		public static XWBaseColumn fromInt(final int v) throws IndexOutOfBoundsException {
+			try {
+				return TableColumns.fromInt(v);
+			} catch (final Exception e) {
+			}
+			for (final Columns c : Columns.values()) {
+				if (c.getOrdinal() == v) {
+					return c;
+				}
+			}
+			throw new IndexOutOfBoundsException(("unvalid Columns value ") + v);
+		}
+	}
+
+	/**
+	 * This is the size, including TableColumns
+	 */
+	private static final int ENUMSIZE = Columns.values().length;
+
+	/**
+	 * This is the default constructor
+	 */
+	public TemplateInterface() {
+
+		super(THISTAG, TABLENAME);
+
+		setAttributeLength(ENUMSIZE);
+
+		setAccessRights(XWAccessRights.USERALL);
+		setStatus(StatusEnum.PENDING);
+		setParamStep(1L);
+		setExpandedJobs(0);
+		setCompletedJobs(0);
+		setErrorJobs(0);
+		setShortIndexes(new int[] { TableColumns.UID.getOrdinal(), Columns.STATUS.getOrdinal(),
+				Columns.EXPANDEDJOBS.getOrdinal(), Columns.COMPLETEDJOBS.getOrdinal(),
+				Columns.ERRORJOBS.getOrdinal() });
+	}
+
+	/**
+	 * This constructs an object from DB
+	 *
+	 * @param rs
+	 *            is an SQL request result
+	 * @exception IOException
+	 */
+	public TemplateInterface(final ResultSet rs) throws IOException {
+		this();
+		fill(rs);
+	}
+
+	/**
+	 * This calls this(StreamIO.stream(input));
+	 *
+	 * @param input
+	 *            is a String containing an XML representation
+	 */
+	public TemplateInterface(final String input) throws IOException, SAXException {
+		this(StreamIO.stream(input));
+	}
+
+	/**
+	 * This constructs a new object from an XML file
+	 *
+	 * @param f
+	 *            is the XML file
+	 * @see #TemplateInterface(InputStream)
+	 */
+	public TemplateInterface(final File f) throws IOException, SAXException {
+		this(new FileInputStream(f));
+	}
+
+	/**
+	 * This creates a new object that will be retrieved with a complex SQL
+	 * request
+	 */
+	public TemplateInterface(final SQLRequest r) {
+		this();
+		setRequest(r);
+	}
+
+	/**
+	 * This constructs a new object from input stream
+	 *
+	 * @param input
+	 *            is the input stream
+	 * @see XMLReader#read(InputStream)
+	 * @throws IOException
+	 *             on XML error
+	 */
+	public TemplateInterface(final InputStream input) throws IOException, SAXException {
+		this();
+		final XMLReader reader = new XMLReader(this);
+		try {
+			reader.read(input);
+		} catch (final InvalidKeyException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * This constructs a new object on XML open tag. Columns are not read from
+	 * attributes since they are sent as XML entities : this type does not
+	 * exist in 8.x and below versions
+	 *
+	 * @param attrs
+	 *            contains attributes XML representation; ignored
+	 * @see Type#xmlElementStop(String, String, String)
+	 */
+	public TemplateInterface(final Attributes attrs) {
+		this();
+	}
+
+	/**
+	 * This fills columns from DB
+	 *
+	 * @param rs
+	 *            is the SQL data set
+	 * @throws IOException
+	 */
+	@Override
+	public void fill(final ResultSet rs) throws IOException {
+
+		try {
+			setUID((UID) TableColumns.UID.fromResultSet(rs));
+			setOwner((UID) TableColumns.OWNERUID.fromResultSet(rs));
+			setAccessRights((XWAccessRights) TableColumns.ACCESSRIGHTS.fromResultSet(rs));
+			setApplication((UID) Columns.APPUID.fromResultSet(rs));
+			setStatus((StatusEnum) Columns.STATUS.fromResultSet(rs));
+		} catch (final Exception e) {
+			throw new IOException(e.toString());
+		}
+		try {
+			setErrorMsg((String) TableColumns.ERRORMSG.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
+		try {
+			setCmdLine((String) Columns.CMDLINE.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
+		try {
+			setParamFrom((Long) Columns.PARAMFROM.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
+		try {
+			setParamTo((Long) Columns.PARAMTO.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
+		try {
+			setParamStep((Long) Columns.PARAMSTEP.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
+		try {
+			setParamURI((URI) Columns.PARAMURI.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
+		try {
+			setNextParam((Long) Columns.NEXTPARAM.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
+		try {
+			setLabel((String) Columns.LABEL.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
+		try {
+			setSession((UID) Columns.SESSIONUID.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
+		try {
+			setGroup((UID) Columns.GROUPUID.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
+		try {
+			setDirin((URI) Columns.DIRINURI.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
+		try {
+			setStdin((URI) Columns.STDINURI.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
+		try {
+			setExpandedJobs((Integer) Columns.EXPANDEDJOBS.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
+		try {
+			setCompletedJobs((Integer) Columns.COMPLETEDJOBS.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
+		try {
+			setErrorJobs((Integer) Columns.ERRORJOBS.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
+		setDirty(false);
+	}
+
+	/**
+	 * This retrieves column label from enum Columns
+	 *
+	 * @param i
+	 *            is an ordinal of an Columns
+	 * @return column label
+	 */
+	@Override
+	public String getColumnLabel(final int i) throws IndexOutOfBoundsException {
+		try {
+			return TableColumns.fromInt(i).toString();
+		} catch (final Exception e) {
+		}
+		return Columns.fromInt(i).toString();
+	}
+
+	/**
+	 * This updates this object from interface. Only the description can be
+	 * updated : the expansion state and the counters are managed by the server
+	 */
+	@Override
+	public void updateInterface(final Table titf) throws IOException {
+		final TemplateInterface itf = (TemplateInterface) titf;
+		if (itf.getOwner() != null) {
+			setOwner(itf.getOwner());
+		}
+		if (itf.getAccessRights() != null) {
+			setAccessRights(itf.getAccessRights());
+		}
+		if (itf.getLabel() != null) {
+			setLabel(itf.getLabel());
+		}
+	}
+
+	/**
+	 * This sets parameter value; this is called from
+	 * TableInterface#fromXml(Attributes)
+	 *
+	 * @param attribute
+	 *            is the name of the attribute to set
+	 * @param v
+	 *            is the new attribute value
+	 * @return true if value has changed, false otherwise
+	 * @see Table#fromXml(Attributes)
+	 */
+	@Override
+	public final boolean setValue(final String attribute, final Object v) throws IllegalArgumentException {
+		final String A = attribute.toUpperCase();
+		try {
+			return setValue(TableColumns.valueOf(A), v);
+		} catch (final Exception e) {
+			return setValue(Columns.valueOf(A), v);
+		}
+	}
+
+	/**
+	 * This retrieves the application UID
+	 *
+	 * @return this attribute, or null if not set
+	 */
+	public UID getApplication() {
+		return (UID) getValue(Columns.APPUID);
+	}
+
+	/**
+	 * This retrieves the status; this forces the status to PENDING, if not
+	 * set
+	 *
+	 * @return this attribute
+	 */
+	public StatusEnum getStatus() {
+		final StatusEnum ret = (StatusEnum) getValue(Columns.STATUS);
+		if (ret != null) {
+			return ret;
+		}
+		setStatus(StatusEnum.PENDING);
+		return StatusEnum.PENDING;
+	}
+
+	/**
+	 * This retrieves the command line template
+	 *
+	 * @return this attribute, or null if not set
+	 * @see #PLACEHOLDER
+	 */
+	public String getCmdLine() {
+		return (String) getValue(Columns.CMDLINE);
+	}
+
+	/**
+	 * This retrieves the first value of the range
+	 *
+	 * @return this attribute, or 0 if not set
+	 */
+	public long getParamFrom() {
+		final Long ret = (Long) getValue(Columns.PARAMFROM);
+		return (ret == null ? 0L : ret.longValue());
+	}
+
+	/**
+	 * This retrieves the last value of the range
+	 *
+	 * @return this attribute, or 0 if not set
+	 */
+	public long getParamTo() {
+		final Long ret = (Long) getValue(Columns.PARAMTO);
+		return (ret == null ? 0L : ret.longValue());
+	}
+
+	/**
+	 * This retrieves the step of the range
+	 *
+	 * @return this attribute, or 1 if not set or not positive
+	 */
+	public long getParamStep() {
+		final Long ret = (Long) getValue(Columns.PARAMSTEP);
+		return ((ret == null) || (ret.longValue() <= 0L) ? 1L : ret.longValue());
+	}
+
+	/**
+	 * This retrieves the URI of the parameter file
+	 *
+	 * @return this attribute, or null if not set
+	 */
+	public URI getParamURI() {
+		return (URI) getValue(Columns.PARAMURI);
+	}
+
+	/**
+	 * This retrieves the next parameter to expand : the next value of the
+	 * range or the offset of the next line in the parameter file. If not set,
+	 * this is the first value of the range, or 0 for a parameter file
+	 *
+	 * @return this attribute
+	 */
+	public long getNextParam() {
+		final Long ret = (Long) getValue(Columns.NEXTPARAM);
+		if (ret != null) {
+			return ret.longValue();
+		}
+		return (getParamURI() == null ? getParamFrom() : 0L);
+	}
+
+	/**
+	 * This retrieves the works label
+	 *
+	 * @return this attribute, or null if not set
+	 */
+	public String getLabel() {
+		return (String) getValue(Columns.LABEL);
+	}
+
+	/**
+	 * This retrieves the works session UID
+	 *
+	 * @return this attribute, or null if not set
+	 */
+	public UID getSession() {
+		return (UID) getValue(Columns.SESSIONUID);
+	}
+
+	/**
+	 * This retrieves the works group UID
+	 *
+	 * @return this attribute, or null if not set
+	 */
+	public UID getGroup() {
+		return (UID) getValue(Columns.GROUPUID);
+	}
+
+	/**
+	 * This retrieves the works dirin URI
+	 *
+	 * @return this attribute, or null if not set
+	 */
+	public URI getDirin() {
+		return (URI) getValue(Columns.DIRINURI);
+	}
+
+	/**
+	 * This retrieves the works stdin URI
+	 *
+	 * @return this attribute, or null if not set
+	 */
+	public URI getStdin() {
+		return (URI) getValue(Columns.STDINURI);
+	}
+
+	/**
+	 * This retrieves the amount of expanded works
+	 *
+	 * @return this attribute, or 0 if not set
+	 */
+	public int getExpandedJobs() {
+		final Integer ret = (Integer) getValue(Columns.EXPANDEDJOBS);
+		return (ret == null ? 0 : ret.intValue());
+	}
+
+	/**
+	 * This retrieves the amount of completed works
+	 *
+	 * @return this attribute, or 0 if not set
+	 */
+	public int getCompletedJobs() {
+		final Integer ret = (Integer) getValue(Columns.COMPLETEDJOBS);
+		return (ret == null ? 0 : ret.intValue());
+	}
+
+	/**
+	 * This retrieves the amount of erroneous works
+	 *
+	 * @return this attribute, or 0 if not set
+	 */
+	public int getErrorJobs() {
+		final Integer ret = (Integer) getValue(Columns.ERRORJOBS);
+		return (ret == null ? 0 : ret.intValue());
+	}
+
+	/**
+	 * This retrieves the amount of expanded works that are neither completed
+	 * nor erroneous
+	 */
+	public int getInFlightJobs() {
+		return getExpandedJobs() - getCompletedJobs() - getErrorJobs();
+	}
+
+	/**
+	 * This tells whether all parameters have been expanded
+	 */
+	public boolean isExpanded() {
+		final long next = getNextParam();
+		if (getParamURI() != null) {
+			return next < 0L;
+		}
+		return (next < 0L) || (next > getParamTo());
+	}
+
+	/**
+	 * This tells whether all works have been expanded and then completed or
+	 * erroneous
+	 */
+	public boolean isDone() {
+		return isExpanded() && (getInFlightJobs() <= 0);
+	}
+
+	/**
+	 * @return true if value has changed, false otherwise
+	 */
+	public boolean setApplication(final UID v) {
+		return setValue(Columns.APPUID, v);
+	}
+
+	/**
+	 * @return true if value has changed, false otherwise
+	 */
+	public boolean setStatus(final StatusEnum v) {
+		return setValue(Columns.STATUS, v);
+	}
+
+	/**
+	 * @return true if value has changed, false otherwise
+	 */
+	public boolean setCmdLine(final String v) {
+		return setValue(Columns.CMDLINE, v);
+	}
+
+	/**
+	 * @return true if value has changed, false otherwise
+	 */
+	public boolean setParamFrom(final Long v) {
+		return setValue(Columns.PARAMFROM, v);
+	}
+
+	/**
+	 * @return true if value has changed, false otherwise
+	 */
+	public boolean setParamTo(final Long v) {
+		return setValue(Columns.PARAMTO, v);
+	}
+
+	/**
+	 * @return true if value has changed, false otherwise
+	 */
+	public boolean setParamStep(final Long v) {
+		return setValue(Columns.PARAMSTEP, v);
+	}
+
+	/**
+	 * @return true if value has changed, false otherwise
+	 */
+	public boolean setParamURI(final URI v) {
+		return setValue(Columns.PARAMURI, v);
+	}
+
+	/**
+	 * @return true if value has changed, false otherwise
+	 */
+	public boolean setNextParam(final Long v) {
+		return setValue(Columns.NEXTPARAM, v);
+	}
+
+	/**
+	 * @return true if value has changed, false otherwise
+	 */
+	public boolean setLabel(final String v) {
+		return setValue(Columns.LABEL, v);
+	}
+
+	/**
+	 * @return true if value has changed, false otherwise
+	 */
+	public boolean setSession(final UID v) {
+		return setValue(Columns.SESSIONUID, v);
+	}
+
+	/**
+	 * @return true if value has changed, false otherwise
+	 */
+	public boolean setGroup(final UID v) {
+		return setValue(Columns.GROUPUID, v);
+	}
+
+	/**
+	 * @return true if value has changed, false otherwise
+	 */
+	public boolean setDirin(final URI v) {
+		return setValue(Columns.DIRINURI, v);
+	}
+
+	/**
+	 * @return true if value has changed, false otherwise
+	 */
+	public boolean setStdin(final URI v) {
+		return setValue(Columns.STDINURI, v);
+	}
+
+	/**
+	 * @return true if value has changed, false otherwise
+	 */
+	public boolean setExpandedJobs(final int v) {
+		return setValue(Columns.EXPANDEDJOBS, Integer.valueOf(v));
+	}
+
+	/**
+	 * @return true if value has changed, false otherwise
+	 */
+	public boolean setCompletedJobs(final int v) {
+		return setValue(Columns.COMPLETEDJOBS, Integer.valueOf(v));
+	}
+
+	/**
+	 * @return true if value has changed, false otherwise
+	 */
+	public boolean setErrorJobs(final int v) {
+		return setValue(Columns.ERRORJOBS, Integer.valueOf(v));
+	}
+
+	/**
+	 * This increments the amount of completed works and sets this template
+	 * COMPLETED if all works are done
+	 */
+	public void incCompletedJobs() {
+		setCompletedJobs(getCompletedJobs() + 1);
+		if (isDone()) {
+			setStatus(StatusEnum.COMPLETED);
+		}
+	}
+
+	/**
+	 * This increments the amount of erroneous works and sets this template
+	 * COMPLETED if all works are done
+	 */
+	public void incErrorJobs() {
+		setErrorJobs(getErrorJobs() + 1);
+		if (isDone()) {
+			setStatus(StatusEnum.COMPLETED);
+		}
+	}
+
+	/**
+	 * This retrieves the command line of the work expanded for the given
+	 * parameter value
+	 *
+	 * @param param
+	 *            is the parameter value
+	 * @return the command line template where PLACEHOLDER is replaced by
+	 *         param, or the command line template followed by param
+	 * @see #PLACEHOLDER
+	 */
+	public String cmdLine(final String param) {
+		final String cmdLine = getCmdLine();
+		if ((cmdLine == null) || (cmdLine.trim().length() == 0)) {
+			return " " + param + " ";
+		}
+		if (cmdLine.contains(PLACEHOLDER)) {
+			return cmdLine.replace(PLACEHOLDER, param);
+		}
+		return cmdLine + " " + param + " ";
+	}
+
+	/**
+	 * This retrieves the next parameter values to expand and moves the
+	 * expansion state forward. This does not increment the amount of expanded
+	 * works
+	 *
+	 * @param paramFile
+	 *            is the parameter file; this is ignored if this template
+	 *            defines a range
+	 * @param max
+	 *            is the maximum amount of values to retrieve
+	 * @return the next parameter values; an empty collection if all values
+	 *         have already been expanded
+	 * @throws IOException
+	 *             on parameter file access error
+	 */
+	public Collection<String> nextParameters(final File paramFile, final int max) throws IOException {
+
+		final Vector<String> ret = new Vector<>();
+		if (isExpanded() || (max <= 0)) {
+			return ret;
+		}
+
+		if (getParamURI() == null) {
+			long next = getNextParam();
+			final long step = getParamStep();
+			final long to = getParamTo();
+			while ((ret.size() < max) && (next <= to)) {
+				ret.add(Long.toString(next));
+				next += step;
+			}
+			setNextParam(next);
+			return ret;
+		}
+
+		if (paramFile == null) {
+			throw new IOException("no parameter file");
+		}
+		try (final RandomAccessFile raf = new RandomAccessFile(paramFile, "r")) {
+			raf.seek(getNextParam());
+			String line = null;
+			while ((ret.size() < max) && ((line = raf.readLine()) != null)) {
+				final String param = line.trim();
+				if ((param.length() == 0) || param.startsWith("#")) {
+					continue;
+				}
+				ret.add(param);
+			}
+			setNextParam(line == null ? -1L : raf.getFilePointer());
+		}
+		return ret;
+	}
+
+	/**
+	 * This creates a new work for the given parameter value
+	 *
+	 * @param param
+	 *            is the parameter value
+	 * @return a new work, with a new UID, referring this template
+	 * @throws IOException
+	 *             if this template UID is not set
+	 */
+	public WorkInterface newWork(final String param) throws IOException {
+		final WorkInterface ret = new WorkInterface();
+		ret.setUID(new UID());
+		ret.setTemplate(getUID());
+		ret.setOwner(getOwner());
+		ret.setAccessRights(getAccessRights());
+		ret.setApplication(getApplication());
+		ret.setCmdLine(cmdLine(param));
+		ret.setLabel(getLabel());
+		ret.setSession(getSession());
+		ret.setGroup(getGroup());
+		ret.setDirin(getDirin());
+		ret.setStdin(getStdin());
+		return ret;
+	}
+
+	/**
+	 * This is for testing only. Without any argument, this dumps a
+	 * TemplateInterface object. If the first argument is an XML file
+	 * containing a description of a TemplateInterface, this creates a
+	 * TemplateInterface from XML description and dumps it. Usage : java -cp
+	 * xtremweb.jar xtremweb.common.TemplateInterface [xmlFile]
+	 */
+	public static void main(final String[] argv) {
+		try {
+			final TemplateInterface itf = new TemplateInterface();
+			itf.setUID(UID.getMyUid());
+			if (argv.length > 0) {
+				try {
+					final XMLReader reader = new XMLReader(itf);
+					reader.read(new FileInputStream(argv[0]));
+				} catch (final XMLEndParseException e) {
+				}
+			}
+			itf.setLoggerLevel(LoggerLevel.DEBUG);
+			itf.setDUMPNULLS(true);
+			final XMLWriter writer = new XMLWriter(new DataOutputStream(System.out));
+			writer.write(itf);
+		} catch (final Exception e) {
+			final Logger logger = new Logger();
+			logger.exception("Usage : java -cp " + XWTools.JARFILENAME
+					+ " xtremweb.common.TemplateInterface [anXMLDescriptionFile]", e);
+		}
+	}
+}
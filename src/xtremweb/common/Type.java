@@ -488,6 +488,47 @@ public abstract class Type extends XMLable {
 	 * @return a String representation of this interface
 	 */
 	public String toString(final boolean csv, final boolean shortOutput, final boolean hex) {
+		return toString(csv, shortOutput, hex, false);
+	}
+
+	/**
+	 * This returns the SET part of a full row SQL UPDATE statement, in the
+	 * form column='value',column='value',... Columns updated by deltas are
+	 * not included
+	 *
+	 * @return a String representation of this interface
+	 * @see #isDeltaColumn(int)
+	 * @since 10.6.0
+	 */
+	public String toUpdateString() {
+		return toString(false, false, false, true);
+	}
+
+	/**
+	 * This tells whether a column is updated in DB by deltas and must not be
+	 * written by a full row update. This returns false; this is overridden by
+	 * tables using JobCounters
+	 *
+	 * @param index
+	 *            is the column index
+	 * @return false
+	 * @see JobCounters
+	 * @since 10.6.0
+	 */
+	protected boolean isDeltaColumn(final int index) {
+		return false;
+	}
+
+	/**
+	 * This returns a string representation of this object
+	 *
+	 * @param update
+	 *            if true, columns updated by deltas are not included
+	 * @see #toString(boolean, boolean, boolean)
+	 * @see #isDeltaColumn(int)
+	 * @since 10.6.0
+	 */
+	private String toString(final boolean csv, final boolean shortOutput, final boolean hex, final boolean update) {
 
 		try {
 			int max = getMaxAttribute();
@@ -505,6 +546,9 @@ public abstract class Type extends XMLable {
 				if (getColumnLabel(index) == null) {
 					continue;
 				}
+				if (update && isDeltaColumn(index)) {
+					continue;
+				}
 
 				if (index != FIRST_ATTRIBUTE) {
 					ret.append(",");
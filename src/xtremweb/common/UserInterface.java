@@ -477,6 +477,27 @@ public final class UserInterface extends Table {
 	 */
 	private static final int ENUMSIZE = Columns.values().length;
 
+	/**
+	 * These are the job counters columns, in JobCounters.Counter order
+	 *
+	 * @since 10.6.0
+	 */
+	private static final XWBaseColumn[] COUNTERCOLUMNS = { Columns.PENDINGJOBS, Columns.RUNNINGJOBS,
+			Columns.ERRORJOBS, Columns.NBJOBS };
+
+	/**
+	 * This tells whether a column is updated by deltas
+	 *
+	 * @return true if index is the revision column, or a job counter column
+	 *         and job counters are aggregated
+	 * @see JobCounters
+	 * @since 10.6.0
+	 */
+	@Override
+	protected boolean isDeltaColumn(final int index) {
+		return super.isDeltaColumn(index) || JobCounters.isDeltaColumn(index, COUNTERCOLUMNS);
+	}
+
 	/**
 	 * This retrieves column label from enum Columns. This takes cares of this
 	 * version. If this version is null, this version is prior to 5.8.0. Before
@@ -719,6 +740,7 @@ public final class UserInterface extends Table {
 			setCountry((String) Columns.COUNTRY.fromResultSet(rs));
 		} catch (final Exception e) {
 		}
+		JobCounters.refresh(this, COUNTERCOLUMNS);
 		setChallenging(false);
 	}
 
@@ -807,7 +829,7 @@ public final class UserInterface extends Table {
 	public int getNbJobs() {
 		final Integer ret = (Integer) getValue(Columns.NBJOBS);
 		if (ret != null) {
-			return ret.intValue();
+			return JobCounters.get(this, JobCounters.Counter.COMPLETEDJOBS, ret.intValue());
 		}
 		setNbJobs(0);
 		return 0;
@@ -823,7 +845,7 @@ public final class UserInterface extends Table {
 	public int getPendingJobs() {
 		final Integer ret = (Integer) getValue(Columns.PENDINGJOBS);
 		if (ret != null) {
-			return ret.intValue();
+			return JobCounters.get(this, JobCounters.Counter.PENDINGJOBS, ret.intValue());
 		}
 		setPendingJobs(0);
 		return 0;
@@ -839,7 +861,7 @@ public final class UserInterface extends Table {
 	public int getRunningJobs() {
 		final Integer ret = (Integer) getValue(Columns.RUNNINGJOBS);
 		if (ret != null) {
-			return ret.intValue();
+			return JobCounters.get(this, JobCounters.Counter.RUNNINGJOBS, ret.intValue());
 		}
 		setRunningJobs(0);
 		return 0;
@@ -855,7 +877,7 @@ public final class UserInterface extends Table {
 	public int getErrorJobs() {
 		final Integer ret = (Integer) getValue(Columns.ERRORJOBS);
 		if (ret != null) {
-			return ret.intValue();
+			return JobCounters.get(this, JobCounters.Counter.ERRORJOBS, ret.intValue());
 		}
 		setErrorJobs(0);
 		return 0;
@@ -1106,7 +1128,9 @@ public final class UserInterface extends Table {
 	 * @since 7.0.0
 	 */
 	public void incNbJobs() {
-		setNbJobs(getNbJobs() + 1);
+		if (!JobCounters.add(this, COUNTERCOLUMNS, JobCounters.Counter.COMPLETEDJOBS, 1)) {
+			setNbJobs(getNbJobs() + 1);
+		}
 	}
 
 	/**
@@ -1115,7 +1139,22 @@ public final class UserInterface extends Table {
 	 * @since 7.0.0
 	 */
 	public void incPendingJobs() {
-		setPendingJobs(getPendingJobs() + 1);
+		if (!JobCounters.add(this, COUNTERCOLUMNS, JobCounters.Counter.PENDINGJOBS, 1)) {
+			setPendingJobs(getPendingJobs() + 1);
+		}
+	}
+
+	/**
+	 * This adds to the amount of pending jobs
+	 *
+	 * @param n
+	 *            is the amount of new pending jobs
+	 * @since 10.6.0
+	 */
+	public void addPendingJobs(final int n) {
+		if (!JobCounters.add(this, COUNTERCOLUMNS, JobCounters.Counter.PENDINGJOBS, n)) {
+			setPendingJobs(getPendingJobs() + n);
+		}
 	}
 
 	/**
@@ -1124,7 +1163,9 @@ public final class UserInterface extends Table {
 	 * @since 7.0.0
 	 */
 	public void incRunningJobs() {
-		setRunningJobs(getRunningJobs() + 1);
+		if (!JobCounters.add(this, COUNTERCOLUMNS, JobCounters.Counter.RUNNINGJOBS, 1)) {
+			setRunningJobs(getRunningJobs() + 1);
+		}
 	}
 
 	/**
@@ -1133,7 +1174,9 @@ public final class UserInterface extends Table {
 	 * @since 7.0.0
 	 */
 	public void incErrorJobs() {
-		setErrorJobs(getErrorJobs() + 1);
+		if (!JobCounters.add(this, COUNTERCOLUMNS, JobCounters.Counter.ERRORJOBS, 1)) {
+			setErrorJobs(getErrorJobs() + 1);
+		}
 	}
 
 	/**
@@ -1142,7 +1185,9 @@ public final class UserInterface extends Table {
 	 * @since 7.0.0
 	 */
 	public void decPendingJobs() {
-		setPendingJobs(getPendingJobs() - 1);
+		if (!JobCounters.add(this, COUNTERCOLUMNS, JobCounters.Counter.PENDINGJOBS, -1)) {
+			setPendingJobs(getPendingJobs() - 1);
+		}
 	}
 
 	/**
@@ -1151,7 +1196,9 @@ public final class UserInterface extends Table {
 	 * @since 7.0.0
 	 */
 	public void decRunningJobs() {
-		setRunningJobs(getRunningJobs() - 1);
+		if (!JobCounters.add(this, COUNTERCOLUMNS, JobCounters.Counter.RUNNINGJOBS, -1)) {
+			setRunningJobs(getRunningJobs() - 1);
+		}
 	}
 
 	/**
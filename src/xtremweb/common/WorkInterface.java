@@ -63,6 +63,15 @@ public class WorkInterface extends Table {
 	 */
 	public static final String TABLENAME = ("works");
 
+	/**
+	 * This is the database table name of terminal works (COMPLETED, ERROR,
+	 * ABORTED) moved out of TABLENAME after the retention delay
+	 *
+	 * @see xtremweb.common.XWPropertyDefs#WORKSRETENTION
+	 * @since 10.6.0
+	 */
+	public static final String DONETABLENAME = ("works_done");
+
 	/**
 	 * This enumerates this interface columns
 	 */
@@ -531,6 +540,49 @@ public class WorkInterface extends Table {
 			public Long fromString(final String v) {
 				return Long.valueOf(v);
 			}
+		},
+		/**
+		 * This is the column index of the scheduling priority. Pending works
+		 * of the same owner are scheduled by decreasing priority
+		 *
+		 * @since 10.6.0
+		 */
+		PRIORITY {
+			/**
+			 * This creates an object from String representation for this column
+			 * value
+			 *
+			 * @param v
+			 *            the String representation
+			 * @return an Integer representing the column value
+			 * @throws Exception
+			 *             is thrown on instantiation error
+			 */
+			@Override
+			public Integer fromString(final String v) {
+				return Integer.valueOf(v);
+			}
+		},
+		/**
+		 * This is the column index of the template this work has been expanded
+		 * from, if any
+		 *
+		 * @see TemplateInterface
+		 * @since 10.6.0
+		 */
+		TEMPLATEUID {
+			/**
+			 * This creates an object from String representation for this column
+			 * value
+			 *
+			 * @param v
+			 *            the String representation
+			 * @return an UID representing the column value
+			 */
+			@Override
+			public UID fromString(final String v) {
+				return new UID(v);
+			}
 		};
 
 		/**
@@ -661,6 +713,7 @@ public class WorkInterface extends Table {
 		setExpectedReplications(0);
 		setTotalReplica(0);
 		setReplicaSetSize(0);
+		setPriority(0);
 	}
 
 	/**
@@ -865,6 +918,14 @@ public class WorkInterface extends Table {
 			setCompletedDate((Date) Columns.COMPLETEDDATE.fromResultSet(rs));
 		} catch (final Exception e) {
 		}
+		try {
+			setPriority((Integer) Columns.PRIORITY.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
+		try {
+			setTemplate((UID) Columns.TEMPLATEUID.fromResultSet(rs));
+		} catch (final Exception e) {
+		}
 		setDirty(false);
 	}
 
@@ -985,6 +1046,10 @@ public class WorkInterface extends Table {
 		setRetry(itf.getRetry());
 		setListenPort(itf.getListenPort());
 		setDiskSpace(itf.getDiskSpace());
+		setPriority(itf.getPriority());
+		if (itf.getTemplate() != null) {
+			setTemplate(itf.getTemplate());
+		}
 	}
 
 	/**
@@ -1064,6 +1129,27 @@ public class WorkInterface extends Table {
 		}
 	}
 
+	/**
+	 * This tells whether this work is read from and written to DONETABLENAME
+	 *
+	 * @return true if this work has been moved to DONETABLENAME
+	 * @since 10.6.0
+	 */
+	public boolean isDone() {
+		return DONETABLENAME.equals(tableName);
+	}
+
+	/**
+	 * This sets the table this work is read from and written to
+	 *
+	 * @param v
+	 *            is true to use DONETABLENAME, false to use TABLENAME
+	 * @since 10.6.0
+	 */
+	public void setDone(final boolean v) {
+		tableName = (v ? DONETABLENAME : TABLENAME);
+	}
+
 	/**
 	 * This retrieves the service flag<br />
 	 * If not set, this attr is forced to false
@@ -1477,6 +1563,22 @@ public class WorkInterface extends Table {
 		return 0;
 	}
 
+	/**
+	 * This retrieves the scheduling priority. This forces the priority to 0,
+	 * if not set
+	 *
+	 * @since 10.6.0
+	 * @return this attribute
+	 */
+	public final int getPriority() {
+		final Integer ret = (Integer) getValue(Columns.PRIORITY);
+		if (ret != null) {
+			return ret.intValue();
+		}
+		setPriority(0);
+		return 0;
+	}
+
 	/**
 	 * This retrieves the amount of expected replica. This forces the amount of
 	 * expected replica to 0, if not set
@@ -2135,6 +2237,37 @@ public class WorkInterface extends Table {
 		return setValue(Columns.SIZER, b);
 	}
 
+	/**
+	 * This retrieves the template this work has been expanded from
+	 *
+	 * @since 10.6.0
+	 * @return this attribute, or null if not set
+	 */
+	public final UID getTemplate() {
+		return (UID) getValue(Columns.TEMPLATEUID);
+	}
+
+	/**
+	 * This sets the template this work has been expanded from
+	 *
+	 * @since 10.6.0
+	 * @return true if value has changed, false otherwise
+	 */
+	public final boolean setTemplate(final UID v) {
+		return setValue(Columns.TEMPLATEUID, v);
+	}
+
+	/**
+	 * This sets the scheduling priority; the higher the sooner
+	 *
+	 * @since 10.6.0
+	 * @return true if value has changed, false otherwise
+	 */
+	public final boolean setPriority(final int v) {
+		final Integer b = new Integer(v);
+		return setValue(Columns.PRIORITY, b);
+	}
+
 	/**
 	 * This sets the expected amount of replica. This job is replicated for ever
 	 * if v < 0
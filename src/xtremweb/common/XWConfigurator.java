@@ -1688,6 +1688,30 @@ public final class XWConfigurator extends Properties {
 		}
 	}
 
+	/**
+	 * This retrieves a key as double
+	 *
+	 * @param key
+	 *            is the key to retrieve
+	 * @return the double value of the key as defined by property; default
+	 *         value if property not set
+	 * @see XWPropertyDefs#defaultValue()
+	 * @since 10.6.0
+	 */
+	public double getDouble(final XWPropertyDefs key) {
+		final String defval = key.defaultValue();
+		String s = getProperty(key);
+		if (s == null) {
+			s = defval;
+		}
+		try {
+			return Double.parseDouble(s);
+		} catch (final NumberFormatException e) {
+			logger.warn("Invalid double number for property " + key + " (" + s + ") returning -1");
+			return -1;
+		}
+	}
+
 	/**
 	 * This retrieves a key as a boolean.
 	 *
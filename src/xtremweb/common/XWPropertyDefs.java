@@ -1719,6 +1719,446 @@ public enum XWPropertyDefs {
 			return "scheduler.class";
 		}
 	},
+	/**
+	 * Dispatcher : comma separated list of fair share weights, as
+	 * "uid:weight". The UID may be a user or an user group one; the user
+	 * weight is used first, then its group one, then 1
+	 * <p>
+	 * Property type : string
+	 * </p>
+	 * <p>
+	 * Default: null
+	 * </p>
+	 *
+	 * @since 10.6.0
+	 */
+	FAIRSHAREWEIGHTS,
+	/**
+	 * Dispatcher : max amount of owner restricted queries on each work
+	 * request, before looking for a work of any owner. Owners are tried in
+	 * fair share order; owners without matching pending works are skipped
+	 * until the next refill. Fair share is disabled if this is lower or
+	 * equal to 0
+	 * <p>
+	 * Property type : integer
+	 * </p>
+	 * <p>
+	 * Default: 2
+	 * </p>
+	 *
+	 * @since 10.6.0
+	 */
+	FAIRSHAREQUERIES {
+		/**
+		 * This retrieves the String representation of the default value
+		 *
+		 * @return "2"
+		 */
+		@Override
+		public String defaultValue() {
+			return "2";
+		}
+	},
+	/**
+	 * Dispatcher : percentile of an application completion times above which
+	 * a running work is speculatively run on a faster idle host (e.g. 95).
+	 * Speculation is disabled if this is lower or equal to 0
+	 * <p>
+	 * Property type : double
+	 * </p>
+	 * <p>
+	 * Default: 0
+	 * </p>
+	 *
+	 * @since 10.6.0
+	 */
+	SPECULATIONPERCENTILE {
+		/**
+		 * This retrieves the String representation of the default value
+		 *
+		 * @return "0"
+		 */
+		@Override
+		public String defaultValue() {
+			return "0";
+		}
+	},
+	/**
+	 * Dispatcher : minimal amount of completed works of an application before
+	 * its works can be speculatively run
+	 * <p>
+	 * Property type : integer
+	 * </p>
+	 * <p>
+	 * Default: 20
+	 * </p>
+	 *
+	 * @since 10.6.0
+	 */
+	SPECULATIONMINSAMPLES {
+		/**
+		 * This retrieves the String representation of the default value
+		 *
+		 * @return "20"
+		 */
+		@Override
+		public String defaultValue() {
+			return "20";
+		}
+	},
+	/**
+	 * Dispatcher : amount of pending works matching a worker among which the
+	 * scheduler selects the one having the most inputs cached by the worker;
+	 * 1 or less disables data locality
+	 * <p>
+	 * Property type : integer
+	 * </p>
+	 * <p>
+	 * Default: 8
+	 * </p>
+	 *
+	 * @since 10.6.0
+	 */
+	LOCALITYWINDOW {
+		/**
+		 * This retrieves the String representation of the default value
+		 *
+		 * @return "8"
+		 */
+		@Override
+		public String defaultValue() {
+			return "8";
+		}
+	},
+	/**
+	 * Dispatcher : maximal amount of works of a template that are expanded
+	 * and not yet completed; a template is expanded again when less than half
+	 * of this window remains in flight
+	 * <p>
+	 * Property type : integer
+	 * </p>
+	 * <p>
+	 * Default: 100
+	 * </p>
+	 *
+	 * @since 10.6.0
+	 */
+	TEMPLATEWINDOW {
+		/**
+		 * This retrieves the String representation of the default value
+		 *
+		 * @return "100"
+		 */
+		@Override
+		public String defaultValue() {
+			return "100";
+		}
+	},
+	/**
+	 * Dispatcher : period in milliseconds at which pending, running and
+	 * erroneous jobs counters of applications, users and hosts are written
+	 * to DB as deltas. Counters are then aggregated in memory and not written
+	 * by full row updates. If this is lower or equal to 0, counters are
+	 * written on each row update
+	 * <p>
+	 * Property type : integer
+	 * </p>
+	 * <p>
+	 * Default: 5000
+	 * </p>
+	 *
+	 * @see JobCounters
+	 * @since 10.6.0
+	 */
+	COUNTERSFLUSHPERIOD {
+		/**
+		 * This retrieves the String representation of the default value
+		 *
+		 * @return "5000"
+		 */
+		@Override
+		public String defaultValue() {
+			return "5000";
+		}
+	},
+	/**
+	 * Dispatcher : window in milliseconds during which concurrent work
+	 * requests are gathered into one scheduling round, so that works are
+	 * claimed in one batched transaction. If this is lower or equal to 0,
+	 * each work request is scheduled on its own
+	 * <p>
+	 * Property type : integer
+	 * </p>
+	 * <p>
+	 * Default: 0
+	 * </p>
+	 *
+	 * @see xtremweb.dispatcher.WorkRequestBatcher
+	 * @since 10.6.0
+	 */
+	WORKREQUESTWINDOW {
+		/**
+		 * This retrieves the String representation of the default value
+		 *
+		 * @return "0"
+		 */
+		@Override
+		public String defaultValue() {
+			return "0";
+		}
+	},
+	/**
+	 * Dispatcher : delay in milliseconds between two chunks of deleted rows
+	 * moved to the history tables in background. Deleted rows are marked and
+	 * archived later, so that deletions do not wait for the copy to history.
+	 * If this is lower or equal to 0, deleted rows are copied to history
+	 * synchronously
+	 * <p>
+	 * Property type : integer
+	 * </p>
+	 * <p>
+	 * Default: 1000
+	 * </p>
+	 *
+	 * @see xtremweb.database.HistoryArchiver
+	 * @since 10.6.0
+	 */
+	ARCHIVEPERIOD {
+		/**
+		 * This retrieves the String representation of the default value
+		 *
+		 * @return "1000"
+		 */
+		@Override
+		public String defaultValue() {
+			return "1000";
+		}
+	},
+	/**
+	 * Dispatcher : max amount of deleted rows of a table moved to history in
+	 * a single chunk
+	 * <p>
+	 * Property type : integer
+	 * </p>
+	 * <p>
+	 * Default: 500
+	 * </p>
+	 *
+	 * @see #ARCHIVEPERIOD
+	 * @since 10.6.0
+	 */
+	ARCHIVECHUNKSIZE {
+		/**
+		 * This retrieves the String representation of the default value
+		 *
+		 * @return "500"
+		 */
+		@Override
+		public String defaultValue() {
+			return "500";
+		}
+	},
+	/**
+	 * Dispatcher : delay in seconds after which terminal works (COMPLETED,
+	 * ERROR, ABORTED) are moved from the works table to the works_done table,
+	 * so that scheduling queries only scan in flight works. Moved works are
+	 * still retrieved by their UID. If not positive, works are never moved
+	 * <p>
+	 * Property type : integer
+	 * </p>
+	 * <p>
+	 * Default: 0
+	 * </p>
+	 *
+	 * @see xtremweb.common.WorkInterface#DONETABLENAME
+	 * @see #ARCHIVECHUNKSIZE
+	 * @since 10.6.0
+	 */
+	WORKSRETENTION {
+		/**
+		 * This retrieves the String representation of the default value
+		 *
+		 * @return "0"
+		 */
+		@Override
+		public String defaultValue() {
+			return "0";
+		}
+	},
+	/**
+	 * Dispatcher : period in milliseconds to reconcile the in memory works
+	 * counts with the DB. Works counts are always read from DB on startup; if
+	 * not positive, they are never reconciled after
+	 * <p>
+	 * Property type : integer
+	 * </p>
+	 * <p>
+	 * Default: 600000
+	 * </p>
+	 *
+	 * @see xtremweb.dispatcher.WorksCounts
+	 * @since 10.6.0
+	 */
+	WORKSCOUNTSPERIOD {
+		/**
+		 * This retrieves the String representation of the default value
+		 *
+		 * @return "600000"
+		 */
+		@Override
+		public String defaultValue() {
+			return "600000";
+		}
+	},
+	/**
+	 * Dispatcher : SQL statements executing for at least this amount of
+	 * milliseconds are captured as templates and exported with the
+	 * statements statistics. If not positive, statements are not captured
+	 * <p>
+	 * Property type : integer
+	 * </p>
+	 * <p>
+	 * Default: 1000
+	 * </p>
+	 *
+	 * @see xtremweb.database.QueryStats
+	 * @since 10.6.0
+	 */
+	SLOWQUERYTHRESHOLD {
+		/**
+		 * This retrieves the String representation of the default value
+		 *
+		 * @return "1000"
+		 */
+		@Override
+		public String defaultValue() {
+			return "1000";
+		}
+	},
+	/**
+	 * Dispatcher : JDBC URL of a read replica of the DB (e.g.
+	 * jdbc:mysql://replicahost/xtremweb or jdbc:hsqldb:mem:xwreplica). Read
+	 * only listings and statistics are sent to the replica; scheduling,
+	 * authentication and reads following writes stay on the primary DB. If
+	 * not set, all queries go to the primary DB
+	 * <p>
+	 * Property type : string
+	 * </p>
+	 * <p>
+	 * Default: null
+	 * </p>
+	 *
+	 * @see #DBREPLICAMAXLAG
+	 * @since 10.6.0
+	 */
+	DBREPLICAURL,
+	/**
+	 * Dispatcher : amount of simultaneous connections to the read replica
+	 * <p>
+	 * Property type : integer
+	 * </p>
+	 * <p>
+	 * Default: 10
+	 * </p>
+	 *
+	 * @see #DBREPLICAURL
+	 * @since 10.6.0
+	 */
+	DBREPLICACONNECTIONS {
+		/**
+		 * This retrieves the String representation of the default value
+		 *
+		 * @return "10"
+		 */
+		@Override
+		public String defaultValue() {
+			return "10";
+		}
+	},
+	/**
+	 * Dispatcher : max read replica lag in milliseconds. The lag is measured
+	 * every second with a heart beat row written to the primary DB and read
+	 * from the replica; queries go to the primary DB while the replica lags
+	 * more. If not positive, the lag is not checked (e.g. to try routing with
+	 * two unreplicated HSQLDB instances)
+	 * <p>
+	 * Property type : integer
+	 * </p>
+	 * <p>
+	 * Default: 5000
+	 * </p>
+	 *
+	 * @see #DBREPLICAURL
+	 * @since 10.6.0
+	 */
+	DBREPLICAMAXLAG {
+		/**
+		 * This retrieves the String representation of the default value
+		 *
+		 * @return "5000"
+		 */
+		@Override
+		public String defaultValue() {
+			return "5000";
+		}
+	},
+	/**
+	 * Dispatcher : object cache budgets, as a comma separated list of
+	 * table:maxentries:ttl where ttl is in milliseconds; a ttl not positive
+	 * means no expiration. Tables not listed here get CACHESIZE entries and a
+	 * one minute ttl
+	 * <p>
+	 * Property type : string
+	 * </p>
+	 * <p>
+	 * Default:
+	 * users:1000:600000,usergroups:1000:600000,apps:1000:600000,groups:1000:300000,sessions:1000:300000,hosts:10000:300000,datas:10000:60000,works:10000:60000,tasks:10000:60000
+	 * </p>
+	 *
+	 * @see #CACHESIZE
+	 * @see xtremweb.dispatcher.ObjectCache
+	 * @since 10.6.0
+	 */
+	CACHEBUDGETS {
+		/**
+		 * This retrieves the String representation of the default value
+		 *
+		 * @return the default budgets
+		 */
+		@Override
+		public String defaultValue() {
+			return "users:1000:600000,usergroups:1000:600000,apps:1000:600000,groups:1000:300000,"
+					+ "sessions:1000:300000,hosts:10000:300000,datas:10000:60000,works:10000:60000,"
+					+ "tasks:10000:60000";
+		}
+	},
+	/**
+	 * All : time to live of missing objects in cache, in milliseconds. On
+	 * dispatcher side, UIDs not found in DB are remembered by type; on client
+	 * side, UIDs the server answered nothing for are remembered. Creating an
+	 * object forgets that its UID is missing. If not positive, missing objects
+	 * are not remembered
+	 * <p>
+	 * Property type : integer
+	 * </p>
+	 * <p>
+	 * Default: 10000
+	 * </p>
+	 *
+	 * @see xtremweb.common.NegativeCache
+	 * @since 10.6.0
+	 */
+	NEGATIVECACHETTL {
+		/**
+		 * This retrieves the String representation of the default value
+		 *
+		 * @return "10000"
+		 */
+		@Override
+		public String defaultValue() {
+			return "10000";
+		}
+	},
 	/**
 	 * All : comma separated list of known dispatchers (used for replication)
 	 * <p>
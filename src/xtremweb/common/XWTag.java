@@ -169,9 +169,35 @@ public enum XWTag {
 		public Table newInterface(final Attributes attrs) {
 			return new WorkInterface(attrs);
 		}
+	},
+	TEMPLATE {
+		/**
+		 * This creates a new interface
+		 *
+		 * @param attrs
+		 *            contains the attributes found from the XML description
+		 * @since 10.6.0
+		 */
+		@Override
+		public Table newInterface(final Attributes attrs) {
+			return new TemplateInterface(attrs);
+		}
+	},
+	DEPENDENCY {
+		/**
+		 * This creates a new interface
+		 *
+		 * @param attrs
+		 *            contains the attributes found from the XML description
+		 * @since 10.6.0
+		 */
+		@Override
+		public Table newInterface(final Attributes attrs) {
+			return new DependencyInterface(attrs);
+		}
 	};
 
-	public static final XWTag LAST = WORK;
+	public static final XWTag LAST = DEPENDENCY;
 	public static final int SIZE = LAST.ordinal() + 1;
 
 	/**
@@ -437,6 +437,28 @@ interface ClientAPI {
 	XMLVector getWorks(XMLRPCCommandGetWorks command)
 			throws InvalidKeyException, AccessControlException, IOException, SAXException;
 
+	/**
+	 * This sends a set of works at once
+	 *
+	 * @param works
+	 *            are the works to send
+	 * @return a Vector of the inserted work UIDs
+	 * @since 10.6.0
+	 */
+	XMLVector sendWorks(Collection<WorkInterface> works)
+			throws InvalidKeyException, AccessControlException, IOException, SAXException, URISyntaxException;
+
+	/**
+	 * This sends a set of works at once
+	 *
+	 * @param command
+	 *            is the command to send
+	 * @return a Vector of the inserted work UIDs
+	 * @since 10.6.0
+	 */
+	XMLVector sendWorks(XMLRPCCommandSendWorks command)
+			throws InvalidKeyException, AccessControlException, IOException, SAXException;
+
 	/**
 	 * This removes a set of jobs from server
 	 *
@@ -34,6 +34,7 @@ package xtremweb.communications;
  */
 
 import java.io.BufferedInputStream;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -62,6 +63,7 @@ import xtremweb.common.HostInterface;
 import xtremweb.common.Logger;
 import xtremweb.common.LoggerLevel;
 import xtremweb.common.MileStone;
+import xtremweb.common.NegativeCache;
 import xtremweb.common.SessionInterface;
 import xtremweb.common.StatusEnum;
 import xtremweb.common.Table;
@@ -98,6 +100,13 @@ public abstract class CommClient implements ClientAPI {
 	 * This is the cache where download object are cached
 	 */
 	private static Cache cache = null;
+	/**
+	 * This contains the UIDs the server recently answered nothing for
+	 *
+	 * @see XWPropertyDefs#NEGATIVECACHETTL
+	 * @since 10.6.0
+	 */
+	private static NegativeCache<UID> missing = new NegativeCache<>(0L);
 	/**
 	 * This hashtable stores known communication handlers. Keys are
 	 * communications schemes; values are CommClient objects.<br />
@@ -302,6 +311,7 @@ public abstract class CommClient implements ClientAPI {
 		config = c;
 
 		cache = new Cache(config);
+		missing = new NegativeCache<>(config.getInt(XWPropertyDefs.NEGATIVECACHETTL));
 
 		commHandlers = new Hashtable();
 
@@ -450,6 +460,10 @@ public abstract class CommClient implements ClientAPI {
 	@Override
 	public void send(final XMLRPCCommandSend command)
 			throws InvalidKeyException, AccessControlException, IOException, SAXException {
+		final XMLable param = command.getParameter();
+		if (param instanceof Table) {
+			missing.remove(((Table) param).getUID());
+		}
 		try {
 			sendCommand(command);
 			newXMLVector();
@@ -556,6 +570,12 @@ public abstract class CommClient implements ClientAPI {
 
 	/**
 	 * This creates an object from channel
+	 *
+	 * @return the object; null if the server answered the object has not been
+	 *         modified (since 10.6.0)
+	 * @exception ObjectNotFoundException
+	 *                is thrown if the server answered nothing (since 10.6.0)
+	 * @see XMLRPCCommandGet#isNotModified(XMLVector)
 	 */
 	protected Table newTableInterface(final InputStream in)
 			throws InvalidKeyException, AccessControlException, IOException, SAXException {
@@ -621,6 +641,17 @@ public abstract class CommClient implements ClientAPI {
 			return newTraceInterface(input);
 		} catch (final SAXException e) {
 		}
+		try {
+			input.reset();
+			final XMLVector answer = new XMLVector(new DataInputStream(input));
+			if (answer.size() == 0) {
+				throw new ObjectNotFoundException("no object found");
+			}
+			if (XMLRPCCommandGet.isNotModified(answer)) {
+				return null;
+			}
+		} catch (final SAXException e) {
+		}
 		throw new IOException("Unable to create new Interface from input stream");
 	}
 
@@ -974,27 +1005,49 @@ public abstract class CommClient implements ClientAPI {
 	 * @param bypass
 	 *            if true object is downloaded from server even if already in
 	 *            cache if false, object is only downloaded if not already in
-	 *            cache
-	 * @return an object definition
+	 *            cache. Since 10.6.0, if true and the object is in cache, the
+	 *            server sends the object only if its revision differs from the
+	 *            cached one
+	 * @return an object definition; the cached object if not modified
+	 * @exception ObjectNotFoundException
+	 *                is thrown if the server answers nothing; since 10.6.0,
+	 *                this is remembered for NEGATIVECACHETTL so that the
+	 *                server is not asked again meanwhile, unless the object is
+	 *                sent by this client
 	 * @since 1.0.0
 	 */
 	public Table get(final XMLRPCCommandGet command, final boolean bypass)
 			throws InvalidKeyException, AccessControlException, IOException, SAXException {
 
-		if (!bypass) {
-			final Table object = cache.get(command.getURI());
-			if (object != null) {
-				return object;
-			}
+		final Table cached = cache.get(command.getURI());
+		if (!bypass && (cached != null)) {
+			return cached;
+		}
+
+		final UID uid = (command.getURI() == null ? null : command.getURI().getUID());
+		if (missing.contains(uid)) {
+			throw new ObjectNotFoundException("no object found (cached) : " + uid);
+		}
+
+		//
+		// since 10.6.0, the server sends the object only if it differs from
+		// the cached one
+		//
+		if ((cached != null) && (command.getIfRevisionDiffers() == null)) {
+			command.setIfRevisionDiffers(cached.getRevision());
 		}
 
 		try {
 			sendCommand(command);
 			final Table object = newTableInterface();
-			if (object != null) {
-				cache.add(object, command.getURI());
+			if (object == null) {
+				return cached;
 			}
+			cache.add(object, command.getURI());
 			return object;
+		} catch (final ObjectNotFoundException e) {
+			missing.add(uid);
+			throw e;
 		} finally {
 			close();
 		}
@@ -1086,6 +1139,34 @@ public abstract class CommClient implements ClientAPI {
 		return get(command, bypass);
 	}
 
+	/**
+	 * This calls getProgress(new XMLRPCCommandGetProgress(uri))
+	 *
+	 * @param uri
+	 *            is the URI of the group or session
+	 * @see #getProgress(XMLRPCCommandGetProgress)
+	 * @since 10.6.0
+	 */
+	public Table getProgress(final URI uri)
+			throws InvalidKeyException, AccessControlException, IOException, SAXException {
+		return getProgress(new XMLRPCCommandGetProgress(uri));
+	}
+
+	/**
+	 * This retrieves the progress of a group or a session. The cache is never
+	 * used, since counters change on each work status change
+	 *
+	 * @param command
+	 *            is the GETPROGRESS command to send to server
+	 * @return a GroupInterface or a SessionInterface
+	 * @see #get(XMLRPCCommandGet, boolean)
+	 * @since 10.6.0
+	 */
+	public Table getProgress(final XMLRPCCommandGetProgress command)
+			throws InvalidKeyException, AccessControlException, IOException, SAXException {
+		return get(command, true);
+	}
+
 	/**
 	 * This calls chmod(new XMLRPCCommandChmod(uri), bypass)
 	 *
@@ -1745,7 +1826,9 @@ public abstract class CommClient implements ClientAPI {
 	}
 
 	/**
-	 * This requests a work from server
+	 * This requests a work from server. Since 10.6.0, this advertises the
+	 * cached contents so that the scheduler may prefer works which inputs are
+	 * already cached
 	 *
 	 * @param h
 	 *            describes the worker making this call
@@ -1754,7 +1837,11 @@ public abstract class CommClient implements ClientAPI {
 	@Override
 	public WorkInterface workRequest(final HostInterface h)
 			throws InvalidKeyException, AccessControlException, IOException, SAXException, URISyntaxException {
-		return workRequest(new XMLRPCCommandWorkRequest(newURI(), h));
+		final XMLRPCCommandWorkRequest command = new XMLRPCCommandWorkRequest(newURI(), h);
+		if (cache != null) {
+			command.setCacheFilter(cache.contentFilter());
+		}
+		return workRequest(command);
 	}
 
 	/**
@@ -1807,6 +1894,50 @@ public abstract class CommClient implements ClientAPI {
 		return xmlv;
 	}
 
+	/**
+	 * This sends a set of works at once
+	 *
+	 * @param works
+	 *            are the works to send
+	 * @return a vector of the inserted work UIDs
+	 * @since 10.6.0
+	 */
+	@Override
+	public XMLVector sendWorks(final Collection<WorkInterface> works)
+			throws InvalidKeyException, AccessControlException, IOException, SAXException, URISyntaxException {
+
+		final URI uri = newURI();
+		final XMLRPCCommandSendWorks cmd = new XMLRPCCommandSendWorks(uri, config.getUser(), works);
+		return sendWorks(cmd);
+	}
+
+	/**
+	 * This sends a set of works at once
+	 *
+	 * @param command
+	 *            is the command to send to server
+	 * @return a vector of the inserted work UIDs
+	 * @since 10.6.0
+	 */
+	@Override
+	public XMLVector sendWorks(final XMLRPCCommandSendWorks command)
+			throws InvalidKeyException, AccessControlException, IOException, SAXException {
+
+		if (command.getWorks() != null) {
+			for (final WorkInterface work : command.getWorks()) {
+				missing.remove(work.getUID());
+			}
+		}
+		XMLVector xmlv = null;
+		try {
+			sendCommand(command);
+			xmlv = newXMLVector();
+		} finally {
+			close();
+		}
+		return xmlv;
+	}
+
 	/**
 	 * This broadcasts a new work to all workers
 	 *
@@ -28,7 +28,9 @@ import java.util.Hashtable;
 
 import xtremweb.common.HostInterface;
 import xtremweb.common.Table;
+import xtremweb.common.TemplateInterface;
 import xtremweb.common.UserInterface;
+import xtremweb.common.WorkInterface;
 
 /**
  * This defines command that can be sent to the server <br />
@@ -1018,9 +1020,106 @@ public enum IdRpc {
 		public String helpRestApi() {
 			return "/" + this.toString() + "/anUID";
 		}
+	},
+	/**
+	 * This sends a set of works at once
+	 *
+	 * @since 10.6.0
+	 */
+	SENDWORKS {
+		@Override
+		public XMLRPCCommandSendWorks newCommand(final URI uri, final UserInterface client, final Table obj)
+				throws IOException {
+			final XMLRPCCommandSendWorks ret = new XMLRPCCommandSendWorks(uri, client);
+			if (obj instanceof WorkInterface) {
+				ret.add((WorkInterface) obj);
+			}
+			return ret;
+		}
+
+		@Override
+		public String helpClient() {
+			return this.toString()
+					+ " <application name | URI | UID> <parameterFile> [--xwsession <UID | URI>] [--xwgroup <UID | URI>] [--xwlabel <label>] : sends a work per line of parameterFile; each line contains the work command line";
+		}
+
+		@Override
+		public String helpRestApi() {
+			return "/" + this.toString() + "?" + XWPostParams.XMLDESC + "=an xml description : sends works";
+		}
+	},
+	/**
+	 * This sends a job template, expanded into works by the server
+	 *
+	 * @since 10.6.0
+	 */
+	SENDTEMPLATE {
+		@Override
+		public XMLRPCCommandSend newCommand(final URI uri, final UserInterface client, final Table obj)
+				throws IOException {
+			return new XMLRPCCommandSend(uri, client, obj);
+		}
+
+		@Override
+		public String helpClient() {
+			return this.toString()
+					+ " <application name | URI | UID> <parameterFile | from:to[:step]> [args] [--xwsession <UID | URI>] [--xwgroup <UID | URI>] [--xwlabel <label>] : sends a template expanded by the server into a work per parameter; "
+					+ TemplateInterface.PLACEHOLDER + " in args is replaced by the parameter, which is appended otherwise";
+		}
+
+		@Override
+		public String helpRestApi() {
+			return "/" + this.toString() + "?" + XWPostParams.XMLDESC + "=an xml description : sends a template";
+		}
+	},
+	/**
+	 * This sends a dependency between two works
+	 *
+	 * @since 10.6.0
+	 */
+	SENDDEPENDENCY {
+		@Override
+		public XMLRPCCommandSend newCommand(final URI uri, final UserInterface client, final Table obj)
+				throws IOException {
+			return new XMLRPCCommandSend(uri, client, obj);
+		}
+
+		@Override
+		public String helpClient() {
+			return this.toString()
+					+ " <consumer work URI | UID> <producer work URI | UID> [route] : the consumer work waits until the producer work is completed; with route, the consumer work then runs on the host which ran the producer work";
+		}
+
+		@Override
+		public String helpRestApi() {
+			return "/" + this.toString() + "?" + XWPostParams.XMLDESC + "=an xml description : sends a dependency";
+		}
+	},
+	/**
+	 * This retrieves the progress of a group or a session
+	 *
+	 * @since 10.6.0
+	 */
+	GETPROGRESS {
+		@Override
+		public XMLRPCCommandGetProgress newCommand(final URI uri, final UserInterface client, final Table obj)
+				throws IOException {
+			return new XMLRPCCommandGetProgress(uri, client);
+		}
+
+		@Override
+		public String helpClient() {
+			return this.toString()
+					+ " <group | session URI | UID> : retrieves the pending, running, completed and erroneous jobs counters of a group or a session";
+		}
+
+		@Override
+		public String helpRestApi() {
+			return "/" + this.toString() + "/anUID : retrieves the progress of a group or a session";
+		}
 	};
 
-	public static final IdRpc LAST = DOWNLOADDATA;
+	public static final IdRpc LAST = GETPROGRESS;
 	public static final int SIZE = LAST.ordinal() + 1;
 
 	/**
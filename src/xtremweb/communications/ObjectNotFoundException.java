@@ -0,0 +1,43 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.communications;
+
+import java.io.IOException;
+
+/**
+ * This is thrown when the server answers nothing to a get request, because
+ * no object with the requested UID exists or because the client can't read
+ * it
+ *
+ * @see CommClient#get(XMLRPCCommandGet, boolean)
+ * @since 10.6.0
+ */
+public class ObjectNotFoundException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	public ObjectNotFoundException(final String msg) {
+		super(msg);
+	}
+}
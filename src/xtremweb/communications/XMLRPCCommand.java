@@ -680,6 +680,18 @@ public abstract class XMLRPCCommand extends XMLable {
 			e.printStackTrace();
 		}
 		logger.finest("not a command gettask");
+		try {
+			input.reset();
+			input.mark(XWTools.BUFFEREND);
+			return new XMLRPCCommandGetProgress(input);
+		} catch (final SAXException e) {
+			if (e instanceof XMLEndParseException) {
+				return ret;
+			}
+		} catch (final InvalidKeyException e) {
+			e.printStackTrace();
+		}
+		logger.finest("not a command getprogress");
 		try {
 			input.reset();
 			input.mark(XWTools.BUFFEREND);
@@ -716,6 +728,18 @@ public abstract class XMLRPCCommand extends XMLable {
 			e.printStackTrace();
 		}
 		logger.finest("not a command send");
+		try {
+			input.reset();
+			input.mark(XWTools.BUFFEREND);
+			return new XMLRPCCommandSendWorks(input);
+		} catch (final SAXException e) {
+			if (e instanceof XMLEndParseException) {
+				return ret;
+			}
+		} catch (final InvalidKeyException e) {
+			e.printStackTrace();
+		}
+		logger.finest("not a command sendworks");
 		try {
 			input.reset();
 			input.mark(XWTools.BUFFEREND);
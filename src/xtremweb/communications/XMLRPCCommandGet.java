@@ -28,12 +28,17 @@ import java.io.InputStream;
 import java.rmi.RemoteException;
 import java.security.AccessControlException;
 import java.security.InvalidKeyException;
+import java.util.Vector;
 
+import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 
+import xtremweb.common.Table;
 import xtremweb.common.UID;
 import xtremweb.common.UserInterface;
 import xtremweb.common.XMLReader;
+import xtremweb.common.XMLValue;
+import xtremweb.common.XMLVector;
 import xtremweb.common.XMLable;
 import xtremweb.common.XWConfigurator;
 
@@ -49,6 +54,10 @@ import xtremweb.common.XWConfigurator;
 /**
  * This class defines the XMLRPCCommand to retrieve object definition This does
  * not retrieve Tasks from server
+ *
+ * Since 10.6.0, the client may provide the revision of its cached object; if
+ * the object has not been modified since, the server answers "not modified"
+ * instead of the object.
  */
 public class XMLRPCCommandGet extends XMLRPCCommand {
 
@@ -61,18 +70,33 @@ public class XMLRPCCommandGet extends XMLRPCCommand {
 	 */
 	public static final String THISTAG = IDRPC.toString();
 
+	/**
+	 * This is the column index of the revision of the object cached by the
+	 * client, if any
+	 *
+	 * @since 10.6.0
+	 */
+	private static final int IFREVISION = URI + 1;
+	/**
+	 * This is the revision column label
+	 *
+	 * @since 10.6.0
+	 */
+	private static final String IFREVISION_LABEL = "IFREVISIONDIFFERS";
+
 	/**
 	 * This constructs a new command
 	 */
 	public XMLRPCCommandGet() throws IOException {
-		super(null, IDRPC);
+		this(null, IDRPC);
 	}
 
 	/**
 	 * This constructs a new command
 	 */
 	protected XMLRPCCommandGet(final URI uri, final IdRpc id) throws IOException {
-		super(uri, id);
+		super(uri, id, IFREVISION);
+		setColumnAt(IFREVISION, IFREVISION_LABEL);
 	}
 
 	/**
@@ -82,7 +106,7 @@ public class XMLRPCCommandGet extends XMLRPCCommand {
 	 *            is the URI of the group to retrieve
 	 */
 	public XMLRPCCommandGet(final URI uri) throws IOException {
-		super(uri, IDRPC);
+		this(uri, IDRPC);
 	}
 
 	/**
@@ -113,6 +137,127 @@ public class XMLRPCCommandGet extends XMLRPCCommand {
 		reader.read(input);
 	}
 
+	/**
+	 * This retrieves the revision of the object cached by the client
+	 *
+	 * @return the revision; null if the object must be sent whatever its
+	 *         revision is
+	 * @since 10.6.0
+	 */
+	public Long getIfRevisionDiffers() {
+		return (Long) getValueAt(IFREVISION);
+	}
+
+	/**
+	 * This sets the revision of the object cached by the client, so that the
+	 * object is sent only if its revision differs
+	 *
+	 * @param revision
+	 *            is the revision of the cached object; if null, the object is
+	 *            sent whatever its revision is
+	 * @since 10.6.0
+	 */
+	public void setIfRevisionDiffers(final Long revision) {
+		setValueAt(IFREVISION, revision);
+	}
+
+	/**
+	 * This tells whether the object has the revision provided by the client
+	 *
+	 * @param object
+	 *            is the object retrieved by the server
+	 * @return true if the client has provided a revision equal to the object
+	 *         one
+	 * @since 10.6.0
+	 */
+	public boolean isNotModified(final Table object) {
+		final Long revision = getIfRevisionDiffers();
+		return (revision != null) && (object != null) && revision.equals(object.getRevision());
+	}
+
+	/**
+	 * This creates the "not modified" answer : a vector containing the
+	 * revision only
+	 *
+	 * @param revision
+	 *            is the revision of the object
+	 * @return the answer to send to the client instead of the object
+	 * @see #isNotModified(XMLVector)
+	 * @since 10.6.0
+	 */
+	public static XMLVector newNotModified(final Long revision) {
+		final Vector<Long> ret = new Vector<>();
+		ret.add(revision);
+		return new XMLVector(ret);
+	}
+
+	/**
+	 * This tells whether an answer is a "not modified" one
+	 *
+	 * @param answer
+	 *            is the answer of the server
+	 * @return true if answer contains a revision only
+	 * @see #newNotModified(Long)
+	 * @since 10.6.0
+	 */
+	public static boolean isNotModified(final XMLVector answer) {
+		if ((answer == null) || (answer.size() != 1)) {
+			return false;
+		}
+		final Vector<XMLValue> values = answer.getXmlValues();
+		return (values.size() == 1) && (values.get(0).getValue() instanceof Long);
+	}
+
+	/**
+	 * This writes the URI and, if set, the revision
+	 *
+	 * @since 10.6.0
+	 */
+	@Override
+	public String getOpenTag(final URI uri) {
+		final Long revision = getIfRevisionDiffers();
+		if (revision == null) {
+			return super.getOpenTag(uri);
+		}
+		return "<" + getXMLTag() + (uri == null ? "" : " uri=\"" + uri.toString() + "\"") + " "
+				+ getColumnLabel(IFREVISION).toLowerCase() + "=\"" + revision + "\">";
+	}
+
+	/**
+	 * This is called by XML parser This retrieves URI and revision
+	 *
+	 * @param attrs
+	 *            contains attributes XML representation
+	 * @since 10.6.0
+	 */
+	@Override
+	public void fromXml(final Attributes attrs) {
+
+		if (attrs == null) {
+			return;
+		}
+
+		for (int a = 0; a < attrs.getLength(); a++) {
+			final String attribute = attrs.getQName(a);
+			final String value = attrs.getValue(a);
+			if (attribute.compareToIgnoreCase(getColumnLabel(URI)) == 0) {
+				try {
+					setURI(new URI(value));
+				} catch (final Exception e) {
+					getLogger().error("not a valid URI " + value);
+					setURI(null);
+				}
+			} else if (attribute.compareToIgnoreCase(getColumnLabel(IFREVISION)) == 0) {
+				try {
+					setIfRevisionDiffers(Long.valueOf(value));
+				} catch (final NumberFormatException e) {
+					getLogger().error("not a valid revision " + value);
+					setIfRevisionDiffers(null);
+				}
+			}
+		}
+	}
+
 	/**
 	 * This sends this command to server and returns answer
 	 *
@@ -0,0 +1,142 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.communications;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.AccessControlException;
+import java.security.InvalidKeyException;
+
+import org.xml.sax.SAXException;
+
+import xtremweb.common.UID;
+import xtremweb.common.UserInterface;
+import xtremweb.common.XMLReader;
+import xtremweb.common.XMLable;
+import xtremweb.common.XWConfigurator;
+
+/**
+ * This class defines the XMLRPCCommand to retrieve the progress of a group or
+ * a session : the answer is the group or session row, always read from DB,
+ * which contains its pending, running, completed and erroneous jobs counters.
+ * Monitoring a group then costs a single row read, whatever its amount of
+ * works
+ *
+ * @see xtremweb.common.GroupInterface#getCompletedJobs()
+ * @see xtremweb.common.SessionInterface#getCompletedJobs()
+ * @since 10.6.0
+ */
+public class XMLRPCCommandGetProgress extends XMLRPCCommandGet {
+
+	/**
+	 * This is the RPC id
+	 */
+	public static final IdRpc IDRPC = IdRpc.GETPROGRESS;
+	/**
+	 * This is the XML tag
+	 */
+	public static final String THISTAG = IDRPC.toString();
+
+	/**
+	 * This constructs a new command
+	 */
+	protected XMLRPCCommandGetProgress() throws IOException {
+		super(null, IDRPC);
+	}
+
+	/**
+	 * This constructs a new command
+	 *
+	 * @param uri
+	 *            contains the URI to connect to; its path must contains the UID
+	 *            of the group or session to retrieve the progress of
+	 */
+	protected XMLRPCCommandGetProgress(final URI uri) throws IOException {
+		super(uri, IDRPC);
+	}
+
+	/**
+	 * This constructs a new command
+	 *
+	 * @param uri
+	 *            is the URI of the group or session
+	 */
+	public XMLRPCCommandGetProgress(final URI uri, final UserInterface u) throws IOException {
+		this(uri);
+		setUser(u);
+	}
+
+	/**
+	 * This constructs a new object from XML attributes received from input
+	 * stream
+	 *
+	 * @param input
+	 *            is the input stream
+	 * @throws IOException
+	 *             on XML error
+	 * @throws InvalidKeyException
+	 * @see xtremweb.common.XMLReader#read(InputStream)
+	 */
+	public XMLRPCCommandGetProgress(final InputStream input) throws IOException, SAXException, InvalidKeyException {
+		this();
+		final XMLReader reader = new XMLReader(this);
+		reader.read(input);
+	}
+
+	/**
+	 * This sends this command to server and returns answer
+	 *
+	 * @param comm
+	 *            is the communication channel
+	 * @return a GroupInterface or a SessionInterface
+	 * @throws AccessControlException
+	 * @throws InvalidKeyException
+	 */
+	@Override
+	public XMLable exec(final CommClient comm)
+			throws IOException, SAXException, InvalidKeyException, AccessControlException {
+		return comm.getProgress(this);
+	}
+
+	/**
+	 * This is for testing only. The first argument must be a valid client
+	 * configuration file. Without a second argument, this dumps an
+	 * XMLRPCCommandGetProgress object. If the second argument is an XML file
+	 * containing a description of an XMLRPCCommandGetProgress this creates an
+	 * object from XML description and dumps it. <br />
+	 * Usage : java -cp xtremweb.jar
+	 * xtremweb.communications.XMLRPCCommandGetProgress aConfigFile
+	 * [anXMLDescriptionFile]
+	 */
+	public static void main(final String[] argv) {
+		try {
+			final XWConfigurator config = new XWConfigurator(argv[0], false);
+			final XMLRPCCommandGetProgress cmd = new XMLRPCCommandGetProgress(
+					new URI(config.getCurrentDispatcher(), new UID()), config.getUser());
+			cmd.test(argv);
+		} catch (final Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
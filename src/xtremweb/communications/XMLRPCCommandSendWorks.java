@@ -0,0 +1,285 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.communications;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.rmi.RemoteException;
+import java.security.AccessControlException;
+import java.security.InvalidKeyException;
+import java.util.Collection;
+import java.util.Vector;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+
+import xtremweb.common.UID;
+import xtremweb.common.UserInterface;
+import xtremweb.common.WorkInterface;
+import xtremweb.common.XMLReader;
+import xtremweb.common.XMLable;
+import xtremweb.common.XWConfigurator;
+
+/**
+ * This class defines the XMLRPCCommand to send a set of works at once. The
+ * server validates the client and the applications once and inserts all works
+ * in a single transaction.
+ *
+ * @since 10.6.0
+ */
+public class XMLRPCCommandSendWorks extends XMLRPCCommand {
+
+	/**
+	 * This is the RPC id
+	 */
+	public static final IdRpc IDRPC = IdRpc.SENDWORKS;
+	/**
+	 * This is the XML tag
+	 */
+	public static final String THISTAG = IDRPC.toString();
+	/**
+	 * This is the default amount of works sent per command by the command
+	 * line client
+	 */
+	public static final int BULKSIZE = 1000;
+
+	/**
+	 * These are the works to send
+	 */
+	private final Vector<WorkInterface> works;
+	/**
+	 * This is the work currently read from XML
+	 */
+	private WorkInterface currentWork;
+
+	/**
+	 * This constructs a new command
+	 */
+	public XMLRPCCommandSendWorks() throws IOException {
+		this((URI) null);
+	}
+
+	/**
+	 * This constructs a new command
+	 *
+	 * @param uri
+	 *            contains the URI to connect to
+	 */
+	public XMLRPCCommandSendWorks(final URI uri) throws IOException {
+		super(uri, IDRPC);
+		works = new Vector<>();
+		currentWork = null;
+	}
+
+	/**
+	 * This constructs a new command
+	 *
+	 * @param uri
+	 *            contains the URI to connect to
+	 * @param u
+	 *            defines the user who executes this command
+	 */
+	public XMLRPCCommandSendWorks(final URI uri, final UserInterface u) throws IOException {
+		this(uri);
+		setUser(u);
+	}
+
+	/**
+	 * This constructs a new command
+	 *
+	 * @param uri
+	 *            contains the URI to connect to
+	 * @param u
+	 *            defines the user who executes this command
+	 * @param w
+	 *            are the works to send
+	 */
+	public XMLRPCCommandSendWorks(final URI uri, final UserInterface u, final Collection<WorkInterface> w)
+			throws IOException {
+		this(uri, u);
+		if (w != null) {
+			works.addAll(w);
+		}
+	}
+
+	/**
+	 * This constructs a new object from XML attributes received from input
+	 * stream
+	 *
+	 * @param input
+	 *            is the input stream
+	 * @throws InvalidKeyException
+	 * @see xtremweb.common.XMLReader#read(InputStream)
+	 */
+	public XMLRPCCommandSendWorks(final InputStream input) throws IOException, SAXException, InvalidKeyException {
+		this();
+		final XMLReader reader = new XMLReader(this);
+		reader.read(input);
+	}
+
+	/**
+	 * This adds a work to send
+	 */
+	public void add(final WorkInterface w) {
+		if (w != null) {
+			works.add(w);
+		}
+	}
+
+	/**
+	 * This retrieves the works to send
+	 */
+	public Collection<WorkInterface> getWorks() {
+		return works;
+	}
+
+	/**
+	 * This retrieves the amount of works to send
+	 */
+	public int size() {
+		return works.size();
+	}
+
+	/**
+	 * This sends this command to server and returns answer
+	 *
+	 * @param comm
+	 *            is the communication channel
+	 * @return a vector of the inserted work UIDs
+	 * @throws AccessControlException
+	 * @throws InvalidKeyException
+	 * @exception RemoteException
+	 *                is thrown on comm error
+	 */
+	@Override
+	public XMLable exec(final CommClient comm)
+			throws IOException, ClassNotFoundException, SAXException, InvalidKeyException, AccessControlException {
+		return comm.sendWorks(this);
+	}
+
+	/**
+	 * This retrieves the XML representation of this command, including all
+	 * works
+	 */
+	@Override
+	public String toXml() {
+
+		final StringBuilder ret = new StringBuilder(getOpenTag(getURI()));
+
+		if (getUser() != null) {
+			ret.append(getUser().toXml());
+		}
+		if (getHost() != null) {
+			ret.append(getHost().toXml());
+		}
+		for (final WorkInterface w : works) {
+			ret.append(w.toXml());
+		}
+		ret.append(getCloseTag());
+
+		return ret.toString();
+	}
+
+	/**
+	 * This is called on XML element open tag. This creates a new work on each
+	 * work open tag
+	 *
+	 * @see xtremweb.common.XMLReader#read(InputStream)
+	 */
+	@Override
+	public void xmlElementStart(final String uri, final String thetag, final String qname, final Attributes attrs)
+			throws SAXException {
+
+		try {
+			xmlElementStartCheckUserAndHost(uri, thetag, qname, attrs);
+			return;
+		} catch (final SAXException ioe) {
+		}
+
+		getLogger().finest("XMLRPCCommandSendWorks#xmlElementStart(" + uri + ", " + thetag + ", " + qname + ")  "
+				+ attrs.getLength());
+
+		if (qname.compareToIgnoreCase(WorkInterface.THISTAG) == 0) {
+			currentWork = new WorkInterface(attrs);
+			currentWork.setCurrentVersion(getCurrentVersion());
+			works.add(currentWork);
+			return;
+		}
+		if (currentWork == null) {
+			throw new SAXException("XMLRPCCommandSendWorks not a " + getXMLTag() + " command (" + qname + ")");
+		}
+		currentWork.xmlElementStart(uri, thetag, qname, attrs);
+	}
+
+	/**
+	 * This is called on XML element close tag and sets the XML element value
+	 *
+	 * @see XMLable#characters(char[], int, int)
+	 * @see XMLReader#read(InputStream)
+	 * @exception SAXException
+	 *                on XML error, or SAXException(XMLEndParseException()) to
+	 *                force stop parsing
+	 */
+	@Override
+	final public void xmlElementStop(final String uri, final String tag, final String qname) throws SAXException {
+
+		super.xmlElementStop(uri, tag, qname);
+
+		getLogger().finest("XMLRPCCommandSendWorks#xmlElementStop " + uri + ", " + tag + ", " + qname + " = "
+				+ getCurrentValue());
+
+		try {
+			if (currentWork != null) {
+				currentWork.setValue(qname, getCurrentValue());
+			}
+		} catch (final IllegalArgumentException e) {
+		} finally {
+			resetCurrentValue();
+		}
+		if (qname.compareToIgnoreCase(WorkInterface.THISTAG) == 0) {
+			currentWork = null;
+		}
+	}
+
+	/**
+	 * This is for testing only. The first argument must be a valid client
+	 * configuration file. Without a second argument, this dumps an
+	 * XMLRPCCommandSendWorks object. If the second argument is an XML file
+	 * containing a description of an XMLRPCCommandSendWorks this creates an
+	 * object from XML description and dumps it. <br />
+	 * Usage : java -cp xtremweb.jar
+	 * xtremweb.communications.XMLRPCCommandSendWorks aConfigFile
+	 * [anXMLDescriptionFile]
+	 */
+	public static void main(final String[] argv) {
+		try {
+			final XWConfigurator config = new XWConfigurator(argv[0], false);
+			final XMLRPCCommandSendWorks cmd = new XMLRPCCommandSendWorks(
+					new URI(config.getCurrentDispatcher(), new UID()), config.getUser());
+			cmd.test(argv);
+		} catch (final Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
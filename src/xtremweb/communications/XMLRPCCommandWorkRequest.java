@@ -32,6 +32,7 @@ import java.security.InvalidKeyException;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 
+import xtremweb.common.BloomFilter;
 import xtremweb.common.HostInterface;
 import xtremweb.common.UID;
 import xtremweb.common.XMLReader;
@@ -60,6 +61,20 @@ public class XMLRPCCommandWorkRequest extends XMLRPCCommand {
 	 * This is the XML tag
 	 */
 	public static final String THISTAG = IDRPC.toString();
+	/**
+	 * This is the XML attribute containing the worker cache filter
+	 *
+	 * @since 10.6.0
+	 */
+	public static final String CACHEFILTER = "cachefilter";
+
+	/**
+	 * This is the filter of the contents cached by the requesting worker.
+	 * This is optional so that older workers and dispatchers ignore it
+	 *
+	 * @since 10.6.0
+	 */
+	private BloomFilter cacheFilter;
 
 	/**
 	 * This constructs a new commadn
@@ -95,6 +110,62 @@ public class XMLRPCCommandWorkRequest extends XMLRPCCommand {
 		reader.read(input);
 	}
 
+	/**
+	 * @return the filter of the contents cached by the requesting worker;
+	 *         null if not provided
+	 * @since 10.6.0
+	 */
+	public BloomFilter getCacheFilter() {
+		return cacheFilter;
+	}
+
+	/**
+	 * @param f
+	 *            is the filter of the contents cached by the requesting worker
+	 * @since 10.6.0
+	 */
+	public void setCacheFilter(final BloomFilter f) {
+		cacheFilter = f;
+	}
+
+	/**
+	 * This retrieves the open tag, including the cache filter, if any
+	 *
+	 * @since 10.6.0
+	 */
+	@Override
+	public String getOpenTag(final URI uri) {
+		final String ret = super.getOpenTag(uri);
+		if (cacheFilter == null) {
+			return ret;
+		}
+		return ret.substring(0, ret.length() - 1) + " " + CACHEFILTER + "=\"" + cacheFilter.toString() + "\">";
+	}
+
+	/**
+	 * This retrieves the URI and the cache filter, if any, from XML attributes
+	 *
+	 * @param attrs
+	 *            contains attributes XML representation
+	 * @since 10.6.0
+	 */
+	@Override
+	public void fromXml(final Attributes attrs) {
+		super.fromXml(attrs);
+		if (attrs == null) {
+			return;
+		}
+		final String value = attrs.getValue(CACHEFILTER);
+		if (value == null) {
+			return;
+		}
+		try {
+			cacheFilter = new BloomFilter(value);
+		} catch (final IOException e) {
+			getLogger().exception("ignoring cache filter", e);
+		}
+	}
+
 	/**
 	 * This is called to decode XML elements
 	 *
@@ -34,28 +34,41 @@
 
 package xtremweb.database;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Vector;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import xtremweb.common.Logger;
 import xtremweb.common.MileStone;
 import xtremweb.common.StatusEnum;
 import xtremweb.common.Table;
+import xtremweb.common.TableColumns;
 import xtremweb.common.Type;
 import xtremweb.common.UID;
 import xtremweb.common.WorkInterface;
 import xtremweb.common.XWConfigurator;
+import xtremweb.common.XWDBs;
 import xtremweb.common.XWPropertyDefs;
+import xtremweb.common.XWTools;
 
 /**
  * This is a threaded version of DBConnPool to improve performances This acts as
@@ -74,6 +87,20 @@ public class DBConnPoolThread extends Thread {
 	 */
 	public static final String HISTORYSUFFIX = "_history";
 
+	/**
+	 * This is the HSQLDB JDBC driver
+	 *
+	 * @since 10.6.0
+	 */
+	private static final String HSQLDBDRIVER = "org.hsqldb.jdbc.JDBCDriver";
+	/**
+	 * This is appended to HSQLDB URL so that it accepts MySQL syntax used by
+	 * SQL requests and scripts
+	 *
+	 * @since 10.6.0
+	 */
+	private static final String HSQLDBMYSQLSYNTAX = ";sql.syntax_mys=true";
+
 	/**
 	 * Configurator
 	 *
@@ -103,13 +130,155 @@ public class DBConnPoolThread extends Thread {
 	 *
 	 * @since 7.5.0
 	 */
-	private List<String> updateFifo;
+	private List<QueuedQuery> updateFifo;
+	/**
+	 * This tells whether a thread is executing the queued queries
+	 *
+	 * @since 10.6.0
+	 */
+	private boolean draining;
+	/**
+	 * These count the units of work being committed per written row key;
+	 * updates of these rows wait until they are committed. This is guarded by
+	 * this object monitor
+	 *
+	 * @see #rowKey(String, Object)
+	 * @since 10.6.0
+	 */
+	private final Map<String, Integer> committing = new HashMap<>();
+
+	/**
+	 * This is a query waiting in updateFifo
+	 *
+	 * @since 10.6.0
+	 */
+	private static final class QueuedQuery {
+		private final String query;
+		private final long queued;
+
+		private QueuedQuery(final String q) {
+			query = q;
+			queued = System.nanoTime();
+		}
+	}
+
+	/**
+	 * These are the statistics of executed statements
+	 *
+	 * @since 10.6.0
+	 */
+	private final QueryStats queryStats = new QueryStats();
 
 	/**
 	 * This is the singleton
 	 */
 	private static DBConnPoolThread instance = null;
 
+	/**
+	 * This counts executed queries expecting rows
+	 *
+	 * @since 10.6.0
+	 */
+	private final AtomicLong readCount = new AtomicLong(0L);
+	/**
+	 * This counts executed queries expecting no row (insert, update, delete)
+	 *
+	 * @since 10.6.0
+	 */
+	private final AtomicLong writeCount = new AtomicLong(0L);
+	/**
+	 * This is the maximum amount of statements sent to the database in a
+	 * single JDBC batch
+	 *
+	 * @since 10.6.0
+	 */
+	public static final int BATCHSIZE = 500;
+	/**
+	 * This prefixes the unit of work name in statements statistics; the
+	 * amount of rows of a unit of work is its amount of statements
+	 *
+	 * @see #getQueryStats()
+	 * @since 10.6.0
+	 */
+	public static final String TRANSACTIONPREFIX = "transaction ";
+	/**
+	 * This counts committed units of work
+	 *
+	 * @since 10.6.0
+	 */
+	private final AtomicLong transactions = new AtomicLong(0L);
+	/**
+	 * This counts units of work retried after a deadlock
+	 *
+	 * @since 10.6.0
+	 */
+	private final AtomicLong transactionsRetries = new AtomicLong(0L);
+	/**
+	 * This cumulates units of work commit latencies, in milliseconds
+	 *
+	 * @since 10.6.0
+	 */
+	private final AtomicLong transactionsTime = new AtomicLong(0L);
+	/**
+	 * This archives deleted rows in background; if null, deleted rows are
+	 * copied to history synchronously
+	 *
+	 * @since 10.6.0
+	 */
+	private volatile HistoryArchiver archiver = null;
+	/**
+	 * These are the UIDs of the rows marked as deleted but not archived yet;
+	 * these rows are still in their table, and are not returned by select()
+	 * and selectUID()
+	 *
+	 * @see #delete(Table)
+	 * @see #archive(String, Collection)
+	 * @since 10.6.0
+	 */
+	private final Set<UID> deleted = Collections.newSetFromMap(new ConcurrentHashMap<UID, Boolean>());
+	/**
+	 * This is the table where the primary DB writes heart beats, so that the
+	 * read replica lag is known
+	 *
+	 * @since 10.6.0
+	 */
+	public static final String HEARTBEATTABLE = "heartbeats";
+	/**
+	 * This contains connections to the read replica; null if no replica is
+	 * configured
+	 *
+	 * @see XWPropertyDefs#DBREPLICAURL
+	 * @since 10.6.0
+	 */
+	private List<Connection> replicaPool = null;
+	/**
+	 * This is the last measured replica lag in milliseconds
+	 *
+	 * @since 10.6.0
+	 */
+	private volatile long replicaLag = Long.MAX_VALUE;
+	/**
+	 * This is the max replica lag in milliseconds; if not positive, the lag is
+	 * not checked
+	 *
+	 * @see XWPropertyDefs#DBREPLICAMAXLAG
+	 * @since 10.6.0
+	 */
+	private long replicaMaxLag = 0L;
+	/**
+	 * This counts queries executed on the replica
+	 *
+	 * @since 10.6.0
+	 */
+	private final AtomicLong replicaReads = new AtomicLong(0L);
+	/**
+	 * This counts replica intended queries executed on the primary DB because
+	 * the replica is lagging or failing
+	 *
+	 * @since 10.6.0
+	 */
+	private final AtomicLong replicaFallbacks = new AtomicLong(0L);
+
 	/**
 	 * This contains this class name
 	 */
@@ -129,29 +298,47 @@ public class DBConnPoolThread extends Thread {
 		config = c;
 
 		MAXX_CONNECTIONS = config.getInt(XWPropertyDefs.DBCONNECTIONS);
+		queryStats.setThreshold(config.getInt(XWPropertyDefs.SLOWQUERYTHRESHOLD));
 		logger.config("MAXX_CONNECTIONS = " + MAXX_CONNECTIONS);
+
+		final boolean hsqldb = XWDBs.toString(XWDBs.HSQLDB)
+				.equalsIgnoreCase(config.getProperty(XWPropertyDefs.DBVENDOR));
+		String dbuser = config.getProperty(XWPropertyDefs.DBUSER.toString());
+		String dbpassword = config.getProperty(XWPropertyDefs.DBPASS.toString());
 		try {
-			dburl = "jdbc:" + config.getProperty(XWPropertyDefs.DBVENDOR) + "://"
-					+ config.getProperty(XWPropertyDefs.DBHOST) + "/" + config.getProperty(XWPropertyDefs.DBNAME);
-			logger.config("org.gjt.mm.mysql.Driver");
-			Class.forName("org.gjt.mm.mysql.Driver");
+			if (hsqldb) {
+				dburl = "jdbc:hsqldb:" + (config.dbmem() ? XWDBs.MEMENGINE : "file") + ":"
+						+ config.getProperty(XWPropertyDefs.DBNAME) + HSQLDBMYSQLSYNTAX;
+				if ((dbuser == null) || (dbuser.length() == 0)) {
+					dbuser = XWDBs.HSQLUSER;
+					dbpassword = XWDBs.HSQLP;
+				}
+				logger.config(HSQLDBDRIVER);
+				Class.forName(HSQLDBDRIVER);
+			} else {
+				dburl = "jdbc:" + config.getProperty(XWPropertyDefs.DBVENDOR) + "://"
+						+ config.getProperty(XWPropertyDefs.DBHOST) + "/" + config.getProperty(XWPropertyDefs.DBNAME);
+				logger.config("org.gjt.mm.mysql.Driver");
+				Class.forName("org.gjt.mm.mysql.Driver");
+			}
 		} catch (final java.lang.ClassNotFoundException e) {
 			logger.fatal("ClassNotFoundException: " + e.getMessage());
 		}
+		SQLRequest.setHsqldb(hsqldb);
 
 		className = getClass().getName();
 
-		logger.config("dburl      = '" + dburl + "' " + "dbuser     = '" + config.getProperty(XWPropertyDefs.DBUSER)
-				+ "' dbpassword = '" + config.getProperty(XWPropertyDefs.DBPASS) + "'");
+		logger.config("dburl      = '" + dburl + "' " + "dbuser     = '" + dbuser + "' dbpassword = '" + dbpassword
+				+ "'");
 
 		connPool = Collections.synchronizedList(new LinkedList<Connection>());
-		updateFifo = Collections.synchronizedList(new LinkedList<String>());
+		updateFifo = Collections.synchronizedList(new LinkedList<QueuedQuery>());
+		draining = false;
 
 		for (int i = 0; i < MAXX_CONNECTIONS; i++) {
 
 			try {
-				final Connection conn = getConnection(dburl, config.getProperty(XWPropertyDefs.DBUSER.toString()),
-						config.getProperty(XWPropertyDefs.DBPASS.toString()));
+				final Connection conn = getConnection(dburl, dbuser, dbpassword);
 				if (conn != null) {
 					pushConnection(conn);
 				}
@@ -163,6 +350,12 @@ public class DBConnPoolThread extends Thread {
 		logger.info("Connection to database " + dburl + " is ok, " + connPool.size() + " created");
 		nbConnections = 0;
 
+		if (hsqldb && (config.sqlFile() != null) && (config.sqlFile().length() > 0)) {
+			executeFile(new File(config.sqlFile()));
+		}
+
+		openReplica(dbuser, dbpassword);
+
 		checkAppTypes();
 
 		if (getInstance() == null) {
@@ -170,6 +363,227 @@ public class DBConnPoolThread extends Thread {
 		}
 	}
 
+	/**
+	 * This connects to the read replica, if DBREPLICAURL is set. If the
+	 * replica is an HSQLDB one, it is created from DBSQLFILE, if set, so that
+	 * replica routing can be tried with two HSQLDB instances
+	 *
+	 * @see XWPropertyDefs#DBREPLICAURL
+	 * @since 10.6.0
+	 */
+	private void openReplica(final String dbuser, final String dbpassword) {
+		String url = config.getProperty(XWPropertyDefs.DBREPLICAURL);
+		if ((url == null) || (url.trim().length() == 0)) {
+			return;
+		}
+		url = url.trim();
+		final boolean hsqldb = url.startsWith("jdbc:hsqldb");
+		try {
+			if (hsqldb) {
+				Class.forName(HSQLDBDRIVER);
+				if (!url.contains(HSQLDBMYSQLSYNTAX)) {
+					url += HSQLDBMYSQLSYNTAX;
+				}
+			}
+		} catch (final ClassNotFoundException e) {
+			logger.exception("can't load replica driver", e);
+			return;
+		}
+		final List<Connection> pool = Collections.synchronizedList(new LinkedList<Connection>());
+		final int max = config.getInt(XWPropertyDefs.DBREPLICACONNECTIONS);
+		for (int i = 0; i < max; i++) {
+			try {
+				pool.add(getConnection(url, dbuser, dbpassword));
+			} catch (final SQLException e) {
+				logger.exception("can't connect to replica " + url, e);
+				break;
+			}
+		}
+		if (pool.isEmpty()) {
+			logger.warn("no connection to replica " + url + "; all queries go to " + dburl);
+			return;
+		}
+		if (hsqldb && (config.sqlFile() != null) && (config.sqlFile().length() > 0)) {
+			executeFile(new File(config.sqlFile()), pool.get(0));
+		}
+		replicaMaxLag = config.getInt(XWPropertyDefs.DBREPLICAMAXLAG);
+		replicaLag = (replicaMaxLag > 0 ? Long.MAX_VALUE : 0L);
+		replicaPool = pool;
+		logger.info("Connection to replica " + url + " is ok, " + pool.size() + " created");
+	}
+
+	/**
+	 * This waits for a replica connection
+	 *
+	 * @since 10.6.0
+	 */
+	private Connection popReplicaConnection() {
+		synchronized (replicaPool) {
+			while (replicaPool.isEmpty()) {
+				try {
+					replicaPool.wait();
+				} catch (final InterruptedException e) {
+				}
+			}
+			return replicaPool.remove(0);
+		}
+	}
+
+	/**
+	 * This gives back a replica connection
+	 *
+	 * @since 10.6.0
+	 */
+	private void pushReplicaConnection(final Connection conn) {
+		synchronized (replicaPool) {
+			replicaPool.add(conn);
+			replicaPool.notifyAll();
+		}
+	}
+
+	/**
+	 * This tells whether queries may be sent to the replica: a replica is
+	 * configured, and its lag is lower than DBREPLICAMAXLAG
+	 *
+	 * @since 10.6.0
+	 */
+	public boolean isReplicaAvailable() {
+		return (replicaPool != null) && ((replicaMaxLag <= 0) || (replicaLag <= replicaMaxLag));
+	}
+
+	/**
+	 * @return true if a replica is configured and its lag is checked
+	 * @since 10.6.0
+	 */
+	public boolean isReplicaLagChecked() {
+		return (replicaPool != null) && (replicaMaxLag > 0);
+	}
+
+	/**
+	 * @return the last measured replica lag in milliseconds; Long.MAX_VALUE
+	 *         if unknown or if the replica is failing
+	 * @since 10.6.0
+	 */
+	public long getReplicaLag() {
+		return replicaLag;
+	}
+
+	/**
+	 * @return the amount of queries executed on the replica
+	 * @since 10.6.0
+	 */
+	public long getReplicaReads() {
+		return replicaReads.get();
+	}
+
+	/**
+	 * @return the amount of replica intended queries executed on the primary
+	 *         DB
+	 * @since 10.6.0
+	 */
+	public long getReplicaFallbacks() {
+		return replicaFallbacks.get();
+	}
+
+	/**
+	 * This writes a heart beat to the primary DB, then reads the last
+	 * replicated one from the replica to measure its lag. This does nothing if
+	 * the replica lag is not checked
+	 *
+	 * @see #isReplicaLagChecked()
+	 * @since 10.6.0
+	 */
+	public void heartbeat() {
+		if (!isReplicaLagChecked()) {
+			return;
+		}
+		final String table = config.getProperty(XWPropertyDefs.DBNAME) + "." + HEARTBEATTABLE;
+		final long now = System.currentTimeMillis();
+		try {
+			final UnitOfWork uow = new UnitOfWork("heartbeat");
+			uow.add("DELETE FROM " + table);
+			uow.add("INSERT INTO " + table + " (id, beat) VALUES (0, " + now + ")");
+			commit(uow);
+		} catch (final IOException e) {
+			logger.exception("can't write heart beat", e);
+			return;
+		}
+		final Connection conn = popReplicaConnection();
+		try (final Statement stmt = conn.createStatement();
+				final ResultSet rs = stmt.executeQuery("SELECT beat FROM " + table + " WHERE id=0")) {
+			replicaLag = (rs.next() ? Math.max(System.currentTimeMillis() - rs.getLong(1), 0L) : Long.MAX_VALUE);
+		} catch (final SQLException e) {
+			logger.exception("can't read replica heart beat", e);
+			replicaLag = Long.MAX_VALUE;
+		} finally {
+			pushReplicaConnection(conn);
+		}
+	}
+
+	/**
+	 * This executes a read only query on the replica if it is available, on
+	 * the primary DB otherwise. If the query fails on the replica, the
+	 * replica is considered as unavailable until its next heart beat and the
+	 * query is executed on the primary DB
+	 *
+	 * @see #executeQuery(String, Type)
+	 * @since 10.6.0
+	 */
+	private <T extends Type> Collection<T> executeReplicaQuery(final String query, final T row)
+			throws IOException {
+		if (!isReplicaAvailable()) {
+			replicaFallbacks.incrementAndGet();
+			return executeQuery(query, row);
+		}
+		final Connection conn = popReplicaConnection();
+		try {
+			replicaReads.incrementAndGet();
+			return executeQuery(conn, query, row);
+		} catch (final IOException e) {
+			replicaFailed(e);
+		} finally {
+			pushReplicaConnection(conn);
+		}
+		return executeQuery(query, row);
+	}
+
+	/**
+	 * This executes a read only UID query on the replica if it is available,
+	 * on the primary DB otherwise
+	 *
+	 * @see #executeReplicaQuery(String, Type)
+	 * @since 10.6.0
+	 */
+	private Collection<UID> queryReplicaUID(final String query) throws IOException {
+		if (!isReplicaAvailable()) {
+			replicaFallbacks.incrementAndGet();
+			return queryUID(query);
+		}
+		final Connection conn = popReplicaConnection();
+		try {
+			replicaReads.incrementAndGet();
+			return queryUID(conn, query);
+		} catch (final IOException e) {
+			replicaFailed(e);
+		} finally {
+			pushReplicaConnection(conn);
+		}
+		return queryUID(query);
+	}
+
+	/**
+	 * This marks the replica as unavailable until its next heart beat
+	 *
+	 * @since 10.6.0
+	 */
+	private void replicaFailed(final IOException e) {
+		logger.warn("replica query failed (" + e.getMessage() + "); falling back to primary");
+		replicaFallbacks.incrementAndGet();
+		if (replicaMaxLag > 0) {
+			replicaLag = Long.MAX_VALUE;
+		}
+	}
+
 	/**
 	 * This creates a new database connector
 	 */
@@ -179,6 +593,118 @@ public class DBConnPoolThread extends Thread {
 		return DriverManager.getConnection(dbname, dbuser, dbpassword);
 	}
 
+	/**
+	 * This executes the statements of an SQL file. This is typically used to
+	 * create an HSQLDB database at boot. Statements are separated by a
+	 * semicolon at end of line; lines beginning with "--" are ignored.
+	 * Statements that fail (e.g. MySQL only statements) are logged and skipped
+	 *
+	 * @param f
+	 *            is the SQL file
+	 * @since 10.6.0
+	 * @see xtremweb.common.XWPropertyDefs#DBSQLFILE
+	 */
+	public void executeFile(final File f) {
+		final Connection conn = popConnection();
+		try {
+			executeFile(f, conn);
+		} finally {
+			pushConnection(conn);
+		}
+	}
+
+	/**
+	 * This executes the statements of an SQL file on the given connection
+	 *
+	 * @param f
+	 *            is the SQL file
+	 * @param conn
+	 *            is the connection to the DB to create
+	 * @since 10.6.0
+	 */
+	private void executeFile(final File f, final Connection conn) {
+		logger.info("executing " + f);
+		try (final BufferedReader reader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(f), XWTools.UTF8));
+				final Statement stmt = conn.createStatement()) {
+			StringBuilder query = new StringBuilder();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				final String trimmed = line.trim();
+				if ((trimmed.length() == 0) || trimmed.startsWith("--")) {
+					continue;
+				}
+				query.append(' ').append(trimmed);
+				if (!trimmed.endsWith(";")) {
+					continue;
+				}
+				final String sql = query.substring(0, query.length() - 1).trim();
+				query = new StringBuilder();
+				try {
+					stmt.execute(sql);
+				} catch (final SQLException e) {
+					logger.warn("skipping " + sql + " : " + e.getMessage());
+				}
+			}
+		} catch (final IOException | SQLException e) {
+			logger.exception("can't execute " + f, e);
+		}
+	}
+
+	/**
+	 * This retrieves the query plan of a SELECT statement, using EXPLAIN PLAN
+	 * FOR on HSQLDB and EXPLAIN otherwise
+	 *
+	 * @param query
+	 *            is the SELECT statement
+	 * @return the plan, one line per result row, columns separated by tabs
+	 * @exception IOException
+	 *                is thrown if the plan can't be retrieved
+	 * @since 10.6.0
+	 */
+	public List<String> explain(final String query) throws IOException {
+		final List<String> ret = new ArrayList<>();
+		final Connection conn = popConnection();
+		try (final Statement stmt = conn.createStatement();
+				final ResultSet rs = stmt
+						.executeQuery((SQLRequest.getHsqldb() ? "EXPLAIN PLAN FOR " : "EXPLAIN ") + query)) {
+			final int columns = rs.getMetaData().getColumnCount();
+			while (rs.next()) {
+				final StringBuilder line = new StringBuilder();
+				for (int i = 1; i <= columns; i++) {
+					if (i > 1) {
+						line.append('\t');
+					}
+					line.append(rs.getString(i));
+				}
+				ret.add(line.toString());
+			}
+		} catch (final SQLException e) {
+			throw new IOException("can't explain " + query + " : " + e.getMessage());
+		} finally {
+			pushConnection(conn);
+		}
+		return ret;
+	}
+
+	/**
+	 * This retrieves the amount of executed queries expecting rows
+	 *
+	 * @since 10.6.0
+	 */
+	public long getReadCount() {
+		return readCount.get();
+	}
+
+	/**
+	 * This retrieves the amount of executed queries expecting no row
+	 *
+	 * @since 10.6.0
+	 */
+	public long getWriteCount() {
+		return writeCount.get();
+	}
+
 	/**
 	 * This waits until nbConnections &lt; MAXX_CONNECTIONS; then this
 	 * decrements nbConnections and create a new Connection
@@ -211,7 +737,74 @@ public class DBConnPoolThread extends Thread {
 			nbConnections = 0;
 		}
 		connPool.add(conn);
-		notify();
+		notifyAll();
+	}
+
+	/**
+	 * This queues an update query, to be executed by the main loop. The
+	 * caller must then call notify()
+	 *
+	 * @since 10.6.0
+	 */
+	private void enqueue(final String query) {
+		updateFifo.add(new QueuedQuery(query));
+	}
+
+	/**
+	 * @return the statistics of executed statements
+	 * @since 10.6.0
+	 */
+	public QueryStats getQueryStats() {
+		return queryStats;
+	}
+
+	/**
+	 * @return the amount of queries waiting in the update queue
+	 * @since 10.6.0
+	 */
+	public int getUpdateQueueSize() {
+		return updateFifo.size();
+	}
+
+	/**
+	 * This executes the queued update queries, in order. The caller must own
+	 * this object monitor. Since waiting for a connection releases the
+	 * monitor, this first waits for any other thread draining the queue, so
+	 * that queries are never executed out of order
+	 *
+	 * @since 10.6.0
+	 */
+	private void drain() {
+		try {
+			while (draining) {
+				wait();
+			}
+		} catch (final InterruptedException e) {
+			return;
+		}
+		draining = true;
+		try {
+			while (!updateFifo.isEmpty()) {
+				final QueuedQuery q = updateFifo.remove(0);
+				queryStats.dwelled(q.query, System.nanoTime() - q.queued);
+				executeQuery(q.query, null);
+			}
+		} catch (final Exception e) {
+			logger.exception(e);
+		} finally {
+			draining = false;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * This executes the queued update queries in the calling thread, so that
+	 * all updates queued before this call are written when this returns
+	 *
+	 * @since 10.6.0
+	 */
+	public synchronized void flush() {
+		drain();
 	}
 
 	/**
@@ -226,13 +819,7 @@ public class DBConnPoolThread extends Thread {
 				logger.finest("DBConnPoolThread woken up");
 			} catch (final InterruptedException e) {
 			}
-			try {
-				while (!updateFifo.isEmpty()) {
-					executeQuery(updateFifo.remove(0), null);
-				}
-			} catch (final Exception e) {
-				logger.exception(e);
-			}
+			drain();
 		}
 	}
 
@@ -260,7 +847,7 @@ public class DBConnPoolThread extends Thread {
 	 *            is the row type
 	 * @return a vector of rows found in DB, or null if no row found
 	 */
-	protected final synchronized <T extends Type> Collection<T> executeQuery(final String query, final T row)
+	protected final <T extends Type> Collection<T> executeQuery(final String query, final T row)
 			throws IOException {
 		return executeQuery(null, query, row);
 	}
@@ -274,7 +861,7 @@ public class DBConnPoolThread extends Thread {
 	 *            is the row type
 	 * @return a vector of rows found in DB, or null if no row found
 	 */
-	protected final synchronized <T extends Type> Collection<T> executeQuery(final Connection conn, final String query,
+	protected final <T extends Type> Collection<T> executeQuery(final Connection conn, final String query,
 			final T row) throws IOException {
 
 		// if (row == null) {
@@ -288,6 +875,13 @@ public class DBConnPoolThread extends Thread {
 		final String mq = query.substring(0, Math.min(query.length(), 80)).replace(',', '_');
 		mileStone.println("<executeQuery>" + mq + "...");
 
+		if (row == null) {
+			writeCount.incrementAndGet();
+		} else {
+			readCount.incrementAndGet();
+		}
+
+		final long waitStart = System.nanoTime();
 		Connection dbConn = conn;
 		if (dbConn == null) {
 			try {
@@ -297,6 +891,9 @@ public class DBConnPoolThread extends Thread {
 				logger.fatal(e.toString());
 			}
 		}
+		final long execStart = System.nanoTime();
+		long rows = 0L;
+		boolean failed = true;
 
 		ResultSet rs = null;
 		try (final Statement stmt = dbConn.createStatement()) {
@@ -306,6 +903,8 @@ public class DBConnPoolThread extends Thread {
 
 			if (stmt.execute(query)) {
 				rs = stmt.getResultSet();
+			} else {
+				rows = Math.max(stmt.getUpdateCount(), 0);
 			}
 			if (rs == null) {
 				rs = stmt.getGeneratedKeys();
@@ -320,9 +919,14 @@ public class DBConnPoolThread extends Thread {
 					@SuppressWarnings("unchecked")
 					final T theRow = (T) row.getClass().newInstance();
 					theRow.fill(rs);
+					if (theRow instanceof Table) {
+						((Table) theRow).fillRevision(rs);
+					}
 					ret.add(theRow);
 				}
+				rows = ret.size();
 			}
+			failed = false;
 
 			if (ret.isEmpty()) {
 				ret = null;
@@ -345,8 +949,8 @@ public class DBConnPoolThread extends Thread {
 			if (conn == null) {
 				pushConnection(dbConn);
 			}
+			queryStats.executed(query, execStart - waitStart, System.nanoTime() - execStart, rows, failed);
 			mileStone.println("</executeQuery>");
-			notifyAll();
 		}
 	}
 
@@ -357,7 +961,22 @@ public class DBConnPoolThread extends Thread {
 	 *            is the SQL query to execute
 	 * @return a vector of rows found in DB, or null if no row found
 	 */
-	protected synchronized Collection<UID> queryUID(final String query) throws IOException {
+	protected Collection<UID> queryUID(final String query) throws IOException {
+		return queryUID(null, query);
+	}
+
+	/**
+	 * This executes SQL query
+	 *
+	 * @param conn
+	 *            is the connection to use; if null, a pooled connection to the
+	 *            primary DB is used
+	 * @param query
+	 *            is the SQL query to execute
+	 * @return a vector of rows found in DB, or null if no row found
+	 * @since 10.6.0
+	 */
+	private Collection<UID> queryUID(final Connection conn, final String query) throws IOException {
 
 		final MileStone mileStone = new MileStone(xtremweb.database.DBConnPoolThread.class);
 
@@ -366,14 +985,21 @@ public class DBConnPoolThread extends Thread {
 		} else {
 			mileStone.println("<executeQuery>" + query.substring(0, 80) + "...");
 		}
+		readCount.incrementAndGet();
 
-		Connection dbConn = null;
-		try {
-			dbConn = popConnection();
-		} catch (final Exception e) {
-			logger.exception(e);
-			logger.fatal(e.toString());
+		final long waitStart = System.nanoTime();
+		Connection dbConn = conn;
+		if (dbConn == null) {
+			try {
+				dbConn = popConnection();
+			} catch (final Exception e) {
+				logger.exception(e);
+				logger.fatal(e.toString());
+			}
 		}
+		final long execStart = System.nanoTime();
+		long rows = 0L;
+		boolean failed = true;
 
 		ResultSet rs = null;
 
@@ -396,6 +1022,8 @@ public class DBConnPoolThread extends Thread {
 			while (rs.next()) {
 				ret.add(new UID(rs.getString("theuid")));
 			}
+			rows = ret.size();
+			failed = false;
 
 			if (ret.isEmpty()) {
 				return null;
@@ -415,9 +1043,11 @@ public class DBConnPoolThread extends Thread {
 				logger.exception(e2);
 			}
 
-			pushConnection(dbConn);
+			if (conn == null) {
+				pushConnection(dbConn);
+			}
+			queryStats.executed(query, execStart - waitStart, System.nanoTime() - execStart, rows, failed);
 			mileStone.println("</executeQuery>");
-			notifyAll();
 		}
 	}
 
@@ -476,22 +1106,16 @@ public class DBConnPoolThread extends Thread {
 			throws IOException {
 
 		try {
-			final String rowset = row.toString();
-			final String theCriteria = criteria != null ? criteria : row.criteria();
-
-			if ((theCriteria == null) || (rowset == null)) {
-				throw new IOException("unable to get update criteria");
-			}
-
-			final String query = "UPDATE " + config.getProperty(XWPropertyDefs.DBNAME) + "." + row.tableName() + " SET "
-					+ rowset + " WHERE " + theCriteria;
+			awaitCommit(rowKey(row.tableName(), row.getUID()));
+			final String query = updateQuery(row, criteria);
 
 			if (pool == true) {
-				logger.finest("updateFifo.add(" + query + ")");
-				updateFifo.add(query);
+				logger.finest("enqueue(" + query + ")");
+				enqueue(query);
 			} else {
 				executeQuery(query, row);
 			}
+			row.nextRevision();
 			notify();
 
 		} catch (final Exception e) {
@@ -500,6 +1124,363 @@ public class DBConnPoolThread extends Thread {
 		}
 	}
 
+	/**
+	 * This retrieves the key of a row, used to order its updates with the
+	 * units of work writing it
+	 *
+	 * @param tableName
+	 *            is the row table name
+	 * @param uid
+	 *            is the row UID
+	 * @return tableName.uid
+	 * @since 10.6.0
+	 */
+	static String rowKey(final String tableName, final Object uid) {
+		return tableName + "." + uid;
+	}
+
+	/**
+	 * This waits until no unit of work writing the given row is being
+	 * committed. The caller must own this object monitor
+	 *
+	 * @param key
+	 *            is the row key
+	 * @exception InterruptedException
+	 *                is thrown if interrupted while waiting
+	 * @see #rowKey(String, Object)
+	 * @since 10.6.0
+	 */
+	private void awaitCommit(final String key) throws InterruptedException {
+		while (committing.containsKey(key)) {
+			wait();
+		}
+	}
+
+	/**
+	 * This retrieves the SQL query to update the given row; this increments
+	 * the row revision in DB, but not the row itself
+	 *
+	 * @param row
+	 *            is the row to update
+	 * @param criteria
+	 *            is the WHERE statement part; if null, row.criteria() is used
+	 * @see Table#nextRevision()
+	 * @since 10.6.0
+	 */
+	<T extends Table> String updateQuery(final T row, final String criteria) throws IOException {
+		final String rowset = row.toUpdateString();
+		final String theCriteria = criteria != null ? criteria : row.criteria();
+
+		if ((theCriteria == null) || (rowset == null)) {
+			throw new IOException("unable to get update criteria");
+		}
+
+		return "UPDATE " + config.getProperty(XWPropertyDefs.DBNAME) + "." + row.tableName() + " SET " + rowset
+				+ "," + nextRevision() + " WHERE " + theCriteria;
+	}
+
+	/**
+	 * This retrieves the SET statement part incrementing the revision of
+	 * updated rows
+	 *
+	 * @return "REVISION=COALESCE(REVISION,0)+1", since inserted rows may have
+	 *         a NULL revision
+	 * @see TableColumns#REVISION
+	 * @since 10.6.0
+	 */
+	private static String nextRevision() {
+		return " " + TableColumns.REVISION + "=COALESCE(" + TableColumns.REVISION + ",0)+1";
+	}
+
+	/**
+	 * This atomically changes the status of a row, only if the row still has
+	 * the expected status in DB. This is executed immediately and permits
+	 * concurrent threads to optimistically claim the same row: only one of
+	 * them succeeds. The update queries already queued are executed first, so
+	 * that an update of the row queued before this call can not revert the
+	 * claim afterwards
+	 *
+	 * @param row
+	 *            is the row to claim
+	 * @param from
+	 *            is the expected status
+	 * @param to
+	 *            is the new status
+	 * @return true if the row has been changed by this call; false if the
+	 *         row has not the expected status any more
+	 * @since 10.6.0
+	 */
+	public <T extends Table> boolean claim(final T row, final StatusEnum from, final StatusEnum to)
+			throws IOException {
+
+		final String query = claimQuery(row, from, to);
+
+		final MileStone mileStone = new MileStone(xtremweb.database.DBConnPoolThread.class);
+		mileStone.println("<claim>");
+		synchronized (this) {
+			drain();
+		}
+		writeCount.incrementAndGet();
+		final Connection dbConn = popConnection();
+		try (final Statement stmt = dbConn.createStatement()) {
+			logger.finest(query);
+			final boolean ret = stmt.executeUpdate(query) == 1;
+			if (ret) {
+				row.nextRevision();
+			}
+			return ret;
+		} catch (final SQLException e) {
+			logger.exception("claim (" + query + ")", e);
+			throw new IOException(e);
+		} finally {
+			pushConnection(dbConn);
+			mileStone.println("</claim>");
+		}
+	}
+
+	/**
+	 * This atomically changes the status of several rows in one batched
+	 * transaction; each row is changed only if it still has the expected
+	 * status in DB. As claim(row), this first executes the queued update
+	 * queries
+	 *
+	 * @param rows
+	 *            are the rows to claim
+	 * @param from
+	 *            is the expected status
+	 * @param to
+	 *            is the new status
+	 * @return an array which i-th element tells whether the i-th row has been
+	 *         changed by this call
+	 * @exception IOException
+	 *                is thrown on DB error; then no row has been changed
+	 * @see #claim(Table, StatusEnum, StatusEnum)
+	 * @since 10.6.0
+	 */
+	public <T extends Table> boolean[] claim(final List<T> rows, final StatusEnum from, final StatusEnum to)
+			throws IOException {
+
+		final boolean[] ret = new boolean[rows == null ? 0 : rows.size()];
+		if (ret.length == 0) {
+			return ret;
+		}
+
+		final MileStone mileStone = new MileStone(xtremweb.database.DBConnPoolThread.class);
+		mileStone.println("<claimBatch size='" + ret.length + "'>");
+
+		synchronized (this) {
+			drain();
+		}
+		writeCount.incrementAndGet();
+		final Connection dbConn = popConnection();
+		try {
+			final boolean autoCommit = dbConn.getAutoCommit();
+			dbConn.setAutoCommit(false);
+			try (final Statement stmt = dbConn.createStatement()) {
+				for (final T row : rows) {
+					stmt.addBatch(claimQuery(row, from, to));
+				}
+				final int[] counts = stmt.executeBatch();
+				dbConn.commit();
+				for (int i = 0; i < ret.length; i++) {
+					ret[i] = (i < counts.length) && (counts[i] == 1);
+					if (ret[i]) {
+						rows.get(i).nextRevision();
+					}
+				}
+			} catch (final IOException | SQLException e) {
+				dbConn.rollback();
+				throw e;
+			} finally {
+				dbConn.setAutoCommit(autoCommit);
+			}
+		} catch (final SQLException e) {
+			logger.exception("can't claim " + ret.length + " rows", e);
+			mileStone.println("<claimBatchError />");
+			throw new IOException(e);
+		} finally {
+			pushConnection(dbConn);
+			mileStone.println("</claimBatch>");
+		}
+		return ret;
+	}
+
+	/**
+	 * This creates the conditional UPDATE statement to claim a row
+	 *
+	 * @since 10.6.0
+	 */
+	private <T extends Table> String claimQuery(final T row, final StatusEnum from, final StatusEnum to)
+			throws IOException {
+		return "UPDATE " + config.getProperty(XWPropertyDefs.DBNAME) + "." + row.tableName() + " SET "
+				+ WorkInterface.Columns.STATUS + "='" + to + "'," + nextRevision() + " WHERE " + row.criteria()
+				+ " AND " + WorkInterface.Columns.STATUS + "='" + from + "'";
+	}
+
+	/**
+	 * This commits all statements of a unit of work in a single transaction,
+	 * on a single connection. Contrary to update(row), this does not use the
+	 * update FIFO: the queries already queued are executed first, and the
+	 * updates of the rows written by this unit of work wait until it is
+	 * committed, so that an update queued before this unit of work can not
+	 * overwrite its rows afterwards, and an update queued after it is not
+	 * overwritten by it. This object monitor is not owned while the
+	 * transaction executes, so that other queries are not stalled. If the
+	 * transaction is rolled back by the DB because of a deadlock or a lock
+	 * wait timeout, it is retried up to UnitOfWork#MAXATTEMPTS times
+	 *
+	 * @param uow
+	 *            is the unit of work to commit
+	 * @exception IOException
+	 *                is thrown on DB error; then no statement has been
+	 *                committed
+	 * @see UnitOfWork#isRetriable(SQLException)
+	 * @since 10.6.0
+	 */
+	public void commit(final UnitOfWork uow) throws IOException {
+
+		if ((uow == null) || uow.isEmpty()) {
+			return;
+		}
+
+		synchronized (this) {
+			drain();
+			for (final String key : uow.getRows()) {
+				final Integer n = committing.get(key);
+				committing.put(key, n == null ? 1 : n + 1);
+			}
+		}
+		try {
+			execute(uow);
+		} finally {
+			synchronized (this) {
+				for (final String key : uow.getRows()) {
+					final Integer n = committing.remove(key);
+					if ((n != null) && (n > 1)) {
+						committing.put(key, n - 1);
+					}
+				}
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * This executes a unit of work in a single transaction, retrying it on
+	 * deadlock or lock wait timeout. The caller must not own this object
+	 * monitor
+	 *
+	 * @see #commit(UnitOfWork)
+	 * @since 10.6.0
+	 */
+	private void execute(final UnitOfWork uow) throws IOException {
+
+		final MileStone mileStone = new MileStone(xtremweb.database.DBConnPoolThread.class);
+		mileStone.println("<transaction name='" + uow.getName() + "' size='" + uow.size() + "'>");
+
+		final long start = System.currentTimeMillis();
+		try {
+			for (int attempt = 1;; attempt++) {
+				final long waitStart = System.nanoTime();
+				final Connection dbConn = popConnection();
+				final long execStart = System.nanoTime();
+				boolean failed = true;
+				try {
+					final boolean autoCommit = dbConn.getAutoCommit();
+					dbConn.setAutoCommit(false);
+					try (final Statement stmt = dbConn.createStatement()) {
+						for (final String query : uow.getQueries()) {
+							logger.finest(query);
+							stmt.addBatch(query);
+						}
+						stmt.executeBatch();
+						dbConn.commit();
+						writeCount.incrementAndGet();
+						failed = false;
+					} catch (final SQLException e) {
+						dbConn.rollback();
+						throw e;
+					} finally {
+						dbConn.setAutoCommit(autoCommit);
+					}
+					uow.committed(System.currentTimeMillis() - start, attempt);
+					transactions.incrementAndGet();
+					transactionsTime.addAndGet(uow.getLatency());
+					logger.debug("transaction " + uow.getName() + " : " + uow.size() + " statements committed in "
+							+ uow.getLatency() + "ms (" + attempt + " attempts)");
+					return;
+				} catch (final SQLException e) {
+					if (!UnitOfWork.isRetriable(e) || (attempt >= UnitOfWork.MAXATTEMPTS)) {
+						logger.exception("can't commit transaction " + uow.getName(), e);
+						mileStone.println("<transactionError />");
+						throw new IOException(e);
+					}
+					transactionsRetries.incrementAndGet();
+					logger.warn("transaction " + uow.getName() + " rolled back (" + e.getMessage() + "); retrying");
+				} finally {
+					pushConnection(dbConn);
+					queryStats.executed(TRANSACTIONPREFIX + uow.getName(), execStart - waitStart,
+							System.nanoTime() - execStart, uow.size(), failed);
+				}
+				try {
+					Thread.sleep(UnitOfWork.backoff(attempt));
+				} catch (final InterruptedException e) {
+					throw new IOException("transaction " + uow.getName() + " interrupted");
+				}
+			}
+		} finally {
+			mileStone.println("</transaction>");
+		}
+	}
+
+	/**
+	 * @return the amount of committed units of work
+	 * @since 10.6.0
+	 */
+	public long getTransactions() {
+		return transactions.get();
+	}
+
+	/**
+	 * @return the amount of units of work retried after a deadlock
+	 * @since 10.6.0
+	 */
+	public long getTransactionsRetries() {
+		return transactionsRetries.get();
+	}
+
+	/**
+	 * @return the mean commit latency of units of work in milliseconds,
+	 *         including retries; 0 if none
+	 * @since 10.6.0
+	 */
+	public long getTransactionsMeanLatency() {
+		final long n = transactions.get();
+		return n == 0 ? 0L : transactionsTime.get() / n;
+	}
+
+	/**
+	 * This updates rows of a table in pool mode, with the given SET statement
+	 * part; this is used to apply deltas to counters. This also increments
+	 * the rows revision
+	 *
+	 * @param tableName
+	 *            is the name of the table to update
+	 * @param set
+	 *            is the SET statement part (e.g. "column=column+1")
+	 * @param criteria
+	 *            is the WHERE statement part
+	 * @see xtremweb.common.JobCounters#flush()
+	 * @since 10.6.0
+	 */
+	public synchronized void update(final String tableName, final String set, final String criteria) {
+		final String query = "UPDATE " + config.getProperty(XWPropertyDefs.DBNAME) + "." + tableName + " SET " + set
+				+ "," + nextRevision() + " WHERE " + criteria;
+		logger.finest("enqueue(" + query + ")");
+		enqueue(query);
+		notify();
+	}
+
 	/**
 	 * This creates a FROM sql statement part for the given row in the form
 	 * "dbname.t1 [...][,dbname.t2 [...]]"
@@ -568,6 +1549,27 @@ public class DBConnPoolThread extends Thread {
 	 */
 	public <T extends Type> Collection<T> select(final T row, final String criterias, final int limit)
 			throws IOException {
+		return select(row, criterias, limit, false);
+	}
+
+	/**
+	 * This select rows from table
+	 *
+	 * @param row
+	 *            is the row type
+	 * @param criterias
+	 *            is string to use in SQL SELECT WHERE clause if not null
+	 *            otherwise TableInterface#criteria() is used
+	 * @param limit
+	 *            is the max expected amount of rows
+	 * @param replica
+	 *            is true to read from the replica, if available; this must
+	 *            only be set for reads tolerating replication lag
+	 * @see #isReplicaAvailable()
+	 * @since 10.6.0
+	 */
+	public <T extends Type> Collection<T> select(final T row, final String criterias, final int limit,
+			final boolean replica) throws IOException {
 
 		final String groupBy = row.groupBy();
 		final String rowcriteria = row.criteria();
@@ -586,7 +1588,49 @@ public class DBConnPoolThread extends Thread {
 				+ (conditions == null ? "" : " WHERE " + conditions) + (groupBy == null ? "" : " GROUP BY " + groupBy)
 				+ " LIMIT " + limit;
 
-		return executeQuery(query, row);
+		return hideDeleted(replica ? executeReplicaQuery(query, row) : executeQuery(query, row));
+	}
+
+	/**
+	 * This removes the rows marked as deleted but not archived yet
+	 *
+	 * @param rows
+	 *            are the rows read from DB; may be null
+	 * @return the rows not deleted; null if none
+	 * @since 10.6.0
+	 */
+	private <T extends Type> Collection<T> hideDeleted(final Collection<T> rows) throws IOException {
+		if ((rows == null) || deleted.isEmpty()) {
+			return rows;
+		}
+		final Iterator<T> it = rows.iterator();
+		while (it.hasNext()) {
+			final T row = it.next();
+			if (row instanceof Table) {
+				final UID uid = ((Table) row).getUID();
+				if ((uid != null) && deleted.contains(uid)) {
+					it.remove();
+				}
+			}
+		}
+		return rows.isEmpty() ? null : rows;
+	}
+
+	/**
+	 * This removes the UIDs of the rows marked as deleted but not archived
+	 * yet
+	 *
+	 * @param uids
+	 *            are the UIDs read from DB; may be null
+	 * @return the UIDs of the rows not deleted; null if none
+	 * @since 10.6.0
+	 */
+	private Collection<UID> hideDeletedUID(final Collection<UID> uids) {
+		if ((uids == null) || deleted.isEmpty()) {
+			return uids;
+		}
+		uids.removeAll(deleted);
+		return uids.isEmpty() ? null : uids;
 	}
 
 	/**
@@ -610,6 +1654,24 @@ public class DBConnPoolThread extends Thread {
 	 * @see Table#criteria()
 	 */
 	public <T extends Table> Collection<UID> selectUID(final T row, final String criterias) throws IOException {
+		return selectUID(row, criterias, false);
+	}
+
+	/**
+	 * This retrieves UID from table
+	 *
+	 * @param row
+	 *            is the row type
+	 * @param criterias
+	 *            is string to use in SQL SELECT WHERE clause
+	 * @param replica
+	 *            is true to read from the replica, if available; this must
+	 *            only be set for reads tolerating replication lag
+	 * @see #isReplicaAvailable()
+	 * @since 10.6.0
+	 */
+	public <T extends Table> Collection<UID> selectUID(final T row, final String criterias, final boolean replica)
+			throws IOException {
 
 		if (row.criteria() == null) {
 			throw new IOException("row.criteria == null ?!?");
@@ -631,8 +1693,7 @@ public class DBConnPoolThread extends Thread {
 			final String query = "SELECT " + row.rowSelection() + " FROM " + rowTableNames(row)
 					+ (conditions == null ? "" : " WHERE " + conditions) + " LIMIT " + config.requestLimit();
 
-			final Vector<UID> ret = (Vector<UID>) queryUID(query);
-			return ret;
+			return hideDeletedUID(replica ? queryReplicaUID(query) : queryUID(query));
 		} catch (final Exception e) {
 			logger.exception(e);
 			throw new IOException(e.toString());
@@ -647,23 +1708,95 @@ public class DBConnPoolThread extends Thread {
 	 */
 	public synchronized <T extends Type> void insert(final T row) throws IOException {
 
+		final String query = insertQuery(row);
+
+		// executeQuery(query, row);
+		enqueue(query);
+		notify();
+	}
+
+	/**
+	 * This retrieves the SQL query to insert the given row
+	 *
+	 * @param row
+	 *            is the row to insert
+	 * @since 10.6.0
+	 */
+	<T extends Type> String insertQuery(final T row) throws IOException {
+
 		final String criteria = row.valuesToString();
 
 		if (criteria == null) {
 			throw new IOException("unable to get insertion criteria");
 		}
 
-		final String query = "INSERT INTO " + config.getProperty(XWPropertyDefs.DBNAME) + "." + row.tableName() + ("(")
+		return "INSERT INTO " + config.getProperty(XWPropertyDefs.DBNAME) + "." + row.tableName() + ("(")
 				+ row.getColumns() + (") ") + " VALUES (" + criteria + ")";
+	}
 
-		// executeQuery(query, row);
-		updateFifo.add(query);
-		notify();
+	/**
+	 * This inserts all provided rows in DB in a single transaction. Contrary
+	 * to insert(row), this does not use the update FIFO: statements are sent
+	 * synchronously, in JDBC batches of BATCHSIZE statements, and committed
+	 * once. If any insertion fails, the transaction is rolled back and no row
+	 * is inserted
+	 *
+	 * @param rows
+	 *            are the rows to insert
+	 * @exception IOException
+	 *                is thrown on DB error; then no row has been inserted
+	 * @see #BATCHSIZE
+	 * @since 10.6.0
+	 */
+	public <T extends Type> void insert(final Collection<T> rows) throws IOException {
+
+		if ((rows == null) || rows.isEmpty()) {
+			return;
+		}
+
+		final MileStone mileStone = new MileStone(xtremweb.database.DBConnPoolThread.class);
+		mileStone.println("<insertBatch size='" + rows.size() + "'>");
+
+		final Connection dbConn = popConnection();
+		try {
+			final boolean autoCommit = dbConn.getAutoCommit();
+			dbConn.setAutoCommit(false);
+			try (final Statement stmt = dbConn.createStatement()) {
+				int batched = 0;
+				for (final T row : rows) {
+					stmt.addBatch(insertQuery(row));
+					if (++batched >= BATCHSIZE) {
+						stmt.executeBatch();
+						writeCount.incrementAndGet();
+						batched = 0;
+					}
+				}
+				if (batched > 0) {
+					stmt.executeBatch();
+					writeCount.incrementAndGet();
+				}
+				dbConn.commit();
+			} catch (final IOException | SQLException e) {
+				dbConn.rollback();
+				throw e;
+			} finally {
+				dbConn.setAutoCommit(autoCommit);
+			}
+		} catch (final SQLException e) {
+			logger.exception("can't insert " + rows.size() + " rows", e);
+			mileStone.println("<insertBatchError />");
+			throw new IOException(e);
+		} finally {
+			pushConnection(dbConn);
+			mileStone.println("</insertBatch>");
+		}
 	}
 
 	/**
 	 * Since XWHEP 1.0.0, this does not delete row from table but updates the
 	 * row and sets isdeleted flag to true. Hence the row stays in table.
+	 * Since 10.6.0, if there is an archiver, the row stays in table until it
+	 * is archived, but it is not returned by select() and selectUID() any more
 	 *
 	 * @param row
 	 *            is the to delete
@@ -676,15 +1809,26 @@ public class DBConnPoolThread extends Thread {
 				throw new IOException("unable to get delete criteria");
 			}
 
-			String query = "INSERT INTO " + config.getProperty(XWPropertyDefs.DBNAME) + "." + row.tableName()
-					+ HISTORYSUFFIX + " SELECT * FROM " + config.getProperty(XWPropertyDefs.DBNAME) + "."
+			final HistoryArchiver theArchiver = archiver;
+			final UID uid = row.getUID();
+			if ((theArchiver != null) && (uid != null)) {
+				deleted.add(uid);
+				enqueue("UPDATE " + config.getProperty(XWPropertyDefs.DBNAME) + "." + row.tableName()
+						+ " SET isdeleted='true'," + nextRevision() + " WHERE " + criteria);
+				notify();
+				theArchiver.add(row.tableName(), uid);
+				return;
+			}
+
+			String query = "INSERT INTO " + config.getProperty(XWPropertyDefs.DBNAME) + "."
+					+ historyTableName(row.tableName()) + " SELECT * FROM " + config.getProperty(XWPropertyDefs.DBNAME) + "."
 					+ row.tableName() + " WHERE " + criteria;
 			executeQuery(query, row);
 
 			query = "DELETE FROM " + config.getProperty(XWPropertyDefs.DBNAME) + "." + row.tableName() + " WHERE "
 					+ criteria;
 			// executeQuery(query, row);
-			updateFifo.add(query);
+			enqueue(query);
 			notify();
 		} catch (final Exception e) {
 			logger.exception(e);
@@ -692,6 +1836,148 @@ public class DBConnPoolThread extends Thread {
 		}
 	}
 
+	/**
+	 * This sets the archiver of deleted rows
+	 *
+	 * @param a
+	 *            is the archiver; if null, deleted rows are copied to history
+	 *            synchronously
+	 * @see #delete(Table)
+	 * @since 10.6.0
+	 */
+	public void setArchiver(final HistoryArchiver a) {
+		archiver = a;
+	}
+
+	/**
+	 * @return the archiver of deleted rows; null if none
+	 * @since 10.6.0
+	 */
+	public HistoryArchiver getArchiver() {
+		return archiver;
+	}
+
+	/**
+	 * This moves rows of a table to its history table, in a single
+	 * transaction
+	 *
+	 * @param tableName
+	 *            is the name of the table
+	 * @param uids
+	 *            are the UIDs of the rows to move
+	 * @exception IOException
+	 *                is thrown on DB error; then no row has been moved
+	 * @see HistoryArchiver
+	 * @since 10.6.0
+	 */
+	public void archive(final String tableName, final Collection<UID> uids) throws IOException {
+		if ((uids == null) || uids.isEmpty()) {
+			return;
+		}
+		move(tableName, historyTableName(tableName), uids, null);
+		deleted.removeAll(uids);
+	}
+
+	/**
+	 * This moves rows from a table to another one having the same columns, in
+	 * a single transaction
+	 *
+	 * @param from
+	 *            is the name of the source table
+	 * @param to
+	 *            is the name of the destination table
+	 * @param uids
+	 *            are the UIDs of the rows to move
+	 * @param criteria
+	 *            restricts moved rows; may be null
+	 * @exception IOException
+	 *                is thrown on DB error; then no row has been moved
+	 * @since 10.6.0
+	 */
+	public void move(final String from, final String to, final Collection<UID> uids, final String criteria)
+			throws IOException {
+		if ((uids == null) || uids.isEmpty()) {
+			return;
+		}
+		final StringBuilder in = new StringBuilder();
+		for (final UID uid : uids) {
+			in.append(in.length() > 0 ? ",'" : "'").append(uid).append('\'');
+		}
+		final String dbName = config.getProperty(XWPropertyDefs.DBNAME) + ".";
+		final String where = " WHERE uid IN (" + in + ")" + (criteria == null ? "" : " AND " + criteria);
+		final UnitOfWork uow = new UnitOfWork("move " + from + " to " + to);
+		uow.add("INSERT INTO " + dbName + to + " SELECT * FROM " + dbName + from + where);
+		uow.add("DELETE FROM " + dbName + from + where);
+		for (final UID uid : uids) {
+			uow.lock(rowKey(from, uid));
+		}
+		commit(uow);
+	}
+
+	/**
+	 * This retrieves the name of the history table of a table; terminal works
+	 * moved to WorkInterface.DONETABLENAME share the works history table
+	 *
+	 * @return the name of the history table
+	 * @since 10.6.0
+	 */
+	public static String historyTableName(final String tableName) {
+		if (WorkInterface.DONETABLENAME.equals(tableName)) {
+			return WorkInterface.TABLENAME + HISTORYSUFFIX;
+		}
+		return tableName + HISTORYSUFFIX;
+	}
+
+	/**
+	 * This retrieves the UIDs of the rows of a table marked as deleted
+	 *
+	 * @param tableName
+	 *            is the name of the table
+	 * @param limit
+	 *            is the max amount of UIDs to retrieve
+	 * @return the UIDs of rows to archive; these rows are not returned by
+	 *         select() and selectUID() until they are archived
+	 * @since 10.6.0
+	 */
+	public Collection<UID> archivable(final String tableName, final int limit) throws IOException {
+		final Collection<UID> ret = queryUID("SELECT uid AS " + SQLRequest.UIDLABEL + " FROM " + config.getProperty(XWPropertyDefs.DBNAME)
+				+ "." + tableName + " WHERE isdeleted='true' LIMIT " + limit);
+		if (ret != null) {
+			deleted.addAll(ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * This retrieves the UIDs of the terminal works (COMPLETED, ERROR,
+	 * ABORTED) completed, or last modified, before the retention delay
+	 *
+	 * @param retention
+	 *            is the retention delay in seconds
+	 * @param limit
+	 *            is the max amount of UIDs to retrieve
+	 * @return the UIDs of the works to move to WorkInterface.DONETABLENAME
+	 * @since 10.6.0
+	 */
+	public Collection<UID> doneWorks(final long retention, final int limit) throws IOException {
+		return hideDeletedUID(queryUID("SELECT uid AS " + SQLRequest.UIDLABEL + " FROM " + config.getProperty(XWPropertyDefs.DBNAME)
+				+ "." + WorkInterface.TABLENAME + " WHERE " + doneWorksCriteria(retention) + " LIMIT " + limit));
+	}
+
+	/**
+	 * This retrieves the SQL criteria selecting the works to move to
+	 * WorkInterface.DONETABLENAME
+	 *
+	 * @param retention
+	 *            is the retention delay in seconds
+	 * @since 10.6.0
+	 */
+	public static String doneWorksCriteria(final long retention) {
+		return WorkInterface.Columns.STATUS + " IN ('" + StatusEnum.COMPLETED + "','" + StatusEnum.ERROR + "','"
+				+ StatusEnum.ABORTED + "') AND COALESCE(" + WorkInterface.Columns.COMPLETEDDATE + ","
+				+ TableColumns.MTIME + ") < NOW() - INTERVAL " + retention + " SECOND";
+	}
+
 	/**
 	 * This set all server works to WAITING status
 	 *
@@ -702,13 +1988,13 @@ public class DBConnPoolThread extends Thread {
 		try {
 			final String query = "UPDATE " + config.getProperty(XWPropertyDefs.DBNAME) + ".works SET "
 					+ WorkInterface.Columns.STATUS.toString() + "='" + StatusEnum.WAITING + "',"
-					+ WorkInterface.Columns.SERVER.toString() + "='NULL'  WHERE "
+					+ WorkInterface.Columns.SERVER.toString() + "='NULL'," + nextRevision() + "  WHERE "
 					+ WorkInterface.Columns.SERVER.toString() + "='" + serverName + "' and(("
 					+ WorkInterface.Columns.STATUS.toString() + "='" + StatusEnum.WAITING + "' or "
-					+ WorkInterface.Columns.STATUS.toString() + "='" + StatusEnum.PENDING + "') OR ISNULL(status))";
+					+ WorkInterface.Columns.STATUS.toString() + "='" + StatusEnum.PENDING + "') OR status IS NULL)";
 
 			// executeQuery(query, null);
-			updateFifo.add(query);
+			enqueue(query);
 			notify();
 		} catch (final Exception e) {
 			logger.exception(e);
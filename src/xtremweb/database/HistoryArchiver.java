@@ -0,0 +1,251 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.database;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+import xtremweb.common.DataInterface;
+import xtremweb.common.Logger;
+import xtremweb.common.TaskInterface;
+import xtremweb.common.UID;
+import xtremweb.common.WorkInterface;
+
+/**
+ * This moves deleted rows to the history tables in background. A deletion
+ * only marks the row (isdeleted='true') and queues it here, so that it
+ * returns at once; this thread then copies queued rows to history and
+ * deletes them, a chunk of rows of a table at a time, with
+ * "INSERT ... SELECT ... WHERE uid IN (...)" and "DELETE ... WHERE uid IN
+ * (...)" committed in a single transaction, and waits between chunks so that
+ * archiving never competes with request handling.<br />
+ * Rows marked but not archived yet, because the dispatcher has stopped, are
+ * queued again on startup for the works, works_done, tasks and datas
+ * tables.
+ *
+ * @see DBConnPoolThread#delete(xtremweb.common.Table)
+ * @see xtremweb.common.XWPropertyDefs#ARCHIVEPERIOD
+ * @since 10.6.0
+ */
+public class HistoryArchiver extends Thread {
+
+	/**
+	 * These are the tables which marked rows are queued again on startup
+	 */
+	public static final String[] RECOVEREDTABLES = { WorkInterface.TABLENAME, WorkInterface.DONETABLENAME,
+			TaskInterface.TABLENAME, DataInterface.DATATABLENAME };
+	/**
+	 * This is the max amount of marked rows of a table queued again on
+	 * startup
+	 */
+	public static final int RECOVERYLIMIT = 100000;
+
+	/**
+	 * This is a chunk of rows of a table to archive
+	 */
+	public static final class Chunk {
+		private final String tableName;
+		private final List<UID> uids;
+
+		private Chunk(final String t, final List<UID> u) {
+			tableName = t;
+			uids = u;
+		}
+
+		/**
+		 * @return the name of the table
+		 */
+		public String getTableName() {
+			return tableName;
+		}
+
+		/**
+		 * @return the UIDs of the rows to archive
+		 */
+		public List<UID> getUIDs() {
+			return uids;
+		}
+	}
+
+	private final Logger logger;
+	/**
+	 * This is the delay between two chunks, in milliseconds
+	 */
+	private final long period;
+	/**
+	 * This is the max amount of rows of a chunk
+	 */
+	private final int chunkSize;
+	/**
+	 * These are the rows to archive, by table name
+	 */
+	private final Map<String, LinkedHashSet<UID>> pending;
+	/**
+	 * This is the amount of archived rows
+	 */
+	private long archived;
+
+	/**
+	 * @param period
+	 *            is the delay between two chunks, in milliseconds
+	 * @param chunkSize
+	 *            is the max amount of rows of a chunk
+	 */
+	public HistoryArchiver(final long period, final int chunkSize) {
+		super("HistoryArchiver");
+		setDaemon(true);
+		logger = new Logger(this);
+		this.period = period;
+		this.chunkSize = Math.max(1, chunkSize);
+		pending = new LinkedHashMap<>();
+		archived = 0L;
+	}
+
+	/**
+	 * This queues a row to archive
+	 *
+	 * @param tableName
+	 *            is the name of the table of the row
+	 * @param uid
+	 *            is the UID of the row
+	 */
+	public synchronized void add(final String tableName, final UID uid) {
+		if ((tableName == null) || (uid == null)) {
+			return;
+		}
+		LinkedHashSet<UID> uids = pending.get(tableName);
+		if (uids == null) {
+			uids = new LinkedHashSet<>();
+			pending.put(tableName, uids);
+		}
+		uids.add(uid);
+		notifyAll();
+	}
+
+	/**
+	 * This removes the next chunk to archive from the queue. Tables are
+	 * served in turn
+	 *
+	 * @return the next chunk; null if no row is queued
+	 */
+	public synchronized Chunk nextChunk() {
+		final Iterator<Map.Entry<String, LinkedHashSet<UID>>> tables = pending.entrySet().iterator();
+		if (!tables.hasNext()) {
+			return null;
+		}
+		final Map.Entry<String, LinkedHashSet<UID>> table = tables.next();
+		tables.remove();
+		final List<UID> uids = new Vector<>(Math.min(chunkSize, table.getValue().size()));
+		final Iterator<UID> it = table.getValue().iterator();
+		while (it.hasNext() && (uids.size() < chunkSize)) {
+			uids.add(it.next());
+			it.remove();
+		}
+		if (!table.getValue().isEmpty()) {
+			pending.put(table.getKey(), table.getValue());
+		}
+		return new Chunk(table.getKey(), uids);
+	}
+
+	/**
+	 * @return the amount of queued rows, for all tables
+	 */
+	public synchronized int size() {
+		int ret = 0;
+		for (final LinkedHashSet<UID> uids : pending.values()) {
+			ret += uids.size();
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the amount of archived rows
+	 */
+	public synchronized long getArchived() {
+		return archived;
+	}
+
+	/**
+	 * This queues the marked rows of RECOVEREDTABLES
+	 */
+	private void recover() {
+		final DBConnPoolThread db = DBConnPoolThread.getInstance();
+		for (final String tableName : RECOVEREDTABLES) {
+			try {
+				final Collection<UID> uids = db.archivable(tableName, RECOVERYLIMIT);
+				if (uids == null) {
+					continue;
+				}
+				for (final UID uid : uids) {
+					add(tableName, uid);
+				}
+				if (!uids.isEmpty()) {
+					logger.info(tableName + " : " + uids.size() + " deleted rows to archive");
+				}
+			} catch (final Exception e) {
+				logger.exception("can't retrieve deleted rows of " + tableName, e);
+			}
+		}
+	}
+
+	/**
+	 * This is the main loop : this waits for rows to archive and archives a
+	 * chunk each period. A chunk which can not be archived is not retried
+	 * before next startup : its rows stay marked
+	 */
+	@Override
+	public void run() {
+		recover();
+		while (true) {
+			try {
+				Chunk chunk;
+				synchronized (this) {
+					while ((chunk = nextChunk()) == null) {
+						wait();
+					}
+				}
+				try {
+					DBConnPoolThread.getInstance().archive(chunk.getTableName(), chunk.getUIDs());
+					synchronized (this) {
+						archived += chunk.getUIDs().size();
+					}
+					logger.debug(chunk.getTableName() + " : " + chunk.getUIDs().size() + " rows archived");
+				} catch (final IOException e) {
+					logger.exception("can't archive " + chunk.getUIDs().size() + " rows of " + chunk.getTableName(),
+							e);
+				}
+				Thread.sleep(period);
+			} catch (final InterruptedException e) {
+				logger.info("HistoryArchiver interrupted");
+				return;
+			}
+		}
+	}
+}
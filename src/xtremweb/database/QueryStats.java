@@ -0,0 +1,456 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import xtremweb.common.LatencyHistogram;
+
+/**
+ * This records statistics of executed SQL statements, by statement template.
+ * A template is the statement where literals are replaced by "?" and IN
+ * lists are collapsed, so that it identifies the table, the operation and
+ * the criteria shape.<br />
+ * For each template, this records the execution time, the time spent
+ * waiting for a pooled connection, the time spent in the asynchronous update
+ * queue and the amount of returned rows. Statements slower than a threshold
+ * are captured as templates too : these statistics are served without
+ * authentication and literals may be credentials (see HTTPStatsHandler).
+ * <br />
+ * Recording is lock free, but the slow statements capture.
+ *
+ * @see DBConnPoolThread
+ * @see xtremweb.common.XWPropertyDefs#SLOWQUERYTHRESHOLD
+ * @since 10.6.0
+ */
+public class QueryStats {
+
+	/**
+	 * This is the max length of a template
+	 */
+	public static final int MAXTEMPLATELENGTH = 256;
+	/**
+	 * This is the max amount of templates; statements of further templates
+	 * are recorded under OTHERTEMPLATE
+	 */
+	public static final int MAXTEMPLATES = 1000;
+	/**
+	 * This is the template of the statements exceeding MAXTEMPLATES
+	 */
+	public static final String OTHERTEMPLATE = "(other)";
+	/**
+	 * This is the max amount of captured slow statements; the oldest ones are
+	 * forgotten first
+	 */
+	public static final int MAXSLOWQUERIES = 100;
+	/**
+	 * This is the max length of a captured slow statement template
+	 */
+	public static final int MAXSLOWQUERYLENGTH = 4096;
+	/**
+	 * Statements containing this, whatever its case, are never kept as
+	 * sample, since their literals may be passwords
+	 */
+	public static final String SECRETCOLUMN = "PASSWORD";
+
+	/**
+	 * These are the statistics of a template; times are in microseconds
+	 */
+	public static final class Entry {
+		private final String template;
+		private final LatencyHistogram exec;
+		private final LatencyHistogram wait;
+		private final LatencyHistogram dwell;
+		private final AtomicLong rows;
+		private final AtomicLong errors;
+		private volatile String sample;
+
+		private Entry(final String t) {
+			template = t;
+			exec = new LatencyHistogram();
+			wait = new LatencyHistogram();
+			dwell = new LatencyHistogram();
+			rows = new AtomicLong(0L);
+			errors = new AtomicLong(0L);
+			sample = null;
+		}
+
+		/**
+		 * @return the statement template
+		 */
+		public String getTemplate() {
+			return template;
+		}
+
+		/**
+		 * @return the execution times, in microseconds
+		 */
+		public LatencyHistogram getExec() {
+			return exec;
+		}
+
+		/**
+		 * @return the connection pool wait times, in microseconds
+		 */
+		public LatencyHistogram getWait() {
+			return wait;
+		}
+
+		/**
+		 * @return the update queue dwell times, in microseconds
+		 */
+		public LatencyHistogram getDwell() {
+			return dwell;
+		}
+
+		/**
+		 * @return the amount of returned rows
+		 */
+		public long getRows() {
+			return rows.get();
+		}
+
+		/**
+		 * @return the amount of failed executions
+		 */
+		public long getErrors() {
+			return errors.get();
+		}
+
+		/**
+		 * @return the first statement recorded for this template, so that its
+		 *         query plan can be retrieved; null if none or if the
+		 *         statements may contain passwords
+		 * @see QueryStats#SECRETCOLUMN
+		 */
+		public String getSample() {
+			return sample;
+		}
+
+		/**
+		 * @return the cumulated execution time, in microseconds
+		 */
+		public long getTotal() {
+			return exec.mean() * exec.count();
+		}
+
+		/**
+		 * @return a one line summary
+		 */
+		@Override
+		public String toString() {
+			return template + "\n  exec(us)  " + exec + "\n  wait(us)  " + wait
+					+ (dwell.count() > 0 ? "\n  dwell(us) " + dwell : "") + "\n  rows=" + rows.get() + " errors="
+					+ errors.get();
+		}
+	}
+
+	/**
+	 * These are the statistics by template
+	 */
+	private final ConcurrentHashMap<String, Entry> entries;
+	/**
+	 * These are the captured slow statements
+	 */
+	private final LinkedList<String> slowQueries;
+	/**
+	 * This is the slow statement threshold in milliseconds; slow statements
+	 * are not captured if not positive
+	 */
+	private volatile long threshold;
+
+	public QueryStats() {
+		entries = new ConcurrentHashMap<>();
+		slowQueries = new LinkedList<>();
+		threshold = 0L;
+	}
+
+	/**
+	 * @param t
+	 *            is the slow statement threshold in milliseconds; slow
+	 *            statements are not captured if not positive
+	 */
+	public void setThreshold(final long t) {
+		threshold = t;
+	}
+
+	/**
+	 * @return the slow statement threshold in milliseconds
+	 */
+	public long getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * This retrieves the template of a statement : literals are replaced by
+	 * "?", lists of literals by a single "?" and white spaces are collapsed
+	 *
+	 * @param query
+	 *            is the SQL statement
+	 * @return the statement template, at most MAXTEMPLATELENGTH long
+	 */
+	public static String template(final String query) {
+		return template(query, MAXTEMPLATELENGTH);
+	}
+
+	/**
+	 * This retrieves the template of a statement
+	 *
+	 * @param query
+	 *            is the SQL statement
+	 * @param max
+	 *            is the max template length
+	 * @see #template(String)
+	 */
+	private static String template(final String query, final int max) {
+		final StringBuilder ret = new StringBuilder(Math.min(query.length(), max));
+		final int length = query.length();
+		int i = 0;
+		while ((i < length) && (ret.length() < max)) {
+			final char c = query.charAt(i);
+			if ((c == '\'') || (c == '"')) {
+				i++;
+				while (i < length) {
+					final char q = query.charAt(i);
+					if (q == '\\') {
+						i += 2;
+						continue;
+					}
+					i++;
+					if (q == c) {
+						if ((i < length) && (query.charAt(i) == c)) {
+							i++;
+							continue;
+						}
+						break;
+					}
+				}
+				parameter(ret);
+				continue;
+			}
+			final boolean negative = (c == '-') && (i + 1 < length) && Character.isDigit(query.charAt(i + 1))
+					&& isOperatorEnd(ret);
+			if (negative || (Character.isDigit(c) && !isIdentifierEnd(ret))) {
+				i++;
+				while ((i < length) && (Character.isLetterOrDigit(query.charAt(i)) || (query.charAt(i) == '.'))) {
+					i++;
+				}
+				parameter(ret);
+				continue;
+			}
+			if (Character.isWhitespace(c)) {
+				if ((ret.length() > 0) && (ret.charAt(ret.length() - 1) != ' ')) {
+					ret.append(' ');
+				}
+				i++;
+				continue;
+			}
+			ret.append(c);
+			i++;
+		}
+		return ret.toString().trim();
+	}
+
+	/**
+	 * This tells whether the template ends with a part of an identifier
+	 */
+	private static boolean isIdentifierEnd(final StringBuilder t) {
+		if (t.length() == 0) {
+			return false;
+		}
+		final char c = t.charAt(t.length() - 1);
+		return Character.isLetterOrDigit(c) || (c == '_') || (c == '.');
+	}
+
+	/**
+	 * This tells whether the template ends with an operator, so that a
+	 * following minus sign is the sign of a literal
+	 */
+	private static boolean isOperatorEnd(final StringBuilder t) {
+		int end = t.length();
+		if ((end > 0) && (t.charAt(end - 1) == ' ')) {
+			end--;
+		}
+		return (end == 0) || ("=<>(,+-*/".indexOf(t.charAt(end - 1)) >= 0);
+	}
+
+	/**
+	 * This appends a parameter to the template, unless it follows another
+	 * parameter in a list : "(?,?,?)" is collapsed to "(?)"
+	 */
+	private static void parameter(final StringBuilder t) {
+		int end = t.length();
+		if ((end > 0) && (t.charAt(end - 1) == ' ')) {
+			end--;
+		}
+		if ((end > 2) && (t.charAt(end - 1) == ',') && (t.charAt(end - 2) == '?')
+				&& ((t.charAt(end - 3) == '(') || (t.charAt(end - 3) == ','))) {
+			t.setLength(end - 1);
+			return;
+		}
+		t.append('?');
+	}
+
+	/**
+	 * This retrieves the statistics of a template, creating them if needed
+	 */
+	private Entry entry(final String template) {
+		Entry ret = entries.get(template);
+		if (ret != null) {
+			return ret;
+		}
+		final String t = (entries.size() >= MAXTEMPLATES ? OTHERTEMPLATE : template);
+		ret = new Entry(t);
+		final Entry previous = entries.putIfAbsent(t, ret);
+		return previous == null ? ret : previous;
+	}
+
+	/**
+	 * This records a statement execution
+	 *
+	 * @param query
+	 *            is the SQL statement
+	 * @param wait
+	 *            is the time waited for a pooled connection, in nanoseconds
+	 * @param exec
+	 *            is the execution time, in nanoseconds
+	 * @param rows
+	 *            is the amount of returned rows
+	 * @param failed
+	 *            is true if the execution failed
+	 */
+	public void executed(final String query, final long wait, final long exec, final long rows,
+			final boolean failed) {
+		final Entry e = entry(template(query));
+		e.wait.record(wait / 1000L);
+		e.exec.record(exec / 1000L);
+		e.rows.addAndGet(rows);
+		if ((e.sample == null) && (query.length() <= MAXSLOWQUERYLENGTH)
+				&& (query.toUpperCase().indexOf(SECRETCOLUMN) < 0)) {
+			e.sample = query;
+		}
+		if (failed) {
+			e.errors.incrementAndGet();
+		}
+		final long t = threshold;
+		if ((t > 0) && ((exec / 1000000L) >= t)) {
+			slow(query, wait, exec, rows);
+		}
+	}
+
+	/**
+	 * This records the time a statement has waited in the update queue
+	 *
+	 * @param query
+	 *            is the SQL statement
+	 * @param dwell
+	 *            is the time spent in the update queue, in nanoseconds
+	 */
+	public void dwelled(final String query, final long dwell) {
+		entry(template(query)).dwell.record(dwell / 1000L);
+	}
+
+	/**
+	 * This captures the template of a slow statement
+	 */
+	private void slow(final String query, final long wait, final long exec, final long rows) {
+		final String q = template(query, MAXSLOWQUERYLENGTH);
+		final String line = new Date() + " exec=" + (exec / 1000000L) + "ms wait=" + (wait / 1000000L) + "ms rows="
+				+ rows + " : " + q;
+		synchronized (slowQueries) {
+			slowQueries.add(line);
+			if (slowQueries.size() > MAXSLOWQUERIES) {
+				slowQueries.removeFirst();
+			}
+		}
+	}
+
+	/**
+	 * @return the captured slow statement templates, the oldest first
+	 */
+	public List<String> getSlowQueries() {
+		synchronized (slowQueries) {
+			return new ArrayList<>(slowQueries);
+		}
+	}
+
+	/**
+	 * @return the statistics of the given template; null if none
+	 */
+	public Entry get(final String template) {
+		return entries.get(template);
+	}
+
+	/**
+	 * @return the statistics of all templates, the highest cumulated
+	 *         execution time first
+	 */
+	public List<Entry> getEntries() {
+		final List<Entry> ret = new ArrayList<>(entries.values());
+		Collections.sort(ret, new Comparator<Entry>() {
+			@Override
+			public int compare(final Entry a, final Entry b) {
+				return Long.compare(b.getTotal(), a.getTotal());
+			}
+		});
+		return ret;
+	}
+
+	/**
+	 * This forgets all statistics and captured statements
+	 */
+	public void reset() {
+		entries.clear();
+		synchronized (slowQueries) {
+			slowQueries.clear();
+		}
+	}
+
+	/**
+	 * This retrieves the statistics of all templates, then the captured slow
+	 * statements
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder ret = new StringBuilder();
+		for (final Entry e : getEntries()) {
+			ret.append(e).append('\n');
+		}
+		final List<String> slow = getSlowQueries();
+		if (!slow.isEmpty()) {
+			ret.append("\nslow statements (>= ").append(threshold).append("ms)\n");
+			for (final String s : slow) {
+				ret.append(s).append('\n');
+			}
+		}
+		return ret.toString();
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.database;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+
+import xtremweb.common.StatusEnum;
+import xtremweb.common.Table;
+import xtremweb.common.TableColumns;
+import xtremweb.common.UID;
+import xtremweb.common.WorkInterface;
+
+/**
+ * This is a decorator pattern aiming to implement SQL requests used to retrieve
+ * objects from DB. This implements the SQL request to retrieve works count by
+ * owner and status, to reconcile the in memory works counts.<br />
+ * This retrieves results from SQL statement:<br />
+ *
+ * <pre>
+ *   SELECT maintable.owneruid, maintable.status, count(*) AS workscount
+ *   FROM works AS maintable
+ *   WHERE maintable.isdeleted = 'false'
+ *   GROUP BY maintable.owneruid, maintable.status
+ * </pre>
+ *
+ * @see xtremweb.dispatcher.WorksCounts
+ * @since 10.6.0
+ */
+public class SQLRequestOwnerWorksCount extends Table {
+
+	private static final String SELECTIONROW = SQLRequest.MAINTABLEALIAS + "." + TableColumns.OWNERUID + ","
+			+ SQLRequest.MAINTABLEALIAS + "." + WorkInterface.Columns.STATUS + ",count(*) as workscount";
+
+	/**
+	 * This enumerates this interface columns
+	 */
+	public enum Columns {
+		WORKSCOUNT
+	};
+
+	private UID ownerUID;
+	private StatusEnum status;
+	private long worksCount;
+
+	/**
+	 * This counts works of WorkInterface.TABLENAME
+	 */
+	public SQLRequestOwnerWorksCount() {
+		this(WorkInterface.TABLENAME);
+	}
+
+	/**
+	 * @param t
+	 *            is WorkInterface.TABLENAME or WorkInterface.DONETABLENAME
+	 */
+	public SQLRequestOwnerWorksCount(final String t) {
+		super(t, t);
+		ownerUID = null;
+		status = null;
+		worksCount = 0L;
+	}
+
+	@Override
+	public String groupBy() throws IOException {
+		return SQLRequest.MAINTABLEALIAS + "." + TableColumns.OWNERUID + "," + SQLRequest.MAINTABLEALIAS + "."
+				+ WorkInterface.Columns.STATUS;
+	}
+
+	@Override
+	public String rowSelection() throws IOException {
+		return SELECTIONROW;
+	}
+
+	@Override
+	public String criteria() throws IOException {
+		return SQLRequest.MAINTABLEALIAS + ".isdeleted='false'";
+	}
+
+	/**
+	 * This fills this object with data from DB
+	 *
+	 * @param rs
+	 *            is a ResultSet read from DB
+	 */
+	@Override
+	public final void fill(final ResultSet rs) throws IOException {
+		try {
+			final String owner = rs.getString(TableColumns.OWNERUID.toString());
+			ownerUID = (owner == null ? null : new UID(owner));
+			status = StatusEnum.valueOf(rs.getString(WorkInterface.Columns.STATUS.toString()).toUpperCase());
+			worksCount = rs.getLong(Columns.WORKSCOUNT.toString());
+		} catch (final Exception e) {
+			throw new IOException("Can't read works count from result set : " + e);
+		}
+	}
+
+	/**
+	 * @return the UID of the owner of the counted works
+	 */
+	public UID getOwnerUID() {
+		return ownerUID;
+	}
+
+	/**
+	 * @return the status of the counted works
+	 */
+	public StatusEnum getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return the works count
+	 */
+	public long getWorksCount() {
+		return worksCount;
+	}
+
+	@Override
+	public boolean setValue(final String attribute, final Object v) throws IllegalArgumentException {
+		return false;
+	}
+
+	@Override
+	public void updateInterface(final Table t) throws IOException {
+	}
+}
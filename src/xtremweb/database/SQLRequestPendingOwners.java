@@ -0,0 +1,219 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.database;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+
+import xtremweb.common.StatusEnum;
+import xtremweb.common.Table;
+import xtremweb.common.TableColumns;
+import xtremweb.common.UID;
+import xtremweb.common.UserInterface;
+import xtremweb.common.WorkInterface;
+
+/**
+ * This is a decorator pattern aiming to implement SQL requests used to retrieve
+ * objects from DB. This implements the SQL request to retrieve the owners of
+ * pending works, with their user group and the highest priority of their
+ * pending works.<br />
+ * This retrieves results from SQL statement:<br />
+ *
+ * <pre>
+ *   SELECT maintable.owneruid AS uid, users.usergroupuid, max(maintable.priority) AS priority
+ *   FROM works as maintable, users
+ *   WHERE maintable.status='PENDING'
+ *     AND maintable.active='true'
+ *     AND maintable.owneruid=users.uid
+ *   GROUP BY maintable.owneruid, users.usergroupuid
+ *   LIMIT 1000
+ * </pre>
+ *
+ * @since 10.6.0
+ */
+public class SQLRequestPendingOwners extends Table {
+
+	private static final String TABLENAME = WorkInterface.TABLENAME;
+	/**
+	 * This contains table names for the FROM part of the SQL request. There
+	 * must not be a space after the comma
+	 *
+	 * @see DBConnPool#rowTableNames(String)
+	 */
+	private static final String TABLENAMES = WorkInterface.TABLENAME + " as " + SQLRequest.MAINTABLEALIAS + ","
+			+ UserInterface.TABLENAME;
+	private static final String SELECTIONROW = SQLRequest.MAINTABLEALIAS + "." + TableColumns.OWNERUID + " as uid, "
+			+ UserInterface.TABLENAME + "." + UserInterface.Columns.USERGROUPUID + ", max(" + SQLRequest.MAINTABLEALIAS
+			+ "." + WorkInterface.Columns.PRIORITY + ") as priority";
+
+	/**
+	 * This enumerates this interface columns
+	 */
+	public enum Columns {
+		UID, USERGROUPUID, PRIORITY
+	};
+
+	private UID ownerUID;
+	private UID groupUID;
+	private int priority;
+
+	/**
+	 * This sets priority to 0
+	 */
+	public SQLRequestPendingOwners() {
+		super(TABLENAME, TABLENAME);
+		ownerUID = null;
+		groupUID = null;
+		priority = 0;
+	}
+
+	/**
+	 * This aims to retrieve "GROUP BY" SQL statement.
+	 *
+	 * @return "maintable.owneruid, users.usergroupuid"
+	 */
+	@Override
+	public String groupBy() throws IOException {
+		return SQLRequest.MAINTABLEALIAS + "." + TableColumns.OWNERUID + ", " + UserInterface.TABLENAME + "."
+				+ UserInterface.Columns.USERGROUPUID;
+	}
+
+	/**
+	 * This retrieves "FROM" SQL statement table names
+	 *
+	 * @return TABLENAMES
+	 */
+	@Override
+	public String fromTableNames() {
+		return TABLENAMES;
+	}
+
+	/**
+	 * This aims to retrieve rows for the "SELECT" SQL statement.
+	 *
+	 * @return SELECTIONROW
+	 */
+	@Override
+	public String rowSelection() throws IOException {
+		return SELECTIONROW;
+	}
+
+	/**
+	 * This fills this object with data from DB
+	 *
+	 * @param rs
+	 *            is a ResultSet read from DB
+	 */
+	@Override
+	public final void fill(final ResultSet rs) throws IOException {
+		try {
+			setOwnerUID(new UID(rs.getString(Columns.UID.toString())));
+		} catch (final Exception e) {
+			throw new IOException("Can't find UID from result set");
+		}
+		try {
+			final String group = rs.getString(Columns.USERGROUPUID.toString());
+			setGroupUID(group == null ? null : new UID(group));
+		} catch (final Exception e) {
+			setGroupUID(null);
+		}
+		try {
+			setPriority(rs.getInt(Columns.PRIORITY.toString()));
+		} catch (final Exception e) {
+			setPriority(0);
+		}
+	}
+
+	/**
+	 * This retrieves this SQL criteria
+	 *
+	 * @return a String containing SQL criteria
+	 */
+	@Override
+	public String criteria() throws IOException {
+
+		return SQLRequest.MAINTABLEALIAS + "." + WorkInterface.Columns.STATUS + "='" + StatusEnum.PENDING + "' AND "
+				+ SQLRequest.MAINTABLEALIAS + "." + WorkInterface.Columns.ACTIVE + "='" + Boolean.toString(true)
+				+ "' AND " + SQLRequest.MAINTABLEALIAS + "." + TableColumns.OWNERUID + "=" + UserInterface.TABLENAME
+				+ "." + TableColumns.UID;
+	}
+
+	/**
+	 * This sets the owner UID. This is not stored as this row UID since this
+	 * row has no column
+	 */
+	public void setOwnerUID(final UID o) {
+		ownerUID = o;
+	}
+
+	/**
+	 * This sets the owner group UID
+	 */
+	public void setGroupUID(final UID g) {
+		groupUID = g;
+	}
+
+	/**
+	 * This sets the highest priority of the owner pending works
+	 */
+	public void setPriority(final int p) {
+		priority = p;
+	}
+
+	/**
+	 * This retrieves the owner UID
+	 *
+	 * @return the owner UID
+	 */
+	public UID getOwnerUID() {
+		return ownerUID;
+	}
+
+	/**
+	 * This retrieves the owner group UID
+	 *
+	 * @return the owner group UID; may be null
+	 */
+	public UID getGroupUID() {
+		return groupUID;
+	}
+
+	/**
+	 * This retrieves the highest priority of the owner pending works
+	 *
+	 * @return the highest priority
+	 */
+	public int getPriority() {
+		return priority;
+	}
+
+	@Override
+	public boolean setValue(final String attribute, final Object v) throws IllegalArgumentException {
+		return false;
+	}
+
+	@Override
+	public void updateInterface(final Table t) throws IOException {
+	}
+}
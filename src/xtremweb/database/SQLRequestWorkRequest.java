@@ -64,13 +64,14 @@ public class SQLRequestWorkRequest extends SQLRequest {
 	 * declares as sharing)
 	 */
 	private static final String WORKREQUESTCRITERIAS = " AND maintable.status='%s'"
-			+ " AND (ISNULL(maintable.LISTENPORT)      OR maintable.LISTENPORT='' OR %s)"
-			+ " AND (ISNULL(maintable.EXPECTEDHOSTUID) OR maintable.EXPECTEDHOSTUID='%s')"
-			+ " AND ( ISNULL(maintable.MINCPUSPEED)          OR (maintable.MINCPUSPEED          <= %d))"
-			+ " AND ( ISNULL(maintable.MINMEMORY)            OR (maintable.MINMEMORY            <= %d))"
-			+ " AND ( ISNULL(maintable.MINFREEMASSSTORAGE)   OR (maintable.MINFREEMASSSTORAGE   <= %d))"
-			+ " AND ((NOT (ISNULL(apps.%s) AND ISNULL(apps.JAVAURI)) AND apps.TYPE='DEPLOYABLE') OR apps.TYPE IN (%s) )"
-			+ " AND (ISNULL(apps.NEEDEDPACKAGES)             OR  (apps.NEEDEDPACKAGES='')   OR  (apps.NEEDEDPACKAGES IN (%s)))"
+			+ " AND maintable.isdeleted='false'"
+			+ " AND (maintable.LISTENPORT IS NULL      OR maintable.LISTENPORT='' OR %s)"
+			+ " AND (maintable.EXPECTEDHOSTUID IS NULL OR maintable.EXPECTEDHOSTUID='%s')"
+			+ " AND ( maintable.MINCPUSPEED IS NULL          OR (maintable.MINCPUSPEED          <= %d))"
+			+ " AND ( maintable.MINMEMORY IS NULL            OR (maintable.MINMEMORY            <= %d))"
+			+ " AND ( maintable.MINFREEMASSSTORAGE IS NULL   OR (maintable.MINFREEMASSSTORAGE   <= %d))"
+			+ " AND ((NOT (apps.%s IS NULL AND apps.JAVAURI IS NULL) AND apps.TYPE='DEPLOYABLE') OR apps.TYPE IN (%s) )"
+			+ " AND (apps.NEEDEDPACKAGES IS NULL             OR  (apps.NEEDEDPACKAGES='')   OR  (apps.NEEDEDPACKAGES IN (%s)))"
 			+ " AND (maintable.appuid=apps.uid)"
 			+ " AND ((maintable.DATADRIVENURI IS NULL) OR (maintable.DATADRIVENURI='') OR ((maintable.DATADRIVENURI=datas.URI) AND (datas.PACKAGE IS NOT NULL) AND (datas.PACKAGE IN (%s))))";
 
@@ -81,13 +82,14 @@ public class SQLRequestWorkRequest extends SQLRequest {
 	 * @since 8.0.0
 	 */
 	private static final String WORKREQUESTCRITERIAS_NOBIN = " AND maintable.status='%s'"
-			+ " AND ((ISNULL(maintable.LISTENPORT))      OR maintable.LISTENPORT='' OR %s)"
-			+ " AND ((ISNULL(maintable.EXPECTEDHOSTUID)) OR maintable.EXPECTEDHOSTUID='%s')"
-			+ " AND ( (ISNULL(maintable.MINCPUSPEED))          OR (maintable.MINCPUSPEED          <= %d))"
-			+ " AND ( (ISNULL(maintable.MINMEMORY))            OR (maintable.MINMEMORY            <= %d))"
-			+ " AND ( (ISNULL(maintable.MINFREEMASSSTORAGE))   OR (maintable.MINFREEMASSSTORAGE   <= %d))"
+			+ " AND maintable.isdeleted='false'"
+			+ " AND ((maintable.LISTENPORT IS NULL)      OR maintable.LISTENPORT='' OR %s)"
+			+ " AND ((maintable.EXPECTEDHOSTUID IS NULL) OR maintable.EXPECTEDHOSTUID='%s')"
+			+ " AND ( (maintable.MINCPUSPEED IS NULL)          OR (maintable.MINCPUSPEED          <= %d))"
+			+ " AND ( (maintable.MINMEMORY IS NULL)            OR (maintable.MINMEMORY            <= %d))"
+			+ " AND ( (maintable.MINFREEMASSSTORAGE IS NULL)   OR (maintable.MINFREEMASSSTORAGE   <= %d))"
 			+ " AND (apps.TYPE IN (%s))"
-			+ " AND (ISNULL(apps.NEEDEDPACKAGES)             OR  (apps.NEEDEDPACKAGES='')   OR  (apps.NEEDEDPACKAGES IN (%s)))"
+			+ " AND (apps.NEEDEDPACKAGES IS NULL             OR  (apps.NEEDEDPACKAGES='')   OR  (apps.NEEDEDPACKAGES IN (%s)))"
 			+ " AND ((maintable.DATADRIVENURI IS NULL) OR (maintable.DATADRIVENURI='') OR ((maintable.DATADRIVENURI=datas.URI) AND (datas.PACKAGE IS NOT NULL) AND (datas.PACKAGE IN (%s))))";
 
 	/**
@@ -199,17 +201,6 @@ public class SQLRequestWorkRequest extends SQLRequest {
 	 */
 	private final int groupAccess;
 
-	private String sqlIsNull00(final String what) {
-		if (!getHsqldb()) {
-			return "ISNULL(" + what + ")";
-		}
-		return what + " IS NULL";
-	}
-
-	/*
-	 * public String sqlIsNull(String what) { if (!hsqldb()) { return "ISNULL("
-	 * + what + ")"; } return what + " IS NULL"; }
-	 */
 	/**
 	 * This sets expected status to PENDING and column selection to
 	 * ColumnSelection.selectAll
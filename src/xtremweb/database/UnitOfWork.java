@@ -0,0 +1,291 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.database;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Vector;
+
+import xtremweb.common.Table;
+import xtremweb.common.Type;
+
+/**
+ * This collects the row changes of a single state transition (e.g. a work
+ * scheduled or completed, which updates the work, its task, the host, the
+ * application and the owner) so that they are committed as a single JDBC
+ * transaction on one connection: this costs a single round trip and commit,
+ * and the dispatcher can not leave the transition half written.<br />
+ * Statements are created when rows are added, so that later changes to the
+ * rows (which may be shared through the cache) are not committed by this
+ * unit of work.
+ *
+ * @see DBConnPoolThread#commit(UnitOfWork)
+ * @since 10.6.0
+ */
+public class UnitOfWork {
+
+	/**
+	 * This is the max amount of attempts to commit a unit of work rolled back
+	 * by the DB. Units of work are committed concurrently, and those writing
+	 * the same rows (e.g. the application and the owner of concurrently
+	 * completed works) may deadlock several times in a row under load
+	 */
+	public static final int MAXATTEMPTS = 8;
+	/**
+	 * This is the delay before the first retry, in milliseconds; it doubles
+	 * on each retry
+	 */
+	public static final long RETRYDELAY = 10L;
+	/**
+	 * This is the MySQL error code of a deadlock
+	 */
+	private static final int ER_LOCK_DEADLOCK = 1213;
+	/**
+	 * This is the MySQL error code of a lock wait timeout
+	 */
+	private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+
+	/**
+	 * This is the name of the transition, used in logs
+	 */
+	private final String name;
+	/**
+	 * These are the statements to commit, in order
+	 */
+	private final List<String> queries;
+	/**
+	 * These are the keys of the rows written by this unit of work; queued
+	 * updates of these rows wait until this is committed
+	 *
+	 * @see DBConnPoolThread#rowKey(String, Object)
+	 */
+	private final Set<String> rows;
+	/**
+	 * This is the commit latency in milliseconds, including retries
+	 */
+	private long latency;
+	/**
+	 * This is the amount of attempts needed to commit
+	 */
+	private int attempts;
+
+	/**
+	 * @param name
+	 *            is the name of the transition, used in logs
+	 */
+	public UnitOfWork(final String name) {
+		this.name = name;
+		queries = new Vector<>();
+		rows = new HashSet<>();
+		latency = -1L;
+		attempts = 0;
+	}
+
+	/**
+	 * This adds the update of a row and increments its revision; this does
+	 * nothing if row is null
+	 *
+	 * @return this unit of work
+	 */
+	public <T extends Table> UnitOfWork update(final T row) throws IOException {
+		if (row != null) {
+			queries.add(pool().updateQuery(row, null));
+			rows.add(DBConnPoolThread.rowKey(row.tableName(), row.getUID()));
+			row.nextRevision();
+		}
+		return this;
+	}
+
+	/**
+	 * This adds the update of rows; null rows are ignored
+	 *
+	 * @return this unit of work
+	 */
+	public <T extends Table> UnitOfWork update(final Collection<T> rows) throws IOException {
+		if (rows != null) {
+			for (final T row : rows) {
+				update(row);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * This adds the insertion of a row; this does nothing if row is null
+	 *
+	 * @return this unit of work
+	 */
+	public <T extends Type> UnitOfWork insert(final T row) throws IOException {
+		if (row != null) {
+			queries.add(pool().insertQuery(row));
+			if (row instanceof Table) {
+				rows.add(DBConnPoolThread.rowKey(row.tableName(), ((Table) row).getUID()));
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * This adds a statement
+	 *
+	 * @return this unit of work
+	 */
+	UnitOfWork add(final String query) {
+		queries.add(query);
+		return this;
+	}
+
+	/**
+	 * This adds the key of a row written by a statement added with
+	 * add(String)
+	 *
+	 * @return this unit of work
+	 * @see DBConnPoolThread#rowKey(String, Object)
+	 */
+	UnitOfWork lock(final String key) {
+		rows.add(key);
+		return this;
+	}
+
+	/**
+	 * @return the keys of the rows written by this unit of work
+	 */
+	Set<String> getRows() {
+		return Collections.unmodifiableSet(rows);
+	}
+
+	/**
+	 * This commits this unit of work
+	 *
+	 * @see DBConnPoolThread#commit(UnitOfWork)
+	 */
+	public void commit() throws IOException {
+		pool().commit(this);
+	}
+
+	/**
+	 * @return the DB connection pool
+	 * @exception IOException
+	 *                is thrown if the pool is not instantiated
+	 */
+	private static DBConnPoolThread pool() throws IOException {
+		final DBConnPoolThread ret = DBConnPoolThread.getInstance();
+		if (ret == null) {
+			throw new IOException("no DB connection pool");
+		}
+		return ret;
+	}
+
+	/**
+	 * This is called by DBConnPoolThread on commit
+	 *
+	 * @param l
+	 *            is the commit latency in milliseconds
+	 * @param a
+	 *            is the amount of attempts
+	 */
+	void committed(final long l, final int a) {
+		latency = l;
+		attempts = a;
+	}
+
+	/**
+	 * @return the name of the transition
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the statements to commit, in order
+	 */
+	public List<String> getQueries() {
+		return Collections.unmodifiableList(queries);
+	}
+
+	/**
+	 * @return the amount of statements
+	 */
+	public int size() {
+		return queries.size();
+	}
+
+	/**
+	 * @return true if there is no statement to commit
+	 */
+	public boolean isEmpty() {
+		return queries.isEmpty();
+	}
+
+	/**
+	 * @return the commit latency in milliseconds, including retries; -1 if
+	 *         not committed yet
+	 */
+	public long getLatency() {
+		return latency;
+	}
+
+	/**
+	 * @return the amount of attempts needed to commit; 0 if not committed yet
+	 */
+	public int getAttempts() {
+		return attempts;
+	}
+
+	/**
+	 * This tells whether a transaction rolled back with the given error can
+	 * be retried : on deadlock or lock wait timeout
+	 *
+	 * @param e
+	 *            is the error
+	 * @return true if the transaction can be retried
+	 */
+	public static boolean isRetriable(final SQLException e) {
+		for (SQLException cause = e; cause != null; cause = cause.getNextException()) {
+			if ((cause instanceof SQLTransactionRollbackException) || (cause.getErrorCode() == ER_LOCK_DEADLOCK)
+					|| (cause.getErrorCode() == ER_LOCK_WAIT_TIMEOUT)
+					|| ((cause.getSQLState() != null) && cause.getSQLState().startsWith("40"))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * This retrieves the delay before a retry
+	 *
+	 * @param attempt
+	 *            is the number of the failed attempt, starting at 1
+	 * @return RETRYDELAY * 2^(attempt - 1) milliseconds
+	 */
+	public static long backoff(final int attempt) {
+		return RETRYDELAY << Math.max(0, Math.min(attempt - 1, 16));
+	}
+}
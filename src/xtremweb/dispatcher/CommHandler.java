@@ -31,6 +31,7 @@ import java.net.SocketException;
 import java.security.AccessControlException;
 import java.security.InvalidKeyException;
 import java.text.ParseException;
+import java.util.Collection;
 import java.util.Date;
 import java.util.Hashtable;
 import java.util.Iterator;
@@ -44,8 +45,10 @@ import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Server;
 
 import xtremweb.common.AppInterface;
+import xtremweb.common.BloomFilter;
 import xtremweb.common.CommonVersion;
 import xtremweb.common.DataInterface;
+import xtremweb.common.DependencyInterface;
 import xtremweb.common.GroupInterface;
 import xtremweb.common.HostInterface;
 import xtremweb.common.Logger;
@@ -54,6 +57,7 @@ import xtremweb.common.SessionInterface;
 import xtremweb.common.StatusEnum;
 import xtremweb.common.Table;
 import xtremweb.common.TaskInterface;
+import xtremweb.common.TemplateInterface;
 import xtremweb.common.TraceInterface;
 import xtremweb.common.UID;
 import xtremweb.common.UserGroupInterface;
@@ -83,8 +87,10 @@ import xtremweb.communications.XMLRPCCommandGetGroupWorks;
 import xtremweb.communications.XMLRPCCommandGetUserByLogin;
 import xtremweb.communications.XMLRPCCommandGetWorks;
 import xtremweb.communications.XMLRPCCommandRemove;
+import xtremweb.communications.XMLRPCCommandSendWorks;
 import xtremweb.communications.XMLRPCCommandUploadData;
 import xtremweb.communications.XMLRPCCommandWorkAliveByUID;
+import xtremweb.communications.XMLRPCCommandWorkRequest;
 import xtremweb.communications.XMLRPCResult;
 import xtremweb.communications.XWPostParams;
 import xtremweb.security.XWAccessRights;
@@ -523,8 +529,13 @@ public abstract class CommHandler extends Thread implements xtremweb.communicati
 				result = CURRENTVERSION;
 				break;
 			case GET: {
-				final URI uri = ((XMLRPCCommandGet) command).getURI();
-				result = get(user, uri);
+				final XMLRPCCommandGet cmd = (XMLRPCCommandGet) command;
+				final Table object = get(user, cmd.getURI());
+				if (cmd.isNotModified(object)) {
+					result = XMLRPCCommandGet.newNotModified(object.getRevision());
+				} else {
+					result = object;
+				}
 				break;
 			}
 			case GETTASK: {
@@ -532,6 +543,11 @@ public abstract class CommHandler extends Thread implements xtremweb.communicati
 				result = getTask(user, uri);
 				break;
 			}
+			case GETPROGRESS: {
+				final URI uri = ((XMLRPCCommandGet) command).getURI();
+				result = getProgress(user, uri);
+				break;
+			}
 			case GETAPPS:
 				result = getApps(user);
 				break;
@@ -588,6 +604,18 @@ public abstract class CommHandler extends Thread implements xtremweb.communicati
 					break;
 				} catch (final ClassCastException e) {
 				}
+				try {
+					final TemplateInterface tplitf = (TemplateInterface) command.getParameter();
+					sendTemplate(user, tplitf);
+					break;
+				} catch (final ClassCastException e) {
+				}
+				try {
+					final DependencyInterface depitf = (DependencyInterface) command.getParameter();
+					sendDependency(user, depitf);
+					break;
+				} catch (final ClassCastException e) {
+				}
 				throw new IOException("Insertion error: bad object type");
 			case SENDAPP:
 				final AppInterface aitf = (AppInterface) command.getParameter();
@@ -688,6 +716,11 @@ public abstract class CommHandler extends Thread implements xtremweb.communicati
 				sendWork(user, hitf, witf);
 				break;
 			}
+			case SENDWORKS: {
+				final Collection<WorkInterface> works = ((XMLRPCCommandSendWorks) command).getWorks();
+				result = sendWorks(user, works);
+				break;
+			}
 			case BROADCASTWORK: {
 				final WorkInterface witf = (WorkInterface) command.getParameter();
 				broadcast(user, witf);
@@ -696,7 +729,9 @@ public abstract class CommHandler extends Thread implements xtremweb.communicati
 			}
 			case WORKREQUEST: {
 				final HostInterface hitf = command.getHost();
-				result = workRequest(user, hitf);
+				final BloomFilter cached = (command instanceof XMLRPCCommandWorkRequest
+						? ((XMLRPCCommandWorkRequest) command).getCacheFilter() : null);
+				result = workRequest(user, hitf, cached);
 				break;
 			}
 			case WORKALIVEBYUID: {
@@ -852,12 +887,29 @@ public abstract class CommHandler extends Thread implements xtremweb.communicati
 	}
 
 	/**
-	 * Call to the scheduler to select a work
+	 * This calls workRequest(_user, _host, null)
 	 *
 	 * @return a Description of the Work the server has to complete
 	 */
-	public synchronized WorkInterface workRequest(final UserInterface _user, final HostInterface _host)
+	public WorkInterface workRequest(final UserInterface _user, final HostInterface _host)
 			throws IOException, InvalidKeyException, AccessControlException {
+		return workRequest(_user, _host, null);
+	}
+
+	/**
+	 * Call to the scheduler to select a work. Since 10.6.0, this is not
+	 * synchronized: concurrent work requests are serialized by the scheduler
+	 * optimistic work claims only, or gathered into scheduling rounds if
+	 * WORKREQUESTWINDOW is set
+	 *
+	 * @param cached
+	 *            is the filter of the contents cached by the worker; may be
+	 *            null
+	 * @return a Description of the Work the server has to complete
+	 * @since 10.6.0
+	 */
+	public WorkInterface workRequest(final UserInterface _user, final HostInterface _host,
+			final BloomFilter cached) throws IOException, InvalidKeyException, AccessControlException {
 
 		Exception excpt = null;
 		WorkInterface itf = null;
@@ -873,7 +925,9 @@ public abstract class CommHandler extends Thread implements xtremweb.communicati
 				throw new IOException("can't register host");
 			}
 			if (host.isActive() && host.getVersion().equals(CURRENTVERSIONSTRING)) {
-				itf = Dispatcher.getScheduler().select(host, user);
+				final WorkRequestBatcher batcher = Dispatcher.getWorkRequestBatcher();
+				itf = (batcher == null ? Dispatcher.getScheduler().select(host, user, cached)
+						: batcher.select(host, user, cached));
 			}
 		} catch (final Exception e) {
 			excpt = e;
@@ -893,7 +947,6 @@ public abstract class CommHandler extends Thread implements xtremweb.communicati
 				debug("worker " + (_host != null ? _host.getName() : "null") + " gets nothing");
 			}
 			mileStone("</workRequest>");
-			notifyAll();
 		}
 		return itf;
 	}
@@ -965,13 +1018,20 @@ public abstract class CommHandler extends Thread implements xtremweb.communicati
 		final TaskInterface theTask = DBInterface.getInstance().task(theWork, theHost);
 
 		if (theTask != null) {
+			final TaskSet tset = Dispatcher.getTaskSet();
 			if (!isActive) {
 				theWork.unlockWork();
 				theTask.setError();
 				keepWorking = false;
+				if (tset != null) {
+					tset.cancelLease(theTask.getUID());
+				}
 			} else {
 				try {
 					keepWorking = theTask.setAlive(_host.getUID());
+					if (keepWorking && (tset != null)) {
+						tset.renewLease(theTask);
+					}
 				} catch (final Exception e) {
 					error(e);
 				}
@@ -1239,6 +1299,20 @@ public abstract class CommHandler extends Thread implements xtremweb.communicati
 		return DBInterface.getInstance().getTask(client, uri.getUID());
 	}
 
+	/**
+	 * This retrieves the progress of a group or a session
+	 *
+	 * @see DBInterface#progress(UserInterface, UID)
+	 * @since 10.6.0
+	 */
+	public Table getProgress(final UserInterface client, final URI uri)
+			throws IOException, InvalidKeyException, AccessControlException {
+		if (uri == null) {
+			throw new IOException(URINOTSET);
+		}
+		return DBInterface.getInstance().progress(client, uri.getUID());
+	}
+
 	/**
 	 * This retrieves an application from server
 	 */
@@ -1652,6 +1726,38 @@ public abstract class CommHandler extends Thread implements xtremweb.communicati
 		DBInterface.getInstance().addSession(client, session);
 	}
 
+	/**
+	 * This creates or updates a template on server side
+	 *
+	 * @since 10.6.0
+	 */
+	public void sendTemplate(final UserInterface client, final TemplateInterface template)
+			throws IOException, InvalidKeyException, AccessControlException {
+
+		try {
+			mileStone("<sendTemplate>");
+			DBInterface.getInstance().addTemplate(client, template);
+		} finally {
+			mileStone("</sendTemplate>");
+		}
+	}
+
+	/**
+	 * This inserts a dependency between two works on server side
+	 *
+	 * @since 10.6.0
+	 */
+	public void sendDependency(final UserInterface client, final DependencyInterface dependency)
+			throws IOException, InvalidKeyException, AccessControlException {
+
+		try {
+			mileStone("<sendDependency>");
+			DBInterface.getInstance().addDependency(client, dependency);
+		} finally {
+			mileStone("</sendDependency>");
+		}
+	}
+
 	/**
 	 * This retrieves all sessions from server
 	 *
@@ -1711,6 +1817,25 @@ public abstract class CommHandler extends Thread implements xtremweb.communicati
 		mileStone("</sendWork>");
 	}
 
+	/**
+	 * This creates a set of new works on server side at once This calls
+	 * DBInterface#addWorks()
+	 *
+	 * @return a vector of the inserted work UIDs
+	 * @see DBInterface#addWorks(UserInterface, Collection)
+	 * @since 10.6.0
+	 */
+	public XMLVector sendWorks(final UserInterface client, final Collection<WorkInterface> works)
+			throws IOException, InvalidKeyException, AccessControlException {
+
+		try {
+			mileStone("<sendWorks>");
+			return new XMLVector(DBInterface.getInstance().addWorks(client, works));
+		} finally {
+			mileStone("</sendWorks>");
+		}
+	}
+
 	/**
 	 * @deprecated since 1.9.0 this is deprecated ; sendWork() should be used
 	 *             instead stdin and dirin must be sent using sendData
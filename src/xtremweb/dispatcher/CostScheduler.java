@@ -0,0 +1,238 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.dispatcher;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import xtremweb.common.AppInterface;
+import xtremweb.common.BloomFilter;
+import xtremweb.common.DataInterface;
+import xtremweb.common.HostInterface;
+import xtremweb.common.TaskInterface;
+import xtremweb.common.UID;
+import xtremweb.common.UserInterface;
+import xtremweb.common.WorkInterface;
+import xtremweb.communications.URI;
+
+/**
+ * This scheduler places works according to their estimated completion time
+ * on the requesting host. Among up to LOCALITYWINDOW candidate works, it
+ * selects the one having the lowest estimated time to download its inputs not
+ * cached by the host plus compute time on the host, so that large input works
+ * are not sent to slow link hosts.<br />
+ * This is used by setting SCHEDULERCLASS to xtremweb.dispatcher.CostScheduler
+ *
+ * @see PlacementModel
+ * @see xtremweb.common.XWPropertyDefs#LOCALITYWINDOW
+ * @since 10.6.0
+ */
+public class CostScheduler extends MatchingScheduler {
+
+	/**
+	 * This estimates completion times
+	 */
+	private final PlacementModel model;
+	/**
+	 * This is the estimate of the work ranked first for a host, indexed by
+	 * host UID; this is recorded as prediction when the work starts. There is
+	 * at most one entry per host, since a host ranks again on each request
+	 */
+	private final Map<UID, Estimate> estimates;
+
+	/**
+	 * This is the estimated completion time of a work on a host
+	 */
+	private static final class Estimate {
+		private final UID work;
+		private final long transfer;
+		private final long total;
+
+		private Estimate(final UID work, final long transfer, final long total) {
+			this.work = work;
+			this.transfer = transfer;
+			this.total = total;
+		}
+	}
+
+	public CostScheduler() {
+		super();
+		model = new PlacementModel();
+		estimates = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * @return the placement model
+	 */
+	public PlacementModel getModel() {
+		return model;
+	}
+
+	/**
+	 * This always ranks candidate works, even if the host does not provide
+	 * its cache filter
+	 *
+	 * @return true
+	 */
+	@Override
+	protected boolean ranks(final BloomFilter cached) {
+		return true;
+	}
+
+	/**
+	 * This returns the candidate work having the lowest estimated completion
+	 * time on the requesting host; on equality, the first retrieved one is
+	 * returned
+	 */
+	@Override
+	protected WorkInterface rank(final DBInterface db, final Collection<WorkInterface> works,
+			final HostInterface host, final UserInterface user, final BloomFilter cached) throws IOException {
+		WorkInterface ret = null;
+		long best = Long.MAX_VALUE;
+		long bestTransfer = 0L;
+		for (final WorkInterface work : works) {
+			final long transfer = model.transfer(inputSize(db, work, host, user, cached),
+					host.getDownloadBandwidth());
+			final long estimate = transfer
+					+ model.compute(work.getApplication(), host.getCpuSpeed(), avgExecTime(db, work, user));
+			if (estimate < best) {
+				best = estimate;
+				bestTransfer = transfer;
+				ret = work;
+			}
+		}
+		if (ret != null) {
+			getLogger().debug("placement : " + ret.getUID() + " estimated to " + best + "ms on " + host.getUID());
+			if (host.getUID() != null) {
+				estimates.put(host.getUID(), new Estimate(ret.getUID(), bestTransfer, best));
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * This records the prediction of the started work : the estimate computed
+	 * when the work has been ranked for the host, with the host cache filter
+	 * and the host owner rights; the prediction is only computed here if the
+	 * work has not been ranked (e.g. pinned works)
+	 */
+	@Override
+	protected void started(final WorkInterface theWork, final TaskInterface theTask, final HostInterface host)
+			throws IOException {
+		super.started(theWork, theTask, host);
+		final Estimate estimate = (host.getUID() == null ? null : estimates.remove(host.getUID()));
+		if ((estimate != null) && estimate.work.equals(theWork.getUID())) {
+			model.predicted(theWork.getUID(), theWork.getApplication(), host.getCpuSpeed(), estimate.transfer,
+					estimate.total);
+			return;
+		}
+		final long transfer = model.transfer(inputSize(DBInterface.getInstance(), theWork, host, null, null),
+				host.getDownloadBandwidth());
+		final long compute = model.compute(theWork.getApplication(), host.getCpuSpeed(),
+				avgExecTime(DBInterface.getInstance(), theWork, null));
+		model.predicted(theWork.getUID(), theWork.getApplication(), host.getCpuSpeed(), transfer,
+				transfer + compute);
+	}
+
+	/**
+	 * This records the observed completion time to calibrate the model
+	 */
+	@Override
+	public void completed(final WorkInterface work, final long duration) throws IOException {
+		super.completed(work, duration);
+		final long predicted = model.observed(work.getUID(), duration);
+		if (predicted >= 0) {
+			getLogger().debug("placement : " + work.getUID() + " predicted " + predicted + "ms ; observed "
+					+ duration + "ms ; mean ratio " + model.getMeanRatio());
+		}
+	}
+
+	/**
+	 * This forgets the prediction of the work
+	 */
+	@Override
+	public void removed(final UID work) {
+		super.removed(work);
+		model.removed(work);
+	}
+
+	/**
+	 * This retrieves the average execution time of the work application
+	 *
+	 * @return the application average execution time in milliseconds; 0 if
+	 *         not known
+	 */
+	private long avgExecTime(final DBInterface db, final WorkInterface work, final UserInterface user) {
+		try {
+			final AppInterface app = (user == null ? db.app(work.getApplication())
+					: db.app(user, work.getApplication()));
+			return app == null ? 0L : app.getAvgExecTime();
+		} catch (final Exception e) {
+			getLogger().exception("can't retrieve app", e);
+		}
+		return 0L;
+	}
+
+	/**
+	 * This computes the size of the inputs of a work not cached by the host:
+	 * the application binary for the host architecture, dirin, stdin and the
+	 * data driving the work
+	 *
+	 * @param cached
+	 *            is the filter of the contents cached by the host; may be null
+	 * @return the size in bytes of the inputs to download
+	 */
+	private long inputSize(final DBInterface db, final WorkInterface work, final HostInterface host,
+			final UserInterface user, final BloomFilter cached) {
+		URI binary = null;
+		try {
+			final AppInterface app = (user == null ? db.app(work.getApplication())
+					: db.app(user, work.getApplication()));
+			if (app != null) {
+				binary = app.getBinary(host.getCpu(), host.getOs());
+			}
+		} catch (final Exception e) {
+			getLogger().exception("can't retrieve app", e);
+		}
+		long ret = 0L;
+		final URI[] inputs = { binary, work.getDirin(), work.getStdin(), work.getDataDriven() };
+		for (final URI input : inputs) {
+			if ((input == null) || !input.isXtremWeb() || ((cached != null) && isCached(db, input, cached))) {
+				continue;
+			}
+			try {
+				final DataInterface data = db.data(input.getUID());
+				final Long size = (data == null ? null : data.getSize());
+				if (size != null) {
+					ret += size.longValue();
+				}
+			} catch (final Exception e) {
+				getLogger().exception("can't retrieve data", e);
+			}
+		}
+		return ret;
+	}
+}
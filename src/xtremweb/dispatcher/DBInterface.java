@@ -32,20 +32,27 @@ import java.security.InvalidKeyException;
 import java.text.ParseException;
 import java.util.Vector;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
 
 import javax.mail.MessagingException;
 
 import xtremweb.common.AppInterface;
 import xtremweb.common.AppTypeEnum;
-import xtremweb.common.Cache;
 import xtremweb.common.DataInterface;
+import xtremweb.common.DependencyInterface;
 import xtremweb.common.DataTypeEnum;
 import xtremweb.common.GroupInterface;
 import xtremweb.common.HostInterface;
+import xtremweb.common.JobCounters;
 import xtremweb.common.Logger;
 import xtremweb.common.MD5;
 import xtremweb.common.SessionInterface;
@@ -53,6 +60,7 @@ import xtremweb.common.StatusEnum;
 import xtremweb.common.Table;
 import xtremweb.common.TableColumns;
 import xtremweb.common.TaskInterface;
+import xtremweb.common.TemplateInterface;
 import xtremweb.common.TraceInterface;
 import xtremweb.common.UID;
 import xtremweb.common.UserGroupInterface;
@@ -66,9 +74,13 @@ import xtremweb.communications.EmailSender;
 import xtremweb.communications.URI;
 import xtremweb.database.ColumnSelection;
 import xtremweb.database.DBConnPoolThread;
+import xtremweb.database.HistoryArchiver;
 import xtremweb.database.SQLRequest;
+import xtremweb.database.SQLRequestOwnerWorksCount;
+import xtremweb.database.SQLRequestPendingOwners;
 import xtremweb.database.SQLRequestReadable;
 import xtremweb.database.SQLRequestWorkStatus;
+import xtremweb.database.UnitOfWork;
 import xtremweb.security.X509Proxy;
 import xtremweb.security.XWAccessRights;
 
@@ -89,6 +101,35 @@ public final class DBInterface {
 
 	private final Logger logger;
 
+	/**
+	 * This is the period in milliseconds to look for terminal works to move to
+	 * WorkInterface.DONETABLENAME
+	 *
+	 * @see XWPropertyDefs#WORKSRETENTION
+	 * @since 10.6.0
+	 */
+	private static final long DONEWORKSPERIOD = 60000L;
+	/**
+	 * This is the delay in milliseconds between two chunks of moved works
+	 *
+	 * @since 10.6.0
+	 */
+	private static final long DONEWORKSDELAY = 1000L;
+	/**
+	 * This is the period in milliseconds to measure the read replica lag
+	 *
+	 * @see XWPropertyDefs#DBREPLICAMAXLAG
+	 * @since 10.6.0
+	 */
+	private static final long REPLICAHEARTBEATPERIOD = 1000L;
+
+	/**
+	 * These are the works counts by status
+	 *
+	 * @since 10.6.0
+	 */
+	private final WorksCounts worksCounts = new WorksCounts();
+
 	/**
 	 * This helps to send mail
 	 *
@@ -120,30 +161,41 @@ public final class DBInterface {
 	private final DBConnPoolThread dbConnPool;
 
 	/**
-	 * This is a cache to reduce MySQL accesses
+	 * This is a cache to reduce MySQL accesses; since 10.6.0 objects are
+	 * cached by UID, with a budget per table
 	 *
+	 * @see ObjectCache
 	 * @since 7.4.0
 	 */
-	private final Cache cache;
+	private final ObjectCache cache;
 	/**
-	 * This is this local host name; this is used to create URI to store objects
-	 * in local cache
+	 * These lock replica sets, by original work UID, so that replicas of
+	 * unrelated works are created in parallel
+	 *
+	 * @since 10.6.0
 	 */
-	private final String localHostName = XWTools.getLocalHostName();
-
+	private final StripedLocks replicaLocks = new StripedLocks();
 	/**
-	 * This creates a new URI for the provided UID
+	 * These lock templates, by template UID, since several instances of a
+	 * template may be loaded once it has been evicted from cache
 	 *
-	 * @since 7.4.0
-	 * @return a new URI, if UID is not null, null otherwise
+	 * @since 10.6.0
 	 */
-	private URI newURI(final UID uid) throws URISyntaxException {
-		if (uid == null) {
-			return null;
-		}
-		return new URI(localHostName, uid);
-	}
-
+	private final StripedLocks templateLocks = new StripedLocks();
+	/**
+	 * These queue pending works by expected host
+	 *
+	 * @since 10.6.0
+	 */
+	private final PinnedWorkQueues pinnedWorks = new PinnedWorkQueues();
+	/**
+	 * This is the start date of the last reload of the pinned works; null
+	 * until the first reload. This is only accessed by the task set thread
+	 *
+	 * @see #reloadPinnedWorks()
+	 * @since 10.6.0
+	 */
+	private Date pinnedWorksReloaded = null;
 	/**
 	 * This caches an object interface
 	 *
@@ -156,9 +208,7 @@ public final class DBInterface {
 		}
 
 		try {
-			final UID uid = itf.getUID();
-			final URI uri = newURI(uid);
-			cache.add(itf, uri);
+			cache.put(itf);
 		} catch (final Exception e) {
 			logger.exception("can't put to cache", e);
 		}
@@ -173,100 +223,160 @@ public final class DBInterface {
 	private <T extends Table> void insert(final T row) throws IOException {
 		row.insert();
 		putToCache(row);
+		if (row instanceof WorkInterface) {
+			pin((WorkInterface) row);
+			workStatusChanged((WorkInterface) row, null);
+		}
 	}
 
 	/**
-	 * This retrieves an object interface from cache
-	 *
-	 * @since 7.4.0
+	 * @return the pending works queued by expected host
+	 * @since 10.6.0
 	 */
-	private Table getFromCache(final URI uri) {
-		return cache.get(uri);
+	protected PinnedWorkQueues getPinnedWorks() {
+		return pinnedWorks;
 	}
 
 	/**
-	 * This retrieves an object from cache
+	 * This queues the given work for its expected host, if the work is
+	 * pending and defines an expected host
 	 *
-	 * @since 8.2.0
+	 * @param work
+	 *            is the work to queue
+	 * @exception IOException
+	 *                is thrown if the work has no UID
+	 * @since 10.6.0
 	 */
-	private <T extends Table> T getFromCache(final URI uri, final T row) {
-		final Table itf = getFromCache(uri);
-		if (itf == null) {
-			return null;
-		}
-		//
-		// we must check interface type because the cache contains all object
-		// types
-		//
-		if (itf.getClass().toString().compareTo(row.getClass().toString()) != 0) {
-			return null;
+	protected void pin(final WorkInterface work) throws IOException {
+		if ((work != null) && (work.getStatus() == StatusEnum.PENDING)) {
+			pinnedWorks.add(work.getExpectedHost(), work.getUID());
 		}
-		return (T) itf;
 	}
 
 	/**
-	 * This retrieves an object from cache
+	 * This queues the pending works defining an expected host. This permits
+	 * to retrieve works pinned before this dispatcher started, or by another
+	 * dispatcher. All of them are read on the first call only; next calls
+	 * only read the works arrived since the previous call, since this
+	 * dispatcher pins its own works as soon as they are pending
 	 *
-	 * @since 7.4.0
+	 * @since 10.6.0
 	 */
-	private <T extends Table> T getFromCache(final UID uid, final T row) {
-		if (uid == null) {
-			return null;
-		}
+	protected void reloadPinnedWorks() {
 		try {
-			final URI uri = newURI(uid);
-			if (uri == null) {
-				return null;
+			final Date now = new Date();
+			String criteria = WorkInterface.Columns.STATUS + "='" + StatusEnum.PENDING + "' AND "
+					+ WorkInterface.Columns.EXPECTEDHOSTUID + " IS NOT NULL";
+			if (pinnedWorksReloaded != null) {
+				// ARRIVALDATE is stored with a precision of one second
+				criteria += " AND " + WorkInterface.Columns.ARRIVALDATE + ">='"
+						+ XWTools.getSQLDateTime(new Date(pinnedWorksReloaded.getTime() - 1000L)) + "'";
+			}
+			final Collection<WorkInterface> works = selectAll(new WorkInterface(), criteria);
+			pinnedWorksReloaded = now;
+			if (works == null) {
+				return;
+			}
+			for (final WorkInterface work : works) {
+				pin(work);
 			}
-			return getFromCache(uri, row);
 		} catch (final Exception e) {
-			logger.exception("can't retrieve from cache", e);
-			return null;
+			logger.exception("can't reload pinned works", e);
 		}
 	}
 
 	/**
-	 * This retrieves an object interface from cache
+	 * This retrieves the group and session jobs counter of a work status
 	 *
-	 * @since 7.4.0
+	 * @param status
+	 *            is the work status; may be null
+	 * @return the counter; null if works with this status are not counted
+	 * @since 10.6.0
 	 */
-	private Table getFromCache(final UserInterface u, final URI uri) throws IOException, AccessControlException {
-
-		final Table ret = getFromCache(uri);
-
-		if (ret == null) {
+	private static JobCounters.Counter progressCounter(final StatusEnum status) {
+		if (status == null) {
 			return null;
 		}
+		switch (status) {
+		case PENDING:
+		case WAITING:
+			return JobCounters.Counter.PENDINGJOBS;
+		case RUNNING:
+		case DATAREQUEST:
+		case RESULTREQUEST:
+			return JobCounters.Counter.RUNNINGJOBS;
+		case COMPLETED:
+			return JobCounters.Counter.COMPLETEDJOBS;
+		case ERROR:
+			return JobCounters.Counter.ERRORJOBS;
+		default:
+			return null;
+		}
+	}
 
-		final UserInterface owner = user(ret.getOwner());
-		final UID ownerGroup = (owner == null ? null : owner.getGroup());
-
-		final boolean accessdenied = !ret.canRead(u, ownerGroup)
-				&& u.getRights().lowerThan(UserRightEnum.ADVANCED_USER);
-
-		if (accessdenied) {
-			throw new AccessControlException(u.getLogin() + " can't access " + uri);
+	/**
+	 * This adds a row which jobs counters have changed to the rows to update,
+	 * unless counters are aggregated : its counters columns are then written
+	 * as deltas, and a full row update would only increment its revision
+	 *
+	 * @param rows
+	 *            receives the row to update
+	 * @param row
+	 *            is the row which only jobs counters have changed; ignored if
+	 *            null
+	 * @see JobCounters#isDeltaColumn(int, xtremweb.common.XWBaseColumn[])
+	 * @since 10.6.0
+	 */
+	protected static void countersChanged(final Collection<Table> rows, final Table row) {
+		if ((row != null) && !JobCounters.isEnabled()) {
+			rows.add(row);
 		}
-		return ret;
 	}
 
 	/**
-	 * This retrieves an object from cache
+	 * This calls workStatusChanged(work, from, work.getStatus())
 	 *
-	 * @since 8.2.0
+	 * @see #workStatusChanged(WorkInterface, StatusEnum, StatusEnum)
+	 * @since 10.6.0
 	 */
-	private <T extends Table> T getFromCache(final UserInterface u, final UID uid, final T row)
-			throws IOException, AccessControlException {
+	protected void workStatusChanged(final WorkInterface work, final StatusEnum from) {
+		workStatusChanged(work, from, work.getStatus());
+	}
 
-		if (uid == null) {
-			return null;
+	/**
+	 * This updates the jobs counters of the group and the session of a work
+	 * which status has changed, so that their progress is retrieved by
+	 * reading a single row
+	 *
+	 * @param work
+	 *            is the work
+	 * @param from
+	 *            is the previous work status; null for a new work
+	 * @param to
+	 *            is the new work status; null for a deleted work
+	 * @see #progress(UserInterface, UID)
+	 * @see JobCounters#add(String, UID, JobCounters.Counter, long)
+	 * @since 10.6.0
+	 */
+	protected void workStatusChanged(final WorkInterface work, final StatusEnum from, final StatusEnum to) {
+		worksCounts.changed(work.getOwner(), from, to);
+		final JobCounters.Counter fromCounter = progressCounter(from);
+		final JobCounters.Counter toCounter = progressCounter(to);
+		if (fromCounter == toCounter) {
+			return;
 		}
-		try {
-			final URI uri = newURI(uid);
-			return getFromCache(u, uri, row);
-		} catch (final URISyntaxException e) {
-			logger.exception(e);
-			return null;
+		final String[] tableNames = { GroupInterface.TABLENAME, SessionInterface.TABLENAME };
+		final UID[] uids = { work.getGroup(), work.getSession() };
+		for (int i = 0; i < uids.length; i++) {
+			if (uids[i] == null) {
+				continue;
+			}
+			if (fromCounter != null) {
+				JobCounters.add(tableNames[i], uids[i], fromCounter, -1);
+			}
+			if (toCounter != null) {
+				JobCounters.add(tableNames[i], uids[i], toCounter, 1);
+			}
 		}
 	}
 
@@ -275,16 +385,36 @@ public final class DBInterface {
 	 *
 	 * @since 7.4.0
 	 */
-	private <T extends Table> T getFromCache(final UserInterface u, final URI uri, final T row)
+	private <T extends Table> T getFromCache(final UID uid, final T row) {
+		return cache.get(uid, row);
+	}
+
+	/**
+	 * This retrieves an object from cache
+	 *
+	 * @exception AccessControlException
+	 *                is thrown if the user can't read the cached object
+	 * @since 8.2.0
+	 */
+	private <T extends Table> T getFromCache(final UserInterface u, final UID uid, final T row)
 			throws IOException, AccessControlException {
-		if (uri == null) {
+
+		final T ret = getFromCache(uid, row);
+
+		if (ret == null) {
 			return null;
 		}
-		final Table itf = getFromCache(u, uri);
-		if (itf == null) {
-			return null;
+
+		final UserInterface owner = user(ret.getOwner());
+		final UID ownerGroup = (owner == null ? null : owner.getGroup());
+
+		final boolean accessdenied = !ret.canRead(u, ownerGroup)
+				&& u.getRights().lowerThan(UserRightEnum.ADVANCED_USER);
+
+		if (accessdenied) {
+			throw new AccessControlException(u.getLogin() + " can't access " + uid);
 		}
-		return getFromCache(uri, row);
+		return ret;
 	}
 
 	/**
@@ -306,24 +436,50 @@ public final class DBInterface {
 	 * @since 7.4.0
 	 */
 	private void removeFromCache(final UID uid) {
-		try {
-			final URI uri = newURI(uid);
-			removeFromCache(uri);
-		} catch (final Exception e) {
-			logger.exception("can't remove from cache", e);
-		}
+		cache.remove(uid);
 	}
 
 	/**
-	 * This removes an object from cache
+	 * @return the object cache
+	 * @since 10.6.0
+	 */
+	protected ObjectCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * This tells whether no row of the given type has the given UID, as
+	 * recently found in DB
 	 *
-	 * @since 7.4.0
+	 * @see ObjectCache#isMissing(UID, Table)
+	 * @since 10.6.0
 	 */
-	private void removeFromCache(final URI uri) throws IOException {
-		if (uri == null) {
-			return;
+	private <T extends Table> boolean isMissing(final UID uid, final T row) {
+		return cache.isMissing(uid, row);
+	}
+
+	/**
+	 * This retrieves a row from DB by its UID, independently of access
+	 * rights. If no row is found, the UID is remembered as missing so that
+	 * next lookups don't query the DB
+	 *
+	 * @param row
+	 *            defines the row type
+	 * @param uid
+	 *            is the UID of the row to retrieve
+	 * @return the found row, or null if not found
+	 * @see ObjectCache#missed(UID, Table)
+	 * @since 10.6.0
+	 */
+	private <T extends Table> T selectByUID(final T row, final UID uid) throws IOException {
+		if (isMissing(uid, row)) {
+			return null;
+		}
+		final T ret = select(row, uid);
+		if (ret == null) {
+			cache.missed(uid, row);
 		}
-		cache.remove(uri);
+		return ret;
 	}
 
 	/**
@@ -337,9 +493,16 @@ public final class DBInterface {
 	public DBInterface(final XWConfigurator c) throws IOException {
 		logger = new Logger(this);
 		config = c;
-		dbConnPool = new DBConnPoolThread(config);
-		dbConnPool.start();
-		cache = new Cache(config);
+		new DBConnPoolThread(config);
+		// the pool is a singleton : it may have been created (and started)
+		// before this
+		dbConnPool = DBConnPoolThread.getInstance();
+		if (dbConnPool.getState() == Thread.State.NEW) {
+			dbConnPool.start();
+		}
+		startArchiver();
+		cache = new ObjectCache(config.getProperty(XWPropertyDefs.CACHEBUDGETS),
+				config.getInt(XWPropertyDefs.CACHESIZE), config.getInt(XWPropertyDefs.NEGATIVECACHETTL));
 
 		emailSender = new EmailSender();
 
@@ -354,6 +517,263 @@ public final class DBInterface {
 
 		instance = this;
 		SQLRequest.setDbName(config.getProperty(XWPropertyDefs.DBNAME));
+
+		startJobCounters();
+		startDoneWorks();
+		startWorksCounts();
+		startReplicaHeartbeat();
+	}
+
+	/**
+	 * This schedules measuring the read replica lag, if a replica is
+	 * configured and its lag is checked
+	 *
+	 * @see DBConnPoolThread#heartbeat()
+	 * @since 10.6.0
+	 */
+	private void startReplicaHeartbeat() {
+		final Timer timer = Dispatcher.getTimer();
+		if ((timer == null) || !dbConnPool.isReplicaLagChecked()) {
+			return;
+		}
+		timer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				dbConnPool.heartbeat();
+			}
+		}, 0, REPLICAHEARTBEATPERIOD);
+	}
+
+	/**
+	 * This starts archiving deleted rows in background, if ARCHIVEPERIOD is
+	 * positive
+	 *
+	 * @see HistoryArchiver
+	 * @see XWPropertyDefs#ARCHIVEPERIOD
+	 * @since 10.6.0
+	 */
+	private void startArchiver() {
+		final int period = config.getInt(XWPropertyDefs.ARCHIVEPERIOD);
+		if (period <= 0) {
+			logger.config("deleted rows are archived synchronously");
+			return;
+		}
+		final HistoryArchiver archiver = new HistoryArchiver(period, config.getInt(XWPropertyDefs.ARCHIVECHUNKSIZE));
+		dbConnPool.setArchiver(archiver);
+		archiver.start();
+	}
+
+	/**
+	 * This schedules the works counts reading from DB now, then every
+	 * WORKSCOUNTSPERIOD, if positive
+	 *
+	 * @see #reconcileWorksCounts()
+	 * @see XWPropertyDefs#WORKSCOUNTSPERIOD
+	 * @since 10.6.0
+	 */
+	private void startWorksCounts() {
+		final int period = config.getInt(XWPropertyDefs.WORKSCOUNTSPERIOD);
+		final Timer timer = Dispatcher.getTimer();
+		if (timer == null) {
+			return;
+		}
+		final TimerTask task = new TimerTask() {
+			@Override
+			public void run() {
+				try {
+					reconcileWorksCounts();
+				} catch (final Exception e) {
+					logger.exception("can't reconcile works counts", e);
+				}
+			}
+		};
+		if (period > 0) {
+			timer.schedule(task, 0, period);
+		} else {
+			timer.schedule(task, 0);
+		}
+	}
+
+	/**
+	 * This reads works counts by owner and status from both
+	 * WorkInterface.TABLENAME and WorkInterface.DONETABLENAME, to correct the
+	 * in memory works counts. This reads the primary DB, after the queued
+	 * updates have been written : a replica or a queued update would miss
+	 * changes already counted in memory, and these would be lost
+	 *
+	 * @see WorksCounts#reconciled(Map)
+	 * @see DBConnPoolThread#flush()
+	 * @since 10.6.0
+	 */
+	protected void reconcileWorksCounts() throws IOException {
+		final Map<UID, long[]> counts = new HashMap<>();
+		final String[] tableNames = { WorkInterface.TABLENAME, WorkInterface.DONETABLENAME };
+		worksCounts.reconciling();
+		dbConnPool.flush();
+		for (final String tableName : tableNames) {
+			final Collection<SQLRequestOwnerWorksCount> rows = dbConnPool
+					.select(new SQLRequestOwnerWorksCount(tableName), null, Integer.MAX_VALUE);
+			if (rows == null) {
+				continue;
+			}
+			for (final SQLRequestOwnerWorksCount row : rows) {
+				if ((row.getOwnerUID() == null) || (row.getStatus() == null)) {
+					continue;
+				}
+				long[] c = counts.get(row.getOwnerUID());
+				if (c == null) {
+					c = new long[StatusEnum.values().length];
+					counts.put(row.getOwnerUID(), c);
+				}
+				c[row.getStatus().ordinal()] += row.getWorksCount();
+			}
+		}
+		worksCounts.reconciled(counts);
+	}
+
+	/**
+	 * @return the works counts by status
+	 * @since 10.6.0
+	 */
+	public WorksCounts getWorksCounts() {
+		return worksCounts;
+	}
+
+	/**
+	 * This retrieves the amount of works with the given status from memory
+	 *
+	 * @see WorksCounts#count(StatusEnum)
+	 * @since 10.6.0
+	 */
+	public long worksCount(final StatusEnum s) {
+		return worksCounts.count(s);
+	}
+
+	/**
+	 * This retrieves the amount of works with the given status owned by the
+	 * given user from memory
+	 *
+	 * @see WorksCounts#count(UID, StatusEnum)
+	 * @since 10.6.0
+	 */
+	public long worksCount(final UID owner, final StatusEnum s) {
+		return worksCounts.count(owner, s);
+	}
+
+	/**
+	 * This schedules moving terminal works to WorkInterface.DONETABLENAME, if
+	 * WORKSRETENTION is positive
+	 *
+	 * @see #moveDoneWorks(long, int)
+	 * @see XWPropertyDefs#WORKSRETENTION
+	 * @since 10.6.0
+	 */
+	private void startDoneWorks() {
+		final long retention = config.getInt(XWPropertyDefs.WORKSRETENTION);
+		final int chunkSize = config.getInt(XWPropertyDefs.ARCHIVECHUNKSIZE);
+		final Timer timer = Dispatcher.getTimer();
+		if ((retention <= 0) || (timer == null)) {
+			return;
+		}
+		timer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				try {
+					while (moveDoneWorks(retention, chunkSize) >= chunkSize) {
+						Thread.sleep(DONEWORKSDELAY);
+					}
+				} catch (final Exception e) {
+					logger.exception("can't move terminal works", e);
+				}
+			}
+		}, DONEWORKSPERIOD, DONEWORKSPERIOD);
+		logger.info("terminal works are moved to " + WorkInterface.DONETABLENAME + " after " + retention + " s");
+	}
+
+	/**
+	 * This moves a chunk of terminal works, completed before the retention
+	 * delay, from WorkInterface.TABLENAME to WorkInterface.DONETABLENAME and
+	 * removes them from cache
+	 *
+	 * @param retention
+	 *            is the retention delay in seconds
+	 * @param chunkSize
+	 *            is the max amount of works to move
+	 * @return the amount of moved works
+	 * @since 10.6.0
+	 */
+	protected int moveDoneWorks(final long retention, final int chunkSize) throws IOException {
+		final Collection<UID> uids = dbConnPool.doneWorks(retention, chunkSize);
+		if ((uids == null) || uids.isEmpty()) {
+			return 0;
+		}
+		dbConnPool.move(WorkInterface.TABLENAME, WorkInterface.DONETABLENAME, uids,
+				DBConnPoolThread.doneWorksCriteria(retention));
+		for (final UID uid : uids) {
+			removeFromCache(uid);
+		}
+		logger.debug(uids.size() + " works moved to " + WorkInterface.DONETABLENAME);
+		return uids.size();
+	}
+
+	/**
+	 * This tells whether works with the given status may have been moved to
+	 * WorkInterface.DONETABLENAME
+	 *
+	 * @param s
+	 *            is the work status; null for any status
+	 * @since 10.6.0
+	 */
+	private static boolean mayBeDone(final StatusEnum s) {
+		return (s == null) || (s == StatusEnum.COMPLETED) || (s == StatusEnum.ERROR) || (s == StatusEnum.ABORTED);
+	}
+
+	/**
+	 * This appends UIDs read from WorkInterface.DONETABLENAME to UIDs read
+	 * from WorkInterface.TABLENAME
+	 *
+	 * @return a Vector of UID, or null if both are null
+	 * @since 10.6.0
+	 */
+	private static Collection<UID> withDone(final Collection<UID> works, final Collection<UID> done) {
+		if (done == null) {
+			return works;
+		}
+		if (works == null) {
+			return done;
+		}
+		final Vector<UID> ret = new Vector<>(works);
+		ret.addAll(done);
+		return ret;
+	}
+
+	/**
+	 * This enables job counters aggregation and schedules their periodic
+	 * flush, if COUNTERSFLUSHPERIOD is positive
+	 *
+	 * @see JobCounters
+	 * @see XWPropertyDefs#COUNTERSFLUSHPERIOD
+	 * @since 10.6.0
+	 */
+	private void startJobCounters() {
+		final int period = config.getInt(XWPropertyDefs.COUNTERSFLUSHPERIOD);
+		final Timer timer = Dispatcher.getTimer();
+		if ((period <= 0) || (timer == null)) {
+			JobCounters.setEnabled(false);
+			return;
+		}
+		JobCounters.setEnabled(true);
+		timer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				try {
+					JobCounters.flush();
+				} catch (final Exception e) {
+					logger.exception("can't flush job counters", e);
+				}
+			}
+		}, period, period);
+		logger.info("job counters are flushed every " + period + " ms");
 	}
 
 	/**
@@ -512,6 +932,28 @@ public final class DBInterface {
 		return DBConnPoolThread.getInstance().selectUID(row, conditions);
 	}
 
+	/**
+	 * This retrieves UIDs from the read replica, if available, from the
+	 * primary DB otherwise. This must only be used by read only listings
+	 * tolerating replication lag
+	 *
+	 * @param row
+	 *            defines the row type
+	 * @param conditions
+	 *            restrict selected rows
+	 * @return a Collection of found UID
+	 * @see DBConnPoolThread#isReplicaAvailable()
+	 * @since 10.6.0
+	 */
+	protected <T extends Table> Collection<UID> selectReplicaUID(final T row, final String conditions)
+			throws IOException {
+		if (row == null) {
+			logger.warn("selectReplicaUID : row is null ?!?!");
+			return null;
+		}
+		return DBConnPoolThread.getInstance().selectUID(row, conditions, true);
+	}
+
 	/**
 	 * This retrieves first row
 	 *
@@ -545,6 +987,30 @@ public final class DBInterface {
 		return DBConnPoolThread.getInstance().selectOne(row, conditions);
 	}
 
+	/**
+	 * This retrieves at most limit rows from DB
+	 *
+	 * @param row
+	 *            defines the row type
+	 * @param conditions
+	 *            restrict selected rows
+	 * @param limit
+	 *            is the max expected amount of rows
+	 * @return a Collection of found rows
+	 * @since 10.6.0
+	 */
+	protected <T extends Table> Collection<T> selectAll(final T row, final String conditions, final int limit)
+			throws IOException {
+		if (row == null) {
+			logger.warn("selectAll : row is null ?!?!");
+			return null;
+		}
+
+		logger.finest("selectAll : " + row.getClass().getName() + ", " + conditions + ", " + limit);
+
+		return DBConnPoolThread.getInstance().select(row, conditions, limit);
+	}
+
 	/**
 	 * This deletes a row in DB;
 	 *
@@ -652,6 +1118,53 @@ public final class DBInterface {
 		row.update();
 	}
 
+	/**
+	 * This atomically claims a pending work so that concurrent schedulers
+	 * never assign the same work twice. This does not modify the given work;
+	 * if the claim fails, the work is removed from cache since its cached
+	 * status is stale
+	 *
+	 * @param work
+	 *            is the work to claim
+	 * @return true if the work was pending and is now running; false if
+	 *         another request has claimed it first
+	 * @exception IOException
+	 *                is thrown on DB access error
+	 * @since 10.6.0
+	 */
+	protected boolean claimWork(final WorkInterface work) throws IOException {
+		if (work == null) {
+			return false;
+		}
+		final boolean ret = DBConnPoolThread.getInstance().claim(work, StatusEnum.PENDING, StatusEnum.RUNNING);
+		if (!ret) {
+			removeFromCache(work);
+		}
+		return ret;
+	}
+
+	/**
+	 * This atomically claims pending works in one batched transaction
+	 *
+	 * @param works
+	 *            are the works to claim
+	 * @return an array which i-th element tells whether the i-th work has
+	 *         been claimed by this call
+	 * @exception IOException
+	 *                is thrown on DB access error
+	 * @see #claimWork(WorkInterface)
+	 * @since 10.6.0
+	 */
+	protected boolean[] claimWorks(final List<WorkInterface> works) throws IOException {
+		final boolean[] ret = DBConnPoolThread.getInstance().claim(works, StatusEnum.PENDING, StatusEnum.RUNNING);
+		for (int i = 0; i < ret.length; i++) {
+			if (!ret[i]) {
+				removeFromCache(works.get(i));
+			}
+		}
+		return ret;
+	}
+
 	/**
 	 * This updates a row in DB
 	 *
@@ -676,6 +1189,58 @@ public final class DBInterface {
 		DBConnPoolThread.getInstance().update(rows);
 	}
 
+	/**
+	 * This calls transaction(name, null, rows)
+	 *
+	 * @see #transaction(String, Collection, Collection)
+	 * @since 10.6.0
+	 */
+	protected void transaction(final String name, final Collection<? extends Table> rows) throws IOException {
+		transaction(name, null, rows);
+	}
+
+	/**
+	 * This inserts and updates the rows of a single state transition in DB in
+	 * a single transaction. Contrary to update(rows), this is synchronous :
+	 * when this returns, all rows are written, and none is written if this
+	 * throws an exception
+	 *
+	 * @param name
+	 *            is the name of the transition, used in logs
+	 * @param inserts
+	 *            is the vector of new rows, inserted first; may be null; null
+	 *            rows are ignored
+	 * @param rows
+	 *            is the vector of rows to update; may be null; null rows are
+	 *            ignored
+	 * @exception IOException
+	 *                is thrown on DB access or I/O error
+	 * @see UnitOfWork
+	 * @see DBConnPoolThread#commit(UnitOfWork)
+	 * @since 10.6.0
+	 */
+	protected void transaction(final String name, final Collection<? extends Table> inserts,
+			final Collection<? extends Table> rows) throws IOException {
+		final UnitOfWork uow = new UnitOfWork(name);
+		if (inserts != null) {
+			for (final Table row : inserts) {
+				if (row != null) {
+					putToCache(row);
+					uow.insert(row);
+				}
+			}
+		}
+		if (rows != null) {
+			for (final Table row : rows) {
+				if (row != null) {
+					putToCache(row);
+					uow.update(row);
+				}
+			}
+		}
+		uow.commit();
+	}
+
 	/**
 	 * This updates a row in DB;
 	 *
@@ -771,7 +1336,7 @@ public final class DBInterface {
 		if (ret != null) {
 			return ret;
 		}
-		ret = select(rowType, uid);
+		ret = selectByUID(rowType, uid);
 		return ret;
 	}
 
@@ -794,6 +1359,9 @@ public final class DBInterface {
 		if (ret != null) {
 			return ret;
 		}
+		if (isMissing(uid, row)) {
+			return null;
+		}
 		final AppInterface readableRow = readableApp(u, uid);
 		ret = select(readableRow);
 		return ret;
@@ -835,7 +1403,7 @@ public final class DBInterface {
 	 */
 	public Collection<UID> appsUID(final UserInterface u) throws IOException {
 		final AppInterface row = readableAppUID(u);
-		return selectUID(row);
+		return selectReplicaUID(row, null);
 	}
 
 	/**
@@ -884,7 +1452,7 @@ public final class DBInterface {
 		if (ret != null) {
 			return ret;
 		}
-		ret = select(rowType, uid);
+		ret = selectByUID(rowType, uid);
 		return ret;
 	}
 
@@ -925,6 +1493,9 @@ public final class DBInterface {
 		if (ret != null) {
 			return ret;
 		}
+		if (isMissing(uid, row)) {
+			return null;
+		}
 
 		final DataInterface readableRow = readableData(u, uid);
 		return select(readableRow);
@@ -941,7 +1512,7 @@ public final class DBInterface {
 	 */
 	public Collection<UID> datasUID(final UserInterface user) throws IOException {
 		final DataInterface row = readableDataUID(user);
-		return selectUID(row);
+		return selectReplicaUID(row, null);
 	}
 
 	/**
@@ -954,7 +1525,7 @@ public final class DBInterface {
 	 */
 	public Collection<UID> ownerDatasUID(final UserInterface user) throws IOException {
 		final DataInterface row = readableDataUID(user);
-		return selectUID(row, "maintable.owneruid='" + user.getUID() + "'");
+		return selectReplicaUID(row, "maintable.owneruid='" + user.getUID() + "'");
 	}
 
 	/**
@@ -1032,6 +1603,9 @@ public final class DBInterface {
 		if (ret != null) {
 			return ret;
 		}
+		if (isMissing(uid, row)) {
+			return null;
+		}
 
 		final GroupInterface readableRow = readableGroup(u, uid);
 		ret = select(readableRow);
@@ -1159,7 +1733,7 @@ public final class DBInterface {
 		if (ret != null) {
 			return ret;
 		}
-		return select(rowType, uid);
+		return selectByUID(rowType, uid);
 	}
 
 	/**
@@ -1182,6 +1756,9 @@ public final class DBInterface {
 		if (ret != null) {
 			return ret;
 		}
+		if (isMissing(uid, row)) {
+			return null;
+		}
 		final HostInterface readableRow = readableHost(u, uid);
 		return select(readableRow);
 	}
@@ -1258,7 +1835,7 @@ public final class DBInterface {
 	 */
 	public Collection<UID> hostsUID(final UserInterface u, final String conditions) throws IOException {
 		final HostInterface row = readableHostUID(u);
-		return selectUID(row, conditions);
+		return selectReplicaUID(row, conditions);
 	}
 
 	/**
@@ -1273,74 +1850,215 @@ public final class DBInterface {
 			hostsUID(u).size();
 		} catch (final Exception e) {
 		}
-		return 0;
+		return 0;
+	}
+
+	/**
+	 * This creates a new readable session to retrieve from DB
+	 *
+	 * @param u
+	 *            is the requesting user
+	 * @since 5.8.0
+	 */
+	private SessionInterface readableSession(final UserInterface u) throws IOException {
+		final SQLRequestReadable r = new SQLRequestReadable(SessionInterface.TABLENAME, u, ColumnSelection.selectAll);
+		return new SessionInterface(r);
+	}
+
+	/**
+	 * This creates a new readable session to retrieve from DB
+	 *
+	 * @param u
+	 *            is the requesting user
+	 * @param uid
+	 *            is the UID of the session to retrieve
+	 * @since 5.8.0
+	 */
+	private SessionInterface readableSession(final UserInterface u, final UID uid) throws IOException {
+		if (uid == null) {
+			return null;
+		}
+		final SQLRequestReadable r = new SQLRequestReadable(SessionInterface.TABLENAME, u, ColumnSelection.selectAll,
+				uid);
+		return new SessionInterface(r);
+	}
+
+	/**
+	 * This creates a new readable session to retrieve sessions UID from DB
+	 *
+	 * @param u
+	 *            is the requesting user
+	 * @since 5.8.0
+	 */
+	private SessionInterface readableSessionUID(final UserInterface u) throws IOException {
+		final SQLRequestReadable r = new SQLRequestReadable(SessionInterface.TABLENAME, u, ColumnSelection.selectUID);
+		return new SessionInterface(r);
+	}
+
+	/**
+	 * This retrieves a session for the requesting user. Session access rights
+	 * are checked.
+	 *
+	 * @param u
+	 *            is the requesting user
+	 * @param uid
+	 *            is the UID of the session to retrieve
+	 * @since 5.8.0
+	 */
+	protected SessionInterface session(final UserInterface u, final UID uid)
+			throws IOException, AccessControlException {
+
+		if (uid == null) {
+			return null;
+		}
+		final SessionInterface row = new SessionInterface();
+		final SessionInterface ret = getFromCache(u, uid, row);
+		if (ret != null) {
+			return ret;
+		}
+		if (isMissing(uid, row)) {
+			return null;
+		}
+		final SessionInterface readableRow = readableSession(u, uid);
+		return select(readableRow);
+	}
+
+	/**
+	 * This creates a new readable template to retrieve from DB
+	 *
+	 * @param u
+	 *            is the requesting user
+	 * @param uid
+	 *            is the UID of the template to retrieve
+	 * @since 10.6.0
+	 */
+	private TemplateInterface readableTemplate(final UserInterface u, final UID uid) throws IOException {
+		if (uid == null) {
+			return null;
+		}
+		final SQLRequestReadable r = new SQLRequestReadable(TemplateInterface.TABLENAME, u, ColumnSelection.selectAll,
+				uid);
+		return new TemplateInterface(r);
 	}
 
 	/**
-	 * This creates a new readable session to retrieve from DB
+	 * This retrieves a template for the requesting user. Template access
+	 * rights are checked.
 	 *
 	 * @param u
 	 *            is the requesting user
-	 * @since 5.8.0
+	 * @param uid
+	 *            is the UID of the template to retrieve
+	 * @since 10.6.0
 	 */
-	private SessionInterface readableSession(final UserInterface u) throws IOException {
-		final SQLRequestReadable r = new SQLRequestReadable(SessionInterface.TABLENAME, u, ColumnSelection.selectAll);
-		return new SessionInterface(r);
+	protected TemplateInterface template(final UserInterface u, final UID uid)
+			throws IOException, AccessControlException {
+
+		if (uid == null) {
+			return null;
+		}
+		final TemplateInterface row = new TemplateInterface();
+		final TemplateInterface ret = getFromCache(u, uid, row);
+		if (ret != null) {
+			return ret;
+		}
+		if (isMissing(uid, row)) {
+			return null;
+		}
+		final TemplateInterface readableRow = readableTemplate(u, uid);
+		return select(readableRow);
 	}
 
 	/**
-	 * This creates a new readable session to retrieve from DB
+	 * This retrieves a template independently of access rights from cache or
+	 * from DB
 	 *
-	 * @param u
-	 *            is the requesting user
 	 * @param uid
-	 *            is the UID of the session to retrieve
-	 * @since 5.8.0
+	 *            is the UID of the template to retrieve
+	 * @since 10.6.0
 	 */
-	private SessionInterface readableSession(final UserInterface u, final UID uid) throws IOException {
+	protected TemplateInterface template(final UID uid) throws IOException {
 		if (uid == null) {
 			return null;
 		}
-		final SQLRequestReadable r = new SQLRequestReadable(SessionInterface.TABLENAME, u, ColumnSelection.selectAll,
-				uid);
-		return new SessionInterface(r);
+		final TemplateInterface rowType = new TemplateInterface();
+		TemplateInterface ret = getFromCache(uid, rowType);
+		if (ret != null) {
+			return ret;
+		}
+		ret = selectByUID(rowType, uid);
+		return ret;
 	}
 
 	/**
-	 * This creates a new readable session to retrieve sessions UID from DB
+	 * This retrieves the templates which works remain to be expanded or
+	 * completed, independently of access rights
 	 *
-	 * @param u
-	 *            is the requesting user
-	 * @since 5.8.0
+	 * @return a Collection of templates or null
+	 * @since 10.6.0
 	 */
-	private SessionInterface readableSessionUID(final UserInterface u) throws IOException {
-		final SQLRequestReadable r = new SQLRequestReadable(SessionInterface.TABLENAME, u, ColumnSelection.selectUID);
-		return new SessionInterface(r);
+	protected Collection<TemplateInterface> pendingTemplates() throws IOException {
+		final TemplateInterface row = new TemplateInterface();
+		return selectAll(row, TemplateInterface.Columns.STATUS + "='" + StatusEnum.PENDING + "'");
 	}
 
 	/**
-	 * This retrieves a session for the requesting user. Session access rights
-	 * are checked.
+	 * This retrieves a dependency for the requesting user. Dependency access
+	 * rights are checked.
 	 *
 	 * @param u
 	 *            is the requesting user
 	 * @param uid
-	 *            is the UID of the session to retrieve
-	 * @since 5.8.0
+	 *            is the UID of the dependency to retrieve
+	 * @since 10.6.0
 	 */
-	protected SessionInterface session(final UserInterface u, final UID uid)
+	protected DependencyInterface dependency(final UserInterface u, final UID uid)
 			throws IOException, AccessControlException {
 
 		if (uid == null) {
 			return null;
 		}
-		final SessionInterface row = new SessionInterface();
-		final SessionInterface ret = getFromCache(u, uid, row);
+		final DependencyInterface row = new DependencyInterface();
+		final DependencyInterface ret = getFromCache(u, uid, row);
 		if (ret != null) {
 			return ret;
 		}
-		final SessionInterface readableRow = readableSession(u, uid);
-		return select(readableRow);
+		if (isMissing(uid, row)) {
+			return null;
+		}
+		final SQLRequestReadable r = new SQLRequestReadable(DependencyInterface.TABLENAME, u,
+				ColumnSelection.selectAll, uid);
+		return select(new DependencyInterface(r));
+	}
+
+	/**
+	 * This retrieves the dependencies not released yet of the given producer
+	 * work, independently of access rights
+	 *
+	 * @param producer
+	 *            is the producer work UID
+	 * @return a Collection of dependencies or null
+	 * @since 10.6.0
+	 */
+	protected Collection<DependencyInterface> dependencies(final UID producer) throws IOException {
+		final DependencyInterface row = new DependencyInterface();
+		return selectAll(row, DependencyInterface.Columns.PRODUCERUID + "='" + producer + "' AND "
+				+ DependencyInterface.Columns.RELEASED + "='false'");
+	}
+
+	/**
+	 * This checks whether a work still waits for some of its producer works
+	 *
+	 * @param work
+	 *            is the consumer work
+	 * @return true if the work has some dependencies not released yet
+	 * @since 10.6.0
+	 */
+	protected boolean isBlocked(final WorkInterface work) throws IOException {
+		final DependencyInterface row = new DependencyInterface();
+		final Collection<DependencyInterface> deps = selectAll(row, DependencyInterface.Columns.WORKUID + "='"
+				+ work.getUID() + "' AND " + DependencyInterface.Columns.RELEASED + "='false'");
+		return (deps != null) && !deps.isEmpty();
 	}
 
 	/**
@@ -1491,7 +2209,7 @@ public final class DBInterface {
 		if (ret != null) {
 			return ret;
 		}
-		return select(rowType, uid);
+		return selectByUID(rowType, uid);
 	}
 
 	/**
@@ -1624,6 +2342,9 @@ public final class DBInterface {
 		if (ret != null) {
 			return ret;
 		}
+		if (isMissing(uid, row)) {
+			return null;
+		}
 		final TaskInterface readableRow = readableTask(u, uid);
 		return select(readableRow);
 	}
@@ -1919,6 +2640,9 @@ public final class DBInterface {
 		if (ret != null) {
 			return ret;
 		}
+		if (isMissing(uid, row)) {
+			return null;
+		}
 		final UserGroupInterface readableRow = readableUserGroup(u, uid);
 		return select(readableRow);
 	}
@@ -1957,7 +2681,7 @@ public final class DBInterface {
 		if (ret != null) {
 			return ret;
 		}
-		return select(rowType, uid);
+		return selectByUID(rowType, uid);
 	}
 
 	/**
@@ -2075,7 +2799,7 @@ public final class DBInterface {
 		if (ret != null) {
 			return ret;
 		}
-		return select(rowType, uid);
+		return selectByUID(rowType, uid);
 	}
 
 	/**
@@ -2098,6 +2822,9 @@ public final class DBInterface {
 		if (ret != null) {
 			return ret;
 		}
+		if (isMissing(uid, row)) {
+			return null;
+		}
 		final UserInterface readableRow = readableUser(u, uid);
 		return select(readableRow);
 	}
@@ -2187,7 +2914,24 @@ public final class DBInterface {
 	 * @since 8.2.0
 	 */
 	private WorkInterface readableWorkUID(final UserInterface u, final StatusEnum s) throws IOException {
-		final SQLRequestReadable r = new SQLRequestReadable(WorkInterface.TABLENAME, u, ColumnSelection.selectUID,
+		return readableWorkUID(WorkInterface.TABLENAME, u, s);
+	}
+
+	/**
+	 * This creates a new readable work to retrieve works UID from the given
+	 * works table, eventually according to works status
+	 *
+	 * @param t
+	 *            is WorkInterface.TABLENAME or WorkInterface.DONETABLENAME
+	 * @param u
+	 *            is the requesting work
+	 * @param s
+	 *            is the work status (e.g RUNNING, PENDING...)
+	 * @since 10.6.0
+	 */
+	private WorkInterface readableWorkUID(final String t, final UserInterface u, final StatusEnum s)
+			throws IOException {
+		final SQLRequestReadable r = new SQLRequestReadable(t, u, ColumnSelection.selectUID,
 				s != null ? WorkInterface.Columns.STATUS + " = '" + s + "'" : null);
 		return new WorkInterface(r);
 	}
@@ -2217,11 +2961,25 @@ public final class DBInterface {
 			return null;
 		}
 		final WorkInterface rowType = new WorkInterface();
-		final WorkInterface ret = getFromCache(uid, rowType);
+		WorkInterface ret = getFromCache(uid, rowType);
 		if (ret != null) {
 			return ret;
 		}
-		return select(rowType, uid);
+		if (isMissing(uid, rowType)) {
+			return null;
+		}
+		ret = select(rowType, uid);
+		if (ret != null) {
+			return ret;
+		}
+		rowType.setDone(true);
+		ret = select(rowType, uid);
+		if (ret != null) {
+			ret.setDone(true);
+		} else {
+			cache.missed(uid, rowType);
+		}
+		return ret;
 	}
 
 	/**
@@ -2284,8 +3042,21 @@ public final class DBInterface {
 		if (ret != null) {
 			return ret;
 		}
+		if (isMissing(uid, row)) {
+			return null;
+		}
 		final WorkInterface readableRow = readableWork(u, uid);
-		return select(readableRow);
+		final WorkInterface found = select(readableRow);
+		if (found != null) {
+			return found;
+		}
+		final SQLRequestReadable r = new SQLRequestReadable(WorkInterface.DONETABLENAME, u, ColumnSelection.selectAll,
+				uid);
+		final WorkInterface done = select(new WorkInterface(r));
+		if (done != null) {
+			done.setDone(true);
+		}
+		return done;
 	}
 
 	/**
@@ -2336,6 +3107,18 @@ public final class DBInterface {
 		return selectAll(row);
 	}
 
+	/**
+	 * This retrieves the owners of pending works. This is used by scheduler
+	 *
+	 * @see FairShareQueue#retain(Collection)
+	 * @return a Collection of owners with their group and the highest priority
+	 *         of their pending works; null if none
+	 * @since 10.6.0
+	 */
+	public Collection<SQLRequestPendingOwners> pendingOwners() throws IOException {
+		return selectAll(new SQLRequestPendingOwners());
+	}
+
 	/**
 	 * This retrieves UID of readable works for the given user
 	 *
@@ -2361,7 +3144,11 @@ public final class DBInterface {
 	 */
 	protected Collection<UID> worksUID(final UserInterface u, final StatusEnum s) throws IOException {
 		final WorkInterface row = readableWorkUID(u, s);
-		return selectUID(row);
+		if (!mayBeDone(s)) {
+			return selectReplicaUID(row, null);
+		}
+		return withDone(selectReplicaUID(row, null),
+				selectReplicaUID(readableWorkUID(WorkInterface.DONETABLENAME, u, s), null));
 	}
 
 	/**
@@ -2377,7 +3164,8 @@ public final class DBInterface {
 	 */
 	protected Collection<UID> worksUID(final UserInterface u, final String criterias) throws IOException {
 		final WorkInterface row = readableWorkUID(u);
-		return selectUID(row, criterias);
+		return withDone(selectUID(row, criterias),
+				selectUID(readableWorkUID(WorkInterface.DONETABLENAME, u, null), criterias));
 	}
 
 	/**
@@ -2418,7 +3206,12 @@ public final class DBInterface {
 	 */
 	protected Collection<UID> ownerWorksUID(final UserInterface u, final StatusEnum s) throws IOException {
 		final WorkInterface row = readableWorkUID(u, s);
-		return selectUID(row, "maintable.owneruid='" + u.getUID() + "'");
+		final String criterias = "maintable.owneruid='" + u.getUID() + "'";
+		if (!mayBeDone(s)) {
+			return selectReplicaUID(row, criterias);
+		}
+		return withDone(selectReplicaUID(row, criterias),
+				selectReplicaUID(readableWorkUID(WorkInterface.DONETABLENAME, u, s), criterias));
 	}
 
 	/**
@@ -2808,7 +3601,10 @@ public final class DBInterface {
 	 */
 	private boolean useData(final UserInterface theClient, final URI uri) throws IOException, InvalidKeyException {
 
-		final Table row = getFromCache(theClient, uri);
+		if (uri == null) {
+			return false;
+		}
+		final Table row = getFromCache(theClient, uri.getUID(), new DataInterface());
 		if (row == null) {
 			return false;
 		}
@@ -3606,6 +4402,14 @@ public final class DBInterface {
 		if (ret != null) {
 			return ret;
 		}
+		ret = getTemplate(client, uid);
+		if (ret != null) {
+			return ret;
+		}
+		ret = getDependency(client, uid);
+		if (ret != null) {
+			return ret;
+		}
 		ret = getGroup(client, uid);
 		if (ret != null) {
 			return ret;
@@ -3615,9 +4419,33 @@ public final class DBInterface {
 			return ret;
 		}
 
+		missing(uid);
 		return null;
 	}
 
+	/**
+	 * This looks for the given UID in all tables, independently of access
+	 * rights, so that the types having no row with this UID are remembered as
+	 * missing. This is called when a client looks for an object it can't
+	 * read, so that repeating this costs nothing
+	 *
+	 * @see #get(UserInterface, UID)
+	 * @since 10.6.0
+	 */
+	private void missing(final UID uid) throws IOException {
+		work(uid);
+		task(uid);
+		data(uid);
+		app(uid);
+		user(uid);
+		usergroup(uid);
+		selectByUID(new SessionInterface(), uid);
+		template(uid);
+		selectByUID(new DependencyInterface(), uid);
+		selectByUID(new GroupInterface(), uid);
+		host(uid);
+	}
+
 	/**
 	 * This retrieves a task for the specified client. This specifically permits
 	 * to retrieve job instanciation informations (e.g. start date, worker...)
@@ -4113,6 +4941,52 @@ public final class DBInterface {
 		return session(theClient, uid);
 	}
 
+	/**
+	 * This retrieves a template for the requesting client. This checks client
+	 * rights is not lower than GETJOB
+	 *
+	 * @param client
+	 *            is the requesting client
+	 * @param uid
+	 *            is the UID of the template to retrieve
+	 * @return the found template or null
+	 * @exception IOException
+	 *                is thrown on DB access or I/O error
+	 * @exception AccessControlException
+	 *                is thrown if client rights are lower than GETJOB
+	 * @see #template(UserInterface, UID)
+	 * @since 10.6.0
+	 */
+	public TemplateInterface getTemplate(final UserInterface client, final UID uid)
+			throws IOException, InvalidKeyException, AccessControlException {
+
+		final UserInterface theClient = checkClient(client, UserRightEnum.GETJOB);
+		return template(theClient, uid);
+	}
+
+	/**
+	 * This retrieves a dependency for the requesting client, if client access
+	 * rights is not lower than GETJOB
+	 *
+	 * @param client
+	 *            is the requesting client
+	 * @param uid
+	 *            is the UID of the dependency to retrieve
+	 * @return the found dependency or null
+	 * @exception IOException
+	 *                is thrown on DB access or I/O error
+	 * @exception AccessControlException
+	 *                is thrown if client rights are lower than GETJOB
+	 * @see #dependency(UserInterface, UID)
+	 * @since 10.6.0
+	 */
+	public DependencyInterface getDependency(final UserInterface client, final UID uid)
+			throws IOException, InvalidKeyException, AccessControlException {
+
+		final UserInterface theClient = checkClient(client, UserRightEnum.GETJOB);
+		return dependency(theClient, uid);
+	}
+
 	/**
 	 * This retrieves groups of the provided client.<br />
 	 * This method has a private access because it does not call checkClient()
@@ -4150,6 +5024,39 @@ public final class DBInterface {
 		return group(theClient, uid);
 	}
 
+	/**
+	 * This retrieves the progress of a group or a session for the requesting
+	 * client. The row is always read from DB, since its jobs counters are
+	 * only updated by deltas, and includes the deltas not flushed yet : this
+	 * costs a single row read, whatever the amount of works.
+	 *
+	 * @param client
+	 *            is the requesting client
+	 * @param uid
+	 *            is the UID of the group or the session
+	 * @return the found group or session; null if not found
+	 * @exception IOException
+	 *                is thrown on DB access or I/O error
+	 * @see #workStatusChanged(WorkInterface, StatusEnum, StatusEnum)
+	 * @since 10.6.0
+	 */
+	public Table progress(final UserInterface client, final UID uid)
+			throws IOException, InvalidKeyException, AccessControlException {
+
+		final UserInterface theClient = checkClient(client, UserRightEnum.GETGROUP);
+		if (uid == null) {
+			return null;
+		}
+		final GroupInterface group = selectOne(readableGroup(theClient, uid));
+		if (group != null) {
+			return group;
+		}
+		if (theClient.getRights().lowerThan(UserRightEnum.GETSESSION)) {
+			throw new AccessControlException(theClient.getLogin() + " not enought rights to GETSESSION");
+		}
+		return selectOne(readableSession(theClient, uid));
+	}
+
 	/**
 	 * This checks group access rights and eventually then call
 	 * getGroupJobs(client, udi)
@@ -4218,14 +5125,135 @@ public final class DBInterface {
 	}
 
 	/**
-	 * This adds/updates a session
+	 * This adds/updates a session
+	 *
+	 * @param client
+	 *            describes the requesting client
+	 * @param sessionitf
+	 *            describes the session to insert in DB
+	 * @return true on success; false on DB error or if session already exists
+	 *         in DB
+	 * @exception IOException
+	 *                is thrown on DB access or I/O error
+	 * @exception InvalidKeyException
+	 *                is thrown on client integrity error (user unknown, bad
+	 *                password...)
+	 * @exception AccessControlException
+	 *                is thrown if client does not have enough rights
+	 */
+	public boolean addSession(final UserInterface client, final SessionInterface sessionitf)
+			throws IOException, InvalidKeyException, AccessControlException {
+
+		final UserInterface theClient = checkClient(client, UserRightEnum.INSERTSESSION);
+
+		if (theClient.getRights() == UserRightEnum.WORKER_USER) {
+			throw new AccessControlException("a worker can not send/modify a session");
+		}
+
+		final SessionInterface session = session(theClient, sessionitf.getUID());
+		if (session != null) {
+			update(theClient, UserRightEnum.INSERTSESSION, session);
+			return true;
+		}
+		if (sessionitf.getUID() == null) {
+			UID uid = new UID();
+			sessionitf.setUID(uid);
+			uid = null;
+		}
+		if (sessionitf.getOwner() == null) {
+			sessionitf.setOwner(theClient.getUID());
+		}
+
+		insert(sessionitf);
+
+		return true;
+	}
+
+	/**
+	 * This adds/updates a template in DB. A new template is immediately
+	 * expanded up to the template window
+	 *
+	 * @param client
+	 *            describes the requesting client
+	 * @param templateitf
+	 *            describes the template to insert in DB
+	 * @return true on success
+	 * @exception IOException
+	 *                is thrown on DB access or I/O error
+	 * @exception InvalidKeyException
+	 *                is thrown on client integrity error (user unknown, bad
+	 *                password...)
+	 * @exception AccessControlException
+	 *                is thrown if client does not have enough rights
+	 * @see #expandTemplate(TemplateInterface)
+	 * @since 10.6.0
+	 */
+	public boolean addTemplate(final UserInterface client, final TemplateInterface templateitf)
+			throws IOException, InvalidKeyException, AccessControlException {
+
+		final UserInterface theClient = checkClient(client, UserRightEnum.INSERTJOB);
+
+		if (theClient.getRights() == UserRightEnum.WORKER_USER) {
+			throw new AccessControlException("a worker can not send/modify a template");
+		}
+
+		final TemplateInterface template = template(theClient, templateitf.getUID());
+		if (template != null) {
+			template.updateInterface(templateitf);
+			update(theClient, UserRightEnum.INSERTJOB, template);
+			return true;
+		}
+
+		final UID appUID = templateitf.getApplication();
+		if (appUID == null) {
+			throw new IOException("addTemplate() : template defines no app ?!?");
+		}
+		final AppInterface theApp = app(theClient, appUID);
+		if (theApp == null) {
+			throw new IOException("addTemplate() : app not found " + appUID);
+		}
+		final UserInterface appOwner = user(theApp.getOwner());
+		if (appOwner == null) {
+			throw new IOException("addTemplate() : app has no owner " + appUID);
+		}
+		if (!theApp.canExec(theClient, appOwner.getGroup())
+				&& (theClient.getRights().lowerThan(UserRightEnum.SUPER_USER))) {
+			throw new IOException(
+					"addTemplate() : " + client.getLogin() + " don't have rights to submit job for app " + appUID);
+		}
+		if ((templateitf.getParamURI() == null) && (templateitf.getParamTo() < templateitf.getParamFrom())) {
+			throw new IOException("addTemplate() : empty parameter range");
+		}
+
+		if (templateitf.getUID() == null) {
+			templateitf.setUID(new UID());
+		}
+		if (templateitf.getOwner() == null) {
+			templateitf.setOwner(theClient.getUID());
+		}
+		templateitf.setStatus(StatusEnum.PENDING);
+		templateitf.setNextParam(templateitf.getNextParam());
+		templateitf.setExpandedJobs(0);
+		templateitf.setCompletedJobs(0);
+		templateitf.setErrorJobs(0);
+
+		insert(templateitf);
+
+		expandTemplate(templateitf);
+		return true;
+	}
+
+	/**
+	 * This inserts a dependency between two works in DB. The client must be
+	 * able to read both works, the consumer work must not be scheduled yet
+	 * and the producer work must not be erroneous. If the producer work is not completed yet, the consumer work is
+	 * set to WAITING until the producer work is completed
 	 *
 	 * @param client
 	 *            describes the requesting client
-	 * @param sessionitf
-	 *            describes the session to insert in DB
-	 * @return true on success; false on DB error or if session already exists
-	 *         in DB
+	 * @param depitf
+	 *            describes the dependency to insert in DB
+	 * @return true on success
 	 * @exception IOException
 	 *                is thrown on DB access or I/O error
 	 * @exception InvalidKeyException
@@ -4233,32 +5261,64 @@ public final class DBInterface {
 	 *                password...)
 	 * @exception AccessControlException
 	 *                is thrown if client does not have enough rights
+	 * @see #dependencyDone(WorkInterface, UID)
+	 * @since 10.6.0
 	 */
-	public boolean addSession(final UserInterface client, final SessionInterface sessionitf)
+	public boolean addDependency(final UserInterface client, final DependencyInterface depitf)
 			throws IOException, InvalidKeyException, AccessControlException {
 
-		final UserInterface theClient = checkClient(client, UserRightEnum.INSERTSESSION);
+		final UserInterface theClient = checkClient(client, UserRightEnum.INSERTJOB);
 
 		if (theClient.getRights() == UserRightEnum.WORKER_USER) {
-			throw new AccessControlException("a worker can not send/modify a session");
+			throw new AccessControlException("a worker can not send a dependency");
 		}
 
-		final SessionInterface session = session(theClient, sessionitf.getUID());
-		if (session != null) {
-			update(theClient, UserRightEnum.INSERTSESSION, session);
-			return true;
+		final WorkInterface consumer = work(theClient, depitf.getWork());
+		if (consumer == null) {
+			throw new IOException("addDependency() : consumer work not found " + depitf.getWork());
 		}
-		if (sessionitf.getUID() == null) {
-			UID uid = new UID();
-			sessionitf.setUID(uid);
-			uid = null;
+		final WorkInterface producer = work(theClient, depitf.getProducer());
+		if (producer == null) {
+			throw new IOException("addDependency() : producer work not found " + depitf.getProducer());
 		}
-		if (sessionitf.getOwner() == null) {
-			sessionitf.setOwner(theClient.getUID());
+		if (consumer.getUID().equals(producer.getUID())) {
+			throw new IOException("addDependency() : a work can not depend on itself");
+		}
+		final StatusEnum status = consumer.getStatus();
+		if ((status != StatusEnum.PENDING) && (status != StatusEnum.WAITING)) {
+			throw new IOException("addDependency() : consumer work already scheduled " + consumer.getUID());
+		}
+		if ((producer.getStatus() == StatusEnum.ERROR) || (producer.getStatus() == StatusEnum.ABORTED)) {
+			throw new IOException("addDependency() : producer work failed " + producer.getUID());
 		}
 
-		insert(sessionitf);
+		if (depitf.getUID() == null) {
+			depitf.setUID(new UID());
+		}
+		if (depitf.getOwner() == null) {
+			depitf.setOwner(theClient.getUID());
+		}
+		depitf.setReleased(producer.getStatus() == StatusEnum.COMPLETED);
+		insert(depitf);
+
+		if (depitf.isReleased() || (status != StatusEnum.PENDING)) {
+			return true;
+		}
 
+		final Collection<Table> rows = new Vector<>();
+		final AppInterface theApp = app(consumer.getApplication());
+		if (theApp != null) {
+			theApp.decPendingJobs();
+			countersChanged(rows, theApp);
+		}
+		final UserInterface consumerOwner = user(consumer.getOwner());
+		if (consumerOwner != null) {
+			consumerOwner.decPendingJobs();
+			countersChanged(rows, consumerOwner);
+		}
+		consumer.setWaiting();
+		rows.add(consumer);
+		update(rows);
 		return true;
 	}
 
@@ -4375,7 +5435,7 @@ public final class DBInterface {
 						case DATAREQUEST:
 						case RUNNING:
 							theHost.decRunningJobs();
-							updateRows.add(theHost);
+							countersChanged(updateRows, theHost);
 							break;
 						}
 					}
@@ -4414,10 +5474,12 @@ public final class DBInterface {
 		deleteJobs(theClient, replicasUID(theClient, theWork.getUID()));
 
 		delete(theClient, theWork);
+		workStatusChanged(theWork, theWork.getStatus(), null);
+		dependencyDone(theWork, null);
 
-		updateRows.add(theExpectedHost);
-		updateRows.add(theClient);
-		updateRows.add(theApp);
+		countersChanged(updateRows, theExpectedHost);
+		countersChanged(updateRows, theClient);
+		countersChanged(updateRows, theApp);
 		update(updateRows);
 
 		return true;
@@ -4612,6 +5674,14 @@ public final class DBInterface {
 						throw new IOException(
 								client.getLogin() + " work " + jobUID + " has no task run by " + _host.getUID());
 					}
+					if (theTask.isAborted()) {
+						logger.info(client.getLogin() + " work " + jobUID + " : ignoring update of aborted task "
+								+ theTask.getUID());
+						return theWork;
+					}
+					if (stopSpeculativeTask(theWork, theTask, theHost, job.getStatus())) {
+						return theWork;
+					}
 				}
 
 				if ((theWork.getMinMemory() == 0) || (theWork.getMinMemory() < theApp.getMinMemory())) {
@@ -4650,9 +5720,12 @@ public final class DBInterface {
 					logger.warn(e.getMessage());
 				}
 
+				final StatusEnum previous = theWork.getStatus();
 				theWork.updateInterface(job);
 
 				final Vector<Table> rows = new Vector<>();
+				// true if the app, owner and host execution statistics have changed
+				boolean executed = false;
 
 				logger.debug(delegatedClient.getLogin() + " is updating " + theWork.getUID() + " status = "
 						+ job.getStatus());
@@ -4672,6 +5745,7 @@ public final class DBInterface {
 					break;
 				case ABORTED:
 					theWork.setPending();
+					pin(theWork);
 					if (theTask != null) {
 						theTask.setPending();
 					}
@@ -4685,6 +5759,7 @@ public final class DBInterface {
 							theHost.incPendingJobs();
 						}
 					}
+					activateFairShare(theWork, jobOwner);
 					break;
 				case COMPLETED:
 
@@ -4704,26 +5779,25 @@ public final class DBInterface {
 							}
 							jobOwner.incUsedcputime(exectime);
 							theApp.incAvgExecTime(exectime);
+							executed = true;
+							final Scheduler scheduler = Dispatcher.getScheduler();
+							if (scheduler != null) {
+								abortOtherTasks(theWork, theTask, rows);
+								scheduler.completed(theWork, exectime);
+							}
 						}
 						theTask.setCompleted();
 					}
 					final UID originalUid = theWork.getReplicatedUid();
 					if (originalUid != null) {
-						synchronized (this) {
+						synchronized (replicaLocks.get(originalUid)) {
 							final WorkInterface replicatedWork = work(originalUid);
-							final int expectedReplications = replicatedWork.getExpectedReplications();
-							final int currentReplications = replicatedWork.getTotalReplica();
-							if ((currentReplications < expectedReplications) || (expectedReplications < 0)) {
-								logger.debug(delegatedClient.getLogin() + " " + originalUid
-										+ " still has replications ; currently " + currentReplications + " ; expected "
-										+ expectedReplications);
-								final WorkInterface newWork = new WorkInterface(replicatedWork);
-								newWork.setUID(new UID());
-								newWork.replicate(originalUid);
-								newWork.setTotalReplica(0);
-								newWork.setReplicaSetSize(0);
-								newWork.setExpectedReplications(0);
-
+							final StatusEnum replicatedStatus = replicatedWork.getStatus();
+							final WorkInterface newWork = nextReplica(replicatedWork);
+							if (newWork != null) {
+								logger.debug(delegatedClient.getLogin() + " " + originalUid + " replicated to "
+										+ newWork.getUID() + " ; now " + replicatedWork.getTotalReplica()
+										+ " ; expected " + replicatedWork.getExpectedReplications());
 								theApp.incPendingJobs();
 								jobOwner.incPendingJobs();
 								if (hostUID.equals(theWork.getExpectedHost())) {
@@ -4732,13 +5806,12 @@ public final class DBInterface {
 
 								insert(newWork);
 								rows.add(newWork);
-								replicatedWork.incTotalReplica();
-							}
-							replicatedWork.setReplicating();
-							if (currentReplications >= replicatedWork.getTotalReplica()) {
-								replicatedWork.setCompleted();
 							}
-							rows.add(replicatedWork);
+							workStatusChanged(replicatedWork, replicatedStatus);
+							// the replicated work may not be cached : it is
+							// written before the lock is released, so that the
+							// next completion reads it up to date
+							transaction("replicate", Collections.singleton(replicatedWork));
 						}
 					} else {
 						final int expectedReplications = theWork.getExpectedReplications();
@@ -4763,18 +5836,42 @@ public final class DBInterface {
 					}
 					break;
 				}
+				workStatusChanged(theWork, previous);
+
+				if ((theWork.getStatus() != StatusEnum.RUNNING) && !theWork.isDataRequest()
+						&& !theWork.isResultRequest() && (Dispatcher.getScheduler() != null)) {
+					Dispatcher.getScheduler().removed(theWork.getUID());
+				}
 
 				if (theTask != null) {
+					final TaskSet tset = Dispatcher.getTaskSet();
+					if (tset != null) {
+						if (theTask.isRunning() || theTask.isDataRequest() || theTask.isResultRequest()) {
+							tset.renewLease(theTask);
+						} else {
+							tset.cancelLease(theTask.getUID());
+						}
+					}
 					rows.add(theTask);
 				}
 				rows.add(theWork);
-				rows.add(theApp);
-				rows.add(jobOwner);
-				if (theHost != null) {
-					rows.add(theHost);
+				if (executed) {
+					rows.add(theApp);
+					rows.add(jobOwner);
+					if (theHost != null) {
+						rows.add(theHost);
+					}
+				} else {
+					countersChanged(rows, theApp);
+					countersChanged(rows, jobOwner);
+					countersChanged(rows, theHost);
 				}
 				sendMail(jobOwner, theWork, delegatedClient.getLogin() + " has updated ");
-				update(rows);
+				transaction("workUpdate", rows);
+				if ((theWork.getStatus() == StatusEnum.COMPLETED) || (theWork.getStatus() == StatusEnum.ERROR)) {
+					templateDone(theWork);
+					dependencyDone(theWork, theHost == null ? null : theHost.getUID());
+				}
 			} else {
 				throw new AccessControlException(client.getLogin() + " can't update " + jobUID);
 			}
@@ -4836,17 +5933,620 @@ public final class DBInterface {
 
 				rows.add(newWork);
 				theClient.incPendingJobs();
+				activateFairShare(newWork, theClient);
 			}
 
-			rows.add(theClient);
+			countersChanged(rows, theClient);
 			theApp.incPendingJobs();
-			rows.add(theApp);
+			countersChanged(rows, theApp);
 			update(rows);
 		}
 
 		return theWork;
 	}
 
+	/**
+	 * This inserts a set of new works at once. Client rights are checked once,
+	 * each distinct application is checked once and all works are inserted in
+	 * a single DB transaction; counters are then updated once per batch. Works
+	 * must be new : a work UID already in DB aborts the whole insertion. Works
+	 * expecting replications are inserted one by one using addWork(), after
+	 * the applications and rights of all works have been checked and the
+	 * other works have been inserted
+	 *
+	 * @param client
+	 *            describes the requesting client
+	 * @param jobs
+	 *            are the works to insert
+	 * @return the UIDs of the inserted works, in jobs order
+	 * @exception IOException
+	 *                is thrown on DB access or I/O error; then no work has been
+	 *                inserted, unless the error comes from the insertion of a
+	 *                work expecting replications
+	 * @exception InvalidKeyException
+	 *                is thrown on credential error
+	 * @exception AccessControlException
+	 *                is thrown on access rights violation
+	 * @see #addWork(UserInterface, HostInterface, WorkInterface)
+	 * @see DBConnPoolThread#insert(Collection)
+	 * @since 10.6.0
+	 */
+	public Vector<UID> addWorks(final UserInterface client, final Collection<WorkInterface> jobs)
+			throws IOException, InvalidKeyException, AccessControlException {
+
+		final UserInterface theClient = checkClient(client, UserRightEnum.INSERTJOB);
+		if (theClient.getRights() == UserRightEnum.WORKER_USER) {
+			throw new AccessControlException("a worker can not insert a new work");
+		}
+
+		final Vector<UID> ret = new Vector<>();
+		if ((jobs == null) || jobs.isEmpty()) {
+			return ret;
+		}
+
+		final Hashtable<UID, AppInterface> apps = new Hashtable<>();
+		final Hashtable<UID, Integer> appJobs = new Hashtable<>();
+		final Vector<WorkInterface> newWorks = new Vector<>();
+		final Vector<WorkInterface> replicated = new Vector<>();
+		final Vector<WorkInterface> ordered = new Vector<>();
+
+		for (final WorkInterface job : jobs) {
+
+			final UID appUID = job.getApplication();
+			if (appUID == null) {
+				throw new IOException("addWorks() : job defines no app ?!?");
+			}
+
+			AppInterface theApp = apps.get(appUID);
+			if (theApp == null) {
+				theApp = app(theClient, appUID);
+				if (theApp == null) {
+					throw new IOException("addWorks() : app not found " + appUID);
+				}
+				final UserInterface appOwner = user(theApp.getOwner());
+				if (appOwner == null) {
+					throw new IOException("addWorks() : app has no owner " + appUID);
+				}
+				if (!theApp.canExec(theClient, appOwner.getGroup())
+						&& (theClient.getRights().lowerThan(UserRightEnum.SUPER_USER))) {
+					throw new IOException("addWorks() : " + client.getLogin()
+							+ " don't have rights to submit job for app " + appUID);
+				}
+				apps.put(appUID, theApp);
+				appJobs.put(appUID, 0);
+			}
+
+			if (job.getExpectedReplications() != 0) {
+				if (job.getUID() == null) {
+					job.setUID(new UID());
+				}
+				replicated.add(job);
+				ordered.add(job);
+				continue;
+			}
+
+			final WorkInterface newWork = new WorkInterface(job);
+			if (newWork.getOwner() == null) {
+				newWork.setOwner(theClient.getUID());
+			}
+			setNewWork(newWork, theApp);
+
+			newWorks.add(newWork);
+			ordered.add(newWork);
+			appJobs.put(appUID, appJobs.get(appUID) + 1);
+		}
+
+		if (!newWorks.isEmpty()) {
+			DBConnPoolThread.getInstance().insert(newWorks);
+
+			for (final WorkInterface newWork : newWorks) {
+				putToCache(newWork);
+				pin(newWork);
+				workStatusChanged(newWork, null);
+				useData(theClient, newWork.getResult());
+				useData(theClient, newWork.getStdin());
+				useData(theClient, newWork.getDirin());
+				activateFairShare(newWork, theClient);
+			}
+
+			final Vector<Table> rows = new Vector<>();
+			theClient.addPendingJobs(newWorks.size());
+			countersChanged(rows, theClient);
+			for (final Map.Entry<UID, Integer> entry : appJobs.entrySet()) {
+				if (entry.getValue() == 0) {
+					continue;
+				}
+				final AppInterface theApp = apps.get(entry.getKey());
+				theApp.addPendingJobs(entry.getValue());
+				countersChanged(rows, theApp);
+			}
+			update(rows);
+		}
+
+		for (final WorkInterface job : replicated) {
+			addWork(theClient, null, job);
+		}
+
+		for (final WorkInterface work : ordered) {
+			ret.add(work.getUID());
+		}
+
+		logger.debug(theClient.getLogin() + " has inserted " + ret.size() + " works");
+		return ret;
+	}
+
+	/**
+	 * This sets a new work pending, before it is inserted in DB with
+	 * DBConnPoolThread#insert(Collection)
+	 *
+	 * @param newWork
+	 *            is the new work; its owner must be set
+	 * @param theApp
+	 *            is the application of the new work
+	 * @since 10.6.0
+	 */
+	private void setNewWork(final WorkInterface newWork, final AppInterface theApp) throws IOException {
+		if (newWork.getUID() == null) {
+			newWork.setUID(new UID());
+		}
+		newWork.setService(theApp.isService());
+		final XWAccessRights jobRights = (newWork.getAccessRights() == null ? XWAccessRights.DEFAULT
+				: newWork.getAccessRights());
+		newWork.setAccessRights(new XWAccessRights(jobRights.value() & theApp.getAccessRights().value()));
+		newWork.setReplicatedUid(null);
+		newWork.setTotalReplica(0);
+		newWork.setPending();
+		newWork.setArrivalDate(new java.util.Date());
+		newWork.setActive(true);
+		if ((newWork.getMinMemory() == 0) || (newWork.getMinMemory() > theApp.getMinMemory())) {
+			newWork.setMinMemory(theApp.getMinMemory());
+		}
+		if ((newWork.getMinCpuSpeed() == 0) || (newWork.getMinCpuSpeed() > theApp.getMinCpuSpeed())) {
+			newWork.setMinCpuSpeed(theApp.getMinCpuSpeed());
+		}
+		if ((newWork.getDiskSpace() == 0) || (newWork.getDiskSpace() > theApp.getMinFreeMassStorage())) {
+			newWork.setDiskSpace(theApp.getMinFreeMassStorage());
+		}
+	}
+
+	/**
+	 * This expands all pending templates. This is periodically called by the
+	 * task set so that templates are expanded again even if none of their
+	 * works has completed recently
+	 *
+	 * @see #expandTemplate(TemplateInterface)
+	 * @see HashTaskSet#refill()
+	 * @since 10.6.0
+	 */
+	public void expandTemplates() {
+		try {
+			final Collection<TemplateInterface> templates = pendingTemplates();
+			if (templates == null) {
+				return;
+			}
+			for (final TemplateInterface t : templates) {
+				expandTemplate(t);
+			}
+		} catch (final Exception e) {
+			logger.exception("can't expand templates", e);
+		}
+	}
+
+	/**
+	 * This expands the next works of a template, if less than half of the
+	 * template window is in flight. Works are inserted and template, owner
+	 * and application counters are updated in a single DB transaction.
+	 * Expansions of a template are serialized by template UID and read the
+	 * latest template state, from cache or DB, so that the same parameters
+	 * are never expanded twice
+	 *
+	 * @param t
+	 *            is the template to expand
+	 * @return the amount of expanded works
+	 * @exception IOException
+	 *                is thrown on DB access or I/O error
+	 * @see XWPropertyDefs#TEMPLATEWINDOW
+	 * @since 10.6.0
+	 */
+	protected int expandTemplate(final TemplateInterface t) throws IOException {
+
+		if ((t == null) || (t.getUID() == null)) {
+			return 0;
+		}
+
+		final XWConfigurator config = Dispatcher.getConfig();
+		final int window = Math.max(1, (config == null ? Integer.parseInt(XWPropertyDefs.TEMPLATEWINDOW.defaultValue())
+				: config.getInt(XWPropertyDefs.TEMPLATEWINDOW)));
+
+		synchronized (templateLocks.get(t.getUID())) {
+			final TemplateInterface latest = template(t.getUID());
+			final TemplateInterface template = (latest == null ? t : latest);
+			if (template.getStatus() != StatusEnum.PENDING) {
+				return 0;
+			}
+			if (template.isDone()) {
+				template.setStatus(StatusEnum.COMPLETED);
+				template.update();
+				return 0;
+			}
+			final int inFlight = template.getInFlightJobs();
+			if (template.isExpanded() || (inFlight > (window / 2))) {
+				return 0;
+			}
+
+			final AppInterface theApp = app(template.getApplication());
+			if (theApp == null) {
+				throw new IOException("expandTemplate() : app not found " + template.getApplication());
+			}
+			final UserInterface owner = user(template.getOwner());
+			if (owner == null) {
+				throw new IOException("expandTemplate() : template has no owner " + template.getUID());
+			}
+
+			File paramFile = null;
+			if (template.getParamURI() != null) {
+				final DataInterface paramData = data(template.getParamURI().getUID());
+				if (paramData == null) {
+					throw new IOException("expandTemplate() : parameter file not found " + template.getParamURI());
+				}
+				paramFile = paramData.getPath();
+			}
+
+			final Collection<String> params = template.nextParameters(paramFile, window - inFlight);
+			final Vector<WorkInterface> newWorks = new Vector<>(params.size());
+			for (final String param : params) {
+				final WorkInterface newWork = template.newWork(param);
+				setNewWork(newWork, theApp);
+				newWorks.add(newWork);
+			}
+
+			template.setExpandedJobs(template.getExpandedJobs() + newWorks.size());
+			if (template.isDone()) {
+				template.setStatus(StatusEnum.COMPLETED);
+			}
+
+			final Vector<Table> rows = new Vector<>();
+			rows.add(template);
+			if (!newWorks.isEmpty()) {
+				owner.addPendingJobs(newWorks.size());
+				countersChanged(rows, owner);
+				theApp.addPendingJobs(newWorks.size());
+				countersChanged(rows, theApp);
+			}
+			transaction("templateExpand", newWorks, rows);
+
+			for (final WorkInterface newWork : newWorks) {
+				workStatusChanged(newWork, null);
+				activateFairShare(newWork, owner);
+			}
+
+			logger.debug("template " + template.getUID() + " : " + newWorks.size() + " works expanded");
+			return newWorks.size();
+		}
+	}
+
+	/**
+	 * This rolls up a completed or erroneous work into its template counters
+	 * and expands the template again if needed. Counters are written
+	 * synchronously, so that they are not lost if the template is evicted
+	 * from cache and read again from DB
+	 *
+	 * @param theWork
+	 *            is the completed or erroneous work
+	 * @since 10.6.0
+	 */
+	private void templateDone(final WorkInterface theWork) {
+		final UID templateUID = theWork.getTemplate();
+		if (templateUID == null) {
+			return;
+		}
+		try {
+			final TemplateInterface template;
+			synchronized (templateLocks.get(templateUID)) {
+				template = template(templateUID);
+				if (template == null) {
+					logger.warn("template not found " + templateUID);
+					return;
+				}
+				if (theWork.getStatus() == StatusEnum.COMPLETED) {
+					template.incCompletedJobs();
+				} else {
+					template.incErrorJobs();
+				}
+				final Vector<Table> rows = new Vector<>();
+				rows.add(template);
+				transaction("templateDone", rows);
+			}
+			expandTemplate(template);
+		} catch (final Exception e) {
+			logger.exception("can't roll up a work into template " + templateUID, e);
+		}
+	}
+
+	/**
+	 * This releases the dependencies of a completed, erroneous or deleted
+	 * producer work. On completion, each consumer work which does not wait for
+	 * another producer any more is set to PENDING immediately, and routed to
+	 * the host which ran the producer if the dependency asks for it.
+	 * Otherwise, waiting consumer works are set to ERROR, and so are their own
+	 * waiting consumers
+	 *
+	 * @param theWork
+	 *            is the completed, erroneous or deleted producer work
+	 * @param hostUID
+	 *            is the UID of the host which ran the producer; may be null
+	 * @since 10.6.0
+	 */
+	protected void dependencyDone(final WorkInterface theWork, final UID hostUID) {
+		try {
+			final Collection<DependencyInterface> deps = dependencies(theWork.getUID());
+			if ((deps == null) || deps.isEmpty()) {
+				return;
+			}
+			final boolean completed = (theWork.getStatus() == StatusEnum.COMPLETED);
+			for (final DependencyInterface dep : deps) {
+				final WorkInterface consumer = work(dep.getWork());
+				if (!completed) {
+					if ((consumer != null) && consumer.isWaiting()) {
+						consumer.setError("dependency error : " + theWork.getUID());
+						update(consumer);
+						workStatusChanged(consumer, StatusEnum.WAITING);
+						dependencyDone(consumer, null);
+					}
+					continue;
+				}
+				dep.setReleased(true);
+				dep.update();
+				if (consumer == null) {
+					continue;
+				}
+				if (dep.getRoute() && (hostUID != null)) {
+					consumer.setExpectedHost(hostUID);
+				}
+				if (!consumer.isWaiting() || isBlocked(consumer)) {
+					update(consumer);
+					continue;
+				}
+				final Collection<Table> rows = new Vector<>();
+				final AppInterface theApp = app(consumer.getApplication());
+				if (theApp != null) {
+					theApp.incPendingJobs();
+					countersChanged(rows, theApp);
+				}
+				final UserInterface consumerOwner = user(consumer.getOwner());
+				if (consumerOwner != null) {
+					consumerOwner.incPendingJobs();
+					countersChanged(rows, consumerOwner);
+				}
+				consumer.setPending();
+				rows.add(consumer);
+				update(rows);
+				pin(consumer);
+				logger.debug(consumer.getUID() + " released by " + theWork.getUID());
+			}
+		} catch (final Exception e) {
+			logger.exception("can't release dependencies", e);
+		}
+	}
+
+	/**
+	 * This stops a task which has failed or has been given back by its worker
+	 * while a speculative copy of the same work is still running : only the
+	 * task is stopped, the work keeps running with the other task
+	 *
+	 * @param theWork
+	 *            is the work
+	 * @param theTask
+	 *            is the task reported by its worker
+	 * @param theHost
+	 *            is the worker running the task; may be null
+	 * @param status
+	 *            is the status reported by the worker
+	 * @return true if the task has been stopped; false if the update must be
+	 *         processed as usual
+	 * @since 10.6.0
+	 */
+	protected boolean stopSpeculativeTask(final WorkInterface theWork, final TaskInterface theTask,
+			final HostInterface theHost, final StatusEnum status) throws IOException {
+		final Scheduler scheduler = Dispatcher.getScheduler();
+		if ((scheduler == null) || ((status != StatusEnum.ERROR) && (status != StatusEnum.ABORTED))
+				|| !scheduler.getStragglers().isSpeculated(theWork.getUID())) {
+			return false;
+		}
+		final Collection<TaskInterface> tasks = tasks(theWork);
+		if (tasks == null) {
+			return false;
+		}
+		boolean otherRunning = false;
+		for (final TaskInterface task : tasks) {
+			if (!task.getUID().equals(theTask.getUID())
+					&& (task.isRunning() || task.isDataRequest() || task.isResultRequest())) {
+				otherRunning = true;
+				break;
+			}
+		}
+		if (!otherRunning) {
+			return false;
+		}
+		logger.info(theWork.getUID() + " : task " + theTask.getUID() + " stopped (" + status
+				+ "); speculative copy still running");
+		theTask.setError();
+		final TaskSet tset = Dispatcher.getTaskSet();
+		if (tset != null) {
+			tset.cancelLease(theTask.getUID());
+		}
+		final Vector<Table> rows = new Vector<>();
+		rows.add(theTask);
+		if (theHost != null) {
+			theHost.decRunningJobs();
+			if (status == StatusEnum.ERROR) {
+				theHost.incErrorJobs();
+			}
+			countersChanged(rows, theHost);
+		}
+		update(rows);
+		return true;
+	}
+
+	/**
+	 * This creates the next replica of a replicated work, if it still expects
+	 * some, and sets the replicated work status accordingly. The caller must
+	 * hold the replicaLocks stripe of the replicated work UID, so that
+	 * concurrent completions never create more replicas than expected
+	 *
+	 * @param replicatedWork
+	 *            is the replicated work
+	 * @return the new replica, not inserted yet; null if the replicated work
+	 *         has all its replicas
+	 * @see #replicaLocks
+	 * @since 10.6.0
+	 */
+	static WorkInterface nextReplica(final WorkInterface replicatedWork) throws IOException {
+		final int expectedReplications = replicatedWork.getExpectedReplications();
+		final int currentReplications = replicatedWork.getTotalReplica();
+		WorkInterface newWork = null;
+		if ((currentReplications < expectedReplications) || (expectedReplications < 0)) {
+			newWork = new WorkInterface(replicatedWork);
+			newWork.setUID(new UID());
+			newWork.replicate(replicatedWork.getUID());
+			newWork.setTotalReplica(0);
+			newWork.setReplicaSetSize(0);
+			newWork.setExpectedReplications(0);
+			replicatedWork.incTotalReplica();
+		}
+		replicatedWork.setReplicating();
+		if (currentReplications >= replicatedWork.getTotalReplica()) {
+			replicatedWork.setCompleted();
+		}
+		return newWork;
+	}
+
+	/**
+	 * This aborts the other running tasks of a speculated work, when a task
+	 * has completed. Workers running the aborted tasks are asked to stop on
+	 * their next alive signal
+	 *
+	 * @param theWork
+	 *            is the completed work
+	 * @param theTask
+	 *            is the task that completed first
+	 * @param rows
+	 *            receives the rows to update
+	 * @see TaskInterface#setAlive(UID)
+	 * @since 10.6.0
+	 */
+	private void abortOtherTasks(final WorkInterface theWork, final TaskInterface theTask,
+			final Collection<Table> rows) throws IOException {
+		final Scheduler scheduler = Dispatcher.getScheduler();
+		if ((scheduler == null) || !scheduler.getStragglers().isSpeculated(theWork.getUID())) {
+			return;
+		}
+		final Collection<TaskInterface> tasks = tasks(theWork);
+		if (tasks == null) {
+			return;
+		}
+		final TaskSet tset = Dispatcher.getTaskSet();
+		for (final TaskInterface task : tasks) {
+			if (task.getUID().equals(theTask.getUID())
+					|| (!task.isRunning() && !task.isDataRequest() && !task.isResultRequest())) {
+				continue;
+			}
+			logger.info(theWork.getUID() + " : aborting task " + task.getUID() + " run by " + task.getHost());
+			task.setAborted();
+			if (tset != null) {
+				tset.cancelLease(task.getUID());
+			}
+			final HostInterface host = host(task.getHost());
+			if (host != null) {
+				host.decRunningJobs();
+				countersChanged(rows, host);
+			}
+			rows.add(task);
+		}
+	}
+
+	/**
+	 * This gives back a work scheduled for a work request which handler has
+	 * stopped waiting for the result : the task is stopped and, unless a
+	 * speculative copy of the work is still running, the work is pending
+	 * again
+	 *
+	 * @param theWork
+	 *            is the scheduled work
+	 * @param theTask
+	 *            is the task created for the request; if null, this is
+	 *            retrieved from the host
+	 * @param host
+	 *            is the requesting worker
+	 * @see WorkRequest#complete(WorkInterface)
+	 * @since 10.6.0
+	 */
+	protected void giveBack(final WorkInterface theWork, final TaskInterface theTask, final HostInterface host)
+			throws IOException {
+		final TaskInterface task = (theTask == null ? task(theWork, host) : theTask);
+		if (task == null) {
+			logger.warn("can't give back " + theWork.getUID() + " : no task found for " + host.getUID());
+			return;
+		}
+		if (stopSpeculativeTask(theWork, task, host, StatusEnum.ABORTED)) {
+			return;
+		}
+		logger.info(theWork.getUID() + " given back : " + host.getUID() + " request abandoned");
+		final Scheduler scheduler = Dispatcher.getScheduler();
+		if (scheduler != null) {
+			scheduler.removed(theWork.getUID());
+		}
+		final TaskSet tset = Dispatcher.getTaskSet();
+		if (tset != null) {
+			tset.cancelLease(task.getUID());
+		}
+		final UserInterface jobOwner = user(theWork.getOwner());
+		final AppInterface theApp = app(theWork.getApplication());
+		final Vector<Table> rows = new Vector<>();
+		if (theApp != null) {
+			theApp.decRunningJobs();
+			theApp.incPendingJobs();
+			countersChanged(rows, theApp);
+		}
+		if (jobOwner != null) {
+			jobOwner.decRunningJobs();
+			jobOwner.incPendingJobs();
+			countersChanged(rows, jobOwner);
+		}
+		host.decRunningJobs();
+		countersChanged(rows, host);
+
+		final StatusEnum previous = theWork.getStatus();
+		theWork.setPending();
+		task.setError();
+		task.setRemovalDate(new Date());
+		rows.add(task);
+		rows.add(theWork);
+		update(rows);
+		workStatusChanged(theWork, previous);
+		pin(theWork);
+		activateFairShare(theWork, jobOwner);
+	}
+
+	/**
+	 * This tells the scheduler fair share queue that the owner of the given
+	 * work has a pending work
+	 *
+	 * @param theWork
+	 *            is the pending work
+	 * @param owner
+	 *            is the work owner, used to retrieve its user group
+	 * @since 10.6.0
+	 */
+	protected void activateFairShare(final WorkInterface theWork, final UserInterface owner) {
+		final Scheduler scheduler = Dispatcher.getScheduler();
+		if ((scheduler == null) || (theWork == null)) {
+			return;
+		}
+		scheduler.getFairShare().activate(theWork.getOwner(), (owner == null ? null : owner.getGroup()),
+				theWork.getPriority());
+	}
+
 	/**
 	 * This retrieves a job status
 	 *
@@ -23,6 +23,7 @@
 
 package xtremweb.dispatcher;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Iterator;
@@ -33,6 +34,7 @@ import org.eclipse.jetty.server.session.SessionHandler;
 import xtremweb.common.CommandLineOptions;
 import xtremweb.common.CommandLineParser;
 import xtremweb.common.CommonVersion;
+import xtremweb.common.JobCounters;
 import xtremweb.common.Logger;
 import xtremweb.common.XWConfigurator;
 import xtremweb.common.XWPropertyDefs;
@@ -71,6 +73,12 @@ public class Dispatcher {
 
 	/** Scheduling policy */
 	private static Scheduler scheduler;
+	/**
+	 * This gathers concurrent work requests; null if disabled
+	 *
+	 * @since 10.6.0
+	 */
+	private static WorkRequestBatcher batcher;
 
 	/**
 	 * This aims to validate an X509 certificate against certificate paths
@@ -135,18 +143,7 @@ public class Dispatcher {
 	 */
 	public void go() throws Exception {
 
-		timer = new Timer();
-
-		db = new DBInterface(config);
-
-		tset = new HashTaskSet();
-		try {
-			setScheduler(
-					(Scheduler) (Class.forName(getConfig().getProperty(XWPropertyDefs.SCHEDULERCLASS)).newInstance()));
-		} catch (final Exception e) {
-			logger.exception(e);
-			logger.fatal(e.toString());
-		}
+		startScheduling(logger);
 
 		try {
 			setProxyValidator(new X509ProxyValidator());
@@ -168,16 +165,6 @@ public class Dispatcher {
 			logger.exception("Can't create PEMPublicKeyValidator", e);
 		}
 
-		tset.start();
-		try {
-			while (!tset.isReady()) {
-				Thread.sleep(1000);
-				logger.info("still waiting task set...");
-			}
-		} catch (final Exception e) {
-			logger.error("exception while waiting task set...");
-		}
-
 		try {
 
 			@SuppressWarnings("unused")
@@ -250,7 +237,50 @@ public class Dispatcher {
 		getConfig().dump(System.out, "XWHEP Dispatcher started ");
 	}
 
+	/**
+	 * This creates the DB interface, the task set and the scheduler, and waits
+	 * for the task set to be ready. This is all what is needed to schedule
+	 * works without communication layer
+	 *
+	 * @param logger
+	 *            is the logger to use
+	 * @since 10.6.0
+	 * @see SchedulingSimulator
+	 */
+	static void startScheduling(final Logger logger) throws IOException {
+
+		timer = new Timer();
+
+		db = new DBInterface(config);
+
+		tset = new HashTaskSet();
+		try {
+			setScheduler(
+					(Scheduler) (Class.forName(getConfig().getProperty(XWPropertyDefs.SCHEDULERCLASS)).newInstance()));
+		} catch (final Exception e) {
+			logger.exception(e);
+			logger.fatal(e.toString());
+		}
+
+		final long window = getConfig().getLong(XWPropertyDefs.WORKREQUESTWINDOW);
+		if (window > 0) {
+			batcher = new WorkRequestBatcher(window);
+			batcher.start();
+		}
+
+		tset.start();
+		try {
+			while (!tset.isReady()) {
+				Thread.sleep(1000);
+				logger.info("still waiting task set...");
+			}
+		} catch (final Exception e) {
+			logger.error("exception while waiting task set...");
+		}
+	}
+
 	public static void shutdown() {
+		JobCounters.flush();
 		db.unlockWorks(XWTools.getLocalHostName());
 		System.exit(XWReturnCode.SUCCESS.ordinal());
 	}
@@ -275,6 +305,22 @@ public class Dispatcher {
 		Dispatcher.config = config;
 	}
 
+	/**
+	 * @return the task set
+	 * @since 10.6.0
+	 */
+	public static TaskSet getTaskSet() {
+		return tset;
+	}
+
+	/**
+	 * @return the timer
+	 * @since 10.6.0
+	 */
+	public static Timer getTimer() {
+		return timer;
+	}
+
 	/**
 	 * @return the scheduler
 	 */
@@ -282,6 +328,16 @@ public class Dispatcher {
 		return scheduler;
 	}
 
+	/**
+	 * @return the work requests batcher; null if work requests are not
+	 *         gathered into scheduling rounds
+	 * @see XWPropertyDefs#WORKREQUESTWINDOW
+	 * @since 10.6.0
+	 */
+	public static WorkRequestBatcher getWorkRequestBatcher() {
+		return batcher;
+	}
+
 	/**
 	 * @param scheduler
 	 *            the scheduler to set
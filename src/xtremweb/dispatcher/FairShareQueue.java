@@ -0,0 +1,326 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.dispatcher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import xtremweb.common.LatencyHistogram;
+import xtremweb.common.Logger;
+import xtremweb.common.UID;
+
+/**
+ * This implements a start time fair queuing among work owners.<br />
+ * Each owner having pending works is a flow with a weight (see
+ * XWPropertyDefs#FAIRSHAREWEIGHTS). Each time a work is scheduled, the owner
+ * finish tag is increased by 1/weight, so that owners are served in
+ * proportion of their weights whatever the amount of works they have
+ * submitted. This only orders owners; this also keeps the highest priority of
+ * each owner pending works so that the scheduler can select these first.<br />
+ * This also records the queue wait of scheduled works, per owner.
+ *
+ * @since 10.6.0
+ */
+public class FairShareQueue {
+
+	/**
+	 * This is the default weight
+	 */
+	public static final double DEFAULTWEIGHT = 1d;
+
+	/**
+	 * This is a work owner flow
+	 */
+	private static final class Flow {
+		private final UID owner;
+		private double weight;
+		private double finish;
+		private boolean active;
+		private int priority;
+		private final LatencyHistogram wait;
+
+		private Flow(final UID o) {
+			owner = o;
+			weight = DEFAULTWEIGHT;
+			finish = 0d;
+			active = false;
+			priority = 0;
+			wait = new LatencyHistogram();
+		}
+	}
+
+	private final Logger logger;
+	/**
+	 * These are the configured weights, indexed by user or user group UID
+	 */
+	private final Map<UID, Double> weights;
+	/**
+	 * These are the flows, indexed by owner UID
+	 */
+	private final Map<UID, Flow> flows;
+	/**
+	 * This is the virtual time : the start tag of the last served flow
+	 */
+	private double virtualTime;
+
+	/**
+	 * This calls this(null)
+	 */
+	public FairShareQueue() {
+		this(null);
+	}
+
+	/**
+	 * @param w
+	 *            is a comma separated list of "uid:weight"; may be null
+	 * @see xtremweb.common.XWPropertyDefs#FAIRSHAREWEIGHTS
+	 */
+	public FairShareQueue(final String w) {
+		logger = new Logger(this);
+		weights = new HashMap<>();
+		flows = new HashMap<>();
+		virtualTime = 0d;
+		if (w == null) {
+			return;
+		}
+		for (final String entry : w.split(",")) {
+			final String[] tokens = entry.trim().split(":");
+			if (tokens.length != 2) {
+				continue;
+			}
+			try {
+				final double weight = Double.parseDouble(tokens[1].trim());
+				if (weight > 0) {
+					weights.put(new UID(tokens[0].trim()), Double.valueOf(weight));
+				}
+			} catch (final Exception e) {
+				logger.warn("invalid fair share weight : " + entry);
+			}
+		}
+	}
+
+	/**
+	 * This retrieves the weight of an owner
+	 *
+	 * @param owner
+	 *            is the owner UID
+	 * @param group
+	 *            is the owner group UID; may be null
+	 */
+	private double weight(final UID owner, final UID group) {
+		Double ret = weights.get(owner);
+		if ((ret == null) && (group != null)) {
+			ret = weights.get(group);
+		}
+		return (ret == null ? DEFAULTWEIGHT : ret.doubleValue());
+	}
+
+	/**
+	 * This retrieves the flow of the given owner, creating it if needed
+	 */
+	private Flow flow(final UID owner) {
+		Flow ret = flows.get(owner);
+		if (ret == null) {
+			ret = new Flow(owner);
+			flows.put(owner, ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * This retrieves the start tag of the next work of the given flow
+	 */
+	private double startTag(final Flow f) {
+		return Math.max(virtualTime, f.finish);
+	}
+
+	/**
+	 * This marks an owner as having pending works
+	 *
+	 * @param owner
+	 *            is the owner UID
+	 * @param group
+	 *            is the owner group UID; may be null
+	 * @param priority
+	 *            is the priority of the pending work
+	 */
+	public synchronized void activate(final UID owner, final UID group, final int priority) {
+		if (owner == null) {
+			return;
+		}
+		final Flow f = flow(owner);
+		f.weight = weight(owner, group);
+		if (!f.active) {
+			f.finish = startTag(f);
+			f.active = true;
+			f.priority = priority;
+		} else {
+			f.priority = Math.max(f.priority, priority);
+		}
+	}
+
+	/**
+	 * This sets the owners having pending works; all others are deactivated.
+	 * This resets the priority of the retained owners; activate() should then
+	 * be called for each of them
+	 *
+	 * @param owners
+	 *            contains the UID of the owners having pending works
+	 */
+	public synchronized void retain(final Collection<UID> owners) {
+		final Set<UID> pending = new HashSet<>();
+		if (owners != null) {
+			pending.addAll(owners);
+		}
+		for (final Flow f : flows.values()) {
+			if (!pending.contains(f.owner)) {
+				f.active = false;
+			}
+		}
+		for (final UID owner : pending) {
+			final Flow f = flow(owner);
+			f.priority = 0;
+			if (!f.active) {
+				f.finish = startTag(f);
+				f.active = true;
+			}
+		}
+	}
+
+	/**
+	 * This retrieves owners having pending works, by scheduling order
+	 *
+	 * @param max
+	 *            is the max amount of expected owners
+	 * @return a list of owner UID, the first to be served first
+	 */
+	public synchronized List<UID> order(final int max) {
+		final List<Flow> active = new ArrayList<>();
+		for (final Flow f : flows.values()) {
+			if (f.active) {
+				active.add(f);
+			}
+		}
+		Collections.sort(active, new Comparator<Flow>() {
+			@Override
+			public int compare(final Flow a, final Flow b) {
+				final int ret = Double.compare(startTag(a), startTag(b));
+				if (ret != 0) {
+					return ret;
+				}
+				return Double.compare(b.weight, a.weight);
+			}
+		});
+		final List<UID> ret = new ArrayList<>();
+		for (int i = 0; (i < active.size()) && (i < max); i++) {
+			ret.add(active.get(i).owner);
+		}
+		return ret;
+	}
+
+	/**
+	 * This retrieves the highest priority of the pending works of an owner, as
+	 * known since the last retain()
+	 *
+	 * @return the highest known priority; 0 if unknown
+	 */
+	public synchronized int priority(final UID owner) {
+		final Flow f = flows.get(owner);
+		return (f == null ? 0 : f.priority);
+	}
+
+	/**
+	 * This must be called when no pending work of an owner has been found.
+	 * If a priority is given, only the known priority of the owner is reset,
+	 * so that its works are then looked up whatever their priority; otherwise
+	 * the owner is deactivated until activate() or retain() is called
+	 *
+	 * @param owner
+	 *            is the owner UID
+	 * @param priority
+	 *            is the priority of the works looked up; 0 if any
+	 */
+	public synchronized void missed(final UID owner, final int priority) {
+		final Flow f = (owner == null ? null : flows.get(owner));
+		if (f == null) {
+			return;
+		}
+		if (priority > 0) {
+			f.priority = 0;
+		} else {
+			f.active = false;
+		}
+	}
+
+	/**
+	 * This must be called when a work has been scheduled
+	 *
+	 * @param owner
+	 *            is the work owner UID
+	 * @param wait
+	 *            is the time the work has waited in queue, in milliseconds
+	 */
+	public synchronized void served(final UID owner, final long wait) {
+		if (owner == null) {
+			return;
+		}
+		final Flow f = flow(owner);
+		final double start = startTag(f);
+		virtualTime = start;
+		f.finish = start + (1d / f.weight);
+		f.active = true;
+		f.wait.record(wait);
+	}
+
+	/**
+	 * This retrieves the queue wait histogram of the given owner
+	 *
+	 * @return the histogram, or null if this owner has never been served
+	 */
+	public synchronized LatencyHistogram waits(final UID owner) {
+		final Flow f = flows.get(owner);
+		return (f == null ? null : f.wait);
+	}
+
+	/**
+	 * This retrieves a summary of this queue, one line per owner
+	 */
+	@Override
+	public synchronized String toString() {
+		final StringBuilder ret = new StringBuilder();
+		for (final Flow f : flows.values()) {
+			ret.append("owner=" + f.owner + " weight=" + f.weight + " active=" + f.active + " priority="
+					+ f.priority + " wait(ms): "
+					+ f.wait.toString() + "\n");
+		}
+		return ret.toString();
+	}
+}
@@ -26,6 +26,7 @@ package xtremweb.dispatcher;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PrintWriter;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.Socket;
@@ -53,6 +54,8 @@ import xtremweb.common.UserInterface;
 import xtremweb.common.Version;
 import xtremweb.common.XMLable;
 import xtremweb.common.XWConfigurator;
+import xtremweb.database.DBConnPoolThread;
+import xtremweb.database.QueryStats;
 
 /**
  * This handles HTTP request to /stats/
@@ -80,6 +83,38 @@ public class HTTPStatsHandler extends xtremweb.dispatcher.CommHandler {
 
 	public static final String PATH = "/stats";
 
+	/**
+	 * This is the path, relative to PATH, to retrieve the scheduler queue
+	 * statistics as plain text
+	 *
+	 * @since 10.6.0
+	 */
+	public static final String QUEUESPATH = "/queues";
+
+	/**
+	 * This is the path, relative to PATH, to retrieve the works counts by
+	 * status as plain text
+	 *
+	 * @since 10.6.0
+	 */
+	public static final String WORKSPATH = "/works";
+
+	/**
+	 * This is the path, relative to PATH, to retrieve the SQL statements
+	 * statistics and the slow statements as plain text
+	 *
+	 * @since 10.6.0
+	 */
+	public static final String QUERIESPATH = "/queries";
+
+	/**
+	 * This is the path, relative to PATH, to retrieve the object cache
+	 * statistics as plain text
+	 *
+	 * @since 10.6.0
+	 */
+	public static final String CACHEPATH = "/cache";
+
 	public static final String NAME = ("HTTPStatsHandler");
 
 	/**
@@ -300,9 +335,39 @@ public class HTTPStatsHandler extends xtremweb.dispatcher.CommHandler {
 			logger.debug("Handling method         = " + request.getMethod());
 
 			logger.debug("new connection " + path);
-			response.setContentType("text/html");
 			response.setStatus(HttpServletResponse.SC_OK);
 
+			if ((path != null) && path.startsWith(QUEUESPATH)) {
+				response.setContentType("text/plain");
+				writeQueues();
+				response.getWriter().flush();
+				baseRequest.setHandled(true);
+				return;
+			}
+			if ((path != null) && path.startsWith(QUERIESPATH)) {
+				response.setContentType("text/plain");
+				writeQueries();
+				response.getWriter().flush();
+				baseRequest.setHandled(true);
+				return;
+			}
+			if ((path != null) && path.startsWith(WORKSPATH)) {
+				response.setContentType("text/plain");
+				writeWorksCounts();
+				response.getWriter().flush();
+				baseRequest.setHandled(true);
+				return;
+			}
+			if ((path != null) && path.startsWith(CACHEPATH)) {
+				response.setContentType("text/plain");
+				writeCache();
+				response.getWriter().flush();
+				baseRequest.setHandled(true);
+				return;
+			}
+
+			response.setContentType("text/html");
+
 			InputStream reader = null;
 
 			reader = getClass().getClassLoader().getResourceAsStream(RES_SERVERSTATSHTML);
@@ -329,6 +394,73 @@ public class HTTPStatsHandler extends xtremweb.dispatcher.CommHandler {
 		response.getWriter().flush();
 	}
 
+	/**
+	 * This writes the scheduler fair share queue : one line per work owner,
+	 * with its weight and its queue wait percentiles
+	 *
+	 * @since 10.6.0
+	 */
+	private void writeQueues() throws IOException {
+		final Scheduler scheduler = Dispatcher.getScheduler();
+		if (scheduler == null) {
+			return;
+		}
+		response.getWriter().print(scheduler.getFairShare().toString());
+	}
+
+	/**
+	 * This writes the SQL statements statistics : the update queue size, the
+	 * units of work statistics, then the statistics of each statement
+	 * template, the most time consuming first, then the slow statements
+	 *
+	 * @see QueryStats
+	 * @since 10.6.0
+	 */
+	private void writeQueries() throws IOException {
+		final DBConnPoolThread db = DBConnPoolThread.getInstance();
+		if (db == null) {
+			return;
+		}
+		final PrintWriter writer = response.getWriter();
+		writer.println("update queue : " + db.getUpdateQueueSize());
+		writer.println("transactions : " + db.getTransactions() + " retries=" + db.getTransactionsRetries()
+				+ " mean(ms)=" + db.getTransactionsMeanLatency());
+		if (db.isReplicaAvailable()) {
+			writer.println("replica : lag(ms)=" + db.getReplicaLag() + " reads=" + db.getReplicaReads()
+					+ " fallbacks=" + db.getReplicaFallbacks());
+		}
+		writer.println();
+		writer.print(db.getQueryStats().toString());
+	}
+
+	/**
+	 * This writes the works counts : one line per status, read from memory
+	 *
+	 * @see WorksCounts
+	 * @since 10.6.0
+	 */
+	private void writeWorksCounts() throws IOException {
+		final DBInterface db = DBInterface.getInstance();
+		if (db == null) {
+			return;
+		}
+		response.getWriter().print(db.getWorksCounts().toString());
+	}
+
+	/**
+	 * This writes the object cache statistics : one line per table
+	 *
+	 * @see ObjectCache
+	 * @since 10.6.0
+	 */
+	private void writeCache() throws IOException {
+		final DBInterface db = DBInterface.getInstance();
+		if (db == null) {
+			return;
+		}
+		response.getWriter().print(db.getCache().toString());
+	}
+
 	/**
 	 * This uploads a data to server<br />
 	 * Data must be defined on server side (i.e. sendData() must be called
@@ -23,9 +23,12 @@
 
 package xtremweb.dispatcher;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.Vector;
 
 import xtremweb.common.AppInterface;
@@ -38,6 +41,7 @@ import xtremweb.common.UserInterface;
 import xtremweb.common.WorkInterface;
 import xtremweb.common.XWPropertyDefs;
 import xtremweb.common.XWTools;
+import xtremweb.database.SQLRequestPendingOwners;
 
 /**
  * HashTaskSet.java
@@ -50,18 +54,111 @@ import xtremweb.common.XWTools;
 
 public class HashTaskSet extends TaskSet {
 
+	/**
+	 * This holds the liveness leases of running tasks
+	 *
+	 * @since 10.6.0
+	 */
+	private final TaskLeaseWheel leases;
+
+	/**
+	 * This tells whether leases have been loaded from DB
+	 *
+	 * @since 10.6.0
+	 */
+	private boolean leasesLoaded;
+
 	public HashTaskSet() {
 		super();
+		leases = new TaskLeaseWheel();
+		leasesLoaded = false;
+	}
+
+	/**
+	 * This retrieves the alive time out in milliseconds
+	 *
+	 * @since 10.6.0
+	 * @see xtremweb.common.XWPropertyDefs#ALIVETIMEOUT
+	 */
+	private long aliveTimeOut() {
+		return Dispatcher.getConfig().getLong(XWPropertyDefs.ALIVETIMEOUT) * 1000L;
+	}
+
+	/**
+	 * This renews the task lease up to its last alive signal plus the alive
+	 * time out
+	 *
+	 * @since 10.6.0
+	 */
+	@Override
+	public void renewLease(final TaskInterface task) {
+		if (task == null) {
+			return;
+		}
+		try {
+			final Date lastAlive = task.getLastAlive();
+			final long from = (lastAlive == null ? System.currentTimeMillis() : lastAlive.getTime());
+			leases.renew(task.getUID(), from + aliveTimeOut());
+		} catch (final IOException e) {
+			getLogger().exception("can't renew lease", e);
+		}
+	}
+
+	/**
+	 * This removes the task lease
+	 *
+	 * @since 10.6.0
+	 */
+	@Override
+	public void cancelLease(final UID taskUID) {
+		leases.cancel(taskUID);
+	}
+
+	/**
+	 * This reloads the owners of pending works into the scheduler fair share
+	 * queue
+	 *
+	 * @since 10.6.0
+	 */
+	private void reloadFairShare() {
+		final Scheduler scheduler = Dispatcher.getScheduler();
+		if (scheduler == null) {
+			return;
+		}
+		try {
+			final FairShareQueue fairShare = scheduler.getFairShare();
+			final Collection<SQLRequestPendingOwners> owners = DBInterface.getInstance().pendingOwners();
+			final Vector<UID> uids = new Vector<>();
+			if (owners != null) {
+				for (final SQLRequestPendingOwners owner : owners) {
+					uids.add(owner.getOwnerUID());
+				}
+			}
+			fairShare.retain(uids);
+			if (owners != null) {
+				for (final SQLRequestPendingOwners owner : owners) {
+					fairShare.activate(owner.getOwnerUID(), owner.getGroupUID(), owner.getPriority());
+				}
+			}
+		} catch (final IOException e) {
+			getLogger().exception("can't reload fair share queue", e);
+		}
 	}
 
 	/**
 	 * This retrieves WAITING jobs and set status to PENDING This retrieves
-	 * associated tasks, if any, and set their status to ERROR
+	 * associated tasks, if any, and set their status to ERROR. Since 10.6.0,
+	 * this first expands pending templates, queues pending pinned works and
+	 * reloads the fair share queue; works waiting for producer works are left
+	 * WAITING
 	 */
 	@Override
 	protected void refill() {
 		final DBInterface db = DBInterface.getInstance();
 		final Date now = new Date();
+		db.expandTemplates();
+		db.reloadPinnedWorks();
+		reloadFairShare();
 		try {
 			final Vector<Table> rows = new Vector<>();
 
@@ -81,9 +178,16 @@ public class HashTaskSet extends TaskSet {
 						continue;
 					}
 
+					if (db.isBlocked(theWork)) {
+						continue;
+					}
+
 					getLogger().debug("refill = " + theWork.getUID());
 
+					final StatusEnum previous = theWork.getStatus();
 					theWork.setPending();
+					db.pin(theWork);
+					db.workStatusChanged(theWork, previous);
 
 					final Collection<TaskInterface> tasks = db.tasks(theWork);
 					if (tasks != null) {
@@ -92,6 +196,7 @@ public class HashTaskSet extends TaskSet {
 
 							theTask.setError();
 							theTask.setRemovalDate(now);
+							cancelLease(theTask.getUID());
 							rows.add(theTask);
 						}
 					}
@@ -111,7 +216,9 @@ public class HashTaskSet extends TaskSet {
 	 * This checks if given task is lost. A task is lost if (status == RUNNIG)
 	 * || (status == DATAREQUEST) || (status == RESULTREQUEST) and if alive
 	 * signal not received after 3 alive periods. If lost, the task is set to
-	 * ERROR and a new PENDING task is created.
+	 * ERROR and a new PENDING task is created. Since 10.6.0, if not lost, the
+	 * task lease is renewed; if lost, the work status change is counted and
+	 * the work is queued again for its expected host and its owner fair share.
 	 */
 	private void detectAbortedTask(final TaskInterface theTask) {
 
@@ -122,66 +229,80 @@ public class HashTaskSet extends TaskSet {
 				return;
 			}
 
-			final int delay = (int) (System.currentTimeMillis() - theTask.getLastAlive().getTime());
+			final long delay = System.currentTimeMillis() - theTask.getLastAlive().getTime();
 
-			int aliveTimeOut = Integer
-					.parseInt(Dispatcher.getConfig().getProperty(XWPropertyDefs.ALIVETIMEOUT.toString()));
-			aliveTimeOut *= 1000;
+			if (!theTask.isRunning() && !theTask.isDataRequest() && !theTask.isResultRequest()) {
+				cancelLease(theTask.getUID());
+				return;
+			}
+			if (delay <= aliveTimeOut()) {
+				renewLease(theTask);
+				return;
+			}
 
-			if ((theTask.isRunning() || theTask.isDataRequest() || theTask.isResultRequest())
-					&& (delay > aliveTimeOut)) {
+			cancelLease(theTask.getUID());
+			final WorkInterface theWork = db.work(theTask.getWork());
+			if (theWork == null) {
+				getLogger().warn("No work found for task ; deleting " + theTask.getUID());
+				theTask.delete();
+				return;
+			}
 
-				final WorkInterface theWork = db.work(theTask.getWork());
-				if (theWork == null) {
-					getLogger().warn("No work found for task ; deleting " + theTask.getUID());
-					theTask.delete();
-					return;
-				}
+			final HostInterface lostHost = (theTask.getHost() == null ? null : db.host(theTask.getHost()));
+			if (db.stopSpeculativeTask(theWork, theTask, lostHost, StatusEnum.ABORTED)) {
+				return;
+			}
+			final Scheduler scheduler = Dispatcher.getScheduler();
+			if (scheduler != null) {
+				scheduler.removed(theWork.getUID());
+			}
 
-				theWork.lost(XWTools.getLocalHostName());
+			final StatusEnum previous = theWork.getStatus();
+			theWork.lost(XWTools.getLocalHostName());
 
-				switch (theTask.getStatus()) {
-				case RUNNING:
-				case DATAREQUEST:
-				case RESULTREQUEST:
-					theWork.setErrorMsg("rescheduled : worker lost");
-					break;
-				}
+			switch (theTask.getStatus()) {
+			case RUNNING:
+			case DATAREQUEST:
+			case RESULTREQUEST:
+				theWork.setErrorMsg("rescheduled : worker lost");
+				break;
+			}
 
-				theTask.setError();
-				theTask.setRemovalDate(now);
+			theTask.setError();
+			theTask.setRemovalDate(now);
 
-				final Vector<Table> rows = new Vector<>();
+			final Vector<Table> rows = new Vector<>();
 
-				final UID hostUID = theTask.getHost();
-				if (hostUID != null) {
-					final HostInterface theHost = db.host(hostUID);
-					if (theHost != null) {
-						theHost.decRunningJobs();
-						rows.add(theHost);
-					}
+			final UID hostUID = theTask.getHost();
+			if (hostUID != null) {
+				final HostInterface theHost = db.host(hostUID);
+				if (theHost != null) {
+					theHost.decRunningJobs();
+					DBInterface.countersChanged(rows, theHost);
 				}
-				final UID ownerUID = theWork.getOwner();
-				if (ownerUID != null) {
-					final UserInterface theUser = db.user(ownerUID);
-					if (theUser != null) {
-						theUser.decRunningJobs();
-						rows.add(theUser);
-					}
-				}
-				final UID appUID = theWork.getApplication();
-				if (appUID != null) {
-					final AppInterface theApp = db.app(appUID);
-					if (theApp != null) {
-						theApp.decRunningJobs();
-						rows.add(theApp);
-					}
+			}
+			final UID ownerUID = theWork.getOwner();
+			final UserInterface theUser = (ownerUID == null ? null : db.user(ownerUID));
+			if (theUser != null) {
+				theUser.decRunningJobs();
+				DBInterface.countersChanged(rows, theUser);
+			}
+			final UID appUID = theWork.getApplication();
+			if (appUID != null) {
+				final AppInterface theApp = db.app(appUID);
+				if (theApp != null) {
+					theApp.decRunningJobs();
+					DBInterface.countersChanged(rows, theApp);
 				}
-
-				rows.add(theWork);
-				rows.add(theTask);
-				db.update(rows);
 			}
+
+			rows.add(theWork);
+			rows.add(theTask);
+			db.update(rows);
+
+			db.workStatusChanged(theWork, previous);
+			db.pin(theWork);
+			db.activateFairShare(theWork, theUser);
 		} catch (final Exception e) {
 			getLogger().exception("detecAbortedTasks_unitary : can't set tasks lost", e);
 		}
@@ -208,18 +329,19 @@ public class HashTaskSet extends TaskSet {
 
 	/**
 	 * This retrieves RUNNING or DATAREQUEST or RESULTREQUEST tasks and calls
-	 * detectAbortedTask(Task) for each
+	 * detectAbortedTask(Task) for each. This is called once only, on start up,
+	 * to load the leases of tasks already running.
 	 *
 	 * @see #detectAbortedTask(TaskInterface)
+	 * @since 10.6.0
 	 */
-	@Override
-	protected void detectAbortedTasks() {
+	private void loadLeases() {
 		final DBInterface db = DBInterface.getInstance();
 		for (final abortedStatus s : abortedStatus.values()) {
 
 			try {
 				final Collection<TaskInterface> tasks = db.tasks(s.getStatus());
-				getLogger().debug("detectAbortedTasks " + s + " = " + (tasks == null ? "null" : tasks.size()));
+				getLogger().debug("loadLeases " + s + " = " + (tasks == null ? "null" : tasks.size()));
 				if (tasks != null) {
 					for (final Iterator<TaskInterface> enumeration = tasks.iterator(); enumeration.hasNext();) {
 						final TaskInterface theTask = enumeration.next();
@@ -235,6 +357,56 @@ public class HashTaskSet extends TaskSet {
 		}
 	}
 
+	/**
+	 * This retrieves tasks which lease has expired and calls
+	 * detectAbortedTask(Task) for each. Tasks are read from DB to check their
+	 * last alive signal again
+	 *
+	 * @see #detectAbortedTask(TaskInterface)
+	 * @since 10.6.0
+	 */
+	private void detectExpiredLeases() {
+		final DBInterface db = DBInterface.getInstance();
+		final Collection<UID> expired = leases.expire(System.currentTimeMillis());
+		if (expired.isEmpty()) {
+			return;
+		}
+		getLogger().debug("detectExpiredLeases = " + expired.size() + " / " + (expired.size() + leases.size()));
+		for (final UID uid : expired) {
+			try {
+				detectAbortedTask(db.select(new TaskInterface(), uid));
+			} catch (final Exception e) {
+				getLogger().exception(e);
+			}
+		}
+	}
+
+	/**
+	 * This loads task leases on first call and then only checks expired
+	 * leases. Since 10.6.0, leases are also checked on each lease wheel tick,
+	 * so that detection latency does not depend on the alive period
+	 *
+	 * @see #loadLeases()
+	 * @see #detectExpiredLeases()
+	 */
+	@Override
+	protected void detectAbortedTasks() {
+		if (!leasesLoaded) {
+			loadLeases();
+			leasesLoaded = true;
+			final Timer timer = Dispatcher.getTimer();
+			if (timer != null) {
+				timer.schedule(new TimerTask() {
+					@Override
+					public void run() {
+						detectExpiredLeases();
+					}
+				}, TaskLeaseWheel.DEFAULTTICK, TaskLeaseWheel.DEFAULTTICK);
+			}
+		}
+		detectExpiredLeases();
+	}
+
 	/**
 	 * This converts this object to string
 	 */
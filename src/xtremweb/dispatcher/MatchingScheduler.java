@@ -26,18 +26,23 @@ package xtremweb.dispatcher;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Vector;
 
 import xtremweb.common.AppInterface;
+import xtremweb.common.BloomFilter;
+import xtremweb.common.DataInterface;
 import xtremweb.common.HostInterface;
+import xtremweb.common.StatusEnum;
 import xtremweb.common.Table;
 import xtremweb.common.TableColumns;
 import xtremweb.common.TaskInterface;
 import xtremweb.common.UID;
 import xtremweb.common.UserInterface;
 import xtremweb.common.WorkInterface;
+import xtremweb.common.XWConfigurator;
+import xtremweb.common.XWPropertyDefs;
 import xtremweb.communications.URI;
-import xtremweb.database.DBConnPoolThread;
 import xtremweb.database.SQLRequest;
 import xtremweb.database.SQLRequestWorkRequest;
 
@@ -59,6 +64,20 @@ import xtremweb.database.SQLRequestWorkRequest;
 
 public class MatchingScheduler extends SimpleScheduler {
 
+	/**
+	 * This is the max amount of straggling works proposed to a host
+	 *
+	 * @since 10.6.0
+	 */
+	private static final int MAXSPECULATIONCANDIDATES = 16;
+	/**
+	 * This is the max amount of candidates tried when concurrent requests
+	 * claim the same works
+	 *
+	 * @since 10.6.0
+	 */
+	private static final int MAXCLAIMS = 8;
+
 	/**
 	 * This constructor only calls its parent constructor
 	 */
@@ -66,27 +85,314 @@ public class MatchingScheduler extends SimpleScheduler {
 		super();
 	}
 
+	/**
+	 * This retrieves a waiting work of the first owners in fair share order.
+	 * For each owner, this first looks for a work having the highest known
+	 * priority of this owner pending works. This sends at most
+	 * FAIRSHAREQUERIES queries; owners for which a query finds nothing are
+	 * skipped by the next requests, until they are activated again.
+	 *
+	 * @param db
+	 *            is the DB interface
+	 * @param workSelection
+	 *            is the work request
+	 * @param criterias
+	 *            further restrict selected works; may be null
+	 * @param host
+	 *            is the requesting worker
+	 * @param user
+	 *            is the identity of the worker
+	 * @param cached
+	 *            is the filter of the contents cached by the worker; may be
+	 *            null
+	 * @return a work of one of the first owners in fair share order; null if
+	 *         none matches
+	 * @see FairShareQueue#missed(UID, int)
+	 * @see xtremweb.common.XWPropertyDefs#FAIRSHAREQUERIES
+	 * @since 10.6.0
+	 */
+	private WorkInterface selectFairly(final DBInterface db, final WorkInterface workSelection,
+			final String criterias, final HostInterface host, final UserInterface user, final BloomFilter cached)
+			throws IOException {
+		final FairShareQueue fairShare = getFairShare();
+		final XWConfigurator config = Dispatcher.getConfig();
+		final int maxQueries = (config == null ? Integer.parseInt(XWPropertyDefs.FAIRSHAREQUERIES.defaultValue())
+				: config.getInt(XWPropertyDefs.FAIRSHAREQUERIES));
+
+		int queries = 0;
+		for (final UID owner : fairShare.order(maxQueries)) {
+			final String ownerCriterias = and(criterias,
+					SQLRequest.MAINTABLEALIAS + "." + TableColumns.OWNERUID + "='" + owner + "'");
+			final int priority = fairShare.priority(owner);
+			WorkInterface ret = null;
+			if (priority > 0) {
+				ret = selectLocally(db, workSelection, ownerCriterias + " AND " + SQLRequest.MAINTABLEALIAS + "."
+						+ WorkInterface.Columns.PRIORITY + ">=" + priority, host, user, cached);
+				queries++;
+				if (ret == null) {
+					fairShare.missed(owner, priority);
+				}
+			}
+			if ((ret == null) && (queries < maxQueries)) {
+				ret = selectLocally(db, workSelection, ownerCriterias, host, user, cached);
+				queries++;
+				if (ret == null) {
+					fairShare.missed(owner, 0);
+				}
+			}
+			if ((ret != null) || (queries >= maxQueries)) {
+				return ret;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * This retrieves a waiting work matching the given criteria. If the
+	 * requesting host provides its cache filter, this retrieves up to
+	 * LOCALITYWINDOW works and returns the one having the most inputs cached
+	 * by the host; on equality, the first retrieved one is returned
+	 *
+	 * @param db
+	 *            is the DB interface
+	 * @param workSelection
+	 *            is the work request
+	 * @param criterias
+	 *            restrict selected works; may be null
+	 * @param host
+	 *            is the requesting worker
+	 * @param user
+	 *            is the identity of the worker
+	 * @param cached
+	 *            is the filter of the contents cached by the worker; may be
+	 *            null
+	 * @return a matching work; null if none
+	 * @see xtremweb.common.XWPropertyDefs#LOCALITYWINDOW
+	 * @since 10.6.0
+	 */
+	private WorkInterface selectLocally(final DBInterface db, final WorkInterface workSelection,
+			final String criterias, final HostInterface host, final UserInterface user, final BloomFilter cached)
+			throws IOException {
+		final XWConfigurator config = Dispatcher.getConfig();
+		final int window = (config == null ? Integer.parseInt(XWPropertyDefs.LOCALITYWINDOW.defaultValue())
+				: config.getInt(XWPropertyDefs.LOCALITYWINDOW));
+		if (!ranks(cached) || (window <= 1)) {
+			return db.selectOne(workSelection, criterias);
+		}
+		final Collection<WorkInterface> works = db.selectAll(workSelection, criterias, window);
+		if (works == null) {
+			return null;
+		}
+		return rank(db, works, host, user, cached);
+	}
+
+	/**
+	 * This tells whether candidate works must be ranked for the requesting
+	 * host. This default implementation ranks works by cached inputs, hence
+	 * only if the host provides its cache filter
+	 *
+	 * @param cached
+	 *            is the filter of the contents cached by the host; may be null
+	 * @return true if up to LOCALITYWINDOW works must be retrieved and ranked
+	 * @see #rank(DBInterface, Collection, HostInterface, UserInterface,
+	 *      BloomFilter)
+	 * @since 10.6.0
+	 */
+	protected boolean ranks(final BloomFilter cached) {
+		return cached != null;
+	}
+
+	/**
+	 * This returns the best candidate work for the requesting host. This
+	 * default implementation returns the one having the most inputs cached by
+	 * the host; on equality, the first retrieved one is returned
+	 *
+	 * @param works
+	 *            are the candidate works
+	 * @param cached
+	 *            is the filter of the contents cached by the host
+	 * @return the best candidate; null if works is empty
+	 * @exception IOException
+	 *                is thrown on DB access error
+	 * @since 10.6.0
+	 */
+	protected WorkInterface rank(final DBInterface db, final Collection<WorkInterface> works,
+			final HostInterface host, final UserInterface user, final BloomFilter cached) throws IOException {
+		WorkInterface ret = null;
+		int best = -1;
+		for (final WorkInterface work : works) {
+			final int score = cachedInputs(db, work, host, user, cached);
+			if (score > best) {
+				best = score;
+				ret = work;
+			}
+		}
+		if (ret != null) {
+			getLogger().debug("locality : " + ret.getUID() + " has " + best + " inputs cached on " + host.getUID());
+		}
+		return ret;
+	}
+
+	/**
+	 * This counts the inputs of a work cached by the requesting host: the
+	 * application binary for the host architecture, dirin, stdin and the data
+	 * driving the work. A data is considered as cached if its URI or its MD5
+	 * is in the filter
+	 *
+	 * @return the amount of inputs probably cached by the host
+	 * @since 10.6.0
+	 */
+	private int cachedInputs(final DBInterface db, final WorkInterface work, final HostInterface host,
+			final UserInterface user, final BloomFilter cached) {
+		int ret = 0;
+		try {
+			final AppInterface app = db.app(user, work.getApplication());
+			if ((app != null) && cached.mightContain(app.getBinary(host.getCpu(), host.getOs()))) {
+				ret++;
+			}
+		} catch (final Exception e) {
+			getLogger().exception("can't retrieve app", e);
+		}
+		final URI[] inputs = { work.getDirin(), work.getStdin(), work.getDataDriven() };
+		for (final URI input : inputs) {
+			if (isCached(db, input, cached)) {
+				ret++;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * This checks whether the given data is in the filter, by URI or by MD5
+	 *
+	 * @since 10.6.0
+	 */
+	protected boolean isCached(final DBInterface db, final URI uri, final BloomFilter cached) {
+		if (uri == null) {
+			return false;
+		}
+		if (cached.mightContain(uri)) {
+			return true;
+		}
+		if (!uri.isXtremWeb()) {
+			return false;
+		}
+		try {
+			final DataInterface data = db.data(uri.getUID());
+			return (data != null) && cached.mightContain(data.getMD5());
+		} catch (final Exception e) {
+			getLogger().exception("can't retrieve data", e);
+		}
+		return false;
+	}
+
+	/**
+	 * This retrieves a straggling work that the requesting host can
+	 * speculatively run, and creates the associated task. The work status is
+	 * not modified and the app and owner counters are not updated, since this
+	 * is a copy of a running work.
+	 *
+	 * @param db
+	 *            is the DB interface
+	 * @param host
+	 *            is the requesting worker, which must be faster than the one
+	 *            running the straggling work
+	 * @param user
+	 *            is the identity of the worker
+	 * @return a running work to speculatively run; null if none
+	 * @see StragglerDetector
+	 * @since 10.6.0
+	 */
+	private WorkInterface speculate(final DBInterface db, final HostInterface host, final UserInterface user) {
+		final StragglerDetector stragglers = getStragglers();
+		if (!stragglers.isEnabled()) {
+			return null;
+		}
+		try {
+			final List<UID> candidates = stragglers.candidates(host.getCpuSpeed(), System.currentTimeMillis(),
+					MAXSPECULATIONCANDIDATES);
+			if (candidates.isEmpty()) {
+				return null;
+			}
+			final StringBuilder criterias = new StringBuilder(
+					SQLRequest.MAINTABLEALIAS + "." + TableColumns.UID + " IN (");
+			for (int i = 0; i < candidates.size(); i++) {
+				criterias.append((i > 0 ? "," : "") + "'" + candidates.get(i) + "'");
+			}
+			criterias.append(")");
+
+			final WorkInterface workSelection = new WorkInterface(
+					new SQLRequestWorkRequest(host, user, StatusEnum.RUNNING));
+			final WorkInterface theWork = db.selectOne(workSelection, criterias.toString());
+			if (theWork == null) {
+				return null;
+			}
+
+			final TaskInterface theTask = new TaskInterface(theWork);
+			theTask.setRunningBy(host.getUID());
+			host.incRunningJobs();
+			stragglers.speculated(theWork.getUID());
+
+			final Collection<Table> rows = new Vector<>();
+			DBInterface.countersChanged(rows, host);
+			rows.add(theTask);
+			db.update(rows);
+
+			final TaskSet tset = Dispatcher.getTaskSet();
+			if (tset != null) {
+				tset.renewLease(theTask);
+			}
+			getLogger().info("speculatively running " + theWork.getUID() + " on " + host.getUID());
+			return theWork;
+		} catch (final Exception e) {
+			getLogger().exception("can't speculate", e);
+		}
+		return null;
+	}
+
+	/**
+	 * This calls select(host, user, null)
+	 *
+	 * @see #select(HostInterface, UserInterface, BloomFilter)
+	 */
+	@Override
+	public WorkInterface select(final HostInterface host, final UserInterface user) throws IOException {
+		return select(host, user, null);
+	}
+
 	/**
 	 * This retrieves a waiting work for the requesting host using
 	 * SQLRequestWorkRequest. This first updates work, otherwise scheduler may
 	 * return the same work several times. Then this can safelly update a vector
-	 * of rows
+	 * of rows.<br />
+	 * Since 10.6.0, this first looks for works of the owners to be served
+	 * first according to the fair share queue, preferring works which inputs
+	 * are already cached by the host; if no pending work matches the host,
+	 * this may return a straggling work to be speculatively run. Works pinned
+	 * to the host are looked for first.<br />
+	 * Since 10.6.0, this is not synchronized any more: a candidate is
+	 * atomically claimed in DB and another candidate is selected if a
+	 * concurrent request claimed it first
 	 *
 	 * @param host
 	 *            is the requesting worker identifier
 	 * @param user
 	 *            is the identity of the worker
+	 * @param cached
+	 *            is the filter of the contents cached by the worker; may be
+	 *            null
 	 * @return a Work matching host; null if no work matches this host -or no
 	 *         pending work- found
 	 * @exception IOException
 	 *                is thrown on error
 	 * @see SQLRequestWorkRequest
+	 * @since 10.6.0
 	 */
 	@Override
-	public synchronized WorkInterface select(final HostInterface host, final UserInterface user) throws IOException {
+	public WorkInterface select(final HostInterface host, final UserInterface user,
+			final BloomFilter cached) throws IOException {
 
 		if ((host == null) || (user == null)) {
-			notify();
 			throw new IOException("MatchingScheduler#select() param error");
 		}
 
@@ -100,65 +406,51 @@ public class MatchingScheduler extends SimpleScheduler {
 
 		try {
 			final Collection<Table> rows = new Vector<>();
-			String criterias = null;
-			final SQLRequestWorkRequest workRequest = new SQLRequestWorkRequest(host, user);
-			final WorkInterface workSelection = new WorkInterface(workRequest);
+			final String criterias = criterias(host);
+			final WorkInterface workSelection = new WorkInterface(new SQLRequestWorkRequest(host, user));
 
-			final URI jobId = host.getJobId();
-			final URI batchId = host.getBatchId();
+			getLogger().debug("host      = " + host.toXml());
+			getLogger().debug("criterias = " + criterias);
 
-			if (jobId != null) {
-				final UID uid = jobId.getUID();
-				if (uid != null) {
-					criterias = SQLRequest.MAINTABLEALIAS + "." + TableColumns.UID + "='" + uid + "'";
-				}
-			} else if (batchId != null) {
-				final UID uid = batchId.getUID();
-				if (uid != null) {
-					criterias = SQLRequest.MAINTABLEALIAS + "." + WorkInterface.Columns.GROUPUID + "='" + uid + "'";
+			for (int claims = 0; claims < MAXCLAIMS; claims++) {
+				theWork = candidate(db, workSelection, criterias, null, host, user, cached);
+				if ((theWork == null) || db.claimWork(theWork)) {
+					break;
 				}
+				getLogger().debug("select() : " + theWork.getUID() + " already claimed; retrying");
+				theWork = null;
 			}
 
-			getLogger().debug("host      = " + host.toXml());
-			getLogger().debug("criterias = " + criterias);
-			theWork = db.selectOne(workSelection, criterias);
-
-			if (theWork != null) {
-				final UID theAppUID = theWork.getApplication();
-				final UID theWorkOwnerUID = theWork.getOwner();
-				final AppInterface theApp = db.app(user, theAppUID);
-				final UserInterface theWorkOwner = db.user(theWorkOwnerUID);
-				theApp.decPendingJobs();
-				theApp.incRunningJobs();
-				theWorkOwner.decPendingJobs();
-				theWorkOwner.incRunningJobs();
-				host.incRunningJobs();
-				theWork.setRunning();
-				theTask = new TaskInterface(theWork);
-				theWork.setRunning();
-				theTask.setRunningBy(host.getUID());
+			if ((theWork == null) && (criterias == null)) {
+				theWork = speculate(db, host, user);
+			} else if (theWork != null) {
+				theTask = assign(db, theWork, host, user, rows);
 
 				//
 				// 20 juin 2011
 				// We must first update work, otherwise scheduler may return
 				// the same work several times.
 				// Then we can update all others
+				// Since 10.6.0, the work has already been claimed in DB and
+				// the task is inserted and all rows are updated in a single
+				// transaction
 				//
-				db.putToCache(theWork);
-				DBConnPoolThread.getInstance().update(theWork, null, false);
+				rows.add(theWork);
+				final Collection<Table> inserts = new Vector<>();
+				inserts.add(theTask);
+				db.transaction("workRequest", inserts, rows);
 
-				rows.add(host);
-				rows.add(theTask);
-				rows.add(theApp);
-				rows.add(theWorkOwner);
-				db.update(rows);
+				started(theWork, theTask, host);
 			}
 		} catch (final Exception e) {
 			getLogger().exception(e);
 			ioe = new IOException(e.toString());
 			if (theWork != null) {
+				final StatusEnum previous = theWork.getStatus();
 				theWork.setError("sched error " + e);
 				db.update(theWork);
+				db.workStatusChanged(theWork, previous);
+				db.dependencyDone(theWork, null);
 			}
 			if (theTask != null) {
 				theTask.setError();
@@ -169,8 +461,6 @@ public class MatchingScheduler extends SimpleScheduler {
 		} finally {
 			theTask = null;
 
-			notify();
-
 			if (ioe != null) {
 				theWork = null;
 				getMileStone().println("<error msg=" + ioe.toString() + " /></select>");
@@ -183,4 +473,274 @@ public class MatchingScheduler extends SimpleScheduler {
 		return theWork;
 
 	}
+
+	/**
+	 * This selects works for all the work requests of a scheduling round at
+	 * once: a distinct candidate is first selected for each request, then
+	 * all candidates are claimed in one batched transaction and all other
+	 * rows are updated at once. A request which candidate has been claimed
+	 * by a concurrent dispatcher is scheduled on its own. A work selected for a
+	 * request which handler has stopped waiting is given back
+	 *
+	 * @param requests
+	 *            are the work requests of the round
+	 * @see WorkRequestBatcher
+	 * @since 10.6.0
+	 */
+	@Override
+	public void select(final Collection<WorkRequest> requests) {
+
+		getMileStone().println("<selectRound size='" + requests.size() + "'>");
+
+		final DBInterface db = DBInterface.getInstance();
+		final List<WorkRequest> claiming = new Vector<>();
+		final List<WorkInterface> candidates = new Vector<>();
+		final StringBuilder selected = new StringBuilder();
+
+		for (final WorkRequest request : requests) {
+			final HostInterface host = request.getHost();
+			final UserInterface user = request.getUser();
+			if ((host == null) || (user == null)) {
+				request.fail(new IOException("MatchingScheduler#select() param error"));
+				continue;
+			}
+			try {
+				final String criterias = criterias(host);
+				final String excluded = selected.length() == 0 ? null
+						: SQLRequest.MAINTABLEALIAS + "." + TableColumns.UID + " NOT IN (" + selected + ")";
+				final WorkInterface theWork = candidate(db, new WorkInterface(new SQLRequestWorkRequest(host, user)),
+						criterias, excluded, host, user, request.getCached());
+				if (theWork == null) {
+					final WorkInterface speculated = (criterias == null ? speculate(db, host, user) : null);
+					if (!request.complete(speculated) && (speculated != null)) {
+						db.giveBack(speculated, null, host);
+					}
+					continue;
+				}
+				selected.append((selected.length() > 0 ? "," : "") + "'" + theWork.getUID() + "'");
+				claiming.add(request);
+				candidates.add(theWork);
+			} catch (final Exception e) {
+				getLogger().exception(e);
+				request.fail(e);
+			}
+		}
+
+		if (candidates.isEmpty()) {
+			getMileStone().println("</selectRound>");
+			return;
+		}
+
+		final List<WorkRequest> conflicts = new Vector<>();
+		final List<TaskInterface> tasks = new Vector<>();
+		boolean[] claimed = new boolean[0];
+		try {
+			claimed = db.claimWorks(candidates);
+			final Collection<Table> rows = new Vector<>();
+			for (int i = 0; i < claimed.length; i++) {
+				final WorkRequest request = claiming.get(i);
+				if (!claimed[i]) {
+					conflicts.add(request);
+					continue;
+				}
+				final WorkInterface theWork = candidates.get(i);
+				tasks.add(assign(db, theWork, request.getHost(), request.getUser(), rows));
+				rows.add(theWork);
+			}
+			db.transaction("workRequestRound", tasks, rows);
+
+			int t = 0;
+			for (int i = 0; i < claimed.length; i++) {
+				if (claimed[i]) {
+					final WorkInterface theWork = candidates.get(i);
+					final TaskInterface theTask = tasks.get(t++);
+					final HostInterface host = claiming.get(i).getHost();
+					if (claiming.get(i).complete(theWork)) {
+						started(theWork, theTask, host);
+					} else {
+						// the handler has stopped waiting : the work is pending again
+						claimed[i] = false;
+						db.giveBack(theWork, theTask, host);
+					}
+				}
+			}
+		} catch (final Exception e) {
+			getLogger().exception(e);
+			getMileStone().println("<error msg=" + e.toString() + " />");
+			for (int i = 0; i < claiming.size(); i++) {
+				if ((i < claimed.length) && claimed[i] && !claiming.get(i).isDone()) {
+					final WorkInterface theWork = candidates.get(i);
+					final StatusEnum previous = theWork.getStatus();
+					theWork.setError("sched error " + e);
+					try {
+						db.update(theWork);
+						db.workStatusChanged(theWork, previous);
+						db.dependencyDone(theWork, null);
+					} catch (final Exception ue) {
+						getLogger().exception(ue);
+					}
+				}
+				claiming.get(i).fail(e);
+			}
+		}
+
+		for (final WorkRequest request : conflicts) {
+			try {
+				final WorkInterface theWork = select(request.getHost(), request.getUser(), request.getCached());
+				if (!request.complete(theWork) && (theWork != null)) {
+					db.giveBack(theWork, null, request.getHost());
+				}
+			} catch (final Exception e) {
+				request.fail(e);
+			}
+		}
+
+		getMileStone().println("</selectRound>");
+	}
+
+	/**
+	 * This retrieves the criteria restricting works to the job or the batch
+	 * the host is dedicated to, if any
+	 *
+	 * @return the criteria; null if the host is not dedicated
+	 * @since 10.6.0
+	 */
+	private String criterias(final HostInterface host) {
+		final URI jobId = host.getJobId();
+		final URI batchId = host.getBatchId();
+
+		if (jobId != null) {
+			final UID uid = jobId.getUID();
+			if (uid != null) {
+				return SQLRequest.MAINTABLEALIAS + "." + TableColumns.UID + "='" + uid + "'";
+			}
+		} else if (batchId != null) {
+			final UID uid = batchId.getUID();
+			if (uid != null) {
+				return SQLRequest.MAINTABLEALIAS + "." + WorkInterface.Columns.GROUPUID + "='" + uid + "'";
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * This combines two criteria
+	 *
+	 * @return c1 AND c2; c1 or c2 if the other is null
+	 * @since 10.6.0
+	 */
+	private static String and(final String c1, final String c2) {
+		if (c1 == null) {
+			return c2;
+		}
+		if (c2 == null) {
+			return c1;
+		}
+		return c1 + " AND " + c2;
+	}
+
+	/**
+	 * This retrieves a candidate pending work. If the host is not dedicated
+	 * to a job or a batch, this first looks for works pinned to this host,
+	 * then for works in fair share order
+	 *
+	 * @param criterias
+	 *            restrict to the job or the batch the host is dedicated to;
+	 *            may be null
+	 * @param excluded
+	 *            further restrict selected works; may be null
+	 * @return a pending work; null if none matches
+	 * @since 10.6.0
+	 */
+	private WorkInterface candidate(final DBInterface db, final WorkInterface workSelection, final String criterias,
+			final String excluded, final HostInterface host, final UserInterface user, final BloomFilter cached)
+			throws IOException {
+		WorkInterface ret = null;
+		if (criterias == null) {
+			ret = selectPinned(db, workSelection, host);
+		}
+		if ((ret == null) && (criterias == null)) {
+			ret = selectFairly(db, workSelection, excluded, host, user, cached);
+		}
+		if (ret == null) {
+			ret = selectLocally(db, workSelection, and(criterias, excluded), host, user, cached);
+		}
+		return ret;
+	}
+
+	/**
+	 * This retrieves a work from the queue of the works pinned to the given
+	 * host. Queued works which do not match the host any more are dropped
+	 *
+	 * @return a pending work pinned to the host; null if none
+	 * @see PinnedWorkQueues
+	 * @since 10.6.0
+	 */
+	private WorkInterface selectPinned(final DBInterface db, final WorkInterface workSelection,
+			final HostInterface host) throws IOException {
+		final PinnedWorkQueues pinned = db.getPinnedWorks();
+		for (UID uid = pinned.poll(host.getUID()); uid != null; uid = pinned.poll(host.getUID())) {
+			final WorkInterface ret = db.selectOne(workSelection,
+					SQLRequest.MAINTABLEALIAS + "." + TableColumns.UID + "='" + uid + "'");
+			if (ret != null) {
+				getLogger().debug("pinned : " + uid + " on " + host.getUID());
+				return ret;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * This sets a claimed work running on the given host: this creates the
+	 * task, updates the jobs counters and the cache and adds the rows to
+	 * update to the given collection. The task is not inserted : the caller
+	 * must insert it in the same transaction as the rows
+	 *
+	 * @param rows
+	 *            receives the rows to update, except the work itself; the
+	 *            host, application and owner rows are only added if jobs
+	 *            counters are not aggregated
+	 * @return the created task
+	 * @since 10.6.0
+	 */
+	private TaskInterface assign(final DBInterface db, final WorkInterface theWork, final HostInterface host,
+			final UserInterface user, final Collection<Table> rows) throws IOException {
+		final AppInterface theApp = db.app(user, theWork.getApplication());
+		final UserInterface theWorkOwner = db.user(theWork.getOwner());
+		theApp.decPendingJobs();
+		theApp.incRunningJobs();
+		theWorkOwner.decPendingJobs();
+		theWorkOwner.incRunningJobs();
+		host.incRunningJobs();
+		final StatusEnum previous = theWork.getStatus();
+		theWork.setRunning();
+		db.workStatusChanged(theWork, previous);
+		final TaskInterface theTask = new TaskInterface(theWork, false);
+		theTask.setRunningBy(host.getUID());
+		db.putToCache(theWork);
+
+		DBInterface.countersChanged(rows, host);
+		DBInterface.countersChanged(rows, theApp);
+		DBInterface.countersChanged(rows, theWorkOwner);
+		return theTask;
+	}
+
+	/**
+	 * This renews the task lease and notifies the fair share queue and the
+	 * straggler detector that a work has started
+	 *
+	 * @since 10.6.0
+	 */
+	protected void started(final WorkInterface theWork, final TaskInterface theTask, final HostInterface host)
+			throws IOException {
+		final TaskSet tset = Dispatcher.getTaskSet();
+		if (tset != null) {
+			tset.renewLease(theTask);
+		}
+		final Date arrivalDate = theWork.getArrivalDate();
+		getFairShare().served(theWork.getOwner(),
+				arrivalDate == null ? 0L : System.currentTimeMillis() - arrivalDate.getTime());
+		getStragglers().started(theWork.getUID(), theWork.getApplication(), host.getCpuSpeed(),
+				System.currentTimeMillis());
+	}
 }
@@ -0,0 +1,419 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.dispatcher;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringTokenizer;
+import java.util.TreeMap;
+
+import xtremweb.common.NegativeCache;
+import xtremweb.common.Table;
+import xtremweb.common.UID;
+import xtremweb.common.WorkInterface;
+
+/**
+ * This caches dispatcher objects by UID. Objects are cached in a region per
+ * object type, each having its own size budget and time to live, so that small
+ * hot sets (users, apps, groups...) stay resident while works and tasks churn.
+ * Each region evicts its least recently used entry when its budget is
+ * exceeded; an expired entry is evicted when it is read.<br />
+ * Budgets are defined by table name as a comma separated list of
+ * table:maxentries:ttl, where ttl is in milliseconds; a ttl not positive means
+ * that entries do not expire.<br />
+ * Each region also remembers the UIDs known to be missing for a short time,
+ * so that repeated lookups of missing objects cost nothing; caching an object
+ * forgets that its UID is missing.
+ *
+ * @see xtremweb.common.XWPropertyDefs#CACHEBUDGETS
+ * @see xtremweb.common.XWPropertyDefs#NEGATIVECACHETTL
+ * @since 10.6.0
+ */
+public class ObjectCache {
+
+	/**
+	 * This is the time to live of tables which budget is not defined, in
+	 * milliseconds
+	 */
+	public static final long DEFAULTTTL = 60000L;
+
+	/**
+	 * This is the budget of a region
+	 */
+	public static final class Budget {
+		private final int maxEntries;
+		private final long ttl;
+
+		public Budget(final int m, final long t) {
+			maxEntries = m;
+			ttl = t;
+		}
+
+		/**
+		 * @return the max amount of entries
+		 */
+		public int getMaxEntries() {
+			return maxEntries;
+		}
+
+		/**
+		 * @return the time to live in milliseconds; not positive if entries
+		 *         do not expire
+		 */
+		public long getTtl() {
+			return ttl;
+		}
+
+		@Override
+		public String toString() {
+			return "max=" + maxEntries + " ttl(ms)=" + ttl;
+		}
+	}
+
+	/**
+	 * This is a cached object and its expiration date
+	 */
+	private static final class CacheEntry {
+		private final Table row;
+		private final long expires;
+
+		private CacheEntry(final Table r, final long e) {
+			row = r;
+			expires = e;
+		}
+	}
+
+	/**
+	 * This is the cache of one object type; the map is in access order, so
+	 * that the eldest entry is the least recently used one
+	 */
+	private static final class Region extends LinkedHashMap<UID, CacheEntry> {
+		private static final long serialVersionUID = 1L;
+		private final String name;
+		private final Budget budget;
+		private final NegativeCache<UID> missing;
+		private long hits;
+		private long misses;
+		private long evictions;
+		private long expirations;
+
+		private Region(final String n, final Budget b, final long negativeTtl) {
+			super(16, 0.75f, true);
+			name = n;
+			budget = b;
+			missing = new NegativeCache<>(negativeTtl, Math.max(b.maxEntries, 1));
+		}
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<UID, CacheEntry> eldest) {
+			if (size() <= budget.maxEntries) {
+				return false;
+			}
+			evictions++;
+			return true;
+		}
+
+		@Override
+		public synchronized String toString() {
+			return name + " : size=" + size() + " " + budget + " hits=" + hits + " misses=" + misses + " evictions="
+					+ evictions + " expirations=" + expirations + " missing=" + missing.size() + " missinghits="
+					+ missing.getHits();
+		}
+	}
+
+	/**
+	 * These are the budgets, by table name
+	 */
+	private final Map<String, Budget> budgets;
+	/**
+	 * This is the budget of tables not found in budgets
+	 */
+	private final Budget defaultBudget;
+	/**
+	 * These are the regions, by object type
+	 */
+	private final Map<Class<?>, Region> regions;
+	/**
+	 * This is the time to live of missing UIDs, in milliseconds
+	 */
+	private final long negativeTtl;
+
+	/**
+	 * This calls this(budgets, defaultSize, 0), so that missing UIDs are not
+	 * remembered
+	 */
+	public ObjectCache(final String budgets, final int defaultSize) {
+		this(budgets, defaultSize, 0L);
+	}
+
+	/**
+	 * @param budgets
+	 *            is a comma separated list of table:maxentries:ttl
+	 * @param defaultSize
+	 *            is the max amount of entries of tables not found in budgets
+	 * @param negativeTtl
+	 *            is the time to live of missing UIDs in milliseconds; if not
+	 *            positive, missing UIDs are not remembered
+	 * @exception IllegalArgumentException
+	 *                if budgets is not valid
+	 */
+	public ObjectCache(final String budgets, final int defaultSize, final long negativeTtl) {
+		this.budgets = parse(budgets);
+		defaultBudget = new Budget(defaultSize, DEFAULTTTL);
+		regions = new HashMap<>();
+		this.negativeTtl = negativeTtl;
+	}
+
+	/**
+	 * This parses budgets
+	 *
+	 * @param s
+	 *            is a comma separated list of table:maxentries:ttl; may be
+	 *            null
+	 * @return the budgets by table name
+	 * @exception IllegalArgumentException
+	 *                if a budget is not valid
+	 */
+	public static Map<String, Budget> parse(final String s) {
+		final Map<String, Budget> ret = new HashMap<>();
+		if (s == null) {
+			return ret;
+		}
+		final StringTokenizer tokens = new StringTokenizer(s, ",");
+		while (tokens.hasMoreTokens()) {
+			final String token = tokens.nextToken().trim();
+			if (token.length() == 0) {
+				continue;
+			}
+			final String[] values = token.split(":");
+			if (values.length != 3) {
+				throw new IllegalArgumentException("not a table:maxentries:ttl budget : " + token);
+			}
+			try {
+				ret.put(values[0].trim(),
+						new Budget(Integer.parseInt(values[1].trim()), Long.parseLong(values[2].trim())));
+			} catch (final NumberFormatException e) {
+				throw new IllegalArgumentException("not a table:maxentries:ttl budget : " + token, e);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * This retrieves the region of the given object type, creating it if
+	 * needed
+	 *
+	 * @param row
+	 *            is an object of the expected type; its table name gives the
+	 *            region budget
+	 */
+	private Region region(final Table row) {
+		final Class<?> type = row.getClass();
+		synchronized (regions) {
+			Region ret = regions.get(type);
+			if (ret == null) {
+				String name = row.tableName();
+				if (WorkInterface.DONETABLENAME.equals(name)) {
+					name = WorkInterface.TABLENAME;
+				}
+				final Budget budget = budgets.get(name);
+				ret = new Region(name, budget == null ? defaultBudget : budget, negativeTtl);
+				regions.put(type, ret);
+			}
+			return ret;
+		}
+	}
+
+	/**
+	 * @return the budget of the given table
+	 */
+	public Budget getBudget(final String tableName) {
+		final Budget ret = budgets.get(tableName);
+		return ret == null ? defaultBudget : ret;
+	}
+
+	/**
+	 * This caches an object; this replaces the cached object having the same
+	 * UID, if any. This does nothing if the object has no UID
+	 *
+	 * @exception IOException
+	 *                is thrown if the object UID can't be retrieved
+	 */
+	public void put(final Table row) throws IOException {
+		if (row == null) {
+			return;
+		}
+		final UID uid = row.getUID();
+		if (uid == null) {
+			return;
+		}
+		final Region region = region(row);
+		final long ttl = region.budget.ttl;
+		synchronized (region) {
+			region.put(uid, new CacheEntry(row, ttl > 0 ? System.currentTimeMillis() + ttl : Long.MAX_VALUE));
+		}
+		region.missing.remove(uid);
+	}
+
+	/**
+	 * This remembers that no object of the given type has the given UID
+	 *
+	 * @param uid
+	 *            is the missing UID
+	 * @param row
+	 *            is an object of the looked up type
+	 */
+	public void missed(final UID uid, final Table row) {
+		if ((uid == null) || (row == null)) {
+			return;
+		}
+		region(row).missing.add(uid);
+	}
+
+	/**
+	 * This tells whether an UID is known to be missing for the given type
+	 *
+	 * @param uid
+	 *            is the looked up UID
+	 * @param row
+	 *            is an object of the looked up type
+	 * @return true if the UID has been missed recently and no object with
+	 *         this UID has been cached since
+	 */
+	public boolean isMissing(final UID uid, final Table row) {
+		if ((uid == null) || (row == null)) {
+			return false;
+		}
+		return region(row).missing.contains(uid);
+	}
+
+	/**
+	 * This retrieves a cached object
+	 *
+	 * @param uid
+	 *            is the object UID
+	 * @param row
+	 *            is an object of the expected type
+	 * @return the cached object; null if not cached or expired
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Table> T get(final UID uid, final T row) {
+		if ((uid == null) || (row == null)) {
+			return null;
+		}
+		final Region region = region(row);
+		synchronized (region) {
+			final CacheEntry e = region.get(uid);
+			if (e == null) {
+				region.misses++;
+				return null;
+			}
+			if (e.expires < System.currentTimeMillis()) {
+				region.remove(uid);
+				region.expirations++;
+				region.misses++;
+				return null;
+			}
+			region.hits++;
+			return (T) e.row;
+		}
+	}
+
+	/**
+	 * This removes an object from cache, whatever its type
+	 */
+	public void remove(final UID uid) {
+		if (uid == null) {
+			return;
+		}
+		synchronized (regions) {
+			for (final Region region : regions.values()) {
+				synchronized (region) {
+					region.remove(uid);
+				}
+			}
+		}
+	}
+
+	/**
+	 * This removes expired objects and expired missing UIDs
+	 *
+	 * @return the amount of removed objects
+	 */
+	public int expire() {
+		final long now = System.currentTimeMillis();
+		int ret = 0;
+		synchronized (regions) {
+			for (final Region region : regions.values()) {
+				synchronized (region) {
+					for (final Iterator<CacheEntry> it = region.values().iterator(); it.hasNext();) {
+						if (it.next().expires < now) {
+							it.remove();
+							region.expirations++;
+							ret++;
+						}
+					}
+				}
+				region.missing.expire();
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the amount of cached objects, whatever their type
+	 */
+	public int size() {
+		int ret = 0;
+		synchronized (regions) {
+			for (final Region region : regions.values()) {
+				synchronized (region) {
+					ret += region.size();
+				}
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @return one line per region, sorted by table name
+	 */
+	@Override
+	public String toString() {
+		final Map<String, String> lines = new TreeMap<>();
+		synchronized (regions) {
+			for (final Region region : regions.values()) {
+				lines.put(region.name, region.toString());
+			}
+		}
+		final StringBuilder ret = new StringBuilder();
+		for (final String line : lines.values()) {
+			ret.append(line).append('\n');
+		}
+		return ret.toString();
+	}
+}
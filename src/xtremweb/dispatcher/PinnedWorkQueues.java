@@ -0,0 +1,138 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.dispatcher;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import xtremweb.common.UID;
+
+/**
+ * This holds the pending works pinned to a host (works defining
+ * EXPECTEDHOSTUID), in a queue per host. A polling host first checks its own
+ * queue with a map lookup, so that pinned works do not have to be found by
+ * the general work request SQL query.<br />
+ * Queues only contain hints: a work retrieved from a queue must still be
+ * claimed in DB, since it may have been scheduled, aborted or deleted since
+ * it has been queued.
+ *
+ * @since 10.6.0
+ */
+public class PinnedWorkQueues {
+
+	/**
+	 * These are the queues, indexed by host UID; each queue keeps insertion
+	 * order and contains each work once
+	 */
+	private final Map<UID, LinkedHashSet<UID>> queues;
+
+	public PinnedWorkQueues() {
+		queues = new HashMap<>();
+	}
+
+	/**
+	 * This queues a work for a host; this does nothing if the work is
+	 * already queued for this host
+	 *
+	 * @param host
+	 *            is the expected host UID
+	 * @param work
+	 *            is the work UID
+	 */
+	public synchronized void add(final UID host, final UID work) {
+		if ((host == null) || (work == null)) {
+			return;
+		}
+		LinkedHashSet<UID> queue = queues.get(host);
+		if (queue == null) {
+			queue = new LinkedHashSet<>();
+			queues.put(host, queue);
+		}
+		queue.add(work);
+	}
+
+	/**
+	 * This removes and returns the first work queued for a host
+	 *
+	 * @param host
+	 *            is the polling host UID
+	 * @return the UID of the first queued work; null if none
+	 */
+	public synchronized UID poll(final UID host) {
+		if (host == null) {
+			return null;
+		}
+		final LinkedHashSet<UID> queue = queues.get(host);
+		if (queue == null) {
+			return null;
+		}
+		final Iterator<UID> it = queue.iterator();
+		final UID ret = it.next();
+		it.remove();
+		if (queue.isEmpty()) {
+			queues.remove(host);
+		}
+		return ret;
+	}
+
+	/**
+	 * This removes a work from the queue of a host
+	 *
+	 * @return true if the work was queued for this host
+	 */
+	public synchronized boolean remove(final UID host, final UID work) {
+		if ((host == null) || (work == null)) {
+			return false;
+		}
+		final LinkedHashSet<UID> queue = queues.get(host);
+		if ((queue == null) || !queue.remove(work)) {
+			return false;
+		}
+		if (queue.isEmpty()) {
+			queues.remove(host);
+		}
+		return true;
+	}
+
+	/**
+	 * @return the amount of works queued for the given host
+	 */
+	public synchronized int size(final UID host) {
+		final LinkedHashSet<UID> queue = (host == null ? null : queues.get(host));
+		return queue == null ? 0 : queue.size();
+	}
+
+	/**
+	 * @return the amount of queued works, for all hosts
+	 */
+	public synchronized int size() {
+		int ret = 0;
+		for (final LinkedHashSet<UID> queue : queues.values()) {
+			ret += queue.size();
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.dispatcher;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import xtremweb.common.UID;
+
+/**
+ * This estimates the completion time of a work on a host as the time to
+ * download its inputs plus its compute time.<br />
+ * The transfer time is the size of the inputs not cached by the host divided
+ * by the host download bandwidth. The compute time is learnt per application
+ * from observed completions: each completion on a host of speed s in a compute
+ * time d is an application cost sample s*d, and the compute time on a host of
+ * speed s' is the mean cost divided by s'. Until an application has been
+ * observed, its average execution time is used.<br />
+ * Predicted and observed durations are recorded so that the model can be
+ * calibrated.
+ *
+ * @see CostScheduler
+ * @since 10.6.0
+ */
+public class PlacementModel {
+
+	/**
+	 * This is the bandwidth used for hosts which bandwidth is not known yet,
+	 * in MB/s
+	 */
+	public static final float DEFAULTBANDWIDTH = 1f;
+	/**
+	 * This is the weight of a new cost sample
+	 */
+	private static final double ALPHA = 0.2d;
+	/**
+	 * This is the amount of bytes in a MB
+	 */
+	private static final double MB = 1024d * 1024d;
+
+	/**
+	 * This is a prediction of a running work
+	 */
+	private static final class Prediction {
+		private final UID app;
+		private final int cpuSpeed;
+		private final long transfer;
+		private final long duration;
+
+		private Prediction(final UID a, final int s, final long t, final long d) {
+			app = a;
+			cpuSpeed = s;
+			transfer = t;
+			duration = d;
+		}
+	}
+
+	/**
+	 * These are the application costs (cpu speed x compute time), by
+	 * application UID
+	 */
+	private final Map<UID, Double> costs;
+	/**
+	 * These are the predictions of the running works, by work UID
+	 */
+	private final Map<UID, Prediction> predictions;
+	/**
+	 * This is the amount of observed predictions
+	 */
+	private long observations;
+	/**
+	 * This is the sum of observed/predicted ratios
+	 */
+	private double ratios;
+	/**
+	 * This is the sum of absolute prediction errors in milliseconds
+	 */
+	private double errors;
+
+	public PlacementModel() {
+		costs = new HashMap<>();
+		predictions = new HashMap<>();
+		observations = 0L;
+		ratios = 0d;
+		errors = 0d;
+	}
+
+	/**
+	 * This estimates the time to download inputs
+	 *
+	 * @param inputSize
+	 *            is the size of the inputs to download, in bytes
+	 * @param bandwidth
+	 *            is the host download bandwidth in MB/s; DEFAULTBANDWIDTH is
+	 *            used if this is not positive
+	 * @return the estimated transfer time in milliseconds
+	 */
+	public long transfer(final long inputSize, final float bandwidth) {
+		if (inputSize <= 0) {
+			return 0L;
+		}
+		final float b = (bandwidth > 0f ? bandwidth : DEFAULTBANDWIDTH);
+		return (long) ((inputSize / MB) / b * 1000d);
+	}
+
+	/**
+	 * This estimates the compute time
+	 *
+	 * @param app
+	 *            is the application UID
+	 * @param cpuSpeed
+	 *            is the host cpu speed
+	 * @param avgExecTime
+	 *            is the application average execution time in milliseconds,
+	 *            used if the application has not been observed yet
+	 * @return the estimated compute time in milliseconds
+	 */
+	public synchronized long compute(final UID app, final int cpuSpeed, final long avgExecTime) {
+		final Double cost = (app == null ? null : costs.get(app));
+		if ((cost == null) || (cpuSpeed <= 0)) {
+			return Math.max(avgExecTime, 0L);
+		}
+		return (long) (cost.doubleValue() / cpuSpeed);
+	}
+
+	/**
+	 * This estimates the completion time
+	 *
+	 * @return transfer(inputSize, bandwidth) + compute(app, cpuSpeed,
+	 *         avgExecTime)
+	 */
+	public long estimate(final UID app, final long inputSize, final float bandwidth, final int cpuSpeed,
+			final long avgExecTime) {
+		return transfer(inputSize, bandwidth) + compute(app, cpuSpeed, avgExecTime);
+	}
+
+	/**
+	 * This records the prediction of a work which has just started
+	 *
+	 * @param work
+	 *            is the work UID
+	 * @param app
+	 *            is the application UID
+	 * @param cpuSpeed
+	 *            is the cpu speed of the host running the work
+	 * @param transfer
+	 *            is the predicted transfer time in milliseconds
+	 * @param duration
+	 *            is the predicted completion time in milliseconds
+	 */
+	public synchronized void predicted(final UID work, final UID app, final int cpuSpeed, final long transfer,
+			final long duration) {
+		if (work == null) {
+			return;
+		}
+		predictions.put(work, new Prediction(app, cpuSpeed, transfer, duration));
+	}
+
+	/**
+	 * This records the observed completion time of a work and updates the
+	 * application cost
+	 *
+	 * @param work
+	 *            is the work UID
+	 * @param duration
+	 *            is the observed completion time in milliseconds
+	 * @return the predicted completion time; -1 if the work had no prediction
+	 */
+	public synchronized long observed(final UID work, final long duration) {
+		final Prediction p = (work == null ? null : predictions.remove(work));
+		if (p == null) {
+			return -1L;
+		}
+		observations++;
+		errors += Math.abs(duration - p.duration);
+		if (p.duration > 0) {
+			ratios += (double) duration / (double) p.duration;
+		} else {
+			ratios += 1d;
+		}
+		if ((p.app != null) && (p.cpuSpeed > 0)) {
+			final double sample = (double) Math.max(duration - p.transfer, 0L) * p.cpuSpeed;
+			final Double cost = costs.get(p.app);
+			costs.put(p.app, cost == null ? sample : (1d - ALPHA) * cost.doubleValue() + ALPHA * sample);
+		}
+		return p.duration;
+	}
+
+	/**
+	 * This forgets the prediction of a work which is no more running
+	 */
+	public synchronized void removed(final UID work) {
+		if (work != null) {
+			predictions.remove(work);
+		}
+	}
+
+	/**
+	 * @return the amount of observed predictions
+	 */
+	public synchronized long getObservations() {
+		return observations;
+	}
+
+	/**
+	 * @return the mean observed/predicted ratio; 0 if nothing observed
+	 */
+	public synchronized double getMeanRatio() {
+		return observations == 0 ? 0d : ratios / observations;
+	}
+
+	/**
+	 * @return the mean absolute prediction error in milliseconds; 0 if
+	 *         nothing observed
+	 */
+	public synchronized double getMeanError() {
+		return observations == 0 ? 0d : errors / observations;
+	}
+}
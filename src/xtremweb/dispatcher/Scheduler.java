@@ -26,10 +26,14 @@ package xtremweb.dispatcher;
 import java.io.IOException;
 import java.util.Collection;
 
+import xtremweb.common.BloomFilter;
 import xtremweb.common.HostInterface;
 import xtremweb.common.Logger;
+import xtremweb.common.UID;
 import xtremweb.common.UserInterface;
 import xtremweb.common.WorkInterface;
+import xtremweb.common.XWConfigurator;
+import xtremweb.common.XWPropertyDefs;
 
 /**
  * This is the abstract class that defines XtremWeb scheduler main methods set.
@@ -44,8 +48,27 @@ public abstract class Scheduler {
 
 	private Logger logger;
 
+	/**
+	 * This orders work owners
+	 *
+	 * @since 10.6.0
+	 */
+	private final FairShareQueue fairShare;
+
+	/**
+	 * This detects straggling works
+	 *
+	 * @since 10.6.0
+	 */
+	private final StragglerDetector stragglers;
+
 	protected Scheduler() {
 		setLogger(new Logger(this));
+		final XWConfigurator config = Dispatcher.getConfig();
+		fairShare = new FairShareQueue(
+				config == null ? null : config.getProperty(XWPropertyDefs.FAIRSHAREWEIGHTS));
+		stragglers = new StragglerDetector(config == null ? 0d : config.getDouble(XWPropertyDefs.SPECULATIONPERCENTILE),
+				config == null ? 0L : config.getLong(XWPropertyDefs.SPECULATIONMINSAMPLES));
 	}
 
 	/**
@@ -73,6 +96,96 @@ public abstract class Scheduler {
 	 */
 	public abstract WorkInterface select(HostInterface host, UserInterface user) throws IOException;
 
+	/**
+	 * This tries to find a job that matches the given host and host owner,
+	 * preferably one which inputs are already cached by the host. This
+	 * default implementation ignores the cache filter
+	 *
+	 * @param host
+	 *            is the worker definition
+	 * @param user
+	 *            is the worker identity
+	 * @param cached
+	 *            is the filter of the contents cached by the host; may be null
+	 * @return a Work matching host; null if no work matches this host -or no
+	 *         pending work- found
+	 * @since 10.6.0
+	 */
+	public WorkInterface select(final HostInterface host, final UserInterface user, final BloomFilter cached)
+			throws IOException {
+		return select(host, user);
+	}
+
+	/**
+	 * This selects works for a set of concurrent work requests gathered into
+	 * one scheduling round, and provides each request its result. A work
+	 * selected for a request which handler has stopped waiting is given back.
+	 * This default implementation selects a work for each request on its own
+	 *
+	 * @param requests
+	 *            are the work requests of the round
+	 * @see WorkRequestBatcher
+	 * @since 10.6.0
+	 */
+	public void select(final Collection<WorkRequest> requests) {
+		for (final WorkRequest request : requests) {
+			try {
+				final WorkInterface theWork = select(request.getHost(), request.getUser(), request.getCached());
+				if (!request.complete(theWork) && (theWork != null)) {
+					DBInterface.getInstance().giveBack(theWork, null, request.getHost());
+				}
+			} catch (final Exception e) {
+				request.fail(e);
+			}
+		}
+	}
+
+	/**
+	 * This is called when a work has been completed. This default
+	 * implementation registers the work completion time to the straggler
+	 * detector
+	 *
+	 * @param work
+	 *            is the completed work
+	 * @param duration
+	 *            is the work completion time in milliseconds
+	 * @exception IOException
+	 *                is thrown if the work has no UID
+	 * @since 10.6.0
+	 */
+	public void completed(final WorkInterface work, final long duration) throws IOException {
+		stragglers.completed(work.getUID(), work.getApplication(), duration);
+	}
+
+	/**
+	 * This is called when a work is not running any more, without having been
+	 * completed (error, abort, lost...). This default implementation forgets
+	 * the work in the straggler detector
+	 *
+	 * @param work
+	 *            is the work UID
+	 * @since 10.6.0
+	 */
+	public void removed(final UID work) {
+		stragglers.removed(work);
+	}
+
+	/**
+	 * @return the fair share queue ordering work owners
+	 * @since 10.6.0
+	 */
+	public FairShareQueue getFairShare() {
+		return fairShare;
+	}
+
+	/**
+	 * @return the straggler detector
+	 * @since 10.6.0
+	 */
+	public StragglerDetector getStragglers() {
+		return stragglers;
+	}
+
 	/**
 	 * @return the logger
 	 */
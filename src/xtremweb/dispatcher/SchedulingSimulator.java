@@ -0,0 +1,554 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.dispatcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Hashtable;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Vector;
+
+import xtremweb.common.AppInterface;
+import xtremweb.common.AppTypeEnum;
+import xtremweb.common.CPUEnum;
+import xtremweb.common.CommandLineOptions;
+import xtremweb.common.CommandLineParser;
+import xtremweb.common.CommonVersion;
+import xtremweb.common.DataInterface;
+import xtremweb.common.DataTypeEnum;
+import xtremweb.common.HostInterface;
+import xtremweb.common.LatencyHistogram;
+import xtremweb.common.Logger;
+import xtremweb.common.OSEnum;
+import xtremweb.common.StatusEnum;
+import xtremweb.common.UID;
+import xtremweb.common.UserInterface;
+import xtremweb.common.UserRightEnum;
+import xtremweb.common.WorkInterface;
+import xtremweb.common.XWConfigurator;
+import xtremweb.common.XWPropertyDefs;
+import xtremweb.common.XWRole;
+import xtremweb.communications.URI;
+import xtremweb.database.DBConnPoolThread;
+import xtremweb.database.QueryStats;
+
+/**
+ * This is an in-process scheduling simulator aiming to benchmark the
+ * dispatcher scheduling throughput and latency, so that every scheduling or DB
+ * change can be compared to a baseline.<br />
+ * This starts the DB interface, the task set and the scheduler as the
+ * dispatcher does, but no communication layer. It then inserts synthetic
+ * users, applications and works, and drives virtual workers calling the
+ * communication handler directly: workRequest(), workAlive() and sendWork() to
+ * upload results.<br />
+ * Virtual workers are driven by a discrete event loop: the virtual clock jumps
+ * from one event to the next one, so that hours of computing are simulated as
+ * fast as the dispatcher schedules. The workload and the events are drawn from
+ * a seeded generator, so that two runs with the same parameters issue the same
+ * calls in the same order.<br />
+ * This is typically used with an in memory HSQLDB database (DBVENDOR=hsqldb,
+ * DBENGINE=mem and DBSQLFILE set to a script creating the tables).<br />
+ * Usage : java xtremweb.dispatcher.SchedulingSimulator --xwconfig configFile
+ * [name=value]...<br />
+ * where parameter names are the ones of the Parameters fields.
+ *
+ * @see Parameters
+ * @since 10.6.0
+ */
+public class SchedulingSimulator {
+
+	/**
+	 * These are the simulation parameters, which can be set from command line
+	 * as name=value
+	 */
+	public static class Parameters {
+		/** the random generator seed */
+		public long seed = 0L;
+		/** the amount of work owners */
+		public int owners = 4;
+		/** the amount of applications */
+		public int apps = 2;
+		/** the amount of works */
+		public int works = 1000;
+		/** the amount of virtual workers */
+		public int workers = 50;
+		/** the slowest worker CPU speed in MHz */
+		public int minspeed = 1000;
+		/** the fastest worker CPU speed in MHz */
+		public int maxspeed = 4000;
+		/** the amount of CPU of each worker */
+		public int cpus = 1;
+		/** the worker memory in Mb */
+		public long memory = 4096L;
+		/** the mean work duration, on a worker running at minspeed, in ms */
+		public long duration = 600000L;
+		/** the heart beat period in ms */
+		public long heartbeat = 60000L;
+		/** the heart beat jitter, as a fraction of the period */
+		public double jitter = 0.1d;
+		/**
+		 * the probability a worker crashes at each heart beat, losing its
+		 * work; it comes back after a heart beat period
+		 */
+		public double crashrate = 0d;
+		/** the simulation stops after this wall clock duration in ms */
+		public long maxwall = 600000L;
+		/**
+		 * an SQL script executed once the tables are created, e.g. to drop
+		 * indexes to get a baseline; none if null
+		 */
+		public String sqlfile = null;
+		/**
+		 * the amount of query templates, the most expensive first, to report
+		 * with their query plan
+		 */
+		public int plans = 0;
+
+		/**
+		 * This sets a parameter from a "name=value" string
+		 *
+		 * @throws IllegalArgumentException
+		 *             if the parameter is unknown or not valid
+		 */
+		public void set(final String nameValue) {
+			final int eq = nameValue.indexOf('=');
+			if (eq <= 0) {
+				throw new IllegalArgumentException("not a name=value parameter : " + nameValue);
+			}
+			final String name = nameValue.substring(0, eq).trim();
+			final String value = nameValue.substring(eq + 1).trim();
+			try {
+				final java.lang.reflect.Field field = getClass().getField(name);
+				final Class<?> type = field.getType();
+				if (type == long.class) {
+					field.setLong(this, Long.parseLong(value));
+				} else if (type == int.class) {
+					field.setInt(this, Integer.parseInt(value));
+				} else if (type == String.class) {
+					field.set(this, value);
+				} else {
+					field.setDouble(this, Double.parseDouble(value));
+				}
+			} catch (final NoSuchFieldException | IllegalAccessException | NumberFormatException e) {
+				throw new IllegalArgumentException("invalid parameter " + nameValue, e);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "seed=" + seed + " owners=" + owners + " apps=" + apps + " works=" + works + " workers=" + workers
+					+ " minspeed=" + minspeed + " maxspeed=" + maxspeed + " cpus=" + cpus + " memory=" + memory
+					+ " duration=" + duration + " heartbeat=" + heartbeat + " jitter=" + jitter + " crashrate="
+					+ crashrate + " maxwall=" + maxwall + " sqlfile=" + sqlfile + " plans=" + plans;
+		}
+	}
+
+	/**
+	 * These are the simulated worker events
+	 */
+	private enum EventType {
+		REQUEST, ALIVE, DONE
+	}
+
+	/**
+	 * This is a simulated event. Events are ordered by virtual date, then by
+	 * creation order so that the simulation is deterministic
+	 */
+	private static final class Event implements Comparable<Event> {
+		private final long date;
+		private final long seq;
+		private final EventType type;
+		private final VirtualWorker worker;
+		private final WorkInterface work;
+
+		private Event(final long d, final long s, final EventType t, final VirtualWorker vw, final WorkInterface w) {
+			date = d;
+			seq = s;
+			type = t;
+			worker = vw;
+			work = w;
+		}
+
+		@Override
+		public int compareTo(final Event o) {
+			if (date != o.date) {
+				return date < o.date ? -1 : 1;
+			}
+			return Long.compare(seq, o.seq);
+		}
+	}
+
+	/**
+	 * This is a virtual worker
+	 */
+	private static final class VirtualWorker {
+		private final HostInterface host;
+		/** the work being computed; null if none */
+		private WorkInterface work;
+
+		private VirtualWorker(final HostInterface h) {
+			host = h;
+		}
+	}
+
+	private final Logger logger;
+	private final Parameters params;
+	private final Random random;
+	private final PriorityQueue<Event> events;
+	private long eventSeq;
+
+	/** this is the virtual clock, in ms */
+	private long now;
+
+	private UserInterface admin;
+	private UserInterface workerUser;
+	private final Vector<UserInterface> owners;
+	private final Vector<AppInterface> apps;
+	private final Vector<VirtualWorker> workers;
+	/** this contains the work durations on a minspeed worker, indexed by UID */
+	private final Hashtable<UID, Long> durations;
+	private CommHandler handler;
+
+	private final LatencyHistogram submitLatencies;
+	private final LatencyHistogram requestLatencies;
+	private final LatencyHistogram aliveLatencies;
+	private final LatencyHistogram resultLatencies;
+	private int emptyRequests;
+	private int completed;
+	private int crashes;
+
+	/**
+	 * This constructs a new simulator
+	 *
+	 * @param p
+	 *            is the simulation parameters
+	 */
+	public SchedulingSimulator(final Parameters p) {
+		logger = new Logger(this);
+		params = p;
+		random = new Random(p.seed);
+		events = new PriorityQueue<>();
+		owners = new Vector<>();
+		apps = new Vector<>();
+		workers = new Vector<>();
+		durations = new Hashtable<>();
+		submitLatencies = new LatencyHistogram();
+		requestLatencies = new LatencyHistogram();
+		aliveLatencies = new LatencyHistogram();
+		resultLatencies = new LatencyHistogram();
+	}
+
+	/**
+	 * This creates a user, if not already in DB
+	 */
+	private UserInterface newUser(final String login, final UserRightEnum rights) throws Exception {
+		final UserInterface ret = new UserInterface();
+		ret.setUID(new UID());
+		ret.setLogin(login);
+		ret.setPassword(login);
+		ret.setRights(rights);
+		ret.setEMail("unknown");
+		DBInterface.getInstance().addUser(admin, ret);
+		DBConnPoolThread.getInstance().flush();
+		final UserInterface inDB = DBInterface.getInstance()
+				.user(UserInterface.Columns.LOGIN.toString() + "='" + login + "'");
+		if (inDB == null) {
+			throw new Exception("can't create user " + login);
+		}
+		ret.setUID(inDB.getUID());
+		ret.setPassword(inDB.getPassword());
+		return ret;
+	}
+
+	/**
+	 * This inserts the configured administrator, if not in DB yet, the
+	 * synthetic users, applications, hosts and works
+	 */
+	private void populate(final XWConfigurator config) throws Exception {
+
+		final DBInterface db = DBInterface.getInstance();
+		admin = new UserInterface();
+		admin.setLogin(config.getProperty(XWPropertyDefs.ADMINLOGIN));
+		admin.setPassword(config.getProperty(XWPropertyDefs.ADMINPASSWORD));
+		final UserInterface dbAdmin = db
+				.user(UserInterface.Columns.LOGIN.toString() + "='" + admin.getLogin() + "'");
+		if (dbAdmin == null) {
+			final UID adminUID = (config.getAdminUid() == null ? new UID() : config.getAdminUid());
+			admin.setUID(adminUID);
+			admin.setOwner(adminUID);
+			admin.setRights(UserRightEnum.SUPER_USER);
+			admin.setEMail("unknown");
+			admin.insert();
+			DBConnPoolThread.getInstance().flush();
+		} else {
+			admin.setUID(dbAdmin.getUID());
+		}
+
+		final String run = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+		workerUser = newUser("simworker_" + run, UserRightEnum.WORKER_USER);
+		for (int i = 0; i < params.owners; i++) {
+			owners.add(newUser("simowner" + i + "_" + run, UserRightEnum.STANDARD_USER));
+		}
+
+		for (int i = 0; i < params.apps; i++) {
+			final AppInterface app = new AppInterface(new UID());
+			app.setName("simapp" + i + "_" + run);
+			app.setType(AppTypeEnum.DEPLOYABLE);
+			final DataInterface binary = new DataInterface(new UID());
+			binary.setName("simbinary" + i + "_" + run);
+			binary.setType(DataTypeEnum.BINARY);
+			binary.setStatus(StatusEnum.AVAILABLE);
+			db.addData(admin, binary);
+			app.setBinary(CPUEnum.AMD64, OSEnum.LINUX, binary.getURI());
+			db.addApp(admin, app);
+			apps.add(app);
+		}
+
+		final String version = CommonVersion.getCurrent().toString();
+		for (int i = 0; i < params.workers; i++) {
+			final HostInterface host = new HostInterface();
+			host.setUID(new UID());
+			host.setName("simworker" + i + "_" + run);
+			host.setCpu(CPUEnum.AMD64);
+			host.setOs(OSEnum.LINUX);
+			host.setCpuNb(params.cpus);
+			host.setCpuSpeed(params.minspeed + random.nextInt(Math.max(1, params.maxspeed - params.minspeed + 1)));
+			host.setTotalMem(params.memory);
+			host.setFreeTmp(params.memory);
+			host.setAcceptBin(true);
+			host.setVersion(version);
+			workers.add(new VirtualWorker(host));
+		}
+
+		for (int i = 0; i < params.works; i++) {
+			final UserInterface owner = owners.get(random.nextInt(owners.size()));
+			final WorkInterface work = new WorkInterface();
+			work.setUID(new UID());
+			work.setApplication(apps.get(random.nextInt(apps.size())).getUID());
+			durations.put(work.getUID(),
+					Long.valueOf(Math.max(1L, (long) (-params.duration * Math.log(1d - random.nextDouble())))));
+			final long start = System.nanoTime();
+			handler.sendWork(owner, null, work);
+			submitLatencies.record((System.nanoTime() - start) / 1000L);
+		}
+	}
+
+	/**
+	 * This schedules a new event
+	 */
+	private void schedule(final long delay, final EventType type, final VirtualWorker vw, final WorkInterface w) {
+		events.add(new Event(now + Math.max(0L, delay), eventSeq++, type, vw, w));
+	}
+
+	/**
+	 * This retrieves the next heart beat delay
+	 */
+	private long heartbeat() {
+		return (long) (params.heartbeat * (1d + (params.jitter * ((2d * random.nextDouble()) - 1d))));
+	}
+
+	/**
+	 * This processes an event
+	 */
+	private void process(final Event e) throws Exception {
+		final VirtualWorker vw = e.worker;
+		switch (e.type) {
+		case REQUEST: {
+			final long start = System.nanoTime();
+			final WorkInterface work = handler.workRequest(workerUser, vw.host);
+			requestLatencies.record((System.nanoTime() - start) / 1000L);
+			if (work == null) {
+				emptyRequests++;
+				schedule(heartbeat(), EventType.REQUEST, vw, null);
+				break;
+			}
+			vw.work = work;
+			final Long duration = durations.get(work.getUID());
+			final long d = (duration == null ? params.duration : duration.longValue());
+			schedule((d * params.minspeed) / Math.max(1, vw.host.getCpuSpeed()), EventType.DONE, vw, work);
+			schedule(heartbeat(), EventType.ALIVE, vw, work);
+			break;
+		}
+		case ALIVE: {
+			if (vw.work != e.work) {
+				break;
+			}
+			if (random.nextDouble() < params.crashrate) {
+				crashes++;
+				vw.work = null;
+				schedule(heartbeat(), EventType.REQUEST, vw, null);
+				break;
+			}
+			final long start = System.nanoTime();
+			final Hashtable<?, ?> result = handler.workAlive(workerUser, vw.host, e.work.getUID());
+			aliveLatencies.record((System.nanoTime() - start) / 1000L);
+			if (Boolean.FALSE.equals(result.get("keepWorking"))) {
+				vw.work = null;
+				schedule(0L, EventType.REQUEST, vw, null);
+				break;
+			}
+			schedule(heartbeat(), EventType.ALIVE, vw, e.work);
+			break;
+		}
+		case DONE: {
+			if (vw.work != e.work) {
+				break;
+			}
+			e.work.setCompleted();
+			final long start = System.nanoTime();
+			handler.sendWork(workerUser, vw.host, e.work);
+			resultLatencies.record((System.nanoTime() - start) / 1000L);
+			completed++;
+			vw.work = null;
+			schedule(0L, EventType.REQUEST, vw, null);
+			break;
+		}
+		}
+	}
+
+	/**
+	 * This starts the scheduling components, populates the DB and runs the
+	 * simulation until all works are completed or params.maxwall is reached
+	 *
+	 * @param config
+	 *            is the dispatcher configuration
+	 * @param out
+	 *            is the stream to write the report to
+	 */
+	public void run(final XWConfigurator config, final PrintStream out) throws Exception {
+
+		Dispatcher.setConfig(config);
+		Dispatcher.startScheduling(logger);
+		handler = new TCPHandler(config);
+		handler.setRemoteIP("127.0.0.1");
+
+		final DBConnPoolThread dbPool = DBConnPoolThread.getInstance();
+		if (params.sqlfile != null) {
+			dbPool.executeFile(new File(params.sqlfile));
+		}
+		populate(config);
+
+		for (final VirtualWorker vw : workers) {
+			schedule((long) (random.nextDouble() * params.heartbeat), EventType.REQUEST, vw, null);
+		}
+
+		final long reads = dbPool.getReadCount();
+		final long writes = dbPool.getWriteCount();
+		dbPool.getQueryStats().reset();
+		final long start = System.currentTimeMillis();
+		while ((completed < params.works) && !events.isEmpty()
+				&& ((System.currentTimeMillis() - start) < params.maxwall)) {
+			final Event e = events.poll();
+			now = e.date;
+			try {
+				process(e);
+			} catch (final Exception ex) {
+				logger.exception("simulation error on " + e.type, ex);
+				if (e.type == EventType.REQUEST) {
+					schedule(heartbeat(), EventType.REQUEST, e.worker, null);
+				}
+			}
+		}
+		final long wall = Math.max(1L, System.currentTimeMillis() - start);
+
+		out.println("parameters  : " + params);
+		out.println("completed   : " + completed + "/" + params.works + " in " + wall + "ms wall clock, " + now
+				+ "ms virtual");
+		out.println("throughput  : " + ((completed * 1000d) / wall) + " jobs/s");
+		out.println("requests    : " + requestLatencies.count() + " (" + emptyRequests + " empty), crashes : "
+				+ crashes);
+		out.println("latencies in microseconds");
+		out.println("submit      : " + submitLatencies);
+		out.println("workRequest : " + requestLatencies);
+		out.println("workAlive   : " + aliveLatencies);
+		out.println("sendWork    : " + resultLatencies);
+		final long dbReads = dbPool.getReadCount() - reads;
+		final long dbWrites = dbPool.getWriteCount() - writes;
+		out.println("db queries  : reads=" + dbReads + " writes=" + dbWrites + " per job="
+				+ (completed == 0 ? 0d : (dbReads + dbWrites) / (double) completed));
+		if (params.plans > 0) {
+			plans(dbPool, out);
+		}
+	}
+
+	/**
+	 * This writes the params.plans most expensive query templates, with the
+	 * query plan of the SELECT ones
+	 *
+	 * @see DBConnPoolThread#explain(String)
+	 */
+	private void plans(final DBConnPoolThread dbPool, final PrintStream out) {
+		out.println("query templates, highest cumulated execution time first");
+		int n = 0;
+		for (final QueryStats.Entry e : dbPool.getQueryStats().getEntries()) {
+			if (n++ >= params.plans) {
+				break;
+			}
+			out.println(e);
+			final String sample = e.getSample();
+			if ((sample == null) || !sample.trim().toUpperCase().startsWith("SELECT")) {
+				continue;
+			}
+			try {
+				for (final String line : dbPool.explain(sample)) {
+					out.println("  plan      " + line);
+				}
+			} catch (final IOException ex) {
+				out.println("  plan      " + ex.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * This is the simulator entry point
+	 *
+	 * @param argv
+	 *            contains "--xwconfig configFile", then optional name=value
+	 *            parameters
+	 * @see Parameters
+	 */
+	public static void main(final String[] argv) {
+		final Logger logger = new Logger();
+		XWRole.setDispatcher();
+		final String configOption = CommandLineParser.PREFIX + CommandLineOptions.CONFIG.toString().toLowerCase();
+		if ((argv.length < 2) || !configOption.equals(argv[0])) {
+			logger.fatal("Usage : java " + SchedulingSimulator.class.getName() + " " + configOption
+					+ " configFile [name=value]...");
+		}
+		try {
+			final XWConfigurator config = new XWConfigurator(argv[1], false);
+			final Parameters params = new Parameters();
+			for (int i = 2; i < argv.length; i++) {
+				params.set(argv[i]);
+			}
+			new SchedulingSimulator(params).run(config, System.out);
+			System.exit(0);
+		} catch (final Exception e) {
+			logger.exception(e);
+			logger.fatal(e.toString());
+		}
+	}
+}
@@ -102,6 +102,10 @@ public class SimpleScheduler extends Scheduler {
 		theTask.setRunningBy(host.getUID());
 		db.update(theWork);
 		db.update(theTask);
+		final TaskSet tset = Dispatcher.getTaskSet();
+		if (tset != null) {
+			tset.renewLease(theTask);
+		}
 
 		getMileStone().println("</select>");
 
@@ -0,0 +1,276 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.dispatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import xtremweb.common.LatencyHistogram;
+import xtremweb.common.UID;
+
+/**
+ * This detects straggling works so that they can be speculatively run on a
+ * faster host.<br />
+ * This keeps the completion time distribution of each application and the
+ * running works. A running work is a straggler if it has been running for
+ * longer than the configured percentile of its application completion times.
+ * Each work is speculated at most once; the first result wins and the other
+ * task is aborted.
+ *
+ * @see xtremweb.common.XWPropertyDefs#SPECULATIONPERCENTILE
+ * @since 10.6.0
+ */
+public class StragglerDetector {
+
+	/**
+	 * This is the delay between two straggler list computations, in
+	 * milliseconds
+	 */
+	public static final long REFRESHDELAY = 1000L;
+
+	/**
+	 * This is a running work
+	 */
+	private static final class Running {
+		private final UID work;
+		private final UID app;
+		private final int cpuSpeed;
+		private final long start;
+		private boolean speculated;
+
+		private Running(final UID w, final UID a, final int c, final long s) {
+			work = w;
+			app = a;
+			cpuSpeed = c;
+			start = s;
+			speculated = false;
+		}
+	}
+
+	/**
+	 * This is the percentile above which a running work is a straggler; no
+	 * speculation if <= 0
+	 */
+	private final double percentile;
+	/**
+	 * This is the minimal amount of completed works of an application before
+	 * its works can be speculated
+	 */
+	private final long minSamples;
+	/**
+	 * These are the completion time distributions, indexed by application UID
+	 */
+	private final Map<UID, LatencyHistogram> durations;
+	/**
+	 * These are the running works, indexed by work UID
+	 */
+	private final Map<UID, Running> running;
+	/**
+	 * These are the stragglers, as computed on last refresh
+	 */
+	private List<Running> stragglers;
+	/**
+	 * This is the date of the last stragglers computation
+	 */
+	private long lastRefresh;
+
+	/**
+	 * @param p
+	 *            is the percentile above which a running work is a straggler;
+	 *            no speculation if <= 0
+	 * @param m
+	 *            is the minimal amount of completed works of an application
+	 *            before its works can be speculated
+	 */
+	public StragglerDetector(final double p, final long m) {
+		percentile = Math.min(p, 100d);
+		minSamples = Math.max(m, 1L);
+		durations = new HashMap<>();
+		running = new HashMap<>();
+		stragglers = new ArrayList<>();
+		lastRefresh = 0L;
+	}
+
+	/**
+	 * @return true if speculation is enabled
+	 */
+	public boolean isEnabled() {
+		return percentile > 0;
+	}
+
+	/**
+	 * This registers a work which has just been dispatched
+	 *
+	 * @param work
+	 *            is the work UID
+	 * @param app
+	 *            is the work application UID
+	 * @param cpuSpeed
+	 *            is the cpu speed of the host running the work
+	 * @param now
+	 *            is the dispatch date in milliseconds
+	 */
+	public synchronized void started(final UID work, final UID app, final int cpuSpeed, final long now) {
+		if (!isEnabled() || (work == null) || (app == null)) {
+			return;
+		}
+		running.put(work, new Running(work, app, cpuSpeed, now));
+	}
+
+	/**
+	 * This registers a completed work
+	 *
+	 * @param work
+	 *            is the work UID
+	 * @param app
+	 *            is the work application UID
+	 * @param duration
+	 *            is the work completion time in milliseconds
+	 */
+	public synchronized void completed(final UID work, final UID app, final long duration) {
+		if (!isEnabled()) {
+			return;
+		}
+		if (work != null) {
+			running.remove(work);
+		}
+		if (app == null) {
+			return;
+		}
+		LatencyHistogram h = durations.get(app);
+		if (h == null) {
+			h = new LatencyHistogram();
+			durations.put(app, h);
+		}
+		h.record(duration);
+	}
+
+	/**
+	 * This forgets a work which is no more running (error, abort...)
+	 */
+	public synchronized void removed(final UID work) {
+		if (work != null) {
+			running.remove(work);
+		}
+	}
+
+	/**
+	 * This marks a work as speculated : it won't be proposed again
+	 */
+	public synchronized void speculated(final UID work) {
+		final Running r = (work == null ? null : running.get(work));
+		if (r != null) {
+			r.speculated = true;
+			stragglers.remove(r);
+		}
+	}
+
+	/**
+	 * This tells whether a work is currently run by a speculative copy too
+	 */
+	public synchronized boolean isSpeculated(final UID work) {
+		final Running r = (work == null ? null : running.get(work));
+		return (r != null) && r.speculated;
+	}
+
+	/**
+	 * This retrieves the completion time threshold above which a work of the
+	 * given application is a straggler
+	 *
+	 * @return the threshold in milliseconds; -1 if not enough samples
+	 */
+	public synchronized long threshold(final UID app) {
+		final LatencyHistogram h = durations.get(app);
+		if ((h == null) || (h.count() < minSamples)) {
+			return -1L;
+		}
+		return h.percentile(percentile);
+	}
+
+	/**
+	 * This retrieves the stragglers that a host could speculatively run
+	 *
+	 * @param cpuSpeed
+	 *            is the cpu speed of the requesting host; only works running
+	 *            on slower hosts are returned
+	 * @param now
+	 *            is the current date in milliseconds
+	 * @param max
+	 *            is the max amount of expected works
+	 * @return a list of work UID, the most straggling first
+	 */
+	public synchronized List<UID> candidates(final int cpuSpeed, final long now, final int max) {
+		final List<UID> ret = new ArrayList<>();
+		if (!isEnabled()) {
+			return ret;
+		}
+		if ((now - lastRefresh) >= REFRESHDELAY) {
+			refresh(now);
+		}
+		for (final Running r : stragglers) {
+			if (ret.size() >= max) {
+				break;
+			}
+			if (r.cpuSpeed < cpuSpeed) {
+				ret.add(r.work);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * This computes the stragglers, the most straggling first
+	 */
+	private void refresh(final long now) {
+		final Map<UID, Long> thresholds = new HashMap<>();
+		final Map<Running, Double> ratios = new HashMap<>();
+		for (final Running r : running.values()) {
+			if (r.speculated) {
+				continue;
+			}
+			Long threshold = thresholds.get(r.app);
+			if (threshold == null) {
+				threshold = Long.valueOf(threshold(r.app));
+				thresholds.put(r.app, threshold);
+			}
+			final long elapsed = now - r.start;
+			if ((threshold.longValue() >= 0) && (elapsed > threshold.longValue())) {
+				ratios.put(r, Double.valueOf((double) elapsed / (double) Math.max(threshold.longValue(), 1L)));
+			}
+		}
+		final List<Running> list = new ArrayList<>(ratios.keySet());
+		Collections.sort(list, new Comparator<Running>() {
+			@Override
+			public int compare(final Running a, final Running b) {
+				return Double.compare(ratios.get(b).doubleValue(), ratios.get(a).doubleValue());
+			}
+		});
+		stragglers = list;
+		lastRefresh = now;
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.dispatcher;
+
+import xtremweb.common.UID;
+
+/**
+ * This is a fixed set of lock objects, selected by UID.<br />
+ * Threads working on objects with the same UID always get the same lock,
+ * while threads working on objects with different UIDs most probably get
+ * different locks and then proceed in parallel. Locks are never created nor
+ * released, so memory does not depend on the amount of UIDs.
+ *
+ * @since 10.6.0
+ */
+public class StripedLocks {
+
+	/**
+	 * This is the default amount of locks
+	 */
+	public static final int DEFAULTSTRIPES = 64;
+
+	/**
+	 * These are the locks
+	 */
+	private final Object[] locks;
+	/**
+	 * This is the lock index mask
+	 */
+	private final int mask;
+
+	/**
+	 * This calls this(DEFAULTSTRIPES)
+	 */
+	public StripedLocks() {
+		this(DEFAULTSTRIPES);
+	}
+
+	/**
+	 * This constructor creates the locks
+	 *
+	 * @param stripes
+	 *            is the minimal amount of locks; this is rounded up to a power
+	 *            of two
+	 */
+	public StripedLocks(final int stripes) {
+		int size = 1;
+		while (size < stripes) {
+			size <<= 1;
+		}
+		locks = new Object[size];
+		for (int i = 0; i < size; i++) {
+			locks[i] = new Object();
+		}
+		mask = size - 1;
+	}
+
+	/**
+	 * This retrieves the amount of locks
+	 */
+	public int size() {
+		return locks.length;
+	}
+
+	/**
+	 * This retrieves the lock of the given UID
+	 *
+	 * @param uid
+	 *            is the UID of the object to lock; the same lock is returned
+	 *            for all null UIDs
+	 * @return the lock object to synchronize on
+	 */
+	public Object get(final UID uid) {
+		int h = (uid == null ? 0 : uid.hashCode());
+		h ^= (h >>> 16);
+		return locks[h & mask];
+	}
+}
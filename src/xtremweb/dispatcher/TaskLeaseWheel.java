@@ -0,0 +1,271 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.dispatcher;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+
+import xtremweb.common.UID;
+
+/**
+ * This is a hierarchical timer wheel holding task leases.<br />
+ * Each running task holds a lease that is renewed on each heart beat. The
+ * wheel only returns leases that are actually expired, so that the cost of
+ * lost task detection depends on the amount of expirations and not on the
+ * amount of running tasks.
+ *
+ * The wheel has LEVELS levels of SLOTS slots. A level n slot covers
+ * SLOTS^n ticks; leases are cascaded to lower levels as time goes by.
+ *
+ * @since 10.6.0
+ */
+public class TaskLeaseWheel {
+
+	/**
+	 * This is the default tick duration in milliseconds
+	 */
+	public static final long DEFAULTTICK = 1000L;
+	/**
+	 * This is the amount of bits to index a slot in a level
+	 */
+	private static final int SLOTBITS = 6;
+	/**
+	 * This is the amount of slots per level
+	 */
+	private static final int SLOTS = 1 << SLOTBITS;
+	/**
+	 * This is the slot index mask
+	 */
+	private static final long SLOTMASK = SLOTS - 1;
+	/**
+	 * This is the amount of levels
+	 */
+	private static final int LEVELS = 4;
+
+	/**
+	 * This is a lease, stored in exactly one slot
+	 */
+	private static final class Lease {
+		private final UID uid;
+		private long deadline;
+		private Set<Lease> slot;
+
+		private Lease(final UID u) {
+			uid = u;
+		}
+	}
+
+	/**
+	 * This is the tick duration in milliseconds
+	 */
+	private final long tick;
+	/**
+	 * These are the slots, indexed by [level][slot]
+	 */
+	private final Set<Lease>[][] wheel;
+	/**
+	 * These are the leases already expired when they were inserted
+	 */
+	private final Set<Lease> overdue;
+	/**
+	 * This indexes leases by task UID so that renewal and cancellation are O(1)
+	 */
+	private final Map<UID, Lease> leases;
+	/**
+	 * This is the last processed tick
+	 */
+	private long currentTick;
+
+	/**
+	 * This calls this(DEFAULTTICK)
+	 */
+	public TaskLeaseWheel() {
+		this(DEFAULTTICK);
+	}
+
+	/**
+	 * This constructor initializes the wheel at the current time
+	 *
+	 * @param t
+	 *            is the tick duration in milliseconds
+	 */
+	public TaskLeaseWheel(final long t) {
+		this(t, System.currentTimeMillis());
+	}
+
+	/**
+	 * This constructor initializes the wheel at the given time
+	 *
+	 * @param t
+	 *            is the tick duration in milliseconds
+	 * @param now
+	 *            is the initial time in milliseconds
+	 */
+	@SuppressWarnings("unchecked")
+	public TaskLeaseWheel(final long t, final long now) {
+		tick = (t > 0 ? t : DEFAULTTICK);
+		wheel = (Set<Lease>[][]) new Set<?>[LEVELS][SLOTS];
+		for (int l = 0; l < LEVELS; l++) {
+			for (int s = 0; s < SLOTS; s++) {
+				wheel[l][s] = new HashSet<>();
+			}
+		}
+		overdue = new HashSet<>();
+		leases = new HashMap<>();
+		currentTick = now / tick;
+	}
+
+	/**
+	 * This inserts or renews a lease
+	 *
+	 * @param uid
+	 *            is the task UID
+	 * @param deadline
+	 *            is the lease expiration date in milliseconds
+	 */
+	public synchronized void renew(final UID uid, final long deadline) {
+		if (uid == null) {
+			return;
+		}
+		Lease lease = leases.get(uid);
+		if (lease == null) {
+			lease = new Lease(uid);
+			leases.put(uid, lease);
+		} else {
+			lease.slot.remove(lease);
+		}
+		lease.deadline = (deadline + tick - 1) / tick;
+		schedule(lease);
+	}
+
+	/**
+	 * This removes a lease, if any
+	 *
+	 * @param uid
+	 *            is the task UID
+	 * @return true if a lease has been removed
+	 */
+	public synchronized boolean cancel(final UID uid) {
+		if (uid == null) {
+			return false;
+		}
+		final Lease lease = leases.remove(uid);
+		if (lease == null) {
+			return false;
+		}
+		lease.slot.remove(lease);
+		return true;
+	}
+
+	/**
+	 * This tells whether a lease is held for the given task
+	 */
+	public synchronized boolean contains(final UID uid) {
+		return (uid != null) && leases.containsKey(uid);
+	}
+
+	/**
+	 * This retrieves the amount of held leases
+	 */
+	public synchronized int size() {
+		return leases.size();
+	}
+
+	/**
+	 * This advances the wheel up to the given time and removes expired leases
+	 *
+	 * @param now
+	 *            is the current time in milliseconds
+	 * @return the UID of the tasks which lease has expired; an empty collection
+	 *         if none
+	 */
+	public synchronized Collection<UID> expire(final long now) {
+
+		final Vector<UID> ret = new Vector<>();
+		final long targetTick = now / tick;
+
+		while (currentTick < targetTick) {
+			currentTick++;
+			for (int l = LEVELS - 1; l > 0; l--) {
+				if ((currentTick & ((1L << (SLOTBITS * l)) - 1)) == 0) {
+					cascade(wheel[l][(int) ((currentTick >> (SLOTBITS * l)) & SLOTMASK)]);
+				}
+			}
+			final Set<Lease> slot = wheel[0][(int) (currentTick & SLOTMASK)];
+			for (final Iterator<Lease> it = slot.iterator(); it.hasNext();) {
+				final Lease lease = it.next();
+				if (lease.deadline <= currentTick) {
+					it.remove();
+					leases.remove(lease.uid);
+					ret.add(lease.uid);
+				}
+			}
+		}
+		for (final Lease lease : overdue) {
+			leases.remove(lease.uid);
+			ret.add(lease.uid);
+		}
+		overdue.clear();
+		return ret;
+	}
+
+	/**
+	 * This moves all leases of the given slot to their new slot
+	 */
+	private void cascade(final Set<Lease> slot) {
+		if (slot.isEmpty()) {
+			return;
+		}
+		final Vector<Lease> moved = new Vector<>(slot);
+		slot.clear();
+		for (final Lease lease : moved) {
+			schedule(lease);
+		}
+	}
+
+	/**
+	 * This inserts a lease in the slot matching its deadline
+	 */
+	private void schedule(final Lease lease) {
+		final long delta = lease.deadline - currentTick;
+		if (delta <= 0) {
+			lease.slot = overdue;
+			overdue.add(lease);
+			return;
+		}
+		for (int l = 0; l < LEVELS; l++) {
+			if ((delta < (1L << (SLOTBITS * (l + 1)))) || (l == LEVELS - 1)) {
+				final long when = Math.min(lease.deadline, currentTick + (1L << (SLOTBITS * (l + 1))) - 1);
+				lease.slot = wheel[l][(int) ((when >> (SLOTBITS * l)) & SLOTMASK)];
+				lease.slot.add(lease);
+				return;
+			}
+		}
+	}
+}
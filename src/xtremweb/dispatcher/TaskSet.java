@@ -24,6 +24,8 @@
 package xtremweb.dispatcher;
 
 import xtremweb.common.Logger;
+import xtremweb.common.TaskInterface;
+import xtremweb.common.UID;
 import xtremweb.common.XWPropertyDefs;
 
 /**
@@ -71,6 +73,28 @@ public abstract class TaskSet extends Thread {
 	 */
 	protected abstract void detectAbortedTasks();
 
+	/**
+	 * This renews the liveness lease of the given task. This is called on each
+	 * heart beat received for a task. This does nothing by default
+	 *
+	 * @param task
+	 *            is the running task
+	 * @since 10.6.0
+	 */
+	public void renewLease(final TaskInterface task) {
+	}
+
+	/**
+	 * This removes the liveness lease of the given task. This is called when a
+	 * task is not running any more. This does nothing by default
+	 *
+	 * @param taskUID
+	 *            is the task UID
+	 * @since 10.6.0
+	 */
+	public void cancelLease(final UID taskUID) {
+	}
+
 	/**
 	 * This is the main method. This is an infinite loop that detects aborted
 	 * tasks and retreive WAITING jobs The loop then sleeps for ALIVE seconds
@@ -0,0 +1,236 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.dispatcher;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import xtremweb.common.BloomFilter;
+import xtremweb.common.HostInterface;
+import xtremweb.common.UserInterface;
+import xtremweb.common.WorkInterface;
+
+/**
+ * This is a pending work request of a scheduling round. The handler thread
+ * waits for the result that the scheduler provides when the round is over.
+ * A request is either taken by a round or abandoned by its handler thread
+ * if no round takes it in time, but never both. If the round taking it does
+ * not complete in time either, the handler thread gives up and complete()
+ * tells the round that nobody waits for the work any more, so that a work is
+ * never kept for a request nobody waits for.
+ *
+ * @see WorkRequestBatcher
+ * @see Scheduler#select(java.util.Collection)
+ * @since 10.6.0
+ */
+public class WorkRequest {
+
+	/**
+	 * This is the requesting worker
+	 */
+	private final HostInterface host;
+	/**
+	 * This is the identity of the worker
+	 */
+	private final UserInterface user;
+	/**
+	 * This is the filter of the contents cached by the worker; may be null
+	 */
+	private final BloomFilter cached;
+	/**
+	 * This is the result of the request
+	 */
+	private final CompletableFuture<WorkInterface> result;
+	/**
+	 * These are the states of a request
+	 */
+	private enum State {
+		/** no round has taken the request yet */
+		WAITING,
+		/** a round has taken the request */
+		TAKEN,
+		/** the handler thread does not wait for the result any more */
+		ABANDONED,
+		/** the result has been provided */
+		DONE
+	}
+
+	/**
+	 * This is the state of this request; this is guarded by this object
+	 * monitor
+	 */
+	private State state;
+
+	/**
+	 * @param host
+	 *            is the requesting worker
+	 * @param user
+	 *            is the identity of the worker
+	 * @param cached
+	 *            is the filter of the contents cached by the worker; may be
+	 *            null
+	 */
+	public WorkRequest(final HostInterface host, final UserInterface user, final BloomFilter cached) {
+		this.host = host;
+		this.user = user;
+		this.cached = cached;
+		result = new CompletableFuture<>();
+		state = State.WAITING;
+	}
+
+	/**
+	 * This is called by a round before scheduling this request
+	 *
+	 * @return true if this request must be scheduled; false if it has been
+	 *         abandoned
+	 */
+	public synchronized boolean take() {
+		if (state != State.WAITING) {
+			return false;
+		}
+		state = State.TAKEN;
+		return true;
+	}
+
+	/**
+	 * This stops waiting for the result, if it has not been provided yet
+	 *
+	 * @param taken
+	 *            is true to give up a request taken by a round; false to
+	 *            abandon a request only if no round has taken it yet
+	 * @return true if this request has been abandoned
+	 */
+	private synchronized boolean abandon(final boolean taken) {
+		if ((state == State.DONE) || ((state == State.TAKEN) && !taken)) {
+			return false;
+		}
+		state = State.ABANDONED;
+		return true;
+	}
+
+	/**
+	 * @return the requesting worker
+	 */
+	public HostInterface getHost() {
+		return host;
+	}
+
+	/**
+	 * @return the identity of the worker
+	 */
+	public UserInterface getUser() {
+		return user;
+	}
+
+	/**
+	 * @return the filter of the contents cached by the worker; may be null
+	 */
+	public BloomFilter getCached() {
+		return cached;
+	}
+
+	/**
+	 * This provides the selected work; this does nothing if the request is
+	 * already done or abandoned
+	 *
+	 * @param work
+	 *            is the selected work; may be null if no work matches
+	 * @return false if the handler thread has abandoned this request : the
+	 *         caller must then give the work back
+	 */
+	public synchronized boolean complete(final WorkInterface work) {
+		if (state == State.ABANDONED) {
+			return false;
+		}
+		state = State.DONE;
+		result.complete(work);
+		return true;
+	}
+
+	/**
+	 * This provides the scheduling error; this does nothing if the request
+	 * is already done or abandoned
+	 */
+	public synchronized void fail(final Exception e) {
+		if (state == State.ABANDONED) {
+			return;
+		}
+		state = State.DONE;
+		result.completeExceptionally(e);
+	}
+
+	/**
+	 * @return true if the result has been provided
+	 */
+	public boolean isDone() {
+		return result.isDone();
+	}
+
+	/**
+	 * This waits for the result. If no round has taken this request within
+	 * the given time, this request is abandoned and TimeoutException is
+	 * thrown, so that the caller can schedule it on its own; otherwise, this
+	 * waits for the round to complete, at most the given time again, and then
+	 * abandons this request so that the round gives its work back
+	 *
+	 * @param timeout
+	 *            is the max time to wait, in milliseconds
+	 * @return the selected work; null if no work matches
+	 * @exception TimeoutException
+	 *                is thrown if this request has been abandoned
+	 * @exception IOException
+	 *                is thrown on scheduling error, if interrupted or if the
+	 *                round taking this request has not completed in time
+	 */
+	public WorkInterface get(final long timeout) throws IOException, TimeoutException {
+		try {
+			try {
+				return result.get(timeout, TimeUnit.MILLISECONDS);
+			} catch (final TimeoutException e) {
+				if (abandon(false)) {
+					throw e;
+				}
+			}
+			try {
+				return result.get(timeout, TimeUnit.MILLISECONDS);
+			} catch (final TimeoutException e) {
+				if (abandon(true)) {
+					throw new IOException("scheduling round not completed within " + (2 * timeout) + "ms");
+				}
+			}
+			return result.get();
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException(cause == null ? e.toString() : cause.toString());
+		} catch (final InterruptedException e) {
+			throw new IOException(e.toString());
+		}
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.dispatcher;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeoutException;
+
+import xtremweb.common.BloomFilter;
+import xtremweb.common.HostInterface;
+import xtremweb.common.Logger;
+import xtremweb.common.UserInterface;
+import xtremweb.common.WorkInterface;
+
+/**
+ * This gathers concurrent work requests into scheduling rounds. The first
+ * request of a round opens a window; all requests arriving within this window
+ * are scheduled at once by Scheduler#select(Collection), trading a bounded
+ * latency for far fewer DB round trips when many workers poll at once.<br />
+ * Rounds contain at most MAXROUNDSIZE requests, since a round selects its
+ * candidates one after the other. A request not taken by a round within the
+ * window plus MAXWAIT is scheduled on its own by the handler thread, so that
+ * work requests never wait for a stopped or overloaded batcher.
+ *
+ * @see xtremweb.common.XWPropertyDefs#WORKREQUESTWINDOW
+ * @since 10.6.0
+ */
+public class WorkRequestBatcher extends Thread {
+
+	/**
+	 * This is the max amount of requests of a round
+	 */
+	public static final int MAXROUNDSIZE = 100;
+	/**
+	 * This is the max time in milliseconds a request waits for a round, in
+	 * addition to the window
+	 */
+	public static final long MAXWAIT = 5000L;
+
+	private final Logger logger;
+	/**
+	 * This is the window in milliseconds
+	 */
+	private final long window;
+	/**
+	 * These are the requests waiting for the next round
+	 */
+	private final LinkedBlockingQueue<WorkRequest> requests;
+	/**
+	 * This is the amount of rounds
+	 */
+	private long rounds;
+
+	/**
+	 * @param window
+	 *            is the window in milliseconds
+	 */
+	public WorkRequestBatcher(final long window) {
+		super("WorkRequestBatcher");
+		setDaemon(true);
+		logger = new Logger(this);
+		this.window = window;
+		requests = new LinkedBlockingQueue<>();
+		rounds = 0L;
+	}
+
+	/**
+	 * This submits a work request to the next round and waits for its
+	 * result. The request is scheduled on its own if this batcher is not
+	 * running or if no round takes it in time
+	 *
+	 * @param host
+	 *            is the requesting worker
+	 * @param user
+	 *            is the identity of the worker
+	 * @param cached
+	 *            is the filter of the contents cached by the worker; may be
+	 *            null
+	 * @return a Work matching host; null if no work matches this host
+	 * @exception IOException
+	 *                is thrown on scheduling error
+	 * @see WorkRequest#get(long)
+	 */
+	public WorkInterface select(final HostInterface host, final UserInterface user, final BloomFilter cached)
+			throws IOException {
+		if (isAlive()) {
+			final WorkRequest request = new WorkRequest(host, user, cached);
+			requests.add(request);
+			try {
+				return request.get(window + MAXWAIT);
+			} catch (final TimeoutException e) {
+				logger.warn("work request not scheduled within " + (window + MAXWAIT) + "ms; scheduling it now");
+			}
+		}
+		return Dispatcher.getScheduler().select(host, user, cached);
+	}
+
+	/**
+	 * @return the amount of scheduling rounds
+	 */
+	public synchronized long getRounds() {
+		return rounds;
+	}
+
+	/**
+	 * This is the main loop : this waits for a request, waits for the window
+	 * to elapse and schedules all waiting requests not abandoned yet. On
+	 * exit, all waiting requests are failed
+	 */
+	@Override
+	public void run() {
+		List<WorkRequest> round = new Vector<>();
+		try {
+			while (true) {
+				final List<WorkRequest> drained = new Vector<>();
+				round = new Vector<>();
+				try {
+					drained.add(requests.take());
+					if (window > 0) {
+						Thread.sleep(window);
+					}
+				} catch (final InterruptedException e) {
+					logger.info("WorkRequestBatcher interrupted");
+					round = drained;
+					return;
+				}
+				requests.drainTo(drained, MAXROUNDSIZE - 1);
+				for (final WorkRequest request : drained) {
+					if (request.take()) {
+						round.add(request);
+					}
+				}
+				if (round.isEmpty()) {
+					continue;
+				}
+				logger.debug("scheduling round of " + round.size() + " requests");
+				synchronized (this) {
+					rounds++;
+				}
+				try {
+					Dispatcher.getScheduler().select(round);
+				} catch (final Exception e) {
+					logger.exception("scheduling round error", e);
+					for (final WorkRequest request : round) {
+						request.fail(e);
+					}
+				}
+			}
+		} finally {
+			final IOException e = new IOException("WorkRequestBatcher stopped");
+			requests.drainTo(round);
+			for (final WorkRequest request : round) {
+				request.fail(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package xtremweb.dispatcher;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import xtremweb.common.StatusEnum;
+import xtremweb.common.UID;
+
+/**
+ * This counts works by status, for all works and by owner, so that works
+ * counts are retrieved from memory instead of scanning the works table.<br />
+ * Counts are updated on each work status change. They are periodically
+ * reconciled with the DB to correct any drift: changes occurring while the
+ * DB is read are recorded and applied to the read counts.
+ *
+ * @see DBInterface#workStatusChanged(xtremweb.common.WorkInterface, StatusEnum,
+ *      StatusEnum)
+ * @see xtremweb.database.SQLRequestOwnerWorksCount
+ * @see xtremweb.common.XWPropertyDefs#WORKSCOUNTSPERIOD
+ * @since 10.6.0
+ */
+public class WorksCounts {
+
+	private static final int STATUSES = StatusEnum.values().length;
+
+	/**
+	 * These are the counts of all works, by status ordinal
+	 */
+	private long[] totals;
+	/**
+	 * These are the counts of works by owner, by status ordinal
+	 */
+	private Map<UID, long[]> owners;
+	/**
+	 * These are the changes occurring during a reconciliation; null if not
+	 * reconciling
+	 */
+	private Map<UID, long[]> changes;
+	/**
+	 * This is the amount of reconciliations
+	 */
+	private long reconciliations;
+
+	public WorksCounts() {
+		totals = new long[STATUSES];
+		owners = new HashMap<>();
+		changes = null;
+		reconciliations = 0L;
+	}
+
+	/**
+	 * This adds v to a count
+	 */
+	private static void add(final Map<UID, long[]> counts, final UID owner, final StatusEnum s, final long v) {
+		long[] c = counts.get(owner);
+		if (c == null) {
+			c = new long[STATUSES];
+			counts.put(owner, c);
+		}
+		c[s.ordinal()] += v;
+	}
+
+	/**
+	 * This updates counts on a work status change
+	 *
+	 * @param owner
+	 *            is the UID of the work owner
+	 * @param from
+	 *            is the previous work status; null for a new work
+	 * @param to
+	 *            is the new work status; null for a deleted work
+	 */
+	public synchronized void changed(final UID owner, final StatusEnum from, final StatusEnum to) {
+		if ((owner == null) || (from == to)) {
+			return;
+		}
+		if (from != null) {
+			totals[from.ordinal()]--;
+			add(owners, owner, from, -1);
+			if (changes != null) {
+				add(changes, owner, from, -1);
+			}
+		}
+		if (to != null) {
+			totals[to.ordinal()]++;
+			add(owners, owner, to, 1);
+			if (changes != null) {
+				add(changes, owner, to, 1);
+			}
+		}
+	}
+
+	/**
+	 * @return the amount of works with the given status
+	 */
+	public synchronized long count(final StatusEnum s) {
+		return s == null ? 0L : Math.max(totals[s.ordinal()], 0L);
+	}
+
+	/**
+	 * @return the amount of works with the given status owned by the given
+	 *         user
+	 */
+	public synchronized long count(final UID owner, final StatusEnum s) {
+		final long[] c = (owner == null ? null : owners.get(owner));
+		return (c == null) || (s == null) ? 0L : Math.max(c[s.ordinal()], 0L);
+	}
+
+	/**
+	 * This starts a reconciliation : changes are recorded until
+	 * reconciled(Map) is called
+	 *
+	 * @see #reconciled(Map)
+	 */
+	public synchronized void reconciling() {
+		changes = new HashMap<>();
+	}
+
+	/**
+	 * This replaces counts with the ones read from DB, plus the changes
+	 * recorded since reconciling() has been called
+	 *
+	 * @param counts
+	 *            are the counts read from DB, by owner UID and status ordinal
+	 * @see #reconciling()
+	 */
+	public synchronized void reconciled(final Map<UID, long[]> counts) {
+		final Map<UID, long[]> newOwners = new HashMap<>();
+		final long[] newTotals = new long[STATUSES];
+		merge(counts, newOwners, newTotals);
+		if (changes != null) {
+			merge(changes, newOwners, newTotals);
+		}
+		owners = newOwners;
+		totals = newTotals;
+		changes = null;
+		reconciliations++;
+	}
+
+	/**
+	 * This adds counts to other ones
+	 */
+	private static void merge(final Map<UID, long[]> src, final Map<UID, long[]> dstOwners, final long[] dstTotals) {
+		for (final Map.Entry<UID, long[]> e : src.entrySet()) {
+			for (final StatusEnum s : StatusEnum.values()) {
+				final long v = e.getValue()[s.ordinal()];
+				if (v != 0) {
+					add(dstOwners, e.getKey(), s, v);
+					dstTotals[s.ordinal()] += v;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the amount of reconciliations
+	 */
+	public synchronized long getReconciliations() {
+		return reconciliations;
+	}
+
+	/**
+	 * This retrieves the counts of all works, one status per line
+	 */
+	@Override
+	public synchronized String toString() {
+		final StringBuilder ret = new StringBuilder();
+		for (final StatusEnum s : StatusEnum.values()) {
+			if (totals[s.ordinal()] != 0) {
+				ret.append(s).append(" : ").append(totals[s.ordinal()]).append('\n');
+			}
+		}
+		return ret.toString();
+	}
+}
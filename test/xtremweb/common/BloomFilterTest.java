@@ -0,0 +1,94 @@
+package xtremweb.common;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ * 
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+import org.junit.Test;
+
+import xtremweb.communications.URI;
+
+/**
+ * This tests the Bloom filter advertising worker cache content
+ *
+ * @since 10.6.0
+ */
+
+public class BloomFilterTest {
+
+	@Test
+	public void noFalseNegative() {
+		final BloomFilter filter = new BloomFilter(100);
+		for (int i = 0; i < 100; i++) {
+			filter.add("key" + i);
+		}
+		for (int i = 0; i < 100; i++) {
+			assertTrue(filter.mightContain("key" + i));
+		}
+		assertFalse(filter.mightContain((String) null));
+	}
+
+	@Test
+	public void falsePositiveRate() {
+		final BloomFilter filter = new BloomFilter(1000);
+		for (int i = 0; i < 1000; i++) {
+			filter.add(new UID().toString());
+		}
+		int positives = 0;
+		for (int i = 0; i < 10000; i++) {
+			if (filter.mightContain(new UID().toString())) {
+				positives++;
+			}
+		}
+		assertTrue("false positives " + positives, positives < 300);
+	}
+
+	@Test
+	public void serialization() throws IOException {
+		final BloomFilter filter = new BloomFilter(10);
+		filter.add("a");
+		filter.add("b");
+		final BloomFilter copy = new BloomFilter(filter.toString());
+		assertEquals(filter.toString(), copy.toString());
+		assertTrue(copy.mightContain("a"));
+		assertTrue(copy.mightContain("b"));
+	}
+
+	@Test(expected = IOException.class)
+	public void invalid() throws IOException {
+		new BloomFilter("not a filter");
+	}
+
+	@Test
+	public void xtremwebUriKeyedByUid() throws URISyntaxException {
+		final UID uid = new UID();
+		final BloomFilter filter = new BloomFilter(10);
+		filter.add(new URI("xw://server1/" + uid));
+		assertTrue(filter.mightContain(new URI("xw://server2/" + uid)));
+	}
+}
@@ -0,0 +1,74 @@
+package xtremweb.common;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ * 
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import xtremweb.common.DependencyInterface;
+import xtremweb.common.UID;
+
+/**
+ * This tests XML serialization of dependencies
+ *
+ * @since 10.6.0
+ */
+
+public class DependencyInterfaceTest extends TableInterfaceTest {
+
+	public DependencyInterfaceTest() {
+		setItf(new DependencyInterface());
+		setItf2(new DependencyInterface());
+	}
+
+	@Override
+	@Test
+	public void start() {
+		super.start();
+	}
+
+	@Test
+	public void edge() throws Exception {
+		final UID consumer = new UID();
+		final UID producer = new UID();
+		final DependencyInterface dep = new DependencyInterface(consumer, producer);
+		dep.setUID(new UID());
+		assertFalse(dep.getRoute());
+		assertFalse(dep.isReleased());
+		dep.setRoute(true);
+
+		final DependencyInterface copy = new DependencyInterface(dep.toXml());
+		assertEquals(consumer, copy.getWork());
+		assertEquals(producer, copy.getProducer());
+		assertTrue(copy.getRoute());
+		assertFalse(copy.isReleased());
+
+		copy.setReleased(true);
+		dep.updateInterface(copy);
+		assertFalse(dep.isReleased());
+	}
+}
@@ -0,0 +1,145 @@
+package xtremweb.common;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ * 
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This tests job counters aggregation
+ *
+ * @since 10.6.0
+ */
+
+public class JobCountersTest {
+
+	@Before
+	public void enable() {
+		JobCounters.setEnabled(true);
+	}
+
+	@After
+	public void disable() {
+		JobCounters.setEnabled(false);
+	}
+
+	@Test
+	public void concurrentIncrements() throws InterruptedException, IOException {
+		final AppInterface app = new AppInterface(new UID());
+		app.setPendingJobs(10);
+		final Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 1000; i++) {
+						app.incPendingJobs();
+						app.incRunningJobs();
+						app.decPendingJobs();
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(10, app.getPendingJobs());
+		assertEquals(8000, app.getRunningJobs());
+
+		final Collection<JobCounters.Delta> deltas = JobCounters.drain();
+		assertEquals(1, deltas.size());
+		final JobCounters.Delta delta = deltas.iterator().next();
+		assertEquals(AppInterface.APPTABLENAME, delta.getTableName());
+		assertEquals("RUNNINGJOBS=GREATEST(RUNNINGJOBS+8000,0)", delta.getSet());
+		assertTrue(JobCounters.drain().isEmpty());
+
+		app.decRunningJobs();
+		final Collection<JobCounters.Delta> next = JobCounters.drain();
+		assertEquals("RUNNINGJOBS=GREATEST(RUNNINGJOBS-1,0)", next.iterator().next().getSet());
+	}
+
+	@Test
+	public void groupCounters() throws IOException {
+		final UID uid = new UID();
+		JobCounters.add(GroupInterface.TABLENAME, uid, JobCounters.Counter.PENDINGJOBS, 3);
+		JobCounters.add(GroupInterface.TABLENAME, uid, JobCounters.Counter.PENDINGJOBS, -1);
+		JobCounters.add(GroupInterface.TABLENAME, uid, JobCounters.Counter.COMPLETEDJOBS, 1);
+		assertEquals(2, JobCounters.unflushed(uid, JobCounters.Counter.PENDINGJOBS));
+
+		final GroupInterface group = new GroupInterface(uid);
+		group.setPendingJobs(10);
+		group.setCompletedJobs(5);
+		JobCounters.addUnflushed(group, new XWBaseColumn[] { GroupInterface.Columns.PENDINGJOBS,
+				GroupInterface.Columns.RUNNINGJOBS, GroupInterface.Columns.ERRORJOBS,
+				GroupInterface.Columns.COMPLETEDJOBS });
+		assertEquals(12, group.getPendingJobs());
+		assertEquals(6, group.getCompletedJobs());
+		assertEquals(18, group.getTotalJobs());
+		assertFalse(group.toUpdateString().contains("COMPLETEDJOBS"));
+
+		final Collection<JobCounters.Delta> deltas = JobCounters.drain();
+		assertEquals(1, deltas.size());
+		final JobCounters.Delta delta = deltas.iterator().next();
+		assertEquals(GroupInterface.TABLENAME, delta.getTableName());
+		assertEquals("PENDINGJOBS=GREATEST(PENDINGJOBS+2,0),COMPLETEDJOBS=GREATEST(COMPLETEDJOBS+1,0)",
+				delta.getSet());
+		assertEquals(0, JobCounters.unflushed(uid, JobCounters.Counter.PENDINGJOBS));
+	}
+
+	@Test
+	public void completedJobs() {
+		final HostInterface host = new HostInterface();
+		host.setUID(new UID());
+		host.setNbJobs(4);
+		host.incAvgExecTime(1000);
+		host.incNbJobs();
+		assertEquals(6, host.getNbJobs());
+		assertFalse(host.toUpdateString().contains("NBJOBS"));
+		assertTrue(host.toUpdateString().contains("AVGEXECTIME"));
+
+		final Collection<JobCounters.Delta> deltas = JobCounters.drain();
+		assertEquals(1, deltas.size());
+		assertEquals("NBJOBS=GREATEST(NBJOBS+2,0)", deltas.iterator().next().getSet());
+	}
+
+	@Test
+	public void updateExcludesCounters() {
+		final UserInterface user = new UserInterface();
+		user.setUID(new UID());
+		user.incPendingJobs();
+		assertFalse(user.toUpdateString().contains("PENDINGJOBS"));
+		assertTrue(user.toString().contains("PENDINGJOBS"));
+		JobCounters.setEnabled(false);
+		assertTrue(user.toUpdateString().contains("PENDINGJOBS"));
+	}
+}
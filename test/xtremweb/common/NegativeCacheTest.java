@@ -0,0 +1,80 @@
+package xtremweb.common;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ * 
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * This tests the cache of missing keys
+ *
+ * @since 10.6.0
+ */
+
+public class NegativeCacheTest {
+
+	@Test
+	public void addRemove() {
+		final NegativeCache<UID> cache = new NegativeCache<>(60000);
+		final UID uid = new UID();
+		assertFalse(cache.contains(uid));
+		cache.add(uid);
+		assertTrue(cache.contains(uid));
+		assertEquals(1L, cache.getHits());
+		cache.remove(uid);
+		assertFalse(cache.contains(uid));
+		assertFalse(cache.contains(null));
+	}
+
+	@Test
+	public void ttl() throws Exception {
+		final NegativeCache<UID> cache = new NegativeCache<>(1);
+		final UID uid = new UID();
+		cache.add(uid);
+		Thread.sleep(10);
+		assertFalse(cache.contains(uid));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void disabled() {
+		final NegativeCache<UID> cache = new NegativeCache<>(0);
+		cache.add(new UID());
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void maxSize() {
+		final NegativeCache<String> cache = new NegativeCache<>(60000, 2);
+		cache.add("a");
+		cache.add("b");
+		cache.add("c");
+		assertEquals(2, cache.size());
+		assertFalse(cache.contains("a"));
+		assertTrue(cache.contains("b"));
+		assertTrue(cache.contains("c"));
+	}
+}
@@ -0,0 +1,125 @@
+package xtremweb.common;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ * 
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Vector;
+
+import org.junit.Test;
+
+import xtremweb.common.TemplateInterface;
+import xtremweb.communications.URI;
+
+/**
+ * This tests XML serialization and template expansion
+ *
+ * @since 10.6.0
+ */
+
+public class TemplateInterfaceTest extends TableInterfaceTest {
+
+	public TemplateInterfaceTest() {
+		setItf(new TemplateInterface());
+		setItf2(new TemplateInterface());
+	}
+
+	@Override
+	@Test
+	public void start() {
+		super.start();
+	}
+
+	@Test
+	public void range() throws IOException {
+		final TemplateInterface t = new TemplateInterface();
+		t.setParamFrom(1L);
+		t.setParamTo(10L);
+		t.setParamStep(4L);
+		assertFalse(t.isExpanded());
+		final Collection<String> first = t.nextParameters(null, 2);
+		assertEquals(new Vector<>(Arrays.asList("1", "5")), new Vector<>(first));
+		assertFalse(t.isExpanded());
+		final Collection<String> second = t.nextParameters(null, 2);
+		assertEquals(new Vector<>(Arrays.asList("9")), new Vector<>(second));
+		assertTrue(t.isExpanded());
+		assertTrue(t.nextParameters(null, 2).isEmpty());
+	}
+
+	@Test
+	public void file() throws IOException, URISyntaxException {
+		final File f = File.createTempFile("template", ".txt");
+		f.deleteOnExit();
+		try (FileWriter w = new FileWriter(f)) {
+			w.write("a\n# comment\n\nb\nc\n");
+		}
+		final TemplateInterface t = new TemplateInterface();
+		t.setParamURI(new URI("localhost", new UID()));
+		final Collection<String> first = t.nextParameters(f, 2);
+		assertEquals(new Vector<>(Arrays.asList("a", "b")), new Vector<>(first));
+		assertFalse(t.isExpanded());
+		final Collection<String> second = t.nextParameters(f, 2);
+		assertEquals(new Vector<>(Arrays.asList("c")), new Vector<>(second));
+		assertTrue(t.isExpanded());
+	}
+
+	@Test
+	public void works() throws IOException {
+		final TemplateInterface t = new TemplateInterface();
+		t.setUID(new UID());
+		t.setApplication(new UID());
+		assertEquals(" 3 ", t.cmdLine("3"));
+		t.setCmdLine(" -n %p -o out%p ");
+		assertEquals("-n 3 -o out3", t.cmdLine("3"));
+		t.setCmdLine(" -v ");
+		assertEquals("-v 3 ", t.cmdLine("3"));
+
+		final WorkInterface w = t.newWork("3");
+		assertEquals(t.getUID(), w.getTemplate());
+		assertEquals(t.getApplication(), w.getApplication());
+		assertFalse(t.getUID().equals(w.getUID()));
+	}
+
+	@Test
+	public void counters() throws IOException {
+		final TemplateInterface t = new TemplateInterface();
+		t.setParamFrom(0L);
+		t.setParamTo(1L);
+		t.setExpandedJobs(t.nextParameters(null, 10).size());
+		assertEquals(2, t.getInFlightJobs());
+		t.incCompletedJobs();
+		assertEquals(StatusEnum.PENDING, t.getStatus());
+		t.incErrorJobs();
+		assertEquals(0, t.getInFlightJobs());
+		assertEquals(StatusEnum.COMPLETED, t.getStatus());
+	}
+}
@@ -23,9 +23,15 @@ package xtremweb.common;
  *
  */
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
 import org.junit.Test;
 
 import xtremweb.common.WorkInterface;
+import xtremweb.database.DBConnPoolThread;
 
 /**
  * This tests XML serialization
@@ -48,4 +54,41 @@ public class WorkInterfaceTest extends TableInterfaceTest {
 	public void start() {
 		super.start();
 	}
+
+	/**
+	 * @since 10.6.0
+	 */
+	@Test
+	public void done() {
+		final WorkInterface work = new WorkInterface();
+		assertFalse(work.isDone());
+		assertEquals(WorkInterface.TABLENAME, work.tableName());
+		work.setDone(true);
+		assertTrue(work.isDone());
+		assertEquals(WorkInterface.DONETABLENAME, work.tableName());
+		assertEquals(WorkInterface.TABLENAME + DBConnPoolThread.HISTORYSUFFIX,
+				DBConnPoolThread.historyTableName(work.tableName()));
+		work.setDone(false);
+		assertEquals(WorkInterface.TABLENAME, work.tableName());
+	}
+
+	/**
+	 * @since 10.6.0
+	 */
+	@Test
+	public void revision() throws Exception {
+		final WorkInterface work = new WorkInterface();
+		work.setUID(new UID());
+		assertNull(work.getRevision());
+		work.setDirty(false);
+		work.nextRevision();
+		assertEquals(Long.valueOf(1L), work.getRevision());
+		assertFalse(work.isDirty());
+		work.setRevision(41L);
+		work.nextRevision();
+		assertFalse(work.toUpdateString().contains(TableColumns.REVISION.toString()));
+
+		final WorkInterface copy = new WorkInterface(work.toXml());
+		assertEquals(Long.valueOf(42L), copy.getRevision());
+	}
 }
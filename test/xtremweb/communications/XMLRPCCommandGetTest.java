@@ -22,10 +22,19 @@ package xtremweb.communications;
  *
  */
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 import java.io.IOException;
+import java.util.Vector;
 
 import org.junit.Test;
 
+import xtremweb.common.StreamIO;
+import xtremweb.common.UID;
+import xtremweb.common.WorkInterface;
+import xtremweb.common.XMLVector;
 import xtremweb.communications.XMLRPCCommandGet;
 
 
@@ -55,4 +64,27 @@ public class XMLRPCCommandGetTest extends XMLRPCCommandTest {
 	public void start() {
 		super.start();
 	}
+
+	/**
+	 * @since 10.6.0
+	 */
+	@Test
+	public void ifRevisionDiffers() throws Exception {
+		final XMLRPCCommandGet cmd = new XMLRPCCommandGet(new URI("xw://localhost/" + new UID()));
+		cmd.setIfRevisionDiffers(Long.valueOf(3L));
+		final XMLRPCCommandGet cmd2 = new XMLRPCCommandGet(StreamIO.stream(cmd.toXml()));
+		assertEquals(Long.valueOf(3L), cmd2.getIfRevisionDiffers());
+		assertEquals(cmd.getURI(), cmd2.getURI());
+
+		final WorkInterface work = new WorkInterface();
+		work.setRevision(3L);
+		assertTrue(cmd2.isNotModified(work));
+		work.nextRevision();
+		assertFalse(cmd2.isNotModified(work));
+		assertFalse(new XMLRPCCommandGet().isNotModified(work));
+
+		final XMLVector answer = new XMLVector(XMLRPCCommandGet.newNotModified(work.getRevision()).toXml());
+		assertTrue(XMLRPCCommandGet.isNotModified(answer));
+		assertFalse(XMLRPCCommandGet.isNotModified(new XMLVector(new Vector())));
+	}
 }
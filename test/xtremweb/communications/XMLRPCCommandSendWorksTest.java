@@ -0,0 +1,87 @@
+package xtremweb.communications;
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ * 
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import xtremweb.common.UID;
+import xtremweb.common.WorkInterface;
+
+/**
+ * This tests XML serialization of a set of works
+ *
+ * @since 10.6.0
+ */
+
+public class XMLRPCCommandSendWorksTest extends XMLRPCCommandTest {
+
+	private final UID appUID = new UID();
+
+	public XMLRPCCommandSendWorksTest() {
+		try {
+			final XMLRPCCommandSendWorks cmd = new XMLRPCCommandSendWorks();
+			cmd.add(newWork("-n 1"));
+			cmd.add(newWork("-n 2"));
+			setCmd(cmd);
+			setCmd2(new XMLRPCCommandSendWorks());
+		} catch (final IOException e) {
+		}
+	}
+
+	private WorkInterface newWork(final String cmdLine) {
+		final WorkInterface w = new WorkInterface();
+		w.setUID(new UID());
+		w.setApplication(appUID);
+		w.setCmdLine(cmdLine);
+		return w;
+	}
+
+	@Override
+	@Test
+	public void start() {
+		super.start();
+		assertEquals(2, ((XMLRPCCommandSendWorks) getCmd2()).size());
+	}
+
+	/**
+	 * This checks that each work is read back with its own attributes
+	 */
+	@Test
+	public void works() throws IOException {
+		super.start();
+		final Iterator<WorkInterface> sent = ((XMLRPCCommandSendWorks) getCmd()).getWorks().iterator();
+		for (final WorkInterface w : ((XMLRPCCommandSendWorks) getCmd2()).getWorks()) {
+			final WorkInterface expected = sent.next();
+			assertEquals(expected.getUID(), w.getUID());
+			assertEquals(appUID, w.getApplication());
+			assertEquals(expected.getCmdLine(), w.getCmdLine());
+		}
+		assertFalse(sent.hasNext());
+	}
+}
@@ -0,0 +1,112 @@
+package xtremweb.database;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNotNull;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import xtremweb.common.UID;
+import xtremweb.common.UserGroupInterface;
+
+/**
+ * This tests the history archiver queue
+ *
+ * @since 10.6.0
+ */
+public class HistoryArchiverTest {
+
+	@Test
+	public void chunks() {
+		final HistoryArchiver archiver = new HistoryArchiver(1000, 2);
+		final UID w1 = new UID();
+		final UID w2 = new UID();
+		final UID w3 = new UID();
+		final UID t1 = new UID();
+		archiver.add("works", w1);
+		archiver.add("works", w2);
+		archiver.add("works", w2);
+		archiver.add("works", w3);
+		archiver.add("tasks", t1);
+		assertEquals(4, archiver.size());
+
+		HistoryArchiver.Chunk chunk = archiver.nextChunk();
+		assertEquals("works", chunk.getTableName());
+		assertEquals(2, chunk.getUIDs().size());
+		assertEquals(w1, chunk.getUIDs().get(0));
+		assertEquals(w2, chunk.getUIDs().get(1));
+
+		chunk = archiver.nextChunk();
+		assertEquals("tasks", chunk.getTableName());
+		assertEquals(1, chunk.getUIDs().size());
+
+		chunk = archiver.nextChunk();
+		assertEquals("works", chunk.getTableName());
+		assertEquals(w3, chunk.getUIDs().get(0));
+
+		assertNull(archiver.nextChunk());
+		assertEquals(0, archiver.size());
+	}
+
+	/**
+	 * This checks that a row marked as deleted is not read any more, before
+	 * and after it is archived, on an in memory HSQLDB. This is skipped if
+	 * HSQLDB is not in the class path
+	 */
+	@Test
+	public void deletedRows() throws Exception {
+		final DBConnPoolThread pool = TestDatabase.getPool();
+		assumeNotNull(pool);
+		final HistoryArchiver previous = pool.getArchiver();
+		pool.setArchiver(new HistoryArchiver(1000, 10));
+		try {
+			final UserGroupInterface group = new UserGroupInterface(new UID());
+			group.setLabel("archiver_" + group.getUID());
+			group.setOwner(new UID());
+			pool.insert(group);
+			pool.flush();
+			final String criteria = "maintable.uid='" + group.getUID() + "'";
+			assertNotNull(pool.select(new UserGroupInterface(), criteria, 10));
+
+			pool.delete(group);
+			pool.flush();
+			assertNull(pool.select(new UserGroupInterface(), criteria, 10));
+			assertTrue(pool.archivable(UserGroupInterface.TABLENAME, 1000).contains(group.getUID()));
+
+			pool.archive(UserGroupInterface.TABLENAME, Collections.singleton(group.getUID()));
+			assertNull(pool.select(new UserGroupInterface(), criteria, 10));
+			final Collection<UID> archivable = pool.archivable(UserGroupInterface.TABLENAME, 1000);
+			assertTrue((archivable == null) || !archivable.contains(group.getUID()));
+		} finally {
+			pool.setArchiver(previous);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package xtremweb.database;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * This tests SQL statements statistics
+ *
+ * @since 10.6.0
+ */
+public class QueryStatsTest {
+
+	@Test
+	public void template() {
+		assertEquals("SELECT * FROM xtremweb.works as maintable WHERE maintable.uid=? LIMIT ?", QueryStats.template(
+				"SELECT * FROM xtremweb.works as maintable WHERE maintable.uid='6f2e1c1a-0001'  LIMIT 1000"));
+		assertEquals("DELETE FROM xtremweb.works WHERE uid IN (?)",
+				QueryStats.template("DELETE FROM xtremweb.works WHERE uid IN ('a', 'b','c')"));
+		assertEquals("UPDATE groups SET pendingJobs=GREATEST(pendingJobs+?,?) WHERE uid=?",
+				QueryStats.template("UPDATE groups SET pendingJobs=GREATEST(pendingJobs+-1,0) WHERE uid='it''s'"));
+		assertEquals("SELECT * FROM t1 WHERE x=?", QueryStats.template("SELECT * FROM t1\n WHERE x=12.5"));
+	}
+
+	@Test
+	public void executed() {
+		final QueryStats stats = new QueryStats();
+		stats.setThreshold(5);
+		stats.executed("SELECT * FROM works WHERE uid='a'", 1000L, 2000000L, 1, false);
+		stats.executed("SELECT * FROM works WHERE uid='b'", 1000L, 9000000L, 0, false);
+		stats.executed("SELECT * FROM works WHERE uid='c'", 0L, 1000L, 0, true);
+		stats.dwelled("UPDATE works SET status='RUNNING' WHERE uid='a'", 3000L);
+
+		final QueryStats.Entry e = stats.get("SELECT * FROM works WHERE uid=?");
+		assertEquals(3, e.getExec().count());
+		assertEquals(9000, e.getExec().max());
+		assertEquals(1, e.getRows());
+		assertEquals("SELECT * FROM works WHERE uid='a'", e.getSample());
+		assertEquals(1, e.getErrors());
+		assertEquals(1, stats.get("UPDATE works SET status=? WHERE uid=?").getDwell().count());
+		assertEquals(2, stats.getEntries().size());
+
+		assertEquals(1, stats.getSlowQueries().size());
+		assertTrue(stats.getSlowQueries().get(0).endsWith("SELECT * FROM works WHERE uid=?"));
+	}
+
+	/**
+	 * This checks that passwords are neither captured nor kept as sample
+	 */
+	@Test
+	public void passwords() {
+		final QueryStats stats = new QueryStats();
+		stats.setThreshold(5);
+		stats.executed("SELECT * FROM users WHERE login='admin' AND password='secret'", 0L, 9000000L, 1, false);
+		stats.executed("UPDATE users SET PASSWORD='secret2' WHERE uid='a'", 0L, 9000000L, 0, false);
+
+		assertNull(stats.get("SELECT * FROM users WHERE login=? AND password=?").getSample());
+		assertNull(stats.get("UPDATE users SET PASSWORD=? WHERE uid=?").getSample());
+		assertEquals(2, stats.getSlowQueries().size());
+		assertFalse(stats.toString().contains("secret"));
+	}
+}
@@ -0,0 +1,162 @@
+package xtremweb.database;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNotNull;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import xtremweb.common.UID;
+import xtremweb.common.UserGroupInterface;
+
+/**
+ * This tests read replica routing and lag fallback with two in memory HSQLDB
+ * databases. The replica is not fed by the primary: a row inserted in the
+ * primary is only found by a replica read if this read falls back to the
+ * primary. This is skipped if HSQLDB is not in the class path
+ *
+ * @since 10.6.0
+ */
+public class ReplicaRoutingTest {
+
+	private DBConnPoolThread pool;
+	private UserGroupInterface group;
+	private String criteria;
+
+	@Before
+	public void setUp() throws Exception {
+		pool = TestDatabase.getPool();
+		assumeNotNull(pool);
+		group = new UserGroupInterface(new UID());
+		group.setLabel("replicarouting_" + group.getUID());
+		group.setOwner(new UID());
+		pool.insert(group);
+		pool.flush();
+		criteria = "maintable.uid='" + group.getUID() + "'";
+		setReplicaBeat(-1L);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (pool != null) {
+			setReplicaBeat(-1L);
+		}
+	}
+
+	/**
+	 * This writes the replica heart beat and measures the replica lag
+	 *
+	 * @param beat
+	 *            is the heart beat date; if negative the heart beat is
+	 *            removed so that the replica lag is unknown
+	 */
+	private void setReplicaBeat(final long beat) throws SQLException {
+		try (final Connection conn = TestDatabase.replicaConnection();
+				final Statement stmt = conn.createStatement()) {
+			final String table = TestDatabase.DBNAME + "." + DBConnPoolThread.HEARTBEATTABLE;
+			stmt.executeUpdate("DELETE FROM " + table);
+			if (beat >= 0) {
+				stmt.executeUpdate("INSERT INTO " + table + " (id, beat) VALUES (0, " + beat + ")");
+			}
+		}
+		pool.heartbeat();
+	}
+
+	/**
+	 * This reads the test group from the replica, if available
+	 *
+	 * @return the amount of rows found
+	 */
+	private int select() throws Exception {
+		final Collection<UserGroupInterface> rows = pool.select(new UserGroupInterface(), criteria, 10, true);
+		return (rows == null ? 0 : rows.size());
+	}
+
+	@Test
+	public void unknownLag() throws Exception {
+		assertTrue(pool.isReplicaLagChecked());
+		assertEquals(Long.MAX_VALUE, pool.getReplicaLag());
+		assertFalse(pool.isReplicaAvailable());
+		final long reads = pool.getReplicaReads();
+		final long fallbacks = pool.getReplicaFallbacks();
+		assertEquals(1, select());
+		assertEquals(reads, pool.getReplicaReads());
+		assertEquals(fallbacks + 1, pool.getReplicaFallbacks());
+	}
+
+	@Test
+	public void routing() throws Exception {
+		setReplicaBeat(System.currentTimeMillis());
+		assertTrue(pool.getReplicaLag() < TestDatabase.REPLICAMAXLAG);
+		assertTrue(pool.isReplicaAvailable());
+		final long reads = pool.getReplicaReads();
+		final long fallbacks = pool.getReplicaFallbacks();
+		assertEquals(0, select());
+		assertEquals(reads + 1, pool.getReplicaReads());
+		assertEquals(fallbacks, pool.getReplicaFallbacks());
+	}
+
+	@Test
+	public void lagFallback() throws Exception {
+		setReplicaBeat(System.currentTimeMillis() - 2 * TestDatabase.REPLICAMAXLAG);
+		assertTrue(pool.getReplicaLag() > TestDatabase.REPLICAMAXLAG);
+		assertFalse(pool.isReplicaAvailable());
+		final long fallbacks = pool.getReplicaFallbacks();
+		assertEquals(1, select());
+		assertEquals(fallbacks + 1, pool.getReplicaFallbacks());
+
+		setReplicaBeat(System.currentTimeMillis());
+		assertTrue(pool.isReplicaAvailable());
+		assertEquals(0, select());
+	}
+
+	@Test
+	public void failureFallback() throws Exception {
+		setReplicaBeat(System.currentTimeMillis());
+		assertTrue(pool.isReplicaAvailable());
+		final long fallbacks = pool.getReplicaFallbacks();
+		try (final Connection conn = TestDatabase.replicaConnection();
+				final Statement stmt = conn.createStatement()) {
+			stmt.executeUpdate("ALTER TABLE " + TestDatabase.DBNAME + ".usergroups RENAME TO usergroups_off");
+			try {
+				assertEquals(1, select());
+				assertEquals(fallbacks + 1, pool.getReplicaFallbacks());
+				assertEquals(Long.MAX_VALUE, pool.getReplicaLag());
+				assertFalse(pool.isReplicaAvailable());
+			} finally {
+				stmt.executeUpdate("ALTER TABLE " + TestDatabase.DBNAME + ".usergroups_off RENAME TO usergroups");
+			}
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package xtremweb.database;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Vector;
+
+import xtremweb.common.MileStone;
+import xtremweb.common.XWConfigurator;
+import xtremweb.common.XWDBs;
+import xtremweb.common.XWPropertyDefs;
+
+/**
+ * This creates the in memory HSQLDB databases used by the tests needing a
+ * DB: a primary one and a read replica, both created from the HSQLDB tables
+ * script of the scheduling benchmark. Since DBConnPoolThread is a singleton,
+ * all these tests must share this configuration
+ *
+ * @since 10.6.0
+ */
+public final class TestDatabase {
+
+	/**
+	 * This is the DB name; this is the schema created by the tables script
+	 */
+	public static final String DBNAME = "xwsimulation";
+	/**
+	 * This is the read replica URL
+	 */
+	public static final String REPLICAURL = "jdbc:hsqldb:mem:xwtestreplica";
+	/**
+	 * This is the max replica lag, in milliseconds
+	 */
+	public static final long REPLICAMAXLAG = 60000L;
+	/**
+	 * This is the HSQLDB tables script, relative to the project root
+	 */
+	private static final String SQLFILE = "benchmark/scheduling/xwhep-core-tables-hsqldb.sql";
+	/**
+	 * This is the shared configuration
+	 */
+	private static XWConfigurator config = null;
+
+	private TestDatabase() {
+	}
+
+	/**
+	 * @return true if the HSQLDB driver is in the class path
+	 */
+	public static boolean isAvailable() {
+		try {
+			Class.forName("org.hsqldb.jdbc.JDBCDriver");
+			return true;
+		} catch (final ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * This retrieves the shared configuration, creating it on first call
+	 *
+	 * @return the configuration, or null if the tables script is not found
+	 */
+	public static synchronized XWConfigurator getConfig() {
+		if (config != null) {
+			return config;
+		}
+		File sqlFile = new File(SQLFILE);
+		if (!sqlFile.exists()) {
+			sqlFile = new File(".." + File.separator + SQLFILE);
+		}
+		if (!sqlFile.exists()) {
+			return null;
+		}
+		final XWConfigurator c = new XWConfigurator();
+		// the config file loader sets the mile stones and the mail system
+		// properties; there is no file here
+		new MileStone(new Vector<String>());
+		c.setProperty(XWPropertyDefs.MAILSERVERADDRESS, XWPropertyDefs.MAILSERVERADDRESS.defaultValue());
+		c.setProperty(XWPropertyDefs.MAILPROTOCOL, XWPropertyDefs.MAILPROTOCOL.defaultValue());
+		c.setProperty(XWPropertyDefs.LOGGERLEVEL, "ERROR");
+		c.setProperty(XWPropertyDefs.DBVENDOR, XWDBs.toString(XWDBs.HSQLDB));
+		c.setProperty(XWPropertyDefs.DBENGINE, XWDBs.MEMENGINE);
+		c.setProperty(XWPropertyDefs.DBNAME, DBNAME);
+		c.setProperty(XWPropertyDefs.DBSQLFILE, sqlFile.getAbsolutePath());
+		c.setProperty(XWPropertyDefs.DBREPLICAURL, REPLICAURL);
+		c.setProperty(XWPropertyDefs.DBREPLICAMAXLAG, Long.toString(REPLICAMAXLAG));
+		config = c;
+		return config;
+	}
+
+	/**
+	 * This retrieves the DB connection pool, creating it on first call
+	 *
+	 * @return the pool, or null if HSQLDB is not available
+	 */
+	public static synchronized DBConnPoolThread getPool() {
+		if (!isAvailable() || (getConfig() == null)) {
+			return null;
+		}
+		if (DBConnPoolThread.getInstance() == null) {
+			new DBConnPoolThread(getConfig());
+		}
+		return DBConnPoolThread.getInstance();
+	}
+
+	/**
+	 * This opens a connection to the read replica, bypassing the pool
+	 */
+	public static Connection replicaConnection() throws SQLException {
+		return DriverManager.getConnection(REPLICAURL, XWDBs.HSQLUSER, XWDBs.HSQLP);
+	}
+}
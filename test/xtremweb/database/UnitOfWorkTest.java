@@ -0,0 +1,78 @@
+package xtremweb.database;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+
+import org.junit.Test;
+
+/**
+ * This tests units of work retry policy
+ *
+ * @since 10.6.0
+ */
+
+public class UnitOfWorkTest {
+
+	@Test
+	public void retriable() {
+		assertTrue(UnitOfWork.isRetriable(new SQLTransactionRollbackException("deadlock")));
+		assertTrue(UnitOfWork.isRetriable(new SQLException("Deadlock found", "40001", 1213)));
+		assertTrue(UnitOfWork.isRetriable(new SQLException("Lock wait timeout", "HY000", 1205)));
+		assertFalse(UnitOfWork.isRetriable(new SQLException("Duplicate entry", "23000", 1062)));
+
+		final SQLException batch = new SQLException("batch failed");
+		batch.setNextException(new SQLException("Deadlock found", "40001", 1213));
+		assertTrue(UnitOfWork.isRetriable(batch));
+	}
+
+	@Test
+	public void backoff() {
+		assertEquals(UnitOfWork.RETRYDELAY, UnitOfWork.backoff(1));
+		assertEquals(UnitOfWork.RETRYDELAY * 2, UnitOfWork.backoff(2));
+		assertEquals(UnitOfWork.RETRYDELAY * 4, UnitOfWork.backoff(3));
+	}
+
+	@Test
+	public void empty() {
+		final UnitOfWork uow = new UnitOfWork("test");
+		assertTrue(uow.isEmpty());
+		assertEquals(-1L, uow.getLatency());
+		assertEquals(0, uow.getAttempts());
+	}
+
+	@Test
+	public void rows() {
+		final UnitOfWork uow = new UnitOfWork("test");
+		uow.add("DELETE FROM works WHERE uid='a'").lock(DBConnPoolThread.rowKey("works", "a"));
+		assertEquals(1, uow.size());
+		assertEquals(1, uow.getRows().size());
+		assertTrue(uow.getRows().contains("works.a"));
+	}
+}
@@ -0,0 +1,73 @@
+package xtremweb.dispatcher;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ * 
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.Vector;
+
+import org.junit.Test;
+
+import xtremweb.common.HostInterface;
+import xtremweb.common.TaskInterface;
+import xtremweb.common.UID;
+import xtremweb.common.UserInterface;
+import xtremweb.common.WorkInterface;
+
+/**
+ * This tests that the placement estimate is the one computed on ranking
+ *
+ * @since 10.6.0
+ */
+
+public class CostSchedulerTest {
+
+	@Test
+	public void rankedEstimate() throws Exception {
+		final CostScheduler scheduler = new CostScheduler();
+		final PlacementModel model = scheduler.getModel();
+		final UID app = new UID();
+		final HostInterface host = new HostInterface();
+		host.setUID(new UID());
+		host.setCpuSpeed(1000);
+
+		final WorkInterface work = new WorkInterface();
+		work.setUID(new UID());
+		work.setApplication(app);
+		final Collection<WorkInterface> works = new Vector<>();
+		works.add(work);
+		assertEquals(work, scheduler.rank(null, works, host, new UserInterface(), null));
+
+		// the application is calibrated after the work has been ranked
+		final UID other = new UID();
+		model.predicted(other, app, 1000, 0L, 1000L);
+		model.observed(other, 10000L);
+		assertTrue(model.compute(app, 1000, 0L) > 0L);
+
+		scheduler.started(work, new TaskInterface(work), host);
+		assertEquals(0L, model.observed(work.getUID(), 10000L));
+	}
+}
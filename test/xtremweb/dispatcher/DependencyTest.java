@@ -0,0 +1,144 @@
+package xtremweb.dispatcher;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ *
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeNotNull;
+
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import xtremweb.common.AppInterface;
+import xtremweb.common.AppTypeEnum;
+import xtremweb.common.DependencyInterface;
+import xtremweb.common.StatusEnum;
+import xtremweb.common.UID;
+import xtremweb.common.UserInterface;
+import xtremweb.common.UserRightEnum;
+import xtremweb.common.WorkInterface;
+import xtremweb.common.XWConfigurator;
+import xtremweb.database.DBConnPoolThread;
+import xtremweb.database.TestDatabase;
+
+/**
+ * This tests dependencies on failed and deleted producer works, through
+ * DBInterface on an in memory HSQLDB. This is skipped if HSQLDB is not in the
+ * class path
+ *
+ * @since 10.6.0
+ */
+
+public class DependencyTest {
+
+	private DBConnPoolThread pool;
+	private DBInterface db;
+	private UserInterface admin;
+	private AppInterface app;
+
+	@Before
+	public void setUp() throws Exception {
+		pool = TestDatabase.getPool();
+		assumeNotNull(pool);
+		final XWConfigurator config = TestDatabase.getConfig();
+		if (Dispatcher.getConfig() == null) {
+			Dispatcher.setConfig(config);
+		}
+		db = (DBInterface.getInstance() == null ? new DBInterface(config) : DBInterface.getInstance());
+
+		final String run = Long.toString(System.nanoTime(), Character.MAX_RADIX);
+		admin = new UserInterface();
+		admin.setUID(new UID());
+		admin.setOwner(admin.getUID());
+		admin.setLogin("dependencyadmin_" + run);
+		admin.setPassword(run);
+		admin.setRights(UserRightEnum.SUPER_USER);
+		admin.setEMail("unknown");
+		pool.insert(admin);
+		app = new AppInterface(new UID());
+		app.setOwner(admin.getUID());
+		app.setName("dependencyapp_" + run);
+		app.setType(AppTypeEnum.DEPLOYABLE);
+		pool.insert(app);
+		pool.flush();
+	}
+
+	private WorkInterface work() throws IOException {
+		final WorkInterface ret = new WorkInterface();
+		ret.setUID(new UID());
+		ret.setOwner(admin.getUID());
+		ret.setApplication(app.getUID());
+		ret.setPending();
+		return ret;
+	}
+
+	/**
+	 * This checks that a work can not depend on an erroneous work
+	 */
+	@Test
+	public void failedProducer() throws Exception {
+		final WorkInterface producer = work();
+		producer.setError("failed");
+		pool.insert(producer);
+		final WorkInterface consumer = work();
+		pool.insert(consumer);
+		pool.flush();
+
+		try {
+			db.addDependency(admin, new DependencyInterface(consumer.getUID(), producer.getUID()));
+			fail("dependency on an erroneous work accepted");
+		} catch (final IOException e) {
+		}
+		assertEquals(StatusEnum.PENDING, db.work(consumer.getUID()).getStatus());
+	}
+
+	/**
+	 * This checks that the consumers waiting for a deleted work are set to
+	 * ERROR, and so are their own consumers
+	 */
+	@Test
+	public void deletedProducer() throws Exception {
+		final WorkInterface producer = work();
+		pool.insert(producer);
+		final WorkInterface consumer = work();
+		pool.insert(consumer);
+		final WorkInterface next = work();
+		pool.insert(next);
+		pool.flush();
+
+		assertTrue(db.addDependency(admin, new DependencyInterface(consumer.getUID(), producer.getUID())));
+		assertTrue(db.addDependency(admin, new DependencyInterface(next.getUID(), consumer.getUID())));
+		assertEquals(StatusEnum.WAITING, db.work(consumer.getUID()).getStatus());
+		assertEquals(StatusEnum.WAITING, db.work(next.getUID()).getStatus());
+
+		assertTrue(db.remove(admin, producer.getUID()));
+		pool.flush();
+
+		assertEquals(StatusEnum.ERROR, db.work(consumer.getUID()).getStatus());
+		assertEquals(StatusEnum.ERROR, db.work(next.getUID()).getStatus());
+	}
+}
@@ -0,0 +1,141 @@
+package xtremweb.dispatcher;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ * 
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Vector;
+
+import org.junit.Test;
+
+import xtremweb.common.LatencyHistogram;
+import xtremweb.common.UID;
+
+/**
+ * This tests the scheduler fair share queue
+ *
+ * @since 10.6.0
+ */
+
+public class FairShareQueueTest {
+
+	/**
+	 * This serves the first owner in fair share order n times
+	 *
+	 * @return how many times owner a has been served
+	 */
+	private int serve(final FairShareQueue queue, final UID a, final int n) {
+		int ret = 0;
+		for (int i = 0; i < n; i++) {
+			final UID first = queue.order(1).get(0);
+			queue.served(first, 10L);
+			if (first.equals(a)) {
+				ret++;
+			}
+		}
+		return ret;
+	}
+
+	@Test
+	public void equalShares() {
+		final FairShareQueue queue = new FairShareQueue();
+		final UID heavy = new UID();
+		final UID light = new UID();
+		queue.activate(heavy, null, 0);
+		queue.activate(light, null, 0);
+		assertEquals(50, serve(queue, heavy, 100));
+	}
+
+	@Test
+	public void weightedShares() {
+		final UID heavy = new UID();
+		final UID light = new UID();
+		final UID group = new UID();
+		final FairShareQueue queue = new FairShareQueue(heavy + ":3, " + group + ":1");
+		queue.activate(heavy, null, 0);
+		queue.activate(light, group, 0);
+		assertEquals(75, serve(queue, heavy, 100));
+	}
+
+	@Test
+	public void retain() {
+		final FairShareQueue queue = new FairShareQueue();
+		final UID a = new UID();
+		final UID b = new UID();
+		queue.activate(a, null, 5);
+		queue.activate(b, null, 0);
+		serve(queue, a, 10);
+
+		final Vector<UID> pending = new Vector<>();
+		pending.add(b);
+		queue.retain(pending);
+		final List<UID> order = queue.order(10);
+		assertEquals(1, order.size());
+		assertEquals(b, order.get(0));
+
+		// a has been idle : it does not get credit for the past
+		queue.activate(a, null, 3);
+		assertEquals(3, queue.priority(a));
+		assertEquals(5, serve(queue, a, 10));
+	}
+
+	@Test
+	public void missed() {
+		final FairShareQueue queue = new FairShareQueue();
+		final UID a = new UID();
+		final UID b = new UID();
+		queue.activate(a, null, 5);
+		queue.activate(b, null, 0);
+
+		queue.missed(a, 5);
+		assertEquals(0, queue.priority(a));
+		assertEquals(2, queue.order(10).size());
+
+		queue.missed(a, 0);
+		final List<UID> order = queue.order(10);
+		assertEquals(1, order.size());
+		assertEquals(b, order.get(0));
+
+		queue.activate(a, null, 0);
+		assertEquals(2, queue.order(10).size());
+	}
+
+	@Test
+	public void waits() {
+		final FairShareQueue queue = new FairShareQueue();
+		final UID a = new UID();
+		for (int i = 1; i <= 1000; i++) {
+			queue.served(a, i);
+		}
+		final LatencyHistogram waits = queue.waits(a);
+		assertEquals(1000, waits.count());
+		assertEquals(1000, waits.max());
+		final long p50 = waits.percentile(50);
+		final long p99 = waits.percentile(99);
+		assertTrue(Math.abs(p50 - 500) <= 500 / 16);
+		assertTrue(Math.abs(p99 - 990) <= 990 / 16);
+	}
+}
@@ -0,0 +1,122 @@
+package xtremweb.dispatcher;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ * 
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import xtremweb.common.AppInterface;
+import xtremweb.common.UID;
+import xtremweb.common.WorkInterface;
+
+/**
+ * This tests the dispatcher object cache
+ *
+ * @since 10.6.0
+ */
+
+public class ObjectCacheTest {
+
+	private static WorkInterface work() {
+		final WorkInterface ret = new WorkInterface();
+		ret.setUID(new UID());
+		return ret;
+	}
+
+	@Test
+	public void budgets() throws Exception {
+		final ObjectCache cache = new ObjectCache("works:2:0, apps:10:0", 5);
+		final WorkInterface w1 = work();
+		final WorkInterface w2 = work();
+		final WorkInterface w3 = work();
+		final AppInterface app = new AppInterface();
+		app.setUID(new UID());
+
+		cache.put(app);
+		cache.put(w1);
+		cache.put(w2);
+		assertSame(w1, cache.get(w1.getUID(), new WorkInterface()));
+		cache.put(w3);
+
+		assertNull(cache.get(w2.getUID(), new WorkInterface()));
+		assertSame(w1, cache.get(w1.getUID(), new WorkInterface()));
+		assertSame(w3, cache.get(w3.getUID(), new WorkInterface()));
+		assertSame(app, cache.get(app.getUID(), new AppInterface()));
+		assertNull(cache.get(app.getUID(), new WorkInterface()));
+		assertEquals(3, cache.size());
+		assertEquals(5, cache.getBudget("traces").getMaxEntries());
+	}
+
+	@Test
+	public void done() throws Exception {
+		final ObjectCache cache = new ObjectCache("works:1:0", 5);
+		final WorkInterface w1 = work();
+		final WorkInterface w2 = work();
+		w2.setDone(true);
+		cache.put(w1);
+		cache.put(w2);
+		assertNull(cache.get(w1.getUID(), new WorkInterface()));
+		assertSame(w2, cache.get(w2.getUID(), new WorkInterface()));
+	}
+
+	@Test
+	public void ttl() throws Exception {
+		final ObjectCache cache = new ObjectCache("works:10:1", 5);
+		final WorkInterface w = work();
+		cache.put(w);
+		Thread.sleep(10);
+		assertNull(cache.get(w.getUID(), new WorkInterface()));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void remove() throws Exception {
+		final ObjectCache cache = new ObjectCache(null, 5);
+		final WorkInterface w = work();
+		cache.put(w);
+		cache.remove(w.getUID());
+		assertNull(cache.get(w.getUID(), new WorkInterface()));
+	}
+
+	@Test
+	public void missing() throws Exception {
+		final ObjectCache cache = new ObjectCache(null, 5, 60000);
+		final WorkInterface w = work();
+		cache.missed(w.getUID(), new WorkInterface());
+		assertTrue(cache.isMissing(w.getUID(), new WorkInterface()));
+		assertFalse(cache.isMissing(w.getUID(), new AppInterface()));
+		cache.put(w);
+		assertFalse(cache.isMissing(w.getUID(), new WorkInterface()));
+		assertSame(w, cache.get(w.getUID(), new WorkInterface()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalid() {
+		new ObjectCache("works:10", 5);
+	}
+}
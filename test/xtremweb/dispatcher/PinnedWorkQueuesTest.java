@@ -0,0 +1,69 @@
+package xtremweb.dispatcher;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ * 
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import xtremweb.common.UID;
+
+/**
+ * This tests per host queues of pinned works
+ *
+ * @since 10.6.0
+ */
+
+public class PinnedWorkQueuesTest {
+
+	@Test
+	public void queues() {
+		final PinnedWorkQueues queues = new PinnedWorkQueues();
+		final UID host1 = new UID();
+		final UID host2 = new UID();
+		final UID w1 = new UID();
+		final UID w2 = new UID();
+		final UID w3 = new UID();
+
+		queues.add(host1, w1);
+		queues.add(host1, w2);
+		queues.add(host1, w1);
+		queues.add(host2, w3);
+		queues.add(null, new UID());
+		assertEquals(3, queues.size());
+		assertEquals(2, queues.size(host1));
+
+		assertNull(queues.poll(new UID()));
+		assertEquals(w1, queues.poll(host1));
+		assertEquals(w2, queues.poll(host1));
+		assertNull(queues.poll(host1));
+
+		assertFalse(queues.remove(host1, w3));
+		assertTrue(queues.remove(host2, w3));
+		assertEquals(0, queues.size());
+	}
+}
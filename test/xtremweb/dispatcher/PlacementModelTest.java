@@ -0,0 +1,73 @@
+package xtremweb.dispatcher;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ * 
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import xtremweb.common.UID;
+
+/**
+ * This tests completion time estimation and calibration
+ *
+ * @since 10.6.0
+ */
+
+public class PlacementModelTest {
+
+	@Test
+	public void transfer() {
+		final PlacementModel model = new PlacementModel();
+		final long size = 100L * 1024L * 1024L;
+		assertEquals(0L, model.transfer(0L, 10f));
+		assertEquals(10000L, model.transfer(size, 10f));
+		assertEquals(100000L, model.transfer(size, 0f));
+		assertTrue(model.estimate(null, size, 1f, 1000, 5000L) > model.estimate(null, size, 100f, 1000, 5000L));
+	}
+
+	@Test
+	public void calibration() {
+		final PlacementModel model = new PlacementModel();
+		final UID app = new UID();
+		final UID work = new UID();
+
+		assertEquals(5000L, model.compute(app, 1000, 5000L));
+		model.predicted(work, app, 1000, 1000L, 6000L);
+		assertEquals(6000L, model.observed(work, 11000L));
+		assertEquals(-1L, model.observed(work, 11000L));
+		assertEquals(1L, model.getObservations());
+		assertEquals(5000d, model.getMeanError(), 0.001d);
+
+		// 10 s on a 1000 MHz host is 5 s on a 2000 MHz host
+		assertEquals(10000L, model.compute(app, 1000, 5000L));
+		assertEquals(5000L, model.compute(app, 2000, 5000L));
+
+		final UID removed = new UID();
+		model.predicted(removed, app, 1000, 0L, 1000L);
+		model.removed(removed);
+		assertEquals(-1L, model.observed(removed, 1000L));
+	}
+}
@@ -0,0 +1,94 @@
+package xtremweb.dispatcher;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ * 
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import xtremweb.common.UID;
+
+/**
+ * This tests the straggler detector
+ *
+ * @since 10.6.0
+ */
+
+public class StragglerDetectorTest {
+
+	/**
+	 * This completes n works of the given app, lasting from 1 to n seconds
+	 */
+	private void complete(final StragglerDetector detector, final UID app, final int n) {
+		for (int i = 1; i <= n; i++) {
+			detector.completed(new UID(), app, i * 1000L);
+		}
+	}
+
+	@Test
+	public void disabled() {
+		final StragglerDetector detector = new StragglerDetector(0, 1);
+		final UID app = new UID();
+		final UID work = new UID();
+		complete(detector, app, 100);
+		detector.started(work, app, 1000, 0L);
+		assertFalse(detector.isEnabled());
+		assertTrue(detector.candidates(2000, 1000 * 1000L, 10).isEmpty());
+	}
+
+	@Test
+	public void candidates() {
+		final StragglerDetector detector = new StragglerDetector(90, 50);
+		final UID app = new UID();
+		final UID slow = new UID();
+		final UID normal = new UID();
+		detector.started(slow, app, 1000, 0L);
+		detector.started(normal, app, 1000, 50 * 1000L);
+
+		complete(detector, app, 10);
+		assertTrue("not enough samples", detector.candidates(2000, 100 * 1000L, 10).isEmpty());
+
+		complete(detector, app, 90);
+		// 1 to 10s, then 1 to 90s : 90% of the works completed within 80s
+		final long threshold = detector.threshold(app);
+		assertTrue(Math.abs(threshold - 80 * 1000L) <= (80 * 1000L) / 16);
+
+		// stragglers are computed at most once per REFRESHDELAY
+		final List<UID> candidates = detector.candidates(2000, 100 * 1000L + StragglerDetector.REFRESHDELAY, 10);
+		assertEquals(1, candidates.size());
+		assertEquals(slow, candidates.get(0));
+		assertTrue("host is not faster", detector.candidates(1000, 200 * 1000L, 10).isEmpty());
+
+		detector.speculated(slow);
+		assertTrue(detector.isSpeculated(slow));
+		assertFalse(detector.candidates(2000, 200 * 1000L, 10).contains(slow));
+
+		detector.completed(slow, app, 100 * 1000L);
+		assertFalse(detector.isSpeculated(slow));
+	}
+}
@@ -0,0 +1,197 @@
+package xtremweb.dispatcher;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ * 
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNotNull;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import xtremweb.common.AppInterface;
+import xtremweb.common.AppTypeEnum;
+import xtremweb.common.CPUEnum;
+import xtremweb.common.CommonVersion;
+import xtremweb.common.HostInterface;
+import xtremweb.common.OSEnum;
+import xtremweb.common.StatusEnum;
+import xtremweb.common.TaskInterface;
+import xtremweb.common.UID;
+import xtremweb.common.UserInterface;
+import xtremweb.common.UserRightEnum;
+import xtremweb.common.WorkInterface;
+import xtremweb.common.XWConfigurator;
+import xtremweb.database.DBConnPoolThread;
+import xtremweb.database.TestDatabase;
+
+/**
+ * This tests striped locks and concurrent replica creation
+ *
+ * @since 10.6.0
+ */
+
+public class StripedLocksTest {
+
+	@Test
+	public void stripes() {
+		final StripedLocks locks = new StripedLocks(50);
+		assertEquals(64, locks.size());
+		final UID uid = new UID();
+		assertSame(locks.get(uid), locks.get(new UID(uid.toString())));
+		final Set<Object> used = new HashSet<>();
+		for (int i = 0; i < 1000; i++) {
+			used.add(locks.get(new UID()));
+		}
+		assertTrue(used.size() > locks.size() / 2);
+	}
+
+	/**
+	 * This completes running replicas of replicated works from concurrent
+	 * workers, through DBInterface#addWork() on an in memory HSQLDB, and
+	 * checks that each replicated work gets exactly its expected amount of
+	 * replicas, in DB. This is skipped if HSQLDB is not in the class path
+	 */
+	@Test
+	public void replicas() throws Exception {
+		final DBConnPoolThread pool = TestDatabase.getPool();
+		assumeNotNull(pool);
+		final XWConfigurator config = TestDatabase.getConfig();
+		if (Dispatcher.getConfig() == null) {
+			Dispatcher.setConfig(config);
+		}
+		final DBInterface db = (DBInterface.getInstance() == null ? new DBInterface(config)
+				: DBInterface.getInstance());
+
+		final int works = 10;
+		final int running = 20;
+		final int expected = 30;
+		final String run = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+		final UserInterface admin = new UserInterface();
+		admin.setUID(new UID());
+		admin.setOwner(admin.getUID());
+		admin.setLogin("replicasadmin_" + run);
+		admin.setPassword(run);
+		admin.setRights(UserRightEnum.SUPER_USER);
+		admin.setEMail("unknown");
+		pool.insert(admin);
+		final UserInterface worker = new UserInterface();
+		worker.setUID(new UID());
+		worker.setOwner(admin.getUID());
+		worker.setLogin("replicasworker_" + run);
+		worker.setPassword(run);
+		worker.setRights(UserRightEnum.WORKER_USER);
+		worker.setEMail("unknown");
+		pool.insert(worker);
+
+		final AppInterface app = new AppInterface(new UID());
+		app.setOwner(admin.getUID());
+		app.setName("replicasapp_" + run);
+		app.setType(AppTypeEnum.DEPLOYABLE);
+		pool.insert(app);
+
+		final Vector<HostInterface> hosts = new Vector<>();
+		final Vector<WorkInterface> replicas = new Vector<>();
+		final Vector<UID> originals = new Vector<>();
+		for (int i = 0; i < works; i++) {
+			final WorkInterface original = new WorkInterface();
+			original.setUID(new UID());
+			original.setOwner(admin.getUID());
+			original.setApplication(app.getUID());
+			original.setExpectedReplications(expected);
+			original.setTotalReplica(running);
+			original.setReplicating();
+			pool.insert(original);
+			originals.add(original.getUID());
+			for (int r = 0; r < running; r++) {
+				final HostInterface host = new HostInterface();
+				host.setUID(new UID());
+				host.setOwner(worker.getUID());
+				host.setName("replicashost_" + run + "_" + hosts.size());
+				host.setCpu(CPUEnum.AMD64);
+				host.setOs(OSEnum.LINUX);
+				host.setVersion(CommonVersion.getCurrent().toString());
+				pool.insert(host);
+				hosts.add(host);
+				final WorkInterface replica = new WorkInterface(original);
+				replica.setUID(new UID());
+				replica.replicate(original.getUID());
+				replica.setTotalReplica(0);
+				replica.setReplicaSetSize(0);
+				replica.setExpectedReplications(0);
+				replica.setRunning();
+				pool.insert(replica);
+				final TaskInterface task = new TaskInterface(replica, false);
+				task.setRunningBy(host.getUID());
+				pool.insert(task);
+				replicas.add(replica);
+			}
+		}
+		pool.flush();
+
+		final AtomicInteger failures = new AtomicInteger();
+		final ExecutorService executor = Executors.newFixedThreadPool(16);
+		for (int i = 0; i < replicas.size(); i++) {
+			final WorkInterface job = new WorkInterface(replicas.get(i));
+			final HostInterface host = hosts.get(i);
+			job.setCompleted();
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						db.addWork(worker, host, job);
+					} catch (final Throwable e) {
+						e.printStackTrace();
+						failures.incrementAndGet();
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+		pool.flush();
+
+		assertEquals(0, failures.get());
+		for (final UID uid : originals) {
+			final Collection<WorkInterface> created = pool.select(new WorkInterface(),
+					"maintable.replicatedUID='" + uid + "'", expected * 2, false);
+			assertEquals(expected, created.size());
+			final Collection<WorkInterface> original = pool.select(new WorkInterface(),
+					"maintable.uid='" + uid + "'", 1, false);
+			assertEquals(1, original.size());
+			assertEquals(expected, original.iterator().next().getTotalReplica());
+			assertEquals(StatusEnum.COMPLETED, original.iterator().next().getStatus());
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package xtremweb.dispatcher;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ * 
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+
+import org.junit.Test;
+
+import xtremweb.common.UID;
+
+/**
+ * This tests the task lease timer wheel
+ *
+ * @since 10.6.0
+ */
+
+public class TaskLeaseWheelTest {
+
+	@Test
+	public void expire() {
+		final TaskLeaseWheel wheel = new TaskLeaseWheel(1000L, 0L);
+		final UID short1 = new UID();
+		final UID long1 = new UID();
+		wheel.renew(short1, 10 * 1000L);
+		wheel.renew(long1, 5000 * 1000L);
+
+		assertTrue(wheel.expire(9 * 1000L).isEmpty());
+		final Collection<UID> expired = wheel.expire(10 * 1000L);
+		assertEquals(1, expired.size());
+		assertTrue(expired.contains(short1));
+		assertFalse(wheel.contains(short1));
+
+		assertTrue(wheel.expire(4999 * 1000L).isEmpty());
+		assertTrue(wheel.expire(5000 * 1000L).contains(long1));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	public void renewAndCancel() {
+		final TaskLeaseWheel wheel = new TaskLeaseWheel(1000L, 0L);
+		final UID uid1 = new UID();
+		final UID uid2 = new UID();
+		wheel.renew(uid1, 100 * 1000L);
+		wheel.renew(uid2, 100 * 1000L);
+		wheel.renew(uid1, 300 * 1000L);
+		assertTrue(wheel.cancel(uid2));
+		assertFalse(wheel.cancel(uid2));
+
+		assertTrue(wheel.expire(200 * 1000L).isEmpty());
+		assertTrue(wheel.expire(300 * 1000L).contains(uid1));
+	}
+
+	@Test
+	public void overdue() {
+		final TaskLeaseWheel wheel = new TaskLeaseWheel(1000L, 100 * 1000L);
+		final UID uid = new UID();
+		wheel.renew(uid, 50 * 1000L);
+		assertTrue(wheel.expire(100 * 1000L).contains(uid));
+	}
+}
@@ -0,0 +1,204 @@
+package xtremweb.dispatcher;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ * 
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+import xtremweb.common.HostInterface;
+import xtremweb.common.UserInterface;
+import xtremweb.common.WorkInterface;
+
+/**
+ * This tests that concurrent work requests are gathered into rounds
+ *
+ * @since 10.6.0
+ */
+
+public class WorkRequestBatcherTest {
+
+	/**
+	 * This scheduler provides a new work to each request, except to the ones
+	 * without user
+	 */
+	private static class RoundScheduler extends Scheduler {
+		private int rounds = 0;
+
+		@Override
+		public Collection<WorkInterface> retrieve() {
+			return null;
+		}
+
+		@Override
+		public WorkInterface select(final HostInterface host, final UserInterface user) throws IOException {
+			if (user == null) {
+				throw new IOException("no user");
+			}
+			return new WorkInterface();
+		}
+
+		@Override
+		public void select(final Collection<WorkRequest> requests) {
+			synchronized (this) {
+				rounds++;
+			}
+			super.select(requests);
+		}
+
+		private synchronized int getRounds() {
+			return rounds;
+		}
+	}
+
+	@Test
+	public void rounds() throws Exception {
+		final Scheduler previous = Dispatcher.getScheduler();
+		final RoundScheduler scheduler = new RoundScheduler();
+		Dispatcher.setScheduler(scheduler);
+		try {
+			final WorkRequestBatcher batcher = new WorkRequestBatcher(200L);
+			batcher.start();
+
+			final ExecutorService pool = Executors.newFixedThreadPool(50);
+			final Vector<Future<WorkInterface>> results = new Vector<>();
+			for (int i = 0; i < 50; i++) {
+				results.add(pool.submit(new Callable<WorkInterface>() {
+					@Override
+					public WorkInterface call() throws IOException {
+						return batcher.select(new HostInterface(), new UserInterface(), null);
+					}
+				}));
+			}
+			for (final Future<WorkInterface> result : results) {
+				assertNotNull(result.get());
+			}
+			pool.shutdown();
+			assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+			assertEquals(batcher.getRounds(), scheduler.getRounds());
+			assertTrue(scheduler.getRounds() < 50);
+			batcher.interrupt();
+		} finally {
+			Dispatcher.setScheduler(previous);
+		}
+	}
+
+	@Test
+	public void abandoned() throws Exception {
+		final WorkRequest request = new WorkRequest(new HostInterface(), new UserInterface(), null);
+		TimeoutException te = null;
+		try {
+			request.get(10L);
+		} catch (final TimeoutException e) {
+			te = e;
+		}
+		assertNotNull(te);
+		assertFalse(request.take());
+
+		final WorkRequest taken = new WorkRequest(new HostInterface(), new UserInterface(), null);
+		assertTrue(taken.take());
+		IOException ioe = null;
+		try {
+			taken.get(10L);
+		} catch (final IOException e) {
+			ioe = e;
+		}
+		assertNotNull(ioe);
+		assertFalse(taken.complete(new WorkInterface()));
+
+		final WorkRequest done = new WorkRequest(new HostInterface(), new UserInterface(), null);
+		assertTrue(done.take());
+		assertTrue(done.complete(null));
+		assertEquals(null, done.get(10L));
+	}
+
+	@Test
+	public void stopped() throws Exception {
+		final Scheduler previous = Dispatcher.getScheduler();
+		final RoundScheduler scheduler = new RoundScheduler();
+		Dispatcher.setScheduler(scheduler);
+		try {
+			final WorkRequestBatcher batcher = new WorkRequestBatcher(10000L);
+			batcher.start();
+			final ExecutorService pool = Executors.newSingleThreadExecutor();
+			final Future<WorkInterface> result = pool.submit(new Callable<WorkInterface>() {
+				@Override
+				public WorkInterface call() throws IOException {
+					return batcher.select(new HostInterface(), new UserInterface(), null);
+				}
+			});
+			Thread.sleep(100L);
+			batcher.interrupt();
+			batcher.join(1000L);
+			assertFalse(batcher.isAlive());
+			Exception failure = null;
+			try {
+				result.get(1, TimeUnit.SECONDS);
+			} catch (final Exception e) {
+				failure = e;
+			}
+			assertNotNull(failure);
+			pool.shutdown();
+
+			assertNotNull(batcher.select(new HostInterface(), new UserInterface(), null));
+			assertEquals(0, scheduler.getRounds());
+		} finally {
+			Dispatcher.setScheduler(previous);
+		}
+	}
+
+	@Test
+	public void error() throws Exception {
+		final Scheduler previous = Dispatcher.getScheduler();
+		Dispatcher.setScheduler(new RoundScheduler());
+		try {
+			final WorkRequestBatcher batcher = new WorkRequestBatcher(1L);
+			batcher.start();
+			IOException ioe = null;
+			try {
+				batcher.select(new HostInterface(), null, null);
+			} catch (final IOException e) {
+				ioe = e;
+			}
+			assertNotNull(ioe);
+			batcher.interrupt();
+		} finally {
+			Dispatcher.setScheduler(previous);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package xtremweb.dispatcher;
+
+/*
+ * Copyrights     : CNRS
+ * Author         : Oleg Lodygensky
+ * Acknowledgment : XtremWeb-HEP is based on XtremWeb 1.8.0 by inria : http://www.xtremweb.net/
+ * Web            : http://www.xtremweb-hep.org
+ * 
+ *      This file is part of XtremWeb-HEP.
+ *
+ *    XtremWeb-HEP is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    XtremWeb-HEP is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with XtremWeb-HEP.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import xtremweb.common.StatusEnum;
+import xtremweb.common.UID;
+
+/**
+ * This tests in memory works counts
+ *
+ * @since 10.6.0
+ */
+
+public class WorksCountsTest {
+
+	@Test
+	public void changes() {
+		final WorksCounts counts = new WorksCounts();
+		final UID alice = new UID();
+		final UID bob = new UID();
+		counts.changed(alice, null, StatusEnum.PENDING);
+		counts.changed(alice, null, StatusEnum.PENDING);
+		counts.changed(bob, null, StatusEnum.PENDING);
+		counts.changed(alice, StatusEnum.PENDING, StatusEnum.RUNNING);
+		counts.changed(alice, StatusEnum.RUNNING, StatusEnum.COMPLETED);
+		counts.changed(bob, StatusEnum.PENDING, null);
+
+		assertEquals(1, counts.count(StatusEnum.PENDING));
+		assertEquals(0, counts.count(StatusEnum.RUNNING));
+		assertEquals(1, counts.count(StatusEnum.COMPLETED));
+		assertEquals(1, counts.count(alice, StatusEnum.PENDING));
+		assertEquals(0, counts.count(bob, StatusEnum.PENDING));
+	}
+
+	@Test
+	public void reconcile() {
+		final WorksCounts counts = new WorksCounts();
+		final UID alice = new UID();
+		counts.changed(alice, null, StatusEnum.PENDING);
+
+		counts.reconciling();
+		final Map<UID, long[]> read = new HashMap<>();
+		final long[] c = new long[StatusEnum.values().length];
+		c[StatusEnum.PENDING.ordinal()] = 5;
+		read.put(alice, c);
+		counts.changed(alice, StatusEnum.PENDING, StatusEnum.RUNNING);
+		counts.reconciled(read);
+
+		assertEquals(4, counts.count(StatusEnum.PENDING));
+		assertEquals(1, counts.count(alice, StatusEnum.RUNNING));
+		assertEquals(1, counts.getReconciliations());
+
+		counts.changed(alice, StatusEnum.RUNNING, StatusEnum.COMPLETED);
+		assertEquals(0, counts.count(StatusEnum.RUNNING));
+		assertEquals(1, counts.count(StatusEnum.COMPLETED));
+	}
+}